@@ -0,0 +1,32 @@
+package ch.epfl.javelo;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Lance les bancs d'essai JMH de JaVelo avec le profileur du ramasse-miettes,
+ * qui ajoute le taux d'allocation (gc.alloc.rate.norm, en octets par
+ * opération) au débit et aux percentiles de latence mesurés par chaque banc.
+ * <p>
+ * Le premier argument, optionnel, est une expression régulière restreignant
+ * les bancs exécutés (p. ex. RouteComputerBenchmark) ; les résultats sont
+ * écrits dans le fichier jmh-result.json pour pouvoir être comparés d'une
+ * optimisation à l'autre.
+ */
+public final class JaVeloBenchmarks {
+    private JaVeloBenchmarks() {}
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : "ch\\.epfl\\.javelo\\..*Benchmark")
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("jmh-result.json")
+                .build();
+        new Runner(options).run();
+    }
+}
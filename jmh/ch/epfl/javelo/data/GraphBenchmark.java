@@ -0,0 +1,97 @@
+package ch.epfl.javelo.data;
+
+import ch.epfl.javelo.projection.PointCh;
+import org.openjdk.jmh.annotations.*;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mesure Graph.nodeClosestTo pour des points tirés uniformément dans le
+ * rectangle englobant les noeuds du graphe, avec la distance de recherche
+ * utilisée par l'interface graphique, en cherchant dans les secteurs
+ * (sectors.bin) ou dans l'arbre k-d des noeuds projeté en mémoire, ainsi que
+ * les requêtes des k plus proches noeuds et par rayon de l'arbre.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class GraphBenchmark {
+    private static final int POINT_COUNT = 1024;
+    private static final double SEARCH_DISTANCE = 500;
+    private static final int NEAREST_COUNT = 8;
+
+    /**
+     * Index utilisé par Graph.nodeClosestTo.
+     */
+    public enum NodeIndex { SECTORS, NODE_TREE }
+
+    @Param({"lausanne", "javelo-data"})
+    public String graphDirectory;
+
+    @Param({"SECTORS", "NODE_TREE"})
+    public NodeIndex nodeIndex;
+
+    private Graph graph;
+    private NodeTree nodeTree;
+    private final int[] nearestNodeIds = new int[NEAREST_COUNT];
+    private final double[] nearestSquaredDistances = new double[NEAREST_COUNT];
+    private PointCh[] points;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Path basePath = Path.of(graphDirectory);
+        graph = Graph.loadFrom(basePath);
+        // L'arbre est lu depuis son fichier s'il existe, afin de mesurer la
+        // version projetée en mémoire
+        Path treePath = NodeTree.filePath(basePath);
+        if (Files.notExists(treePath))
+            NodeTree.of(graph).writeTo(treePath);
+        nodeTree = NodeTree.loadFrom(treePath, graph);
+        if (nodeIndex == NodeIndex.NODE_TREE)
+            graph = graph.withNodeTree(nodeTree);
+        double minE = Double.POSITIVE_INFINITY, maxE = Double.NEGATIVE_INFINITY;
+        double minN = Double.POSITIVE_INFINITY, maxN = Double.NEGATIVE_INFINITY;
+        for (int nodeId = 0; nodeId < graph.nodeCount(); nodeId++) {
+            minE = Math.min(minE, graph.nodeE(nodeId));
+            maxE = Math.max(maxE, graph.nodeE(nodeId));
+            minN = Math.min(minN, graph.nodeN(nodeId));
+            maxN = Math.max(maxN, graph.nodeN(nodeId));
+        }
+        SplittableRandom rng = new SplittableRandom(2022);
+        points = new PointCh[POINT_COUNT];
+        for (int i = 0; i < POINT_COUNT; i++)
+            points[i] = new PointCh(rng.nextDouble(minE, maxE), rng.nextDouble(minN, maxN));
+    }
+
+    @Benchmark
+    public int nodeClosestTo() {
+        PointCh point = points[next];
+        next = (next + 1) % POINT_COUNT;
+        return graph.nodeClosestTo(point, SEARCH_DISTANCE);
+    }
+
+    @Benchmark
+    public int nodesClosestTo() {
+        PointCh point = points[next];
+        next = (next + 1) % POINT_COUNT;
+        return nodeTree.nodesClosestTo(point, SEARCH_DISTANCE,
+                nearestNodeIds, nearestSquaredDistances);
+    }
+
+    @Benchmark
+    public int nodesWithin(Blackhole blackhole) {
+        PointCh point = points[next];
+        next = (next + 1) % POINT_COUNT;
+        return nodeTree.nodesWithin(point, SEARCH_DISTANCE, blackhole::consume);
+    }
+}
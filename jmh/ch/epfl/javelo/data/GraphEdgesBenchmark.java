@@ -0,0 +1,90 @@
+package ch.epfl.javelo.data;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import static ch.epfl.javelo.data.BinaryFiles.mappedBuffer;
+
+/**
+ * Mesure GraphEdges.profileSamples séparément pour chaque type de profil
+ * (absent, non compressé, compressé en Q4.4 et en Q0.4), sur des arêtes de ce
+ * type tirées au hasard, en le comparant au décodeur de référence et à la
+ * variante écrivant dans un tableau réutilisé.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class GraphEdgesBenchmark {
+    private static final int EDGE_COUNT = 4096;
+
+    /**
+     * Types de profil, dans l'ordre de leur encodage dans profile_ids.bin.
+     */
+    public enum ProfileType { NONE, UNCOMPRESSED, Q4_4, Q0_4 }
+
+    @Param({"lausanne", "javelo-data"})
+    public String graphDirectory;
+
+    @Param({"NONE", "UNCOMPRESSED", "Q4_4", "Q0_4"})
+    public ProfileType profileType;
+
+    private GraphEdges edges;
+    private float[] buffer;
+    private int[] edgeIds;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Path basePath = Path.of(graphDirectory);
+        IntBuffer profileIds = mappedBuffer(basePath.resolve("profile_ids.bin")).asIntBuffer();
+        edges = new GraphEdges(
+                mappedBuffer(basePath.resolve("edges.bin")),
+                profileIds,
+                mappedBuffer(basePath.resolve("elevations.bin")).asShortBuffer());
+
+        int[] candidates = new int[profileIds.capacity()];
+        int candidateCount = 0;
+        for (int edgeId = 0; edgeId < profileIds.capacity(); edgeId++) {
+            if (profileIds.get(edgeId) >>> 30 == profileType.ordinal())
+                candidates[candidateCount++] = edgeId;
+        }
+        if (candidateCount == 0)
+            throw new IllegalStateException("Aucune arête de profil " + profileType);
+
+        buffer = new float[1 << 12];
+        SplittableRandom rng = new SplittableRandom(2022);
+        edgeIds = new int[EDGE_COUNT];
+        for (int i = 0; i < EDGE_COUNT; i++)
+            edgeIds[i] = candidates[rng.nextInt(candidateCount)];
+    }
+
+    @Benchmark
+    public float[] profileSamples() {
+        int edgeId = edgeIds[next];
+        next = (next + 1) % EDGE_COUNT;
+        return edges.profileSamples(edgeId);
+    }
+
+    @Benchmark
+    public float[] referenceProfileSamples() {
+        int edgeId = edgeIds[next];
+        next = (next + 1) % EDGE_COUNT;
+        return ReferenceProfileDecoder.profileSamples(edges, edgeId);
+    }
+
+    @Benchmark
+    public float profileSamplesIntoBuffer() {
+        int edgeId = edgeIds[next];
+        next = (next + 1) % EDGE_COUNT;
+        int count = edges.profileSamples(edgeId, buffer, 0);
+        return count == 0 ? 0 : buffer[count - 1];
+    }
+}
@@ -0,0 +1,93 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.data.AttributeSet;
+import ch.epfl.javelo.data.Graph;
+import ch.epfl.javelo.data.GraphEdges;
+import ch.epfl.javelo.data.GraphNodes;
+import ch.epfl.javelo.data.GraphSectors;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.LongBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import static ch.epfl.javelo.data.BinaryFiles.mappedBuffer;
+
+/**
+ * Compare les deux représentations des ensembles d'attributs du graphe :
+ * liste d'ensembles décodés d'avance passée au constructeur de Graph, ou
+ * ensembles lus sans copie dans attributes.bin par Graph.loadFrom et décodés
+ * au premier appel de edgeAttributes. relaxEdges mesure le débit de
+ * relaxation des arêtes sortant de noeuds tirés aléatoirement, le facteur de
+ * coût étant calculé par CityBikeCF à partir des attributs de chaque arête.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class AttributeSetBenchmark {
+    private static final int NODE_COUNT = 4096;
+    private static final long SEED = 2022;
+
+    /**
+     * Représentation des ensembles d'attributs du graphe.
+     */
+    public enum AttributeBackend { DECODED, MAPPED }
+
+    @Param({"lausanne", "javelo-data"})
+    public String graphDirectory;
+
+    @Param({"DECODED", "MAPPED"})
+    public AttributeBackend attributeBackend;
+
+    private Graph graph;
+    private CostFunction costFunction;
+    private int[] nodeIds;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Path basePath = Path.of(graphDirectory);
+        graph = attributeBackend == AttributeBackend.DECODED
+                ? decodedGraph(basePath)
+                : Graph.loadFrom(basePath);
+        costFunction = new CityBikeCF(graph);
+        nodeIds = new SplittableRandom(SEED).ints(NODE_COUNT, 0, graph.nodeCount()).toArray();
+    }
+
+    // Retourne le graphe du répertoire donné, construit avec la liste de ses
+    // ensembles d'attributs décodés d'avance
+    private static Graph decodedGraph(Path basePath) throws IOException {
+        GraphNodes nodes = new GraphNodes(mappedBuffer(basePath.resolve("nodes.bin")).asIntBuffer());
+        GraphSectors sectors = new GraphSectors(mappedBuffer(basePath.resolve("sectors.bin")));
+        GraphEdges edges = new GraphEdges(mappedBuffer(basePath.resolve("edges.bin")),
+                mappedBuffer(basePath.resolve("profile_ids.bin")).asIntBuffer(),
+                mappedBuffer(basePath.resolve("elevations.bin")).asShortBuffer());
+        LongBuffer attributes = mappedBuffer(basePath.resolve("attributes.bin")).asLongBuffer();
+        List<AttributeSet> attributeSets = new ArrayList<>(attributes.capacity());
+        for (int i = 0; i < attributes.capacity(); i++)
+            attributeSets.add(new AttributeSet(attributes.get(i)));
+        return new Graph(nodes, sectors, edges, attributeSets);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NODE_COUNT)
+    public double relaxEdges() {
+        double total = 0;
+        for (int nodeId : nodeIds) {
+            for (int i = 0; i < graph.nodeOutDegree(nodeId); i++) {
+                int edgeId = graph.nodeOutEdgeId(nodeId, i);
+                double cost = graph.edgeLength(edgeId) * costFunction.costFactor(nodeId, edgeId);
+                if (cost == Double.POSITIVE_INFINITY)
+                    continue;
+                total += cost + graph.edgeTargetNodeId(edgeId);
+            }
+        }
+        return total;
+    }
+}
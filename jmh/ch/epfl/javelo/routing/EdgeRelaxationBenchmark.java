@@ -0,0 +1,99 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.data.Graph;
+import ch.epfl.javelo.data.GraphArena;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare les trois représentations des arêtes du graphe : enregistrements
+ * entrelacés de edges.bin projetés en mémoire, tableaux séparés obtenus par
+ * Graph.withEdgeArrays, ou enregistrements lus dans les segments d'une arène
+ * par Graph.loadFrom(Path, GraphArena). relaxEdges mesure le débit de relaxation des arêtes
+ * sortant de noeuds tirés aléatoirement (destination, longueur, sens et
+ * facteur de coût), bestRouteBetween une recherche d'itinéraire complète.
+ * Les facteurs de coût sont lus dans une table, afin que leur calcul ne
+ * masque pas le coût de la lecture des arêtes.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class EdgeRelaxationBenchmark {
+    private static final int NODE_COUNT = 4096;
+    private static final int PAIR_COUNT = 64;
+    private static final long SEED = 2022;
+
+    /**
+     * Représentation des arêtes du graphe.
+     */
+    public enum EdgeBackend { BUFFER, ARRAYS, SEGMENTS }
+
+    @Param({"lausanne", "javelo-data"})
+    public String graphDirectory;
+
+    @Param({"BUFFER", "ARRAYS", "SEGMENTS"})
+    public EdgeBackend edgeBackend;
+
+    private GraphArena arena;
+    private Graph graph;
+    private CostFunction costFunction;
+    private RouteComputer routeComputer;
+    private int[] nodeIds;
+    private int[] pairs;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        if (edgeBackend == EdgeBackend.SEGMENTS) {
+            arena = new GraphArena();
+            graph = Graph.loadFrom(Path.of(graphDirectory), arena);
+        } else {
+            graph = Graph.loadFrom(Path.of(graphDirectory));
+            if (edgeBackend == EdgeBackend.ARRAYS)
+                graph = graph.withEdgeArrays();
+        }
+        costFunction = CostFactorTable.of(graph, new CityBikeCF(graph));
+        routeComputer = new RouteComputer(graph, costFunction);
+        SplittableRandom rng = new SplittableRandom(SEED);
+        nodeIds = rng.ints(NODE_COUNT, 0, graph.nodeCount()).toArray();
+        pairs = RouteComputerBenchmark.pairs(graph, RouteComputerBenchmark.Distance.MEDIUM,
+                PAIR_COUNT, SEED);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (arena != null)
+            arena.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NODE_COUNT)
+    public double relaxEdges() {
+        double total = 0;
+        for (int nodeId : nodeIds) {
+            for (int i = 0; i < graph.nodeOutDegree(nodeId); i++) {
+                int edgeId = graph.nodeOutEdgeId(nodeId, i);
+                int targetNodeId = graph.edgeTargetNodeId(edgeId);
+                double cost = graph.edgeLength(edgeId) * costFunction.costFactor(nodeId, edgeId);
+                if (cost == Double.POSITIVE_INFINITY)
+                    continue;
+                total += (graph.edgeIsInverted(edgeId) ? -cost : cost) + targetNodeId;
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public Route bestRouteBetween() {
+        int i = next;
+        next = (i + 2) % pairs.length;
+        return routeComputer.bestRouteBetween(pairs[i], pairs[i + 1]);
+    }
+}
@@ -0,0 +1,66 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.data.Graph;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mesure ElevationProfileComputer.elevationProfile sur des itinéraires de
+ * longueur moyenne, avec le pas d'échantillonnage utilisé par l'interface
+ * graphique, avec et sans tableau de travail réutilisé.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class ElevationProfileComputerBenchmark {
+    private static final int ROUTE_COUNT = 32;
+    private static final double MAX_STEP_LENGTH = 5;
+
+    @Param({"lausanne", "javelo-data"})
+    public String graphDirectory;
+
+    private List<Route> routes;
+    private float[] buffer;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Graph graph = Graph.loadFrom(Path.of(graphDirectory));
+        RouteComputer routeComputer = new RouteComputer(graph, new CityBikeCF(graph));
+        int[] pairs = RouteComputerBenchmark.pairs(graph,
+                RouteComputerBenchmark.Distance.MEDIUM, 4 * ROUTE_COUNT, 2022);
+        routes = new ArrayList<>();
+        for (int i = 0; i < pairs.length && routes.size() < ROUTE_COUNT; i += 2) {
+            Route route = routeComputer.bestRouteBetween(pairs[i], pairs[i + 1]);
+            if (route != null)
+                routes.add(route);
+        }
+        int maxSampleCount = 0;
+        for (Route route : routes)
+            maxSampleCount = Math.max(maxSampleCount,
+                    ElevationProfileComputer.sampleCount(route, MAX_STEP_LENGTH));
+        buffer = new float[maxSampleCount];
+    }
+
+    @Benchmark
+    public ElevationProfile elevationProfile() {
+        Route route = routes.get(next);
+        next = (next + 1) % routes.size();
+        return ElevationProfileComputer.elevationProfile(route, MAX_STEP_LENGTH);
+    }
+
+    @Benchmark
+    public ElevationProfile elevationProfileWithBuffer() {
+        Route route = routes.get(next);
+        next = (next + 1) % routes.size();
+        return ElevationProfileComputer.elevationProfile(route, MAX_STEP_LENGTH, buffer);
+    }
+}
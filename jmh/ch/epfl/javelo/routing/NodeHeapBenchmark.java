@@ -0,0 +1,113 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.data.Graph;
+import ch.epfl.javelo.projection.PointCh;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare la recherche A* de RouteComputer, qui utilise NodeHeap, à
+ * l'ancienne recherche utilisant une PriorityQueue d'enregistrements, sur les
+ * mêmes paires de noeuds tirées aléatoirement.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class NodeHeapBenchmark {
+    private static final int PAIR_COUNT = 64;
+    private static final long SEED = 2022;
+
+    @Param({"lausanne", "javelo-data"})
+    public String graphDirectory;
+
+    private Graph graph;
+    private CostFunction costFunction;
+    private RouteComputer routeComputer;
+    private int[] pairs;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        graph = Graph.loadFrom(Path.of(graphDirectory));
+        costFunction = new CityBikeCF(graph);
+        routeComputer = new RouteComputer(graph, costFunction);
+        SplittableRandom rng = new SplittableRandom(SEED);
+        pairs = new int[2 * PAIR_COUNT];
+        for (int i = 0; i < pairs.length; i += 2) {
+            pairs[i] = rng.nextInt(graph.nodeCount());
+            do {
+                pairs[i + 1] = rng.nextInt(graph.nodeCount());
+            } while (pairs[i + 1] == pairs[i]);
+        }
+    }
+
+    @Benchmark
+    public Route nodeHeap() {
+        int i = nextPair();
+        return routeComputer.bestRouteBetween(pairs[i], pairs[i + 1]);
+    }
+
+    @Benchmark
+    public float priorityQueue() {
+        int i = nextPair();
+        return priorityQueueSearch(graph, costFunction, pairs[i], pairs[i + 1]);
+    }
+
+    private int nextPair() {
+        int i = next;
+        next = (i + 2) % pairs.length;
+        return i;
+    }
+
+    // Ancienne version de RouteComputer.bestRouteBetween, qui retourne le coût
+    // du meilleur itinéraire au lieu de l'itinéraire lui-même
+    private static float priorityQueueSearch(Graph graph, CostFunction costFunction,
+                                             int startNodeId, int endNodeId) {
+        record WeightedNode(int nodeId, float distance) implements Comparable<WeightedNode> {
+            @Override
+            public int compareTo(WeightedNode that) {
+                return Float.compare(this.distance, that.distance);
+            }
+        }
+
+        float[] distance = new float[graph.nodeCount()];
+        Arrays.fill(distance, Float.POSITIVE_INFINITY);
+        PointCh endPoint = graph.nodePoint(endNodeId);
+        distance[startNodeId] = (float) endPoint.distanceTo(graph.nodePoint(startNodeId));
+
+        Queue<WeightedNode> discoveredNodes = new PriorityQueue<>();
+        discoveredNodes.add(new WeightedNode(startNodeId, distance[startNodeId]));
+
+        while (!discoveredNodes.isEmpty()) {
+            int nodeId = discoveredNodes.remove().nodeId();
+            if (distance[nodeId] == Float.NEGATIVE_INFINITY)
+                continue;
+            if (nodeId == endNodeId)
+                return distance[nodeId];
+
+            for (int i = 0; i < graph.nodeOutDegree(nodeId); i++) {
+                int edgeId = graph.nodeOutEdgeId(nodeId, i);
+                int targetNodeId = graph.edgeTargetNodeId(edgeId);
+                double newDistance = distance[nodeId]
+                        + graph.edgeLength(edgeId) * costFunction.costFactor(nodeId, edgeId);
+                if (newDistance < distance[targetNodeId]) {
+                    distance[targetNodeId] = (float) newDistance;
+                    discoveredNodes.add(new WeightedNode(targetNodeId, (float) (newDistance
+                            + endPoint.distanceTo(graph.nodePoint(targetNodeId)))));
+                }
+            }
+            distance[nodeId] = Float.NEGATIVE_INFINITY;
+        }
+        return Float.POSITIVE_INFINITY;
+    }
+}
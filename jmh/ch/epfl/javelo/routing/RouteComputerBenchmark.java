@@ -0,0 +1,176 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.data.Graph;
+import ch.epfl.javelo.data.NodeRenumbering;
+import ch.epfl.javelo.projection.PointCh;
+import ch.epfl.javelo.projection.SwissBounds;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Mesure RouteComputer.bestRouteBetween sur des paires de noeuds courtes,
+ * moyennes et traversant le pays, choisies d'après leur distance à vol
+ * d'oiseau. Le mode SampleTime donne les percentiles de latence.
+ * <p>
+ * Le graphe est utilisé tel quel ou après renumérotation de ses noeuds le
+ * long d'une courbe de Hilbert (NodeRenumbering), les mêmes paires étant
+ * recherchées dans les deux cas.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class RouteComputerBenchmark {
+    private static final int PAIR_COUNT = 64;
+    private static final long SEED = 2022;
+
+    /**
+     * Classes de distance à vol d'oiseau des paires de noeuds, en mètres.
+     * Sur un graphe trop petit pour une classe, les paires les plus éloignées
+     * trouvées sont utilisées ; si aucune paire n'est assez proche, la mise
+     * en place du banc échoue.
+     */
+    public enum Distance {
+        SHORT(500, 2_000),
+        MEDIUM(5_000, 20_000),
+        CROSS_COUNTRY(100_000, Double.POSITIVE_INFINITY);
+
+        final double min;
+        final double max;
+
+        Distance(double min, double max) {
+            this.min = min;
+            this.max = max;
+        }
+    }
+
+    @Param({"lausanne", "javelo-data"})
+    public String graphDirectory;
+
+    @Param({"SHORT", "MEDIUM", "CROSS_COUNTRY"})
+    public Distance distance;
+
+    /**
+     * Numérotation des noeuds du graphe.
+     */
+    public enum Numbering { ORIGINAL, HILBERT }
+
+    @Param({"ORIGINAL", "HILBERT"})
+    public Numbering numbering;
+
+    private RouteComputer routeComputer;
+    private int[] pairs;
+    private int next;
+    private Path renumberedPath;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Graph graph = Graph.loadFrom(Path.of(graphDirectory));
+        pairs = pairs(graph, distance, PAIR_COUNT, SEED);
+        if (numbering == Numbering.HILBERT) {
+            renumberedPath = Files.createTempDirectory("javelo-hilbert");
+            int[] newIds = NodeRenumbering.renumber(Path.of(graphDirectory), renumberedPath);
+            for (int i = 0; i < pairs.length; i++)
+                pairs[i] = newIds[pairs[i]];
+            graph = Graph.loadFrom(renumberedPath);
+        }
+        routeComputer = new RouteComputer(graph, new CityBikeCF(graph));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (renumberedPath == null)
+            return;
+        try (Stream<Path> paths = Files.walk(renumberedPath)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList())
+                Files.delete(path);
+        }
+    }
+
+    @Benchmark
+    public Route bestRouteBetween() {
+        int i = next;
+        next = (i + 2) % pairs.length;
+        return routeComputer.bestRouteBetween(pairs[i], pairs[i + 1]);
+    }
+
+    /**
+     * Retourne, à plat, le nombre donné de paires de noeuds reliés au graphe
+     * dont la distance à vol d'oiseau appartient à la classe donnée. Pour les
+     * classes bornées, le noeud d'arrivée est cherché autour d'un point tiré
+     * à une distance de la classe du noeud de départ, un tirage uniforme
+     * trouvant rarement des paires proches dans un grand graphe.
+     *
+     * @throws IllegalStateException si aucune paire de noeuds distincts n'est
+     * assez proche pour la classe donnée
+     */
+    static int[] pairs(Graph graph, Distance distance, int count, long seed) {
+        SplittableRandom rng = new SplittableRandom(seed);
+        int[] pairs = new int[2 * count];
+        for (int i = 0; i < pairs.length; i += 2) {
+            int bestStart = -1, bestEnd = -1;
+            double bestLength = -1;
+            for (int attempt = 0; attempt < 10_000; attempt++) {
+                int start = connectedNode(graph, rng);
+                int end = distance.max == Double.POSITIVE_INFINITY
+                        ? connectedNode(graph, rng)
+                        : connectedNodeNear(graph, start,
+                                rng.nextDouble(distance.min, distance.max), rng);
+                if (end < 0 || start == end)
+                    continue;
+                double length = graph.nodeDistance(start, end);
+                if (distance.min <= length && length <= distance.max) {
+                    bestStart = start;
+                    bestEnd = end;
+                    break;
+                }
+                if (length <= distance.max && length > bestLength) {
+                    bestStart = start;
+                    bestEnd = end;
+                    bestLength = length;
+                }
+            }
+            if (bestStart < 0) {
+                throw new IllegalStateException(String.format(Locale.ROOT,
+                        "aucune paire de noeuds distants de moins de %.0f m trouvée",
+                        distance.max));
+            }
+            pairs[i] = bestStart;
+            pairs[i + 1] = bestEnd;
+        }
+        return pairs;
+    }
+
+    // Retourne un noeud ayant des arêtes sortantes proche d'un point tiré à la
+    // distance donnée du noeud donné, ou -1 s'il n'y en a pas
+    private static int connectedNodeNear(Graph graph, int nodeId, double distance,
+                                         SplittableRandom rng) {
+        double angle = rng.nextDouble(2 * Math.PI);
+        double e = graph.nodeE(nodeId) + distance * Math.cos(angle);
+        double n = graph.nodeN(nodeId) + distance * Math.sin(angle);
+        if (!SwissBounds.containsEN(e, n))
+            return -1;
+        int closestNodeId = graph.nodeClosestTo(new PointCh(e, n), distance / 4);
+        return closestNodeId >= 0 && graph.nodeOutDegree(closestNodeId) > 0
+                ? closestNodeId
+                : -1;
+    }
+
+    private static int connectedNode(Graph graph, SplittableRandom rng) {
+        int nodeId;
+        do {
+            nodeId = rng.nextInt(graph.nodeCount());
+        } while (graph.nodeOutDegree(nodeId) == 0);
+        return nodeId;
+    }
+}
@@ -1,5 +1,6 @@
 package ch.epfl.javelo;
 
+import java.util.Arrays;
 import java.util.function.DoubleUnaryOperator;
 
 /**
@@ -40,7 +41,29 @@ public final class Functions {
      */
     public static DoubleUnaryOperator sampled(float[] samples, double xMax) {
         Preconditions.checkArgument(samples.length >= 2 && xMax > 0);
-        return new Sampled(samples, xMax);
+        return new Sampled(samples.clone(), xMax);
+    }
+
+    /**
+     * Retourne une fonction obtenue par interpolation linéaire entre les count
+     * premiers échantillons de samples, espacés régulièrement sur l'intervalle
+     * allant de 0 à xMax ; les échantillons sont copiés, de sorte que le
+     * tableau peut être réutilisé par l'appelant.
+     *
+     * @param samples le tableau d'échantillons
+     * @param count le nombre d'échantillons à utiliser
+     * @param xMax l'abscisse maximale
+     *
+     * @return une fonction obtenue par interpolation linéaire entre les count
+     * premiers échantillons de samples, espacés régulièrement
+     *
+     * @throws IllegalArgumentException si les échantillons à utiliser ne sont
+     * pas au moins au nombre de deux, si le tableau en contient moins, ou si
+     * l'abscisse maximale est négative
+     */
+    public static DoubleUnaryOperator sampled(float[] samples, int count, double xMax) {
+        Preconditions.checkArgument(2 <= count && count <= samples.length && xMax > 0);
+        return new Sampled(Arrays.copyOf(samples, count), xMax);
     }
 
     private record Constant(double constant) implements DoubleUnaryOperator {
@@ -56,7 +79,7 @@ public final class Functions {
         private final double step;
 
         public Sampled(float[] samples, double xMax) {
-            this.samples = samples.clone();
+            this.samples = samples;
             step = xMax / (samples.length - 1);
         }
 
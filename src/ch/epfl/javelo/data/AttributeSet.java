@@ -24,7 +24,13 @@ public record AttributeSet(long bits) {
      * ne correspondant à aucun attribut valide
      */
     public AttributeSet {
-        Preconditions.checkArgument((bits >>> Attribute.COUNT) == 0L);
+        Preconditions.checkArgument(isValid(bits));
+    }
+
+    // Retourne vrai ssi chaque bit à 1 de la valeur donnée correspond à un
+    // attribut valide
+    static boolean isValid(long bits) {
+        return (bits >>> Attribute.COUNT) == 0L;
     }
 
     /**
@@ -0,0 +1,54 @@
+package ch.epfl.javelo.data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Classe finale et non-instanciable permettant de projeter en mémoire les
+ * fichiers binaires du graphe, et d'écrire ceux qui en sont dérivés.
+ *
+ * @author Tanguy Dieudonné (326618)
+ * @author Nathanaël Girod (329987)
+ */
+public final class BinaryFiles {
+    private BinaryFiles() {}
+
+    /**
+     * Retourne la totalité du fichier donné, projetée en mémoire en lecture seule.
+     *
+     * @param filePath le chemin du fichier
+     *
+     * @return la totalité du fichier donné, projetée en mémoire
+     *
+     * @throws IOException en cas d'erreur d'entrée/sortie, p. ex. si le
+     * fichier n'existe pas
+     */
+    public static MappedByteBuffer mappedBuffer(Path filePath) throws IOException {
+        try (FileChannel channel = FileChannel.open(filePath)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Écrit dans le fichier donné, en le remplaçant s'il existe, les octets
+     * de la mémoire tampon donnée allant de sa position à sa limite. La position
+     * de la mémoire tampon n'est pas modifiée.
+     *
+     * @param filePath le chemin du fichier
+     * @param buffer la mémoire tampon
+     *
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public static void write(Path filePath, ByteBuffer buffer) throws IOException {
+        ByteBuffer toWrite = buffer.duplicate();
+        try (FileChannel channel = FileChannel.open(filePath, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            while (toWrite.hasRemaining())
+                channel.write(toWrite);
+        }
+    }
+}
@@ -1,14 +1,18 @@
 package ch.epfl.javelo.data;
 
 import ch.epfl.javelo.Functions;
+import ch.epfl.javelo.Math2;
+import ch.epfl.javelo.Preconditions;
+import ch.epfl.javelo.Q28_4;
 import ch.epfl.javelo.projection.PointCh;
 
 import java.io.IOException;
 import java.nio.*;
-import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.function.DoubleUnaryOperator;
 
 /**
@@ -18,10 +22,40 @@ import java.util.function.DoubleUnaryOperator;
  * @author Nathanaël Girod (329987)
  */
 public final  class Graph {
+    // Noeuds et arêtes du graphe, null s'ils sont lus dans des segments
     private final GraphNodes nodes;
     private final GraphSectors sectors;
     private final GraphEdges edges;
-    private final List<AttributeSet> attributeSets;
+    // Noeuds, arêtes et profils lus dans les segments d'une arène, ou null
+    // s'ils sont lus dans les mémoires tampon de nodes et edges
+    private final GraphSegments segments;
+    // Contenus des ensembles d'attributs, lus sans copie dans attributes.bin
+    private final LongBuffer attributeBits;
+    // Ensembles d'attributs déjà décodés, un élément valant null tant que
+    // l'ensemble correspondant n'a pas été demandé
+    private final AttributeSet[] attributeSets;
+    // Coordonnées E et N entrelacées de chaque noeud, décodées une fois pour
+    // toutes hors du tas, ou null si elles sont lues dans les noeuds
+    private final DoubleBuffer nodeCoordinates;
+    // Cache des profils décodés des arêtes, ou null si les profils sont
+    // décodés à chaque appel de edgeProfile
+    private final ProfileCache profileCache;
+    // Arbre k-d des noeuds utilisé par nodeClosestTo, ou null si les noeuds
+    // proches sont cherchés dans les secteurs
+    private final NodeTree nodeTree;
+    // Attributs des arêtes copiés dans des tableaux séparés, ou null s'ils
+    // sont lus dans les enregistrements de edges.bin
+    private final GraphEdgeArrays edgeArrays;
+
+    // Nombre maximal d'échantillons d'un profil, la longueur d'une arête
+    // étant un entier non signé de 16 bits en Q28.4
+    private static final int MAX_PROFILE_SAMPLES = 1 + Math2.ceilDiv(0xFFFF, Q28_4.ofInt(2));
+    // Tableau dans lequel chaque fil d'exécution décode les profils
+    private static final ThreadLocal<float[]> PROFILE_BUFFER =
+            ThreadLocal.withInitial(() -> new float[MAX_PROFILE_SAMPLES]);
+    // Recherche du noeud le plus proche propre à chaque fil d'exécution
+    private static final ThreadLocal<ClosestNodeSearch> CLOSEST_NODE_SEARCH =
+            ThreadLocal.withInitial(ClosestNodeSearch::new);
 
     /**
      * Construit le graphe avec les noeuds, secteurs, arêtes et ensembles
@@ -34,69 +68,250 @@ public final  class Graph {
      */
     public Graph (GraphNodes nodes, GraphSectors sectors, GraphEdges edges,
                   List<AttributeSet> attributeSets) {
+        this(nodes, sectors, edges, null,
+                LongBuffer.wrap(attributeSets.stream().mapToLong(AttributeSet::bits).toArray()),
+                attributeSets.toArray(new AttributeSet[0]));
+    }
+
+    private Graph(GraphNodes nodes, GraphSectors sectors, GraphEdges edges,
+                  GraphSegments segments, LongBuffer attributeBits,
+                  AttributeSet[] attributeSets) {
         this.nodes = nodes;
         this.sectors = sectors;
         this.edges = edges;
-        this.attributeSets = List.copyOf(attributeSets);
+        this.segments = segments;
+        this.attributeBits = attributeBits;
+        this.attributeSets = attributeSets;
+        this.nodeCoordinates = null;
+        this.profileCache = null;
+        this.nodeTree = null;
+        this.edgeArrays = null;
+    }
+
+    private Graph(Graph graph, DoubleBuffer nodeCoordinates, ProfileCache profileCache,
+                  NodeTree nodeTree, GraphEdgeArrays edgeArrays) {
+        this.nodes = graph.nodes;
+        this.sectors = graph.sectors;
+        this.edges = graph.edges;
+        this.segments = graph.segments;
+        this.attributeBits = graph.attributeBits;
+        this.attributeSets = graph.attributeSets;
+        this.nodeCoordinates = nodeCoordinates;
+        this.profileCache = profileCache;
+        this.nodeTree = nodeTree;
+        this.edgeArrays = edgeArrays;
     }
 
     /**
      * Retourne le graphe JaVelo obtenu à partir des fichiers se trouvant dans
-     * le répertoire donné.
+     * le répertoire donné, ou dans le conteneur donné (voir GraphContainer).
      *
-     * @param basePath le chemin du répertoire où se trouvent les fichiers
+     * @param basePath le chemin du répertoire où se trouvent les fichiers, ou
+     * celui du conteneur
      *
      * @return retourne le graphe JaVelo obtenu à partir des fichiers se trouvant
-     * dans le répertoire donné
+     * dans le répertoire ou le conteneur donné
      *
      * @throws IOException en cas d'erreur d'entrée/sortie, p. ex. si l'un des
-     * fichiers attendu n'existe pas
+     * fichiers attendu n'existe pas, ou si le conteneur est invalide
+     * @throws IllegalArgumentException si l'un des fichiers fait plus de 2 Go,
+     * taille maximale d'une mémoire tampon (voir loadFrom(Path, GraphArena)),
+     * ou si attributes.bin contient un ensemble d'attributs invalide
      */
     public static Graph loadFrom(Path basePath) throws IOException {
+        if (!Files.isRegularFile(basePath))
+            return loadFrom(basePath, BinaryFiles::mappedBuffer);
+        Map<String, ByteBuffer> sections = GraphContainer.mappedSections(basePath);
+        return loadFrom(basePath, filePath -> {
+            ByteBuffer section = sections.get(filePath.getFileName().toString());
+            if (section == null)
+                throw new NoSuchFileException(filePath.toString());
+            return section;
+        });
+    }
+
+    // Fonction projetant un fichier en mémoire
+    @FunctionalInterface
+    interface FileMapper {
+        ByteBuffer map(Path filePath) throws IOException;
+    }
+
+    // Retourne le graphe dont les fichiers, se trouvant dans le répertoire
+    // donné, sont projetés par la fonction donnée
+    static Graph loadFrom(Path basePath, FileMapper mapper) throws IOException {
 
         Path nodesPath = basePath.resolve("nodes.bin");
-        IntBuffer nodesBuffer = mappedBuffer(nodesPath).asIntBuffer();
+        IntBuffer nodesBuffer = mapper.map(nodesPath).asIntBuffer();
 
         GraphNodes nodes = new GraphNodes(nodesBuffer);
 
 
         Path sectorsPath = basePath.resolve("sectors.bin");
-        ByteBuffer sectorsBuffer = mappedBuffer(sectorsPath);
+        ByteBuffer sectorsBuffer = mapper.map(sectorsPath);
 
         GraphSectors sectors = new GraphSectors(sectorsBuffer);
 
 
         Path edgesPath = basePath.resolve("edges.bin");
-        ByteBuffer edgesBuffer =  mappedBuffer(edgesPath);
+        ByteBuffer edgesBuffer =  mapper.map(edgesPath);
 
         Path profileIdsPath = basePath.resolve("profile_ids.bin");
-        IntBuffer profileIds  = mappedBuffer(profileIdsPath).asIntBuffer();
+        IntBuffer profileIds  = mapper.map(profileIdsPath).asIntBuffer();
 
         Path elevationsPath = basePath.resolve("elevations.bin");
-        ShortBuffer elevations =  mappedBuffer(elevationsPath).asShortBuffer();
+        ShortBuffer elevations =  mapper.map(elevationsPath).asShortBuffer();
 
         GraphEdges edges = new GraphEdges(edgesBuffer, profileIds ,elevations);
 
 
         Path attributesPath = basePath.resolve("attributes.bin");
-        LongBuffer attributes = mappedBuffer(attributesPath).asLongBuffer();
+        LongBuffer attributes = validAttributes(mapper.map(attributesPath).asLongBuffer());
 
-        List<AttributeSet> attributeSets = new ArrayList<>();
+        return new Graph(nodes, sectors, edges, null, attributes,
+                new AttributeSet[attributes.capacity()]);
+    }
 
-        long[] attributeSetsArray =  new long[attributes.capacity()];
-        attributes.get(attributeSetsArray);
+    /**
+     * Retourne le graphe JaVelo obtenu à partir des fichiers se trouvant dans
+     * le répertoire donné, dont les noeuds, les arêtes et les profils sont lus
+     * dans des segments projetés par l'arène donnée, adressés par des
+     * positions de type long. Contrairement à loadFrom(Path), aucun de ces
+     * fichiers n'est limité à 2 Go ; en contrepartie, chaque lecture est
+     * signalée à l'arène, ce qui la rend plus lente.
+     * <p>
+     * Une fois l'arène fermée, les méthodes lisant les noeuds, les arêtes ou
+     * les profils du graphe lèvent IllegalStateException. Les secteurs et les
+     * ensembles d'attributs, dont la taille est bornée, sont lus dans des
+     * mémoires tampon qui ne dépendent pas de l'arène.
+     *
+     * @param basePath le chemin du répertoire où se trouvent les fichiers
+     * @param arena l'arène projetant les fichiers
+     *
+     * @return le graphe JaVelo obtenu à partir des fichiers se trouvant dans
+     * le répertoire donné
+     *
+     * @throws IOException en cas d'erreur d'entrée/sortie, p. ex. si l'un des
+     * fichiers attendu n'existe pas
+     * @throws IllegalArgumentException si la taille de nodes.bin ou de
+     * edges.bin est invalide, ou si attributes.bin contient un ensemble
+     * d'attributs invalide
+     * @throws IllegalStateException si l'arène est fermée
+     */
+    public static Graph loadFrom(Path basePath, GraphArena arena) throws IOException {
+        return loadSegmentsFrom(basePath, arena::map);
+    }
 
-        for (long l : attributeSetsArray) {
-            attributeSets.add(new AttributeSet(l));
-        }
+    // Fonction projetant un fichier en mémoire dans un segment
+    @FunctionalInterface
+    interface SegmentMapper {
+        MappedSegment map(Path filePath) throws IOException;
+    }
 
-        return new Graph(nodes, sectors, edges, attributeSets);
+    // Retourne le graphe dont les noeuds, les arêtes et les profils, se
+    // trouvant dans le répertoire donné, sont projetés par la fonction donnée
+    static Graph loadSegmentsFrom(Path basePath, SegmentMapper mapper) throws IOException {
+        GraphSegments segments = new GraphSegments(
+                mapper.map(basePath.resolve("nodes.bin")),
+                mapper.map(basePath.resolve("edges.bin")),
+                mapper.map(basePath.resolve("profile_ids.bin")),
+                mapper.map(basePath.resolve("elevations.bin")));
+        GraphSectors sectors =
+                new GraphSectors(BinaryFiles.mappedBuffer(basePath.resolve("sectors.bin")));
+        LongBuffer attributes = validAttributes(
+                BinaryFiles.mappedBuffer(basePath.resolve("attributes.bin")).asLongBuffer());
+
+        return new Graph(null, sectors, null, segments, attributes,
+                new AttributeSet[attributes.capacity()]);
     }
 
-    private static MappedByteBuffer mappedBuffer(Path filePath) throws IOException {
-        try (FileChannel channel = FileChannel.open(filePath)) {
-            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
-        }
+    // Retourne les ensembles d'attributs donnés, après les avoir validés sans
+    // les décoder, afin qu'un fichier corrompu soit détecté au chargement
+    // plutôt qu'en cours de recherche
+    private static LongBuffer validAttributes(LongBuffer attributes) {
+        for (int i = 0; i < attributes.capacity(); i++)
+            Preconditions.checkArgument(AttributeSet.isValid(attributes.get(i)));
+        return attributes;
+    }
+
+    /**
+     * Retourne un graphe identique à celui-ci, mais dont les coordonnées des
+     * noeuds sont décodées une fois pour toutes dans un tableau de valeurs de
+     * type double stocké hors du tas, ce qui accélère nodeE, nodeN et les
+     * méthodes qui en dépendent au prix de 16 octets par noeud.
+     *
+     * @return un graphe identique dont les coordonnées des noeuds sont décodées
+     */
+    public Graph withDecodedNodeCoordinates() {
+        if (nodeCoordinates != null)
+            return this;
+        int nodeCount = nodeCount();
+        DoubleBuffer coordinates = ByteBuffer
+                .allocateDirect(2 * nodeCount * Double.BYTES)
+                .order(ByteOrder.nativeOrder())
+                .asDoubleBuffer();
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++)
+            coordinates.put(nodeE(nodeId)).put(nodeN(nodeId));
+        return new Graph(this, coordinates.flip(), profileCache, nodeTree, edgeArrays);
+    }
+
+    /**
+     * Retourne un graphe identique à celui-ci, mais dont les profils des arêtes
+     * sont conservés, une fois décodés, dans un cache partagé pouvant en
+     * contenir au plus le nombre donné.
+     *
+     * @param capacity le nombre maximal de profils du cache
+     *
+     * @return un graphe identique dont les profils décodés sont conservés
+     *
+     * @throws IllegalArgumentException si la capacité n'est pas strictement
+     * positive
+     */
+    public Graph withProfileCache(int capacity) {
+        return new Graph(this, nodeCoordinates, new ProfileCache(capacity), nodeTree, edgeArrays);
+    }
+
+    /**
+     * Retourne un graphe identique à celui-ci, mais dont la méthode
+     * nodeClosestTo cherche le noeud le plus proche dans l'arbre donné plutôt
+     * que dans les secteurs.
+     *
+     * @param nodeTree l'arbre des noeuds du graphe
+     *
+     * @return un graphe identique utilisant l'arbre des noeuds donné
+     *
+     * @throws IllegalArgumentException si l'arbre ne contient pas autant de
+     * noeuds que le graphe
+     */
+    public Graph withNodeTree(NodeTree nodeTree) {
+        Preconditions.checkArgument(nodeTree.count() == nodeCount());
+        return new Graph(this, nodeCoordinates, profileCache, nodeTree, edgeArrays);
+    }
+
+    /**
+     * Retourne un graphe identique à celui-ci, mais dont la destination, la
+     * longueur, l'index des attributs et le sens des arêtes sont copiés une
+     * fois pour toutes dans des tableaux séparés, stockés dans le tas, plutôt
+     * que lus dans les enregistrements entrelacés de edges.bin, ce qui
+     * accélère la relaxation des arêtes au prix d'environ 10 octets par arête.
+     *
+     * @return un graphe identique dont les attributs des arêtes sont copiés
+     * dans des tableaux
+     */
+    public Graph withEdgeArrays() {
+        if (edgeArrays != null)
+            return this;
+        return new Graph(this, nodeCoordinates, profileCache, nodeTree,
+                GraphEdgeArrays.of(this));
+    }
+
+    /**
+     * Retourne le cache des profils décodés des arêtes, ou null si le graphe
+     * n'en a pas.
+     *
+     * @return le cache des profils décodés des arêtes, ou null
+     */
+    public ProfileCache profileCache() {
+        return profileCache;
     }
 
     /**
@@ -105,7 +320,7 @@ public final  class Graph {
      * @return le nombre total de noeuds dans le graphe
      */
     public int nodeCount() {
-        return nodes.count();
+        return segments == null ? nodes.count() : segments.nodeCount();
     }
 
     /**
@@ -116,7 +331,62 @@ public final  class Graph {
      * @return la position du noeud d'identité donnée
      */
     public PointCh nodePoint(int nodeId) {
-        return new PointCh(nodes.nodeE(nodeId), nodes.nodeN(nodeId));
+        return new PointCh(nodeE(nodeId), nodeN(nodeId));
+    }
+
+    /**
+     * Retourne la coordonnée E du noeud d'identité donnée, sans créer d'objet.
+     *
+     * @param nodeId l'identité du noeud
+     *
+     * @return la coordonnée E du noeud d'identité donnée
+     */
+    public double nodeE(int nodeId) {
+        if (nodeCoordinates != null)
+            return nodeCoordinates.get(2 * nodeId);
+        return segments == null ? nodes.nodeE(nodeId) : segments.nodeE(nodeId);
+    }
+
+    /**
+     * Retourne la coordonnée N du noeud d'identité donnée, sans créer d'objet.
+     *
+     * @param nodeId l'identité du noeud
+     *
+     * @return la coordonnée N du noeud d'identité donnée
+     */
+    public double nodeN(int nodeId) {
+        if (nodeCoordinates != null)
+            return nodeCoordinates.get(2 * nodeId + 1);
+        return segments == null ? nodes.nodeN(nodeId) : segments.nodeN(nodeId);
+    }
+
+    /**
+     * Retourne le carré de la distance, en mètres, entre le noeud d'identité
+     * donnée et le point de coordonnées données, sans créer d'objet.
+     *
+     * @param nodeId l'identité du noeud
+     * @param e la coordonnée E du point
+     * @param n la coordonnée N du point
+     *
+     * @return le carré de la distance entre le noeud et le point
+     */
+    public double nodeSquaredDistanceTo(int nodeId, double e, double n) {
+        double dE = nodeE(nodeId) - e;
+        double dN = nodeN(nodeId) - n;
+        return dE * dE + dN * dN;
+    }
+
+    /**
+     * Retourne la distance à vol d'oiseau, en mètres, entre les deux noeuds
+     * d'identités données, sans créer d'objet.
+     *
+     * @param nodeId1 l'identité du premier noeud
+     * @param nodeId2 l'identité du second noeud
+     *
+     * @return la distance entre les deux noeuds
+     */
+    public double nodeDistance(int nodeId1, int nodeId2) {
+        return Math.sqrt(nodeSquaredDistanceTo(nodeId1, nodeE(nodeId2), nodeN(nodeId2)));
     }
 
     /**
@@ -127,7 +397,7 @@ public final  class Graph {
      * @return le nombre d'arêtes sortant du noeud d'identité donnée
      */
     public int nodeOutDegree(int nodeId) {
-        return nodes.outDegree(nodeId);
+        return segments == null ? nodes.outDegree(nodeId) : segments.outDegree(nodeId);
     }
 
     /**
@@ -139,13 +409,16 @@ public final  class Graph {
      * @return l'identité de la edgeIndex-ième arête sortant du noeud d'identité nodeId
      */
     public int nodeOutEdgeId(int nodeId, int edgeIndex) {
-        return nodes.edgeId(nodeId, edgeIndex);
+        return segments == null
+                ? nodes.edgeId(nodeId, edgeIndex)
+                : segments.edgeId(nodeId, edgeIndex);
     }
 
     /**
      * Retourne l'identité du noeud se trouvant le plus proche du point donné,
      * à la distance maximale donnée (en mètres), ou -1 si aucun noeud ne
-     * correspond à ces critères.
+     * correspond à ces critères. À distance égale, le noeud de plus petite
+     * identité est retourné, quel que soit l'ordre des secteurs.
      *
      * @param point le point donné
      * @param searchDistance la distance maximale de recherche
@@ -155,24 +428,58 @@ public final  class Graph {
      * correspond à ces critères
      */
     public int nodeClosestTo(PointCh point, double searchDistance) {
-        List<GraphSectors.Sector> closeSectors = sectors.sectorsInArea(point, searchDistance);
-
-        double minDistance = searchDistance * searchDistance, distance;
-        // Si le noeud ne correspond à aucun des critères, -1 sera retourné
-        int closestNodeId = -1;
+        if (nodeTree != null)
+            return nodeTree.nodeClosestTo(point, searchDistance);
+        ClosestNodeSearch search = CLOSEST_NODE_SEARCH.get();
+        search.start(this, point, searchDistance);
+        sectors.forEachNodeRangeInArea(point, searchDistance, search);
+        return search.finish();
+    }
 
-        for (GraphSectors.Sector s : closeSectors) {
-            for (int nodeId = s.startNodeId(); nodeId < s.endNodeId(); nodeId++) {
-                distance = point.squaredDistanceTo(nodePoint(nodeId));
+    // Recherche du noeud le plus proche d'un point, qui parcourt les plages de
+    // noeuds des secteurs sans créer d'objet ; chaque fil d'exécution
+    // réutilise la sienne
+    private static final class ClosestNodeSearch implements GraphSectors.NodeRangeConsumer {
+        private Graph graph;
+        private double e, n, minDistance;
+        private int closestNodeId;
+
+        void start(Graph graph, PointCh point, double searchDistance) {
+            this.graph = graph;
+            this.e = point.e();
+            this.n = point.n();
+            this.minDistance = searchDistance * searchDistance;
+            // Si aucun noeud ne correspond aux critères, -1 sera retourné
+            this.closestNodeId = -1;
+        }
 
-                if (distance < minDistance) {
+        @Override
+        public void accept(int startNodeId, int endNodeId) {
+            for (int nodeId = startNodeId; nodeId < endNodeId; nodeId++) {
+                double distance = graph.nodeSquaredDistanceTo(nodeId, e, n);
+                // Les plages n'étant pas transmises par identités croissantes,
+                // les égalités sont départagées par l'identité des noeuds
+                if (distance < minDistance
+                        || (distance == minDistance && nodeId < closestNodeId)) {
                     minDistance = distance;
                     closestNodeId = nodeId;
                 }
             }
         }
 
-        return closestNodeId;
+        int finish() {
+            graph = null;
+            return closestNodeId;
+        }
+    }
+
+    /**
+     * Retourne le nombre total d'arêtes dans le graphe.
+     *
+     * @return le nombre total d'arêtes dans le graphe
+     */
+    public int edgeCount() {
+        return segments == null ? edges.count() : segments.edgeCount();
     }
 
     /**
@@ -183,7 +490,9 @@ public final  class Graph {
      * @return l'identité du noeud destination de l'arête d'identité donnée
      */
     public int edgeTargetNodeId(int edgeId) {
-        return edges.targetNodeId(edgeId);
+        if (edgeArrays != null)
+            return edgeArrays.targetNodeId(edgeId);
+        return segments == null ? edges.targetNodeId(edgeId) : segments.targetNodeId(edgeId);
     }
 
     /**
@@ -196,7 +505,9 @@ public final  class Graph {
      * la voie OSM dont elle provient
      */
     public boolean edgeIsInverted(int edgeId) {
-        return edges.isInverted(edgeId);
+        if (edgeArrays != null)
+            return edgeArrays.isInverted(edgeId);
+        return segments == null ? edges.isInverted(edgeId) : segments.isInverted(edgeId);
     }
 
     /**
@@ -207,8 +518,25 @@ public final  class Graph {
      * @return l'ensemble des attributs OSM attachés à l'arête d'identité donnée
      */
     public AttributeSet edgeAttributes(int edgeId) {
-        int attributeSetId = edges.attributesIndex(edgeId);
-        return attributeSets.get(attributeSetId);
+        int attributeSetId = edgeAttributesIndex(edgeId);
+        // Un ensemble décodé simultanément par plusieurs fils d'exécution est
+        // identique pour chacun d'eux, et ses champs finaux garantissent qu'il
+        // est publié entièrement construit
+        AttributeSet attributeSet = attributeSets[attributeSetId];
+        if (attributeSet == null) {
+            attributeSet = new AttributeSet(attributeBits.get(attributeSetId));
+            attributeSets[attributeSetId] = attributeSet;
+        }
+        return attributeSet;
+    }
+
+    // Retourne l'identité de l'ensemble d'attributs de l'arête d'identité donnée
+    int edgeAttributesIndex(int edgeId) {
+        if (edgeArrays != null)
+            return edgeArrays.attributesIndex(edgeId);
+        return segments == null
+                ? edges.attributesIndex(edgeId)
+                : segments.attributesIndex(edgeId);
     }
 
     /**
@@ -219,7 +547,9 @@ public final  class Graph {
      * @return la longueur, en mètres, de l'arête d'identité donnée
      */
     public double edgeLength(int edgeId) {
-        return edges.length(edgeId);
+        if (edgeArrays != null)
+            return edgeArrays.length(edgeId);
+        return segments == null ? edges.length(edgeId) : segments.length(edgeId);
     }
 
     /**
@@ -230,7 +560,9 @@ public final  class Graph {
      * @return le dénivelé positif total de l'arête d'identité donnée
      */
     public double edgeElevationGain(int edgeId) {
-        return edges.elevationGain(edgeId);
+        return segments == null
+                ? edges.elevationGain(edgeId)
+                : segments.elevationGain(edgeId);
     }
 
     /**
@@ -245,9 +577,20 @@ public final  class Graph {
      * doit retourner Double.NaN pour n'importe quel argument
      */
     public DoubleUnaryOperator edgeProfile(int edgeId) {
-        float[] samples = edges.profileSamples(edgeId);
-        return edges.hasProfile(edgeId) ?
-                Functions.sampled(samples, edgeLength(edgeId))
+        return profileCache == null
+                ? decodeEdgeProfile(edgeId)
+                : profileCache.get(edgeId, this::decodeEdgeProfile);
+    }
+
+    // Décode le profil de l'arête d'identité donnée dans le tableau propre au
+    // fil d'exécution courant, qui n'est copié qu'une fois par Functions.sampled
+    private DoubleUnaryOperator decodeEdgeProfile(int edgeId) {
+        float[] samples = PROFILE_BUFFER.get();
+        int count = segments == null
+                ? edges.profileSamples(edgeId, samples, 0)
+                : segments.profileSamples(edgeId, samples, 0);
+        return count > 0 ?
+                Functions.sampled(samples, count, edgeLength(edgeId))
                 : Functions.constant(Double.NaN);
     }
 }
@@ -0,0 +1,173 @@
+package ch.epfl.javelo.data;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Représente une arène, qui détermine la durée de vie des fichiers qu'elle
+ * projette en mémoire : à sa fermeture, tous ces fichiers sont libérés
+ * immédiatement, sans attendre le ramasse-miettes, de sorte que des fichiers
+ * volumineux puissent être projetés à nouveau sans accumuler d'espace
+ * d'adressage.
+ * <p>
+ * Les segments de l'arène refusent tout accès une fois celle-ci fermée. Chaque
+ * fil d'exécution signale ses lectures dans un indicateur qui lui est propre,
+ * de sorte que les lectures concurrentes n'écrivent dans aucune variable
+ * partagée ; la fermeture attend que les lectures en cours, signalées par ces
+ * indicateurs, soient terminées avant de libérer les projections. Une lecture
+ * concurrente à la fermeture retourne donc une valeur valide ou lève une
+ * exception, mais n'accède jamais à une projection libérée. Aucune mémoire
+ * tampon n'étant obtenue des segments, aucune projection ne peut survivre à
+ * l'arène.
+ * <p>
+ * Java 17 n'offrant pas de moyen standard de libérer une projection, la
+ * libération passe par sun.misc.Unsafe lorsqu'il est disponible ; sinon, elle
+ * est laissée au ramasse-miettes.
+ *
+ * @author Tanguy Dieudonné (326618)
+ * @author Nathanaël Girod (329987)
+ */
+public final class GraphArena implements AutoCloseable {
+    private static final Unmapper UNMAPPER = Unmapper.create();
+
+    private final List<MappedSegment> segments = new ArrayList<>();
+    // Lecteurs de tous les fils d'exécution ayant lu dans un segment de l'arène
+    private final List<Reader> readers = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<Reader> reader = ThreadLocal.withInitial(this::newReader);
+    private volatile boolean alive = true;
+
+    /**
+     * Retourne la totalité du fichier donné, projetée en mémoire en lecture
+     * seule jusqu'à la fermeture de l'arène.
+     *
+     * @param filePath le chemin du fichier
+     *
+     * @return la totalité du fichier donné, projetée en mémoire
+     *
+     * @throws IOException en cas d'erreur d'entrée/sortie, p. ex. si le
+     * fichier n'existe pas
+     * @throws IllegalStateException si l'arène est fermée
+     */
+    public synchronized MappedSegment map(Path filePath) throws IOException {
+        checkAlive();
+        return register(MappedSegment.map(filePath, this));
+    }
+
+    // Projette le fichier donné par blocs de 2^chunkShift octets, quelle que
+    // soit sa taille
+    synchronized MappedSegment map(Path filePath, int chunkShift) throws IOException {
+        checkAlive();
+        return register(MappedSegment.map(filePath, this, chunkShift));
+    }
+
+    private MappedSegment register(MappedSegment segment) {
+        segments.add(segment);
+        return segment;
+    }
+
+    /**
+     * Retourne vrai ssi l'arène n'a pas encore été fermée.
+     *
+     * @return vrai ssi l'arène n'a pas encore été fermée
+     */
+    public boolean isAlive() {
+        return alive;
+    }
+
+    /**
+     * Ferme l'arène et libère tous les fichiers qu'elle a projetés, une fois
+     * les lectures en cours dans ses segments terminées.
+     *
+     * @throws IllegalStateException si l'arène est déjà fermée
+     */
+    @Override
+    public void close() {
+        List<MappedSegment> closedSegments;
+        synchronized (this) {
+            checkAlive();
+            alive = false;
+            closedSegments = List.copyOf(segments);
+            segments.clear();
+        }
+        // Toute lecture commencée après l'écriture de alive voit l'arène
+        // fermée ; seules les lectures déjà commencées sont attendues, et
+        // aucune n'est longue
+        for (Reader r : readers) {
+            while (r.reading)
+                Thread.onSpinWait();
+        }
+        for (MappedSegment segment : closedSegments) {
+            for (MappedByteBuffer chunk : segment.chunks())
+                UNMAPPER.unmap(chunk);
+        }
+    }
+
+    void checkAlive() {
+        if (!alive)
+            throw new IllegalStateException("arène fermée");
+    }
+
+    // Signale le début d'une lecture dans un segment de l'arène par le fil
+    // d'exécution courant, et retourne son lecteur, dont la méthode endRead
+    // doit être appelée à la fin de la lecture ; la lecture est refusée si
+    // l'arène est fermée. L'indicateur du lecteur étant écrit avant la lecture
+    // de alive, et alive avant la lecture des indicateurs par close, soit la
+    // fermeture voit la lecture en cours, soit la lecture voit l'arène fermée.
+    Reader beginRead() {
+        Reader r = reader.get();
+        r.reading = true;
+        if (!alive) {
+            r.reading = false;
+            throw new IllegalStateException("arène fermée");
+        }
+        return r;
+    }
+
+    private Reader newReader() {
+        Reader r = new Reader();
+        readers.add(r);
+        return r;
+    }
+
+    // Lecteur propre à un fil d'exécution, qui n'est écrit que par celui-ci
+    static final class Reader {
+        private volatile boolean reading;
+
+        // Signale la fin d'une lecture commencée par beginRead
+        void endRead() {
+            reading = false;
+        }
+    }
+
+    // Libère immédiatement une projection, si la plateforme le permet
+    private record Unmapper(Object unsafe, Method invokeCleaner) {
+        static Unmapper create() {
+            try {
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                Field field = unsafeClass.getDeclaredField("theUnsafe");
+                field.setAccessible(true);
+                return new Unmapper(field.get(null),
+                        unsafeClass.getMethod("invokeCleaner", ByteBuffer.class));
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                return new Unmapper(null, null);
+            }
+        }
+
+        void unmap(MappedByteBuffer buffer) {
+            if (invokeCleaner == null)
+                return;
+            try {
+                invokeCleaner.invoke(unsafe, buffer);
+            } catch (ReflectiveOperationException e) {
+                // La projection sera libérée par le ramasse-miettes
+            }
+        }
+    }
+}
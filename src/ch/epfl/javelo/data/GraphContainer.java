@@ -0,0 +1,306 @@
+package ch.epfl.javelo.data;
+
+import ch.epfl.javelo.Preconditions;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32C;
+
+import static ch.epfl.javelo.data.BinaryFiles.mappedBuffer;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Classe finale et non-instanciable permettant de regrouper les fichiers d'un
+ * graphe en un unique fichier conteneur, de les en extraire et de vérifier
+ * l'intégrité du conteneur.
+ * <p>
+ * Le conteneur commence par un en-tête formé, dans l'ordre, de la signature
+ * « JVLO », de la version du format, du nombre de sections et de la somme de
+ * contrôle CRC-32C de la table des sections qui le suit. Chaque entrée de
+ * cette table donne le nom du fichier de la section (16 octets ASCII complétés
+ * par des zéros), sa position et sa taille, en octets, et la somme de contrôle
+ * CRC-32C de son contenu. Toutes les valeurs sont gros-boutistes, et chaque
+ * section commence à une position multiple de 4096, de sorte qu'elle puisse
+ * être projetée en mémoire telle quelle.
+ * <p>
+ * Graph.loadFrom accepte le chemin d'un conteneur à la place de celui d'un
+ * répertoire. Il ne vérifie alors que l'en-tête et la table des sections, le
+ * calcul des sommes de contrôle des sections, qui lirait la totalité du
+ * fichier, étant laissé à corruptedSections.
+ *
+ * @author Tanguy Dieudonné (326618)
+ * @author Nathanaël Girod (329987)
+ */
+public final class GraphContainer {
+    private GraphContainer() {}
+
+    /**
+     * Version du format des conteneurs écrits par cette classe.
+     */
+    public static final int VERSION = 1;
+
+    private static final int MAGIC = 0x4A564C4F;
+    private static final int HEADER_BYTES = 4 * Integer.BYTES;
+    private static final int NAME_BYTES = 16;
+    private static final int ENTRY_BYTES = NAME_BYTES + 2 * Long.BYTES + 2 * Integer.BYTES;
+    private static final int ALIGNMENT = 4096;
+    private static final int MAX_SECTION_COUNT = 64;
+    // Taille maximale des blocs projetés pour calculer une somme de contrôle
+    private static final long CHUNK_BYTES = 1L << 30;
+
+    private static final List<String> REQUIRED_FILES = List.of("nodes.bin", "sectors.bin",
+            "edges.bin", "profile_ids.bin", "elevations.bin", "attributes.bin");
+    private static final String OSM_IDS_FILE = "nodes_osmid.bin";
+
+    // Section du conteneur
+    private record Section(String name, long offset, long byteSize, int crc) {}
+
+    /**
+     * Regroupe les fichiers du répertoire donné dans un conteneur (pack),
+     * extrait les fichiers d'un conteneur dans un répertoire (unpack), ou
+     * vérifie l'intégrité d'un conteneur (verify), selon le premier argument.
+     *
+     * @param args la commande, suivie du chemin du répertoire et de celui du
+     * conteneur (pack), de celui du conteneur et de celui du répertoire
+     * (unpack), ou de celui du conteneur (verify)
+     *
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public static void main(String[] args) throws IOException {
+        long t0 = System.nanoTime();
+        switch (args[0]) {
+            case "pack" -> pack(Path.of(args[1]), Path.of(args[2]));
+            case "unpack" -> unpack(Path.of(args[1]), Path.of(args[2]));
+            case "verify" -> {
+                List<String> corrupted = corruptedSections(Path.of(args[1]));
+                if (!corrupted.isEmpty()) {
+                    System.out.println("sections corrompues : " + String.join(", ", corrupted));
+                    System.exit(1);
+                }
+            }
+            default -> throw new IllegalArgumentException(args[0]);
+        }
+        System.out.printf("%s terminé en %d ms%n", args[0], (System.nanoTime() - t0) / 1_000_000);
+    }
+
+    /**
+     * Écrit dans le conteneur donné, en le remplaçant s'il existe, les
+     * fichiers du graphe se trouvant dans le répertoire donné, y compris
+     * nodes_osmid.bin s'il existe. Le conteneur est d'abord écrit dans un
+     * fichier temporaire, puis renommé, de sorte qu'il ne soit jamais
+     * partiellement écrit.
+     *
+     * @param directory le chemin du répertoire du graphe
+     * @param containerPath le chemin du conteneur
+     *
+     * @throws IOException en cas d'erreur d'entrée/sortie, p. ex. si l'un des
+     * fichiers attendus n'existe pas
+     */
+    public static void pack(Path directory, Path containerPath) throws IOException {
+        List<String> names = new ArrayList<>(REQUIRED_FILES);
+        if (Files.exists(directory.resolve(OSM_IDS_FILE)))
+            names.add(OSM_IDS_FILE);
+
+        List<ByteBuffer> contents = new ArrayList<>(names.size());
+        List<Section> sections = new ArrayList<>(names.size());
+        long offset = align(HEADER_BYTES + (long) names.size() * ENTRY_BYTES);
+        for (String name : names) {
+            MappedByteBuffer content = mappedBuffer(directory.resolve(name));
+            contents.add(content);
+            sections.add(new Section(name, offset, content.capacity(), crc(content)));
+            offset = align(offset + content.capacity());
+        }
+
+        Path tempPath = containerPath.resolveSibling(containerPath.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempPath, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            writeFully(channel, header(sections), 0);
+            for (int i = 0; i < sections.size(); i++)
+                writeFully(channel, contents.get(i), sections.get(i).offset());
+            channel.force(true);
+        }
+        Files.move(tempPath, containerPath, REPLACE_EXISTING, ATOMIC_MOVE);
+    }
+
+    /**
+     * Écrit dans le répertoire donné, créé au besoin, les fichiers du graphe
+     * contenus dans le conteneur donné, après avoir vérifié leur somme de
+     * contrôle.
+     *
+     * @param containerPath le chemin du conteneur
+     * @param directory le chemin du répertoire du graphe
+     *
+     * @throws IOException en cas d'erreur d'entrée/sortie, si le conteneur
+     * est invalide ou si l'une de ses sections est corrompue
+     */
+    public static void unpack(Path containerPath, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        try (FileChannel channel = FileChannel.open(containerPath)) {
+            for (Section section : readSections(channel)) {
+                ByteBuffer content = map(channel, section);
+                if (crc(content) != section.crc())
+                    throw new IOException("section corrompue : " + section.name());
+                BinaryFiles.write(directory.resolve(section.name()), content);
+            }
+        }
+    }
+
+    /**
+     * Retourne les noms des fichiers du conteneur donné dont la somme de
+     * contrôle est incorrecte, ou une liste vide s'il est intègre. Les sommes
+     * de contrôle des sections sont calculées en parallèle.
+     *
+     * @param containerPath le chemin du conteneur
+     *
+     * @return les noms des fichiers corrompus du conteneur, dans l'ordre de
+     * ses sections
+     *
+     * @throws IOException en cas d'erreur d'entrée/sortie ou si l'en-tête ou
+     * la table des sections du conteneur est invalide
+     */
+    public static List<String> corruptedSections(Path containerPath) throws IOException {
+        try (FileChannel channel = FileChannel.open(containerPath)) {
+            List<Section> sections = readSections(channel);
+            // Les sections de plus de 1 Gio sont découpées en blocs, dont les
+            // sommes de contrôle sont calculées successivement
+            boolean[] corrupted = new boolean[sections.size()];
+            IntStream.range(0, sections.size()).parallel().forEach(i -> {
+                Section section = sections.get(i);
+                CRC32C crc = new CRC32C();
+                try {
+                    for (long start = 0; start < section.byteSize(); start += CHUNK_BYTES) {
+                        long size = Math.min(CHUNK_BYTES, section.byteSize() - start);
+                        crc.update(channel.map(FileChannel.MapMode.READ_ONLY,
+                                section.offset() + start, size));
+                    }
+                    corrupted[i] = (int) crc.getValue() != section.crc();
+                } catch (IOException e) {
+                    corrupted[i] = true;
+                }
+            });
+            List<String> names = new ArrayList<>();
+            for (int i = 0; i < sections.size(); i++) {
+                if (corrupted[i])
+                    names.add(sections.get(i).name());
+            }
+            return names;
+        }
+    }
+
+    /**
+     * Retourne les sections du conteneur donné, projetées en mémoire sans
+     * copie, par nom de fichier, sans vérifier leur somme de contrôle.
+     *
+     * @param containerPath le chemin du conteneur
+     *
+     * @return les sections du conteneur donné, par nom de fichier
+     *
+     * @throws IOException en cas d'erreur d'entrée/sortie ou si l'en-tête ou
+     * la table des sections du conteneur est invalide
+     */
+    static Map<String, ByteBuffer> mappedSections(Path containerPath) throws IOException {
+        try (FileChannel channel = FileChannel.open(containerPath)) {
+            Map<String, ByteBuffer> sections = new LinkedHashMap<>();
+            for (Section section : readSections(channel))
+                sections.put(section.name(), map(channel, section));
+            return sections;
+        }
+    }
+
+    private static ByteBuffer header(List<Section> sections) {
+        ByteBuffer table = ByteBuffer.allocate(sections.size() * ENTRY_BYTES);
+        for (Section section : sections) {
+            byte[] name = section.name().getBytes(StandardCharsets.US_ASCII);
+            Preconditions.checkArgument(name.length <= NAME_BYTES);
+            table.put(name)
+                    .put(new byte[NAME_BYTES - name.length])
+                    .putLong(section.offset())
+                    .putLong(section.byteSize())
+                    .putInt(section.crc())
+                    .putInt(0);
+        }
+        return ByteBuffer.allocate(HEADER_BYTES + table.capacity())
+                .putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(sections.size())
+                .putInt(crc(table.flip()))
+                .put(table)
+                .flip();
+    }
+
+    private static List<Section> readSections(FileChannel channel) throws IOException {
+        long fileSize = channel.size();
+        ByteBuffer header = readFully(channel, 0, HEADER_BYTES);
+        if (header.getInt(0) != MAGIC)
+            throw new IOException("signature de conteneur invalide");
+        int version = header.getInt(Integer.BYTES);
+        if (version != VERSION)
+            throw new IOException("version de conteneur non prise en charge : " + version);
+        int sectionCount = header.getInt(2 * Integer.BYTES);
+        if (sectionCount < 0 || sectionCount > MAX_SECTION_COUNT)
+            throw new IOException("nombre de sections invalide : " + sectionCount);
+
+        ByteBuffer table = readFully(channel, HEADER_BYTES, sectionCount * ENTRY_BYTES);
+        if (crc(table) != header.getInt(3 * Integer.BYTES))
+            throw new IOException("table des sections corrompue");
+        List<Section> sections = new ArrayList<>(sectionCount);
+        for (int i = 0; i < sectionCount; i++) {
+            byte[] nameBytes = new byte[NAME_BYTES];
+            table.get(nameBytes);
+            int nameLength = 0;
+            while (nameLength < NAME_BYTES && nameBytes[nameLength] != 0)
+                nameLength++;
+            Section section = new Section(
+                    new String(nameBytes, 0, nameLength, StandardCharsets.US_ASCII),
+                    table.getLong(), table.getLong(), table.getInt());
+            table.getInt();
+            if (section.offset() % ALIGNMENT != 0 || section.byteSize() < 0
+                    || section.offset() + section.byteSize() > fileSize)
+                throw new IOException("section invalide : " + section.name());
+            sections.add(section);
+        }
+        return sections;
+    }
+
+    private static ByteBuffer map(FileChannel channel, Section section) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, section.offset(), section.byteSize());
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int size)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0)
+                throw new IOException("conteneur tronqué");
+        }
+        return buffer.flip();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position)
+            throws IOException {
+        ByteBuffer toWrite = buffer.duplicate();
+        while (toWrite.hasRemaining())
+            channel.write(toWrite, position + toWrite.position());
+    }
+
+    private static int crc(ByteBuffer buffer) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.duplicate());
+        return (int) crc.getValue();
+    }
+
+    private static long align(long offset) {
+        return (offset + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+}
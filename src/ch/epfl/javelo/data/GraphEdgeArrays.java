@@ -0,0 +1,106 @@
+package ch.epfl.javelo.data;
+
+/**
+ * Représente les attributs des arêtes du graphe lus lors de la relaxation des
+ * arêtes par les recherches d'itinéraire, copiés une fois pour toutes depuis
+ * les enregistrements entrelacés de edges.bin dans des tableaux séparés, un
+ * par attribut (structure de tableaux).
+ * <p>
+ * Les longueurs, stockées en Q28.4 sur 16 bits, sont représentées exactement
+ * par des valeurs de type float, et les sens des arêtes par un tableau de bits.
+ *
+ * @author Tanguy Dieudonné (326618)
+ * @author Nathanaël Girod (329987)
+ */
+final class GraphEdgeArrays {
+    private final int[] targetNodeIds;
+    private final float[] lengths;
+    private final char[] attributesIndexes;
+    // Bit i de l'élément i / 64 vrai ssi l'arête d'identité i est inversée
+    private final long[] inverted;
+
+    private GraphEdgeArrays(int[] targetNodeIds, float[] lengths, char[] attributesIndexes,
+                            long[] inverted) {
+        this.targetNodeIds = targetNodeIds;
+        this.lengths = lengths;
+        this.attributesIndexes = attributesIndexes;
+        this.inverted = inverted;
+    }
+
+    /**
+     * Retourne les tableaux des attributs des arêtes du graphe donné.
+     *
+     * @param graph le graphe
+     *
+     * @return les tableaux des attributs des arêtes du graphe donné
+     */
+    static GraphEdgeArrays of(Graph graph) {
+        int edgeCount = graph.edgeCount();
+        int[] targetNodeIds = new int[edgeCount];
+        float[] lengths = new float[edgeCount];
+        char[] attributesIndexes = new char[edgeCount];
+        long[] inverted = new long[(edgeCount + Long.SIZE - 1) / Long.SIZE];
+        for (int edgeId = 0; edgeId < edgeCount; edgeId++) {
+            targetNodeIds[edgeId] = graph.edgeTargetNodeId(edgeId);
+            lengths[edgeId] = (float) graph.edgeLength(edgeId);
+            attributesIndexes[edgeId] = (char) graph.edgeAttributesIndex(edgeId);
+            if (graph.edgeIsInverted(edgeId))
+                inverted[edgeId >>> 6] |= 1L << edgeId;
+        }
+        return new GraphEdgeArrays(targetNodeIds, lengths, attributesIndexes, inverted);
+    }
+
+    /**
+     * Retourne le nombre d'arêtes.
+     *
+     * @return le nombre d'arêtes
+     */
+    int count() {
+        return targetNodeIds.length;
+    }
+
+    /**
+     * Retourne l'identité du noeud destination de l'arête d'identité donnée.
+     *
+     * @param edgeId l'identité de l'arête
+     *
+     * @return l'identité du noeud destination de l'arête
+     */
+    int targetNodeId(int edgeId) {
+        return targetNodeIds[edgeId];
+    }
+
+    /**
+     * Retourne vrai ssi l'arête d'identité donnée va dans le sens inverse de la
+     * voie OSM dont elle provient.
+     *
+     * @param edgeId l'identité de l'arête
+     *
+     * @return vrai ssi l'arête d'identité donnée est inversée
+     */
+    boolean isInverted(int edgeId) {
+        return (inverted[edgeId >>> 6] & 1L << edgeId) != 0;
+    }
+
+    /**
+     * Retourne la longueur, en mètres, de l'arête d'identité donnée.
+     *
+     * @param edgeId l'identité de l'arête
+     *
+     * @return la longueur de l'arête
+     */
+    double length(int edgeId) {
+        return lengths[edgeId];
+    }
+
+    /**
+     * Retourne l'index de l'ensemble d'attributs de l'arête d'identité donnée.
+     *
+     * @param edgeId l'identité de l'arête
+     *
+     * @return l'index de l'ensemble d'attributs de l'arête
+     */
+    int attributesIndex(int edgeId) {
+        return attributesIndexes[edgeId];
+    }
+}
@@ -8,6 +8,7 @@ import java.nio.ByteBuffer;
 import java.nio.IntBuffer;
 import java.nio.ShortBuffer;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Représente le tableau de toutes les arêtes du graphe JaVelo.
@@ -30,7 +31,16 @@ public record GraphEdges(ByteBuffer edgesBuffer, IntBuffer profileIds, ShortBuff
     private static final int OFFSET_LENGTH = OFFSET_TARGET_NODE_ID + Integer.BYTES;
     private static final int OFFSET_ELEVATION_GAIN = OFFSET_LENGTH + Short.BYTES;
     private static final int OFFSET_ATTRIBUTES_INDEX = OFFSET_ELEVATION_GAIN + Short.BYTES;
-    private final static int BYTES_FOR_EDGES = OFFSET_ATTRIBUTES_INDEX + Short.BYTES;
+    final static int BYTES_FOR_EDGES = OFFSET_ATTRIBUTES_INDEX + Short.BYTES;
+
+    /**
+     * Retourne le nombre total d'arêtes.
+     *
+     * @return le nombre total d'arêtes
+     */
+    public int count() {
+        return edgesBuffer.capacity() / BYTES_FOR_EDGES;
+    }
 
     /**
      * Retourne vrai si et seulement si l'arête d'identité donnée va dans le sens
@@ -118,76 +128,126 @@ public record GraphEdges(ByteBuffer edgesBuffer, IntBuffer profileIds, ShortBuff
      * qui est vide si l'arête ne possède pas de profil
      */
     public float[] profileSamples(int edgeId) {
-        if (!hasProfile(edgeId))
-            return new float[]{};
-
-        float[] samples = new float[numberOfSamplesInProfile(edgeId)];
-        ProfileTypes profileType = profileType(edgeId);
-        float firstUncompressedSample = Q28_4.asFloat(Short.toUnsignedInt(
-                elevations.get(firstProfileId(edgeId))));
-        samples[0] = firstUncompressedSample;
-
-        switch (profileType) {
-            case UNCOMPRESSED -> extractSamplesUncompressed(edgeId, samples);
-            case COMPRESSED_Q44 -> extractSamplesCompressed(edgeId, Short.SIZE / 2,
-                    samples);
-            case COMPRESSED_Q04 -> extractSamplesCompressed(edgeId, Short.SIZE / 4,
-                    samples);
-        }
-
-        if (isInverted(edgeId))
-            reverse(samples);
+        float[] samples = new float[profileSampleCount(edgeId)];
+        profileSamples(edgeId, samples, 0);
         return samples;
     }
 
-    private void extractSamplesUncompressed(int edgeId, float[] samples) {
-        int sampleIndex = 1;
-        for (int i = 1; i < elevations.capacity() - 1; i++) {
-            int elevationsIndex = firstProfileId(edgeId) + i ;
-            int sample = Short.toUnsignedInt(elevations.get(elevationsIndex));
-            if (sampleIndex >= samples.length)
-                break;
-            samples[sampleIndex] = Q28_4.asFloat(sample);
-            sampleIndex++;
-        }
+    /**
+     * Retourne le nombre d'échantillons du profil de l'arête d'identité donnée,
+     * qui vaut 0 si l'arête ne possède pas de profil.
+     *
+     * @param edgeId l'identité de l'arête
+     *
+     * @return le nombre d'échantillons du profil de l'arête d'identité donnée
+     */
+    public int profileSampleCount(int edgeId) {
+        return hasProfile(edgeId) ? numberOfSamplesInProfile(edgeId) : 0;
     }
-    private void extractSamplesCompressed(int edgeId, int sampleRangeLength,float[] samples) {
-        int samplesPerShort = Short.SIZE / sampleRangeLength;
-        int samplesIndex = 1;
-        boolean isSamplesFull = false;
-
-        for (int i = 1; i < elevations().capacity() - 1; ++i) {
-            if(isSamplesFull)
-                break;
-            int start = Short.SIZE  - sampleRangeLength;
-            int elevationsIndex = firstProfileId(edgeId) + i ;
-            int s = Short.toUnsignedInt(elevations.get(elevationsIndex));
-
-            for (int j = 0; j < samplesPerShort; ++j) {
-                if (samplesIndex > samples.length - 1) {
-                    isSamplesFull = true;
-                    break;
-                }
-
-                int sample = Bits.extractSigned(s, start, sampleRangeLength);
-                float difference = Q28_4.asFloat(sample);
-                int indexOfPreviousSample = samplesIndex - 1;
-                samples[samplesIndex] = difference + samples[indexOfPreviousSample];
-                start -= sampleRangeLength;
-                samplesIndex++;
-            }
 
+    /**
+     * Écrit les échantillons du profil de l'arête d'identité donnée dans le
+     * tableau donné, à partir de l'index donné, sans allouer de tableau
+     * intermédiaire, et retourne leur nombre.
+     *
+     * @param edgeId l'identité de l'arête
+     * @param destination le tableau dans lequel écrire les échantillons
+     * @param offset l'index du premier échantillon dans le tableau
+     *
+     * @return le nombre d'échantillons écrits, qui vaut 0 si l'arête ne
+     * possède pas de profil
+     *
+     * @throws IndexOutOfBoundsException si le tableau est trop petit pour
+     * contenir tous les échantillons à partir de l'index donné
+     */
+    public int profileSamples(int edgeId, float[] destination, int offset) {
+        int count = profileSampleCount(edgeId);
+        if (count == 0)
+            return 0;
+        Objects.checkFromIndexSize(offset, count, destination.length);
+
+        // Les échantillons d'une arête inversée sont écrits directement depuis
+        // la fin de la plage, ce qui évite de la retourner ensuite
+        boolean inverted = isInverted(edgeId);
+        int index = inverted ? offset + count - 1 : offset;
+        int step = inverted ? -1 : 1;
+        int firstProfileId = firstProfileId(edgeId);
+        switch (profileType(edgeId)) {
+            case UNCOMPRESSED -> extractSamplesUncompressed(firstProfileId, count,
+                    destination, index, step);
+            case COMPRESSED_Q44 -> extractSamplesQ44(firstProfileId, count,
+                    destination, index, step);
+            case COMPRESSED_Q04 -> extractSamplesQ04(firstProfileId, count,
+                    destination, index, step);
         }
+        return count;
+    }
+
+    /*
+     * Les trois méthodes ci-dessous décodent count échantillons débutant à
+     * l'index firstProfileId de elevations et les écrivent dans samples à
+     * partir de l'index index, en progressant de step à chaque échantillon.
+     *
+     * Les profils compressés sont décodés short par short : les différences
+     * qu'un short contient sont extraites par des décalages constants, et
+     * l'altitude est cumulée en Q28.4 dans un entier. Toutes les sommes
+     * partielles étant des multiples de 1/16 bien inférieurs à 2^20, leur
+     * conversion en float est exacte et donne bit à bit les mêmes valeurs
+     * qu'un cumul effectué en float.
+     */
+
+    private void extractSamplesUncompressed(int firstProfileId, int count, float[] samples,
+                                            int index, int step) {
+        for (int i = 0; i < count; i++, index += step)
+            samples[index] = Q28_4.asFloat(Short.toUnsignedInt(elevations.get(firstProfileId + i)));
+    }
+
+    private void extractSamplesQ44(int firstProfileId, int count, float[] samples,
+                                   int index, int step) {
+        int elevationsIndex = firstProfileId;
+        int elevation = Short.toUnsignedInt(elevations.get(elevationsIndex++));
+        samples[index] = Q28_4.asFloat(elevation);
 
+        // Deux différences de 8 bits par short, celle de poids fort en premier
+        int samplesIndex = 1;
+        for (; samplesIndex + 1 < count; samplesIndex += 2) {
+            int s = elevations.get(elevationsIndex++);
+            elevation += s >> 8;
+            samples[index += step] = Q28_4.asFloat(elevation);
+            elevation += (byte) s;
+            samples[index += step] = Q28_4.asFloat(elevation);
+        }
+        if (samplesIndex < count) {
+            elevation += elevations.get(elevationsIndex) >> 8;
+            samples[index + step] = Q28_4.asFloat(elevation);
+        }
     }
 
-    //Inverse les éléments du tableau passé en argument
-    private void reverse(float[] arr) {
-        float temp;
-        for (int i = 0; i < arr.length / 2; i++) {
-            temp = arr[i];
-            arr[i] = arr[arr.length - i - 1];
-            arr[arr.length - i - 1] = temp;
+    private void extractSamplesQ04(int firstProfileId, int count, float[] samples,
+                                   int index, int step) {
+        int elevationsIndex = firstProfileId;
+        int elevation = Short.toUnsignedInt(elevations.get(elevationsIndex++));
+        samples[index] = Q28_4.asFloat(elevation);
+
+        // Quatre différences de 4 bits par short, celle de poids fort en premier
+        int samplesIndex = 1;
+        for (; samplesIndex + 3 < count; samplesIndex += 4) {
+            int s = elevations.get(elevationsIndex++);
+            elevation += s >> 12;
+            samples[index += step] = Q28_4.asFloat(elevation);
+            elevation += (s << 20) >> 28;
+            samples[index += step] = Q28_4.asFloat(elevation);
+            elevation += (s << 24) >> 28;
+            samples[index += step] = Q28_4.asFloat(elevation);
+            elevation += (s << 28) >> 28;
+            samples[index += step] = Q28_4.asFloat(elevation);
+        }
+        if (samplesIndex < count) {
+            int s = elevations.get(elevationsIndex);
+            for (int shift = 16; samplesIndex < count; samplesIndex++, shift += 4) {
+                elevation += (s << shift) >> 28;
+                samples[index += step] = Q28_4.asFloat(elevation);
+            }
         }
     }
 
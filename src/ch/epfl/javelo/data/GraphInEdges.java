@@ -0,0 +1,103 @@
+package ch.epfl.javelo.data;
+
+/**
+ * Représente l'index des arêtes entrantes de chaque noeud du graphe JaVelo.
+ * Les fichiers du graphe ne stockant que les arêtes sortantes, cet index est
+ * construit en mémoire, en un seul parcours de toutes les arêtes.
+ *
+ * @author Tanguy Dieudonné (326618)
+ * @author Nathanaël Girod (329987)
+ */
+public final class GraphInEdges {
+    // firstInEdges[n] est l'indice, dans les deux autres tableaux, de la
+    // première arête entrant dans le noeud n ; il y a un élément de plus que
+    // de noeuds, pour que les arêtes du dernier noeud soient aussi délimitées.
+    private final int[] firstInEdges;
+    private final int[] inEdgeIds;
+    private final int[] sourceNodeIds;
+
+    private GraphInEdges(int[] firstInEdges, int[] inEdgeIds, int[] sourceNodeIds) {
+        this.firstInEdges = firstInEdges;
+        this.inEdgeIds = inEdgeIds;
+        this.sourceNodeIds = sourceNodeIds;
+    }
+
+    /**
+     * Retourne l'index des arêtes entrantes de chaque noeud du graphe donné.
+     *
+     * @param graph le graphe
+     *
+     * @return l'index des arêtes entrantes de chaque noeud du graphe donné
+     */
+    public static GraphInEdges of(Graph graph) {
+        int nodeCount = graph.nodeCount();
+        int[] firstInEdges = new int[nodeCount + 1];
+
+        // Comptage des arêtes entrantes de chaque noeud...
+        int edgeCount = 0;
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++) {
+            for (int i = 0; i < graph.nodeOutDegree(nodeId); i++) {
+                int targetNodeId = graph.edgeTargetNodeId(graph.nodeOutEdgeId(nodeId, i));
+                firstInEdges[targetNodeId + 1] += 1;
+                edgeCount += 1;
+            }
+        }
+        // ... puis somme préfixe pour obtenir l'indice de la première d'entre elles...
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++) {
+            firstInEdges[nodeId + 1] += firstInEdges[nodeId];
+        }
+        // ... et enfin placement de chaque arête dans l'emplacement de sa cible.
+        int[] inEdgeIds = new int[edgeCount];
+        int[] sourceNodeIds = new int[edgeCount];
+        int[] nextFreeIndex = new int[nodeCount];
+        System.arraycopy(firstInEdges, 0, nextFreeIndex, 0, nodeCount);
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++) {
+            for (int i = 0; i < graph.nodeOutDegree(nodeId); i++) {
+                int edgeId = graph.nodeOutEdgeId(nodeId, i);
+                int index = nextFreeIndex[graph.edgeTargetNodeId(edgeId)]++;
+                inEdgeIds[index] = edgeId;
+                sourceNodeIds[index] = nodeId;
+            }
+        }
+        return new GraphInEdges(firstInEdges, inEdgeIds, sourceNodeIds);
+    }
+
+    /**
+     * Retourne le nombre d'arêtes entrant dans le noeud d'identité donnée.
+     *
+     * @param nodeId l'identité du noeud
+     *
+     * @return le nombre d'arêtes entrant dans le noeud d'identité donnée
+     */
+    public int inDegree(int nodeId) {
+        return firstInEdges[nodeId + 1] - firstInEdges[nodeId];
+    }
+
+    /**
+     * Retourne l'identité de la edgeIndex-ième arête entrant dans le noeud
+     * d'identité nodeId.
+     *
+     * @param nodeId l'identité du noeud
+     * @param edgeIndex l'indice d'une des arêtes entrantes du noeud
+     *
+     * @return l'identité de la edgeIndex-ième arête entrant dans le noeud
+     * d'identité nodeId
+     */
+    public int edgeId(int nodeId, int edgeIndex) {
+        return inEdgeIds[firstInEdges[nodeId] + edgeIndex];
+    }
+
+    /**
+     * Retourne l'identité du noeud de départ de la edgeIndex-ième arête entrant
+     * dans le noeud d'identité nodeId.
+     *
+     * @param nodeId l'identité du noeud
+     * @param edgeIndex l'indice d'une des arêtes entrantes du noeud
+     *
+     * @return l'identité du noeud de départ de la edgeIndex-ième arête entrant
+     * dans le noeud d'identité nodeId
+     */
+    public int sourceNodeId(int nodeId, int edgeIndex) {
+        return sourceNodeIds[firstInEdges[nodeId] + edgeIndex];
+    }
+}
@@ -0,0 +1,224 @@
+package ch.epfl.javelo.data;
+
+import ch.epfl.javelo.Preconditions;
+import ch.epfl.javelo.projection.PointCh;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Représente le chargement d'un graphe JaVelo au démarrage, et son bilan.
+ * <p>
+ * Les fichiers du graphe sont projetés en mémoire en parallèle, puis les pages
+ * lues par les premières recherches d'itinéraire autour d'une zone de départ
+ * peuvent être chargées d'avance : la totalité de sectors.bin et de
+ * attributes.bin, ainsi que les noeuds des secteurs de la zone et leurs arêtes
+ * sortantes. Les autres pages ne sont lues qu'au premier accès.
+ * <p>
+ * La taille résidente de chaque fichier est celle de l'ensemble de ses
+ * projections par le processus, lue dans /proc/self/smaps ; elle vaut -1 si
+ * ce fichier n'existe pas, c.-à-d. hors de Linux.
+ *
+ * @author Tanguy Dieudonné (326618)
+ * @author Nathanaël Girod (329987)
+ *
+ * @param graph le graphe chargé
+ * @param files le bilan du chargement de chacun des fichiers du graphe
+ * @param buildNanos la durée de construction du graphe à partir des fichiers
+ * projetés, en nanosecondes
+ * @param totalNanos la durée totale du chargement, mesure des tailles
+ * résidentes exclue, en nanosecondes
+ */
+public record GraphLoad(Graph graph, List<FileLoad> files, long buildNanos, long totalNanos) {
+    private static final List<String> FILE_NAMES = List.of("nodes.bin", "sectors.bin",
+            "edges.bin", "profile_ids.bin", "elevations.bin", "attributes.bin");
+    private static final int NODES = FILE_NAMES.indexOf("nodes.bin");
+    private static final int SECTORS = FILE_NAMES.indexOf("sectors.bin");
+    private static final int EDGES = FILE_NAMES.indexOf("edges.bin");
+    private static final int ATTRIBUTES = FILE_NAMES.indexOf("attributes.bin");
+    private static final Path SMAPS_PATH = Path.of("/proc/self/smaps");
+
+    /**
+     * Représente le bilan du chargement d'un fichier du graphe.
+     *
+     * @param fileName le nom du fichier
+     * @param byteSize la taille du fichier, en octets
+     * @param mapNanos la durée de sa projection en mémoire, en nanosecondes
+     * @param touchNanos la durée du chargement d'avance de ses pages, en
+     * nanosecondes
+     * @param residentBytes la taille résidente du fichier à la fin du
+     * chargement, en octets, ou -1 si elle est inconnue
+     */
+    public record FileLoad(String fileName, long byteSize, long mapNanos, long touchNanos,
+                           long residentBytes) {}
+
+    /**
+     * Constructeur compact copiant la liste des bilans des fichiers.
+     *
+     * @param graph le graphe chargé
+     * @param files le bilan du chargement de chacun des fichiers du graphe
+     * @param buildNanos la durée de construction du graphe, en nanosecondes
+     * @param totalNanos la durée totale du chargement, en nanosecondes
+     */
+    public GraphLoad {
+        files = List.copyOf(files);
+    }
+
+    /**
+     * Charge le graphe dont le répertoire est donné en premier argument, en
+     * chargeant d'avance les secteurs entourant le point de coordonnées E et N
+     * données en deuxième et troisième arguments, à la distance donnée en
+     * quatrième argument (2000 m par défaut), et affiche le bilan.
+     *
+     * @param args les arguments de la ligne de commande
+     *
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public static void main(String[] args) throws IOException {
+        Path basePath = Path.of(args.length > 0 ? args[0] : "javelo-data");
+        GraphLoad load = args.length >= 3
+                ? of(basePath, new PointCh(Double.parseDouble(args[1]), Double.parseDouble(args[2])),
+                        args.length >= 4 ? Double.parseDouble(args[3]) : 2000)
+                : of(basePath);
+        System.out.printf("%-16s %14s %12s %16s %14s%n",
+                "fichier", "taille (o)", "projection", "préchargement", "résident (o)");
+        for (FileLoad file : load.files())
+            System.out.printf("%-16s %14d %9d µs %13d µs %14d%n", file.fileName(),
+                    file.byteSize(), file.mapNanos() / 1000, file.touchNanos() / 1000,
+                    file.residentBytes());
+        System.out.printf("graphe de %d noeuds construit en %d µs, chargé en %d µs%n",
+                load.graph().nodeCount(), load.buildNanos() / 1000, load.totalNanos() / 1000);
+    }
+
+    /**
+     * Charge le graphe se trouvant dans le répertoire donné, en projetant ses
+     * fichiers en parallèle, sans charger de page d'avance.
+     *
+     * @param basePath le chemin du répertoire où se trouvent les fichiers
+     *
+     * @return le graphe chargé et le bilan de son chargement
+     *
+     * @throws IOException en cas d'erreur d'entrée/sortie, p. ex. si l'un des
+     * fichiers attendu n'existe pas
+     */
+    public static GraphLoad of(Path basePath) throws IOException {
+        return load(basePath, null, 0);
+    }
+
+    /**
+     * Charge le graphe se trouvant dans le répertoire donné, en projetant ses
+     * fichiers en parallèle, puis en chargeant d'avance les pages des secteurs
+     * se trouvant à la distance donnée du point donné.
+     *
+     * @param basePath le chemin du répertoire où se trouvent les fichiers
+     * @param startPoint le centre de la zone de départ
+     * @param startDistance la distance, en mètres, délimitant la zone de départ
+     *
+     * @return le graphe chargé et le bilan de son chargement
+     *
+     * @throws IOException en cas d'erreur d'entrée/sortie, p. ex. si l'un des
+     * fichiers attendu n'existe pas
+     * @throws IllegalArgumentException si la distance est négative
+     */
+    public static GraphLoad of(Path basePath, PointCh startPoint, double startDistance)
+            throws IOException {
+        Preconditions.checkArgument(startDistance >= 0);
+        return load(basePath, startPoint, startDistance);
+    }
+
+    private static GraphLoad load(Path basePath, PointCh startPoint, double startDistance)
+            throws IOException {
+        long t0 = System.nanoTime();
+        int fileCount = FILE_NAMES.size();
+        MappedByteBuffer[] buffers = new MappedByteBuffer[fileCount];
+        long[] mapNanos = new long[fileCount];
+        try {
+            IntStream.range(0, fileCount).parallel().forEach(i -> {
+                long start = System.nanoTime();
+                try {
+                    buffers[i] = BinaryFiles.mappedBuffer(basePath.resolve(FILE_NAMES.get(i)));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                mapNanos[i] = System.nanoTime() - start;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        long t1 = System.nanoTime();
+        Graph graph = Graph.loadFrom(basePath,
+                filePath -> buffers[FILE_NAMES.indexOf(filePath.getFileName().toString())]);
+        long buildNanos = System.nanoTime() - t1;
+
+        long[] touchNanos = new long[fileCount];
+        if (startPoint != null)
+            touchStartArea(buffers, startPoint, startDistance, touchNanos);
+        long totalNanos = System.nanoTime() - t0;
+
+        Map<Path, Long> resident = residentBytes();
+        List<FileLoad> files = new ArrayList<>(fileCount);
+        for (int i = 0; i < fileCount; i++) {
+            Path filePath = basePath.resolve(FILE_NAMES.get(i)).toRealPath();
+            files.add(new FileLoad(FILE_NAMES.get(i), buffers[i].capacity(), mapNanos[i],
+                    touchNanos[i], resident.getOrDefault(filePath, -1L)));
+        }
+        return new GraphLoad(graph, files, buildNanos, totalNanos);
+    }
+
+    // Charge les pages lues par les recherches d'itinéraire dans la zone de
+    // départ, et ajoute la durée de leur chargement à celle de chaque fichier
+    private static void touchStartArea(MappedByteBuffer[] buffers, PointCh startPoint,
+                                       double startDistance, long[] touchNanos) {
+        touch(buffers, SECTORS, 0, buffers[SECTORS].capacity(), touchNanos);
+        touch(buffers, ATTRIBUTES, 0, buffers[ATTRIBUTES].capacity(), touchNanos);
+        GraphNodes nodes = new GraphNodes(buffers[NODES].asIntBuffer());
+        GraphSectors sectors = new GraphSectors(buffers[SECTORS]);
+        sectors.forEachNodeRangeInArea(startPoint, startDistance, (startNodeId, endNodeId) -> {
+            int nodeBytes = GraphNodes.NODE_INTS * Integer.BYTES;
+            touch(buffers, NODES, startNodeId * nodeBytes, endNodeId * nodeBytes, touchNanos);
+            int lastNodeId = endNodeId - 1;
+            int startEdgeId = nodes.edgeId(startNodeId, 0);
+            int endEdgeId = nodes.edgeId(lastNodeId, 0) + nodes.outDegree(lastNodeId);
+            touch(buffers, EDGES, startEdgeId * GraphEdges.BYTES_FOR_EDGES,
+                    endEdgeId * GraphEdges.BYTES_FOR_EDGES, touchNanos);
+        });
+    }
+
+    private static void touch(MappedByteBuffer[] buffers, int file, int start, int end,
+                              long[] touchNanos) {
+        if (start >= end)
+            return;
+        long t0 = System.nanoTime();
+        buffers[file].slice(start, end - start).load();
+        touchNanos[file] += System.nanoTime() - t0;
+    }
+
+    // Taille résidente, en octets, de chacun des fichiers projetés par le
+    // processus, ou aucune si /proc/self/smaps n'existe pas
+    private static Map<Path, Long> residentBytes() throws IOException {
+        Map<Path, Long> resident = new HashMap<>();
+        if (!Files.isReadable(SMAPS_PATH))
+            return resident;
+        Path mappedPath = null;
+        for (String line : Files.readAllLines(SMAPS_PATH)) {
+            String[] fields = line.trim().split("\\s+", 6);
+            if (fields[0].matches("[0-9a-f]+-[0-9a-f]+")) {
+                mappedPath = fields.length == 6 && fields[5].startsWith("/")
+                        ? Path.of(fields[5])
+                        : null;
+            } else if (mappedPath != null && fields[0].equals("Rss:")) {
+                resident.merge(mappedPath, Long.parseLong(fields[1]) * 1024, Long::sum);
+            }
+        }
+        return resident;
+    }
+}
@@ -21,7 +21,7 @@ public record GraphNodes(IntBuffer buffer) {
     private static final int OFFSET_E = 0;
     private static final int OFFSET_N = OFFSET_E + 1;
     private static final int OFFSET_OUT_EDGES = OFFSET_N + 1;
-    private static final int NODE_INTS = OFFSET_OUT_EDGES + 1;
+    static final int NODE_INTS = OFFSET_OUT_EDGES + 1;
     private static final int OFFSET_INDEX = 28;
 
     /**
@@ -35,6 +35,22 @@ public record GraphSectors(ByteBuffer buffer) {
      */
     public record Sector(int startNodeId, int endNodeId) {}
 
+    /**
+     * Interface fonctionnelle représentant un destinataire de plages
+     * d'identités de noeuds.
+     */
+    @FunctionalInterface
+    public interface NodeRangeConsumer {
+        /**
+         * Appelée pour chaque plage de noeuds, dont les identités sont
+         * comprises entre startNodeId (inclus) et endNodeId (exclus).
+         *
+         * @param startNodeId l'identité du premier noeud de la plage
+         * @param endNodeId l'identité du noeud suivant le dernier de la plage
+         */
+        void accept(int startNodeId, int endNodeId);
+    }
+
     /**
      * Retourne la liste de tous les secteurs ayant une intersection avec le carré
      * centré au point donné et de côté égal au double de la distance donnée.
@@ -47,38 +63,99 @@ public record GraphSectors(ByteBuffer buffer) {
      */
     public List<Sector> sectorsInArea(PointCh center, double distance) {
         List<Sector> inArea = new ArrayList<>();
-
-        double leftSide = center.e() - distance;
-        double lowerSide = center.n() - distance;
-        double distanceToWestLimit = leftSide - SwissBounds.MIN_E;
-        double
-
-                distanceToSouthLimit = lowerSide - SwissBounds.MIN_N;
-        final double EDGE_LENGTH = 2 * distance;
-
-        int xMin = Math2.clamp(0,
-                (int) (distanceToWestLimit / SECTOR_WIDTH),
-                SUBDIVISIONS_PER_SIDE_INDEX);
-        int xMax = Math2.clamp(0,
-                (int) ( (distanceToWestLimit + EDGE_LENGTH) / SECTOR_WIDTH),
-                SUBDIVISIONS_PER_SIDE_INDEX);
-        int yMin = Math2.clamp(0,
-                (int) (distanceToSouthLimit / SECTOR_HEIGHT),
-                SUBDIVISIONS_PER_SIDE_INDEX);
-        int yMax = Math2.clamp(0,
-                (int) ( (distanceToSouthLimit + EDGE_LENGTH) / SECTOR_HEIGHT),
-                SUBDIVISIONS_PER_SIDE_INDEX);
+        int xMin = xMin(center, distance), xMax = xMax(center, distance);
+        int yMin = yMin(center, distance), yMax = yMax(center, distance);
 
         for (int x = xMin; x <= xMax; x++) {
             for (int y = yMin; y <= yMax; y++) {
-                int startNodeIndex = OFFSET_SECTOR * (x + y * SUBDIVISIONS_PER_SIDE);
-                int endNodeIndex = startNodeIndex + Integer.BYTES;
-                int startNodeId = buffer.getInt(startNodeIndex);
-                int endNodeId = startNodeId + toUnsignedInt(buffer.getShort(endNodeIndex));
-
-                inArea.add(new Sector(startNodeId, endNodeId));
+                int sectorIndex = x + y * SUBDIVISIONS_PER_SIDE;
+                inArea.add(new Sector(startNodeId(sectorIndex), endNodeId(sectorIndex)));
             }
         }
         return inArea;
     }
+
+    /**
+     * Transmet au destinataire donné, sans créer d'objet, les plages de noeuds
+     * des secteurs ayant une intersection avec le carré centré au point donné
+     * et de côté égal au double de la distance donnée.
+     *
+     * Les noeuds étant triés par secteur, les secteurs voisins d'une même
+     * rangée sont fusionnés en une seule plage lorsque leurs noeuds sont
+     * contigus ; les plages non vides sont transmises rangée par rangée du sud
+     * au nord, et d'ouest en est dans chaque rangée. Leurs identités ne sont
+     * donc croissantes que si les secteurs sont numérotés dans cet ordre, ce
+     * qui n'est plus le cas après une renumérotation par NodeRenumbering.
+     *
+     * @param center le centre du carré
+     * @param distance la moitié d'un côté du carré, en mètres
+     * @param consumer le destinataire des plages
+     *
+     * @return le nombre de plages transmises
+     */
+    public int forEachNodeRangeInArea(PointCh center, double distance,
+                                      NodeRangeConsumer consumer) {
+        int xMin = xMin(center, distance), xMax = xMax(center, distance);
+        int yMin = yMin(center, distance), yMax = yMax(center, distance);
+        int rangeCount = 0;
+
+        for (int y = yMin; y <= yMax; y++) {
+            int rowIndex = y * SUBDIVISIONS_PER_SIDE;
+            int rangeStart = startNodeId(rowIndex + xMin);
+            int rangeEnd = endNodeId(rowIndex + xMin);
+            for (int x = xMin + 1; x <= xMax; x++) {
+                int startNodeId = startNodeId(rowIndex + x);
+                int endNodeId = endNodeId(rowIndex + x);
+                if (startNodeId == rangeEnd || rangeStart == rangeEnd) {
+                    if (rangeStart == rangeEnd)
+                        rangeStart = startNodeId;
+                    rangeEnd = endNodeId;
+                } else if (startNodeId != endNodeId) {
+                    consumer.accept(rangeStart, rangeEnd);
+                    rangeCount += 1;
+                    rangeStart = startNodeId;
+                    rangeEnd = endNodeId;
+                }
+            }
+            if (rangeStart != rangeEnd) {
+                consumer.accept(rangeStart, rangeEnd);
+                rangeCount += 1;
+            }
+        }
+        return rangeCount;
+    }
+
+    private int startNodeId(int sectorIndex) {
+        return buffer.getInt(OFFSET_SECTOR * sectorIndex);
+    }
+
+    private int endNodeId(int sectorIndex) {
+        int sectorOffset = OFFSET_SECTOR * sectorIndex;
+        return buffer.getInt(sectorOffset)
+                + toUnsignedInt(buffer.getShort(sectorOffset + Integer.BYTES));
+    }
+
+    // Index extrêmes, sur chaque axe, des secteurs ayant une intersection avec
+    // le carré centré au point donné et de demi-côté donné
+    private static int xMin(PointCh center, double distance) {
+        return sectorIndex(center.e() - distance - SwissBounds.MIN_E, SECTOR_WIDTH);
+    }
+
+    private static int xMax(PointCh center, double distance) {
+        return sectorIndex(center.e() - distance - SwissBounds.MIN_E + 2 * distance,
+                SECTOR_WIDTH);
+    }
+
+    private static int yMin(PointCh center, double distance) {
+        return sectorIndex(center.n() - distance - SwissBounds.MIN_N, SECTOR_HEIGHT);
+    }
+
+    private static int yMax(PointCh center, double distance) {
+        return sectorIndex(center.n() - distance - SwissBounds.MIN_N + 2 * distance,
+                SECTOR_HEIGHT);
+    }
+
+    private static int sectorIndex(double distanceToLimit, double sectorSize) {
+        return Math2.clamp(0, (int) (distanceToLimit / sectorSize), SUBDIVISIONS_PER_SIDE_INDEX);
+    }
 }
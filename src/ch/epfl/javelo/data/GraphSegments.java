@@ -0,0 +1,257 @@
+package ch.epfl.javelo.data;
+
+import ch.epfl.javelo.Math2;
+import ch.epfl.javelo.Preconditions;
+import ch.epfl.javelo.Q28_4;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
+import static ch.epfl.javelo.Q28_4.asDouble;
+
+/**
+ * Représente les noeuds, les arêtes et les profils du graphe JaVelo lus dans
+ * des segments projetés par une arène (voir Graph.loadFrom(Path, GraphArena)),
+ * adressés par des positions de type long, de sorte qu'aucun de leurs
+ * fichiers ne soit limité à 2 Go.
+ * <p>
+ * Les enregistrements sont ceux de GraphNodes et GraphEdges ; les profils
+ * sont copiés dans des mémoires tampon propres à chaque fil d'exécution, puis
+ * décodés par GraphEdges.
+ *
+ * @author Tanguy Dieudonné (326618)
+ * @author Nathanaël Girod (329987)
+ *
+ * @param nodes le segment de nodes.bin
+ * @param edges le segment de edges.bin
+ * @param profileIds le segment de profile_ids.bin
+ * @param elevations le segment de elevations.bin
+ */
+record GraphSegments(MappedSegment nodes, MappedSegment edges, MappedSegment profileIds,
+                     MappedSegment elevations) {
+    private static final int NODE_BYTES = GraphNodes.NODE_INTS * Integer.BYTES;
+    private static final int OFFSET_E = 0;
+    private static final int OFFSET_N = OFFSET_E + Integer.BYTES;
+    private static final int OFFSET_OUT_EDGES = OFFSET_N + Integer.BYTES;
+    private static final int OFFSET_INDEX = 28;
+
+    private static final int OFFSET_TARGET_NODE_ID = 0;
+    private static final int OFFSET_LENGTH = OFFSET_TARGET_NODE_ID + Integer.BYTES;
+    private static final int OFFSET_ELEVATION_GAIN = OFFSET_LENGTH + Short.BYTES;
+    private static final int OFFSET_ATTRIBUTES_INDEX = OFFSET_ELEVATION_GAIN + Short.BYTES;
+    private static final int PROFILE_TYPE_SHIFT = 30;
+    private static final int FIRST_PROFILE_ID_MASK = (1 << 29) - 1;
+
+    // Nombre maximal de valeurs de type short d'un profil, atteint par un
+    // profil non compressé de longueur maximale
+    private static final int MAX_PROFILE_SHORTS = 1 + Math2.ceilDiv(0xFFFF, Q28_4.ofInt(2));
+    // Copie du profil en cours de décodage propre à chaque fil d'exécution
+    private static final ThreadLocal<ProfileCopy> PROFILE_COPY =
+            ThreadLocal.withInitial(ProfileCopy::new);
+
+    /**
+     * Construit les tables du graphe lues dans les segments donnés.
+     *
+     * @throws IllegalArgumentException si la taille de nodes.bin ou de
+     * edges.bin n'est pas un multiple de celle d'un enregistrement, ou s'ils
+     * contiennent plus de 2^31 - 1 enregistrements
+     */
+    GraphSegments {
+        checkRecords(nodes, NODE_BYTES);
+        checkRecords(edges, GraphEdges.BYTES_FOR_EDGES);
+    }
+
+    private static void checkRecords(MappedSegment segment, int recordBytes) {
+        Preconditions.checkArgument(segment.byteSize() % recordBytes == 0
+                && segment.byteSize() / recordBytes <= Integer.MAX_VALUE);
+    }
+
+    /**
+     * Retourne le nombre total de noeuds.
+     *
+     * @return le nombre total de noeuds
+     */
+    int nodeCount() {
+        return (int) (nodes.byteSize() / NODE_BYTES);
+    }
+
+    /**
+     * Retourne la coordonnée E du noeud d'identité donnée.
+     *
+     * @param nodeId l'identité du noeud
+     *
+     * @return la coordonnée E du noeud d'identité donnée
+     */
+    double nodeE(int nodeId) {
+        return asDouble(nodes.getInt(nodeOffset(nodeId) + OFFSET_E));
+    }
+
+    /**
+     * Retourne la coordonnée N du noeud d'identité donnée.
+     *
+     * @param nodeId l'identité du noeud
+     *
+     * @return la coordonnée N du noeud d'identité donnée
+     */
+    double nodeN(int nodeId) {
+        return asDouble(nodes.getInt(nodeOffset(nodeId) + OFFSET_N));
+    }
+
+    /**
+     * Retourne le nombre d'arêtes sortant du noeud d'identité donnée.
+     *
+     * @param nodeId l'identité du noeud
+     *
+     * @return le nombre d'arêtes sortant du noeud d'identité donnée
+     */
+    int outDegree(int nodeId) {
+        return nodes.getInt(nodeOffset(nodeId) + OFFSET_OUT_EDGES) >>> OFFSET_INDEX;
+    }
+
+    /**
+     * Retourne l'identité de la edgeIndex-ième arête sortant du noeud d'identité nodeId.
+     *
+     * @param nodeId l'identité du noeud
+     * @param edgeIndex l'indice de l'arête
+     *
+     * @return l'identité de la edgeIndex-ième arête sortant du noeud d'identité nodeId
+     */
+    int edgeId(int nodeId, int edgeIndex) {
+        int outEdges = nodes.getInt(nodeOffset(nodeId) + OFFSET_OUT_EDGES);
+        return (outEdges & ((1 << OFFSET_INDEX) - 1)) + edgeIndex;
+    }
+
+    /**
+     * Retourne le nombre total d'arêtes.
+     *
+     * @return le nombre total d'arêtes
+     */
+    int edgeCount() {
+        return (int) (edges.byteSize() / GraphEdges.BYTES_FOR_EDGES);
+    }
+
+    /**
+     * Retourne vrai ssi l'arête d'identité donnée va dans le sens inverse de la
+     * voie OSM dont elle provient.
+     *
+     * @param edgeId l'identité de l'arête
+     *
+     * @return vrai ssi l'arête d'identité donnée est inversée
+     */
+    boolean isInverted(int edgeId) {
+        return edges.getInt(edgeOffset(edgeId) + OFFSET_TARGET_NODE_ID) < 0;
+    }
+
+    /**
+     * Retourne l'identité du noeud destination de l'arête d'identité donnée.
+     *
+     * @param edgeId l'identité de l'arête
+     *
+     * @return l'identité du noeud destination de l'arête d'identité donnée
+     */
+    int targetNodeId(int edgeId) {
+        int idWithEdgeDirection = edges.getInt(edgeOffset(edgeId) + OFFSET_TARGET_NODE_ID);
+        return idWithEdgeDirection < 0 ? ~idWithEdgeDirection : idWithEdgeDirection;
+    }
+
+    /**
+     * Retourne la longueur, en mètres, de l'arête d'identité donnée.
+     *
+     * @param edgeId l'identité de l'arête
+     *
+     * @return la longueur, en mètres, de l'arête d'identité donnée
+     */
+    double length(int edgeId) {
+        return Q28_4.asDouble(lengthQ28_4(edgeId));
+    }
+
+    /**
+     * Retourne le dénivelé positif, en mètres, de l'arête d'identité donnée.
+     *
+     * @param edgeId l'identité de l'arête
+     *
+     * @return le dénivelé positif, en mètres, de l'arête d'identité donnée
+     */
+    double elevationGain(int edgeId) {
+        return Q28_4.asDouble(Short.toUnsignedInt(
+                edges.getShort(edgeOffset(edgeId) + OFFSET_ELEVATION_GAIN)));
+    }
+
+    /**
+     * Retourne l'identité de l'ensemble d'attributs attaché à l'arête d'identité donnée.
+     *
+     * @param edgeId l'identité de l'arête
+     *
+     * @return l'identité de l'ensemble d'attributs attaché à l'arête d'identité donnée
+     */
+    int attributesIndex(int edgeId) {
+        return Short.toUnsignedInt(edges.getShort(edgeOffset(edgeId) + OFFSET_ATTRIBUTES_INDEX));
+    }
+
+    /**
+     * Écrit les échantillons du profil de l'arête d'identité donnée dans le
+     * tableau donné, à partir de l'index donné, et retourne leur nombre (voir
+     * GraphEdges.profileSamples).
+     *
+     * @param edgeId l'identité de l'arête
+     * @param destination le tableau dans lequel écrire les échantillons
+     * @param offset l'index du premier échantillon dans le tableau
+     *
+     * @return le nombre d'échantillons écrits, qui vaut 0 si l'arête ne
+     * possède pas de profil
+     *
+     * @throws IndexOutOfBoundsException si le tableau est trop petit pour
+     * contenir tous les échantillons à partir de l'index donné
+     */
+    int profileSamples(int edgeId, float[] destination, int offset) {
+        int profileId = profileIds.getInt((long) edgeId * Integer.BYTES);
+        int profileType = profileId >>> PROFILE_TYPE_SHIFT;
+        if (profileType == 0)
+            return 0;
+        int lengthQ28_4 = lengthQ28_4(edgeId);
+        int count = 1 + Math2.ceilDiv(lengthQ28_4, Q28_4.ofInt(2));
+        // Un short contient un échantillon non compressé, deux différences
+        // en Q4.4 ou quatre en Q0.4, le premier échantillon n'étant jamais
+        // compressé
+        int shortCount = switch (profileType) {
+            case 1 -> count;
+            case 2 -> 1 + Math2.ceilDiv(count - 1, 2);
+            default -> 1 + Math2.ceilDiv(count - 1, 4);
+        };
+
+        // L'arête, réduite à sa destination et sa longueur, et son profil sont
+        // copiés dans les mémoires tampon d'un graphe d'une seule arête
+        ProfileCopy copy = PROFILE_COPY.get();
+        long firstOffset = (long) (profileId & FIRST_PROFILE_ID_MASK) * Short.BYTES;
+        elevations.getShorts(firstOffset, copy.elevations, 0, shortCount);
+        copy.edges.edgesBuffer()
+                .putInt(OFFSET_TARGET_NODE_ID,
+                        edges.getInt(edgeOffset(edgeId) + OFFSET_TARGET_NODE_ID))
+                .putShort(OFFSET_LENGTH, (short) lengthQ28_4);
+        copy.edges.profileIds().put(0, profileType << PROFILE_TYPE_SHIFT);
+        return copy.edges.profileSamples(0, destination, offset);
+    }
+
+    private int lengthQ28_4(int edgeId) {
+        return Short.toUnsignedInt(edges.getShort(edgeOffset(edgeId) + OFFSET_LENGTH));
+    }
+
+    private static long nodeOffset(int nodeId) {
+        return (long) nodeId * NODE_BYTES;
+    }
+
+    private static long edgeOffset(int edgeId) {
+        return (long) edgeId * GraphEdges.BYTES_FOR_EDGES;
+    }
+
+    // Arête unique dont les mémoires tampon reçoivent la copie d'une arête et
+    // de son profil
+    private static final class ProfileCopy {
+        final short[] elevations = new short[MAX_PROFILE_SHORTS];
+        final GraphEdges edges = new GraphEdges(
+                ByteBuffer.allocate(GraphEdges.BYTES_FOR_EDGES),
+                IntBuffer.allocate(1),
+                ShortBuffer.wrap(elevations));
+    }
+}
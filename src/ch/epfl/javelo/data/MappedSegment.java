@@ -0,0 +1,195 @@
+package ch.epfl.javelo.data;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * Représente un fichier projeté en mémoire en lecture seule, dont les octets
+ * sont adressés par des positions de type long, ce qui permet de lire des
+ * fichiers de plus de 2 Go. La durée de vie de la projection est celle de
+ * l'arène qui l'a créée.
+ * <p>
+ * Le fichier est projeté par blocs de 1 Gio, chaque bloc débordant de 8 octets
+ * sur le suivant, de sorte que toute valeur primitive soit lue dans un seul
+ * bloc ; un fichier de moins de 2 Go est projeté en un seul bloc. Les blocs ne
+ * sont jamais exposés, afin que l'arène puisse les libérer sans risque.
+ * <p>
+ * Le graphe chargé par Graph.loadFrom(Path, GraphArena) lit ses noeuds, ses
+ * arêtes et ses profils dans des segments, et n'est donc pas limité à 2 Go par
+ * fichier.
+ *
+ * @author Tanguy Dieudonné (326618)
+ * @author Nathanaël Girod (329987)
+ */
+public final class MappedSegment {
+    private static final int CHUNK_SHIFT = 30;
+    private static final int CHUNK_OVERLAP = Long.BYTES;
+
+    private final GraphArena arena;
+    private final long byteSize;
+    private final MappedByteBuffer[] chunks;
+    private final int chunkShift;
+    private final long chunkMask;
+
+    private MappedSegment(GraphArena arena, long byteSize, MappedByteBuffer[] chunks,
+                          int chunkShift) {
+        this.arena = arena;
+        this.byteSize = byteSize;
+        this.chunks = chunks;
+        this.chunkShift = chunkShift;
+        this.chunkMask = (1L << chunkShift) - 1;
+    }
+
+    // Projette la totalité du fichier donné, pour l'arène donnée
+    static MappedSegment map(Path filePath, GraphArena arena) throws IOException {
+        try (FileChannel channel = FileChannel.open(filePath)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                return map(channel, arena, CHUNK_SHIFT);
+            MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return new MappedSegment(arena, size, new MappedByteBuffer[]{chunk}, Integer.SIZE);
+        }
+    }
+
+    // Projette la totalité du fichier donné par blocs de 2^chunkShift octets,
+    // quelle que soit sa taille
+    static MappedSegment map(Path filePath, GraphArena arena, int chunkShift)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(filePath)) {
+            return map(channel, arena, chunkShift);
+        }
+    }
+
+    private static MappedSegment map(FileChannel channel, GraphArena arena, int chunkShift)
+            throws IOException {
+        long size = channel.size();
+        long chunkSize = 1L << chunkShift;
+        MappedByteBuffer[] chunks =
+                new MappedByteBuffer[(int) Math.max(1, (size + chunkSize - 1) >>> chunkShift)];
+        for (int i = 0; i < chunks.length; i++) {
+            long start = i * chunkSize;
+            long end = Math.min(size, start + chunkSize + CHUNK_OVERLAP);
+            chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        }
+        return new MappedSegment(arena, size, chunks, chunkShift);
+    }
+
+    // Blocs projetés, que l'arène libère à sa fermeture
+    MappedByteBuffer[] chunks() {
+        return chunks;
+    }
+
+    /**
+     * Retourne la taille du fichier, en octets.
+     *
+     * @return la taille du fichier, en octets
+     */
+    public long byteSize() {
+        return byteSize;
+    }
+
+    /**
+     * Retourne l'octet à la position donnée.
+     *
+     * @param offset la position de l'octet
+     *
+     * @return l'octet à la position donnée
+     *
+     * @throws IndexOutOfBoundsException si l'octet n'est pas dans le fichier
+     * @throws IllegalStateException si l'arène du fichier est fermée
+     */
+    public byte getByte(long offset) {
+        Objects.checkFromIndexSize(offset, Byte.BYTES, byteSize);
+        GraphArena.Reader reader = arena.beginRead();
+        try {
+            return chunk(offset).get(index(offset));
+        } finally {
+            reader.endRead();
+        }
+    }
+
+    /**
+     * Retourne la valeur de type short, gros-boutiste, à la position donnée.
+     *
+     * @param offset la position du premier octet de la valeur
+     *
+     * @return la valeur à la position donnée
+     *
+     * @throws IndexOutOfBoundsException si la valeur n'est pas dans le fichier
+     * @throws IllegalStateException si l'arène du fichier est fermée
+     */
+    public short getShort(long offset) {
+        Objects.checkFromIndexSize(offset, Short.BYTES, byteSize);
+        GraphArena.Reader reader = arena.beginRead();
+        try {
+            return chunk(offset).getShort(index(offset));
+        } finally {
+            reader.endRead();
+        }
+    }
+
+    /**
+     * Retourne la valeur de type int, gros-boutiste, à la position donnée.
+     *
+     * @param offset la position du premier octet de la valeur
+     *
+     * @return la valeur à la position donnée
+     *
+     * @throws IndexOutOfBoundsException si la valeur n'est pas dans le fichier
+     * @throws IllegalStateException si l'arène du fichier est fermée
+     */
+    public int getInt(long offset) {
+        Objects.checkFromIndexSize(offset, Integer.BYTES, byteSize);
+        GraphArena.Reader reader = arena.beginRead();
+        try {
+            return chunk(offset).getInt(index(offset));
+        } finally {
+            reader.endRead();
+        }
+    }
+
+    /**
+     * Retourne la valeur de type long, gros-boutiste, à la position donnée.
+     *
+     * @param offset la position du premier octet de la valeur
+     *
+     * @return la valeur à la position donnée
+     *
+     * @throws IndexOutOfBoundsException si la valeur n'est pas dans le fichier
+     * @throws IllegalStateException si l'arène du fichier est fermée
+     */
+    public long getLong(long offset) {
+        Objects.checkFromIndexSize(offset, Long.BYTES, byteSize);
+        GraphArena.Reader reader = arena.beginRead();
+        try {
+            return chunk(offset).getLong(index(offset));
+        } finally {
+            reader.endRead();
+        }
+    }
+
+    // Copie dans le tableau donné, à partir de l'index start, les count valeurs
+    // de type short débutant à la position donnée, en une seule lecture
+    void getShorts(long offset, short[] destination, int start, int count) {
+        Objects.checkFromIndexSize(offset, (long) count * Short.BYTES, byteSize);
+        Objects.checkFromIndexSize(start, count, destination.length);
+        GraphArena.Reader reader = arena.beginRead();
+        try {
+            for (int i = 0; i < count; i++, offset += Short.BYTES)
+                destination[start + i] = chunk(offset).getShort(index(offset));
+        } finally {
+            reader.endRead();
+        }
+    }
+
+    private MappedByteBuffer chunk(long offset) {
+        return chunks[(int) (offset >>> chunkShift)];
+    }
+
+    private int index(long offset) {
+        return (int) (offset & chunkMask);
+    }
+}
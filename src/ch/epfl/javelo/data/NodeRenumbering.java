@@ -0,0 +1,245 @@
+package ch.epfl.javelo.data;
+
+import ch.epfl.javelo.Math2;
+import ch.epfl.javelo.Preconditions;
+import ch.epfl.javelo.projection.SwissBounds;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static ch.epfl.javelo.data.BinaryFiles.mappedBuffer;
+import static ch.epfl.javelo.data.BinaryFiles.write;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Classe finale et non-instanciable renumérotant les noeuds d'un graphe le
+ * long d'une courbe de Hilbert, afin que les noeuds proches dans l'espace, et
+ * donc les extrémités des arêtes, soient proches dans les fichiers projetés en
+ * mémoire.
+ * <p>
+ * La courbe parcourt d'abord les secteurs, puis les noeuds de chaque secteur,
+ * de sorte que les noeuds d'un secteur restent contigus ; seul l'ordre des
+ * secteurs change. Les arêtes sont réordonnées selon leur noeud de départ, et
+ * les fichiers nodes.bin, edges.bin, profile_ids.bin, sectors.bin et, s'il
+ * existe, nodes_osmid.bin sont réécrits en conséquence. Les fichiers dérivés
+ * du graphe (arbre des noeuds, tables de coûts, repères, composantes,
+ * hiérarchie de contraction) doivent être recalculés.
+ *
+ * @author Tanguy Dieudonné (326618)
+ * @author Nathanaël Girod (329987)
+ */
+public final class NodeRenumbering {
+    private NodeRenumbering() {}
+
+    private static final int SUBDIVISIONS_PER_SIDE = 128;
+    private static final int SECTOR_COUNT = SUBDIVISIONS_PER_SIDE * SUBDIVISIONS_PER_SIDE;
+    private static final int SECTOR_BYTES = Integer.BYTES + Short.BYTES;
+    private static final int SECTOR_ORDER = Integer.numberOfTrailingZeros(SUBDIVISIONS_PER_SIDE);
+    // Ordre de la courbe parcourant les noeuds d'un secteur
+    private static final int IN_SECTOR_ORDER = 9;
+    private static final int NODE_INTS = 3;
+    private static final int EDGE_BYTES = 10;
+    private static final int NODE_ID_BITS = 28;
+
+    /**
+     * Renumérote les noeuds du graphe se trouvant dans le répertoire donné en
+     * premier argument, et écrit le graphe renuméroté dans le répertoire donné
+     * en second argument.
+     *
+     * @param args les chemins des répertoires source et destination
+     *
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public static void main(String[] args) throws IOException {
+        Path sourcePath = Path.of(args.length > 0 ? args[0] : "javelo-data");
+        Path targetPath = Path.of(args.length > 1 ? args[1] : sourcePath + "-hilbert");
+        long t0 = System.nanoTime();
+        int[] newIds = renumber(sourcePath, targetPath);
+        System.out.printf("%d noeuds renumérotés en %d ms dans %s%n",
+                newIds.length, (System.nanoTime() - t0) / 1_000_000, targetPath);
+    }
+
+    /**
+     * Écrit dans le répertoire de destination donné, créé au besoin, le graphe
+     * du répertoire source donné dont les noeuds sont renumérotés le long
+     * d'une courbe de Hilbert, et retourne la nouvelle identité de chaque
+     * noeud.
+     *
+     * @param sourcePath le chemin du répertoire du graphe
+     * @param targetPath le chemin du répertoire du graphe renuméroté
+     *
+     * @return le tableau donnant, pour chaque ancienne identité de noeud, sa
+     * nouvelle identité
+     *
+     * @throws IOException en cas d'erreur d'entrée/sortie, p. ex. si l'un des
+     * fichiers attendus n'existe pas
+     * @throws IllegalArgumentException si les répertoires sont identiques, ou
+     * si un noeud n'appartient à aucun secteur
+     */
+    public static int[] renumber(Path sourcePath, Path targetPath) throws IOException {
+        Preconditions.checkArgument(!sourcePath.toAbsolutePath().normalize()
+                .equals(targetPath.toAbsolutePath().normalize()));
+        IntBuffer nodes = mappedBuffer(sourcePath.resolve("nodes.bin")).asIntBuffer();
+        ByteBuffer sectors = mappedBuffer(sourcePath.resolve("sectors.bin"));
+        ByteBuffer edges = mappedBuffer(sourcePath.resolve("edges.bin"));
+        IntBuffer profileIds = mappedBuffer(sourcePath.resolve("profile_ids.bin")).asIntBuffer();
+
+        int nodeCount = nodes.capacity() / NODE_INTS;
+        Preconditions.checkArgument(nodeCount <= 1 << NODE_ID_BITS);
+        int[] order = hilbertOrder(nodes, sectors);
+        int[] newIds = new int[nodeCount];
+        for (int newId = 0; newId < nodeCount; newId++)
+            newIds[order[newId]] = newId;
+
+        Files.createDirectories(targetPath);
+        writeNodesAndEdges(nodes, edges, profileIds, order, newIds, targetPath);
+        write(targetPath.resolve("sectors.bin"), renumberedSectors(sectors));
+        Path osmIdsPath = sourcePath.resolve("nodes_osmid.bin");
+        if (Files.exists(osmIdsPath)) {
+            LongBuffer osmIds = mappedBuffer(osmIdsPath).asLongBuffer();
+            ByteBuffer newOsmIds = ByteBuffer.allocate(osmIds.capacity() * Long.BYTES);
+            for (int newId = 0; newId < nodeCount; newId++)
+                newOsmIds.putLong(osmIds.get(order[newId]));
+            write(targetPath.resolve("nodes_osmid.bin"), newOsmIds.flip());
+        }
+        for (String fileName : new String[]{"attributes.bin", "elevations.bin"})
+            Files.copy(sourcePath.resolve(fileName), targetPath.resolve(fileName),
+                    REPLACE_EXISTING);
+        return newIds;
+    }
+
+    // Retourne les anciennes identités des noeuds, dans l'ordre de la courbe :
+    // d'abord celui de la courbe d'ordre 7 sur les secteurs, puis celui de la
+    // courbe sur les positions des noeuds au sein de leur secteur
+    private static int[] hilbertOrder(IntBuffer nodes, ByteBuffer sectors) {
+        int nodeCount = nodes.capacity() / NODE_INTS;
+        long[] keys = new long[nodeCount];
+        Arrays.fill(keys, -1);
+        double sectorWidth = SwissBounds.WIDTH / SUBDIVISIONS_PER_SIDE;
+        double sectorHeight = SwissBounds.HEIGHT / SUBDIVISIONS_PER_SIDE;
+        int cellsPerSide = 1 << IN_SECTOR_ORDER;
+        GraphNodes graphNodes = new GraphNodes(nodes);
+
+        for (int sector = 0; sector < SECTOR_COUNT; sector++) {
+            int x = sector % SUBDIVISIONS_PER_SIDE, y = sector / SUBDIVISIONS_PER_SIDE;
+            long sectorKey = hilbertIndex(SECTOR_ORDER, x, y);
+            int start = sectors.getInt(SECTOR_BYTES * sector);
+            int end = start + Short.toUnsignedInt(
+                    sectors.getShort(SECTOR_BYTES * sector + Integer.BYTES));
+            for (int nodeId = start; nodeId < end; nodeId++) {
+                double cellX = ((graphNodes.nodeE(nodeId) - SwissBounds.MIN_E) / sectorWidth - x)
+                        * cellsPerSide;
+                double cellY = ((graphNodes.nodeN(nodeId) - SwissBounds.MIN_N) / sectorHeight - y)
+                        * cellsPerSide;
+                long nodeKey = hilbertIndex(IN_SECTOR_ORDER,
+                        Math2.clamp(0, (int) cellX, cellsPerSide - 1),
+                        Math2.clamp(0, (int) cellY, cellsPerSide - 1));
+                keys[nodeId] = (sectorKey << 2 * IN_SECTOR_ORDER | nodeKey) << NODE_ID_BITS
+                        | nodeId;
+            }
+        }
+
+        for (long key : keys)
+            Preconditions.checkArgument(key != -1);
+        Arrays.sort(keys);
+        int[] order = new int[nodeCount];
+        int nodeIdMask = (1 << NODE_ID_BITS) - 1;
+        for (int i = 0; i < nodeCount; i++)
+            order[i] = (int) (keys[i] & nodeIdMask);
+        return order;
+    }
+
+    /**
+     * Retourne la position de la cellule de coordonnées données le long de la
+     * courbe de Hilbert de l'ordre donné, qui parcourt une grille carrée de
+     * 2^order cellules de côté.
+     *
+     * @param order l'ordre de la courbe
+     * @param x l'abscisse de la cellule, comprise entre 0 et 2^order - 1
+     * @param y l'ordonnée de la cellule, comprise entre 0 et 2^order - 1
+     *
+     * @return la position de la cellule le long de la courbe
+     */
+    static long hilbertIndex(int order, int x, int y) {
+        long index = 0;
+        for (int s = 1 << (order - 1); s > 0; s >>= 1) {
+            int rx = (x & s) > 0 ? 1 : 0;
+            int ry = (y & s) > 0 ? 1 : 0;
+            index += (long) s * s * ((3 * rx) ^ ry);
+            // Rotation du quadrant, afin que la courbe y soit parcourue dans
+            // le bon sens
+            if (ry == 0) {
+                if (rx == 1) {
+                    x = s - 1 - (x & (s - 1));
+                    y = s - 1 - (y & (s - 1));
+                }
+                int tmp = x;
+                x = y;
+                y = tmp;
+            }
+            x &= s - 1;
+            y &= s - 1;
+        }
+        return index;
+    }
+
+    // Écrit les noeuds dans leur nouvel ordre, suivis de leurs arêtes sortantes
+    // et de leurs identités de profil, dont les noeuds destination sont
+    // renumérotés
+    private static void writeNodesAndEdges(IntBuffer nodes, ByteBuffer edges,
+                                           IntBuffer profileIds, int[] order, int[] newIds,
+                                           Path targetPath) throws IOException {
+        int nodeCount = order.length;
+        GraphNodes graphNodes = new GraphNodes(nodes);
+        ByteBuffer newNodes = ByteBuffer.allocate(nodes.capacity() * Integer.BYTES);
+        ByteBuffer newEdges = ByteBuffer.allocate(edges.capacity());
+        ByteBuffer newProfileIds = ByteBuffer.allocate(profileIds.capacity() * Integer.BYTES);
+        int newEdgeId = 0;
+        for (int newId = 0; newId < nodeCount; newId++) {
+            int oldId = order[newId];
+            int degree = graphNodes.outDegree(oldId);
+            // Les coordonnées E et N du noeud sont inchangées
+            newNodes.putInt(nodes.get(NODE_INTS * oldId))
+                    .putInt(nodes.get(NODE_INTS * oldId + 1))
+                    .putInt(degree << NODE_ID_BITS | newEdgeId);
+            for (int i = 0; i < degree; i++) {
+                int oldEdgeId = graphNodes.edgeId(oldId, i);
+                int edgeOffset = EDGE_BYTES * oldEdgeId;
+                int target = edges.getInt(edgeOffset);
+                // Le sens de l'arête est encodé dans le signe de sa destination
+                newEdges.putInt(target < 0 ? ~newIds[~target] : newIds[target]);
+                for (int b = Integer.BYTES; b < EDGE_BYTES; b++)
+                    newEdges.put(edges.get(edgeOffset + b));
+                newProfileIds.putInt(profileIds.get(oldEdgeId));
+                newEdgeId += 1;
+            }
+        }
+        write(targetPath.resolve("nodes.bin"), newNodes.flip());
+        write(targetPath.resolve("edges.bin"), newEdges.flip());
+        write(targetPath.resolve("profile_ids.bin"), newProfileIds.flip());
+    }
+
+    // Retourne les secteurs dont les plages de noeuds se suivent dans l'ordre
+    // de la courbe, les noeuds de chaque secteur ayant été renumérotés
+    // consécutivement dans cet ordre
+    private static ByteBuffer renumberedSectors(ByteBuffer sectors) {
+        ByteBuffer newSectors = ByteBuffer.allocate(SECTOR_COUNT * SECTOR_BYTES);
+        int[] sectorsInOrder = new int[SECTOR_COUNT];
+        for (int sector = 0; sector < SECTOR_COUNT; sector++)
+            sectorsInOrder[(int) hilbertIndex(SECTOR_ORDER,
+                    sector % SUBDIVISIONS_PER_SIDE, sector / SUBDIVISIONS_PER_SIDE)] = sector;
+        int start = 0;
+        for (int sector : sectorsInOrder) {
+            short count = sectors.getShort(SECTOR_BYTES * sector + Integer.BYTES);
+            newSectors.putInt(SECTOR_BYTES * sector, start)
+                    .putShort(SECTOR_BYTES * sector + Integer.BYTES, count);
+            start += Short.toUnsignedInt(count);
+        }
+        return newSectors;
+    }
+}
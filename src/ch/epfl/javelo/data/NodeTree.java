@@ -0,0 +1,360 @@
+package ch.epfl.javelo.data;
+
+import ch.epfl.javelo.Preconditions;
+import ch.epfl.javelo.Q28_4;
+import ch.epfl.javelo.projection.PointCh;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Path;
+import java.util.function.IntConsumer;
+
+import static ch.epfl.javelo.data.BinaryFiles.mappedBuffer;
+import static ch.epfl.javelo.data.BinaryFiles.write;
+
+/**
+ * Représente un arbre k-d implicite sur les coordonnées des noeuds du graphe,
+ * permettant de trouver le noeud le plus proche d'un point, les k noeuds les
+ * plus proches ou tous les noeuds situés dans un rayon donné sans créer
+ * d'objet, indépendamment de la densité des noeuds.
+ * <p>
+ * L'arbre est stocké dans un tableau de triplets d'entiers (identité du noeud,
+ * coordonnées E et N en Q28.4), de sorte qu'il puisse être projeté en mémoire
+ * depuis un fichier. La racine d'une plage [début, fin[ du tableau est son
+ * élément médian, les noeuds situés avant elle ayant une coordonnée
+ * inférieure ou égale à la sienne, et ceux situés après elle une coordonnée
+ * supérieure ou égale, selon l'axe E aux profondeurs paires et l'axe N aux
+ * profondeurs impaires.
+ * <p>
+ * À distance égale, le noeud de plus petite identité est préféré, comme par
+ * Graph.nodeClosestTo lorsqu'il parcourt les secteurs.
+ *
+ * @author Tanguy Dieudonné (326618)
+ * @author Nathanaël Girod (329987)
+ */
+public final class NodeTree {
+    private static final int OFFSET_NODE_ID = 0;
+    private static final int OFFSET_E = OFFSET_NODE_ID + 1;
+    private static final int OFFSET_N = OFFSET_E + 1;
+    private static final int ENTRY_INTS = OFFSET_N + 1;
+
+    private final IntBuffer entries;
+
+    private NodeTree(IntBuffer entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * Construit l'arbre des noeuds du graphe se trouvant dans le répertoire
+     * donné en argument, et l'écrit dans ce même répertoire.
+     *
+     * @param args le chemin du répertoire du graphe
+     *
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public static void main(String[] args) throws IOException {
+        Path basePath = Path.of(args.length > 0 ? args[0] : "javelo-data");
+        Graph graph = Graph.loadFrom(basePath);
+        long t0 = System.nanoTime();
+        NodeTree tree = of(graph);
+        System.out.printf("Arbre de %d noeuds construit en %d ms%n",
+                tree.count(), (System.nanoTime() - t0) / 1_000_000);
+        tree.writeTo(filePath(basePath));
+    }
+
+    /**
+     * Retourne le chemin du fichier de l'arbre dans le répertoire donné.
+     *
+     * @param basePath le chemin du répertoire du graphe
+     *
+     * @return le chemin du fichier de l'arbre
+     */
+    public static Path filePath(Path basePath) {
+        return basePath.resolve("node_tree.bin");
+    }
+
+    /**
+     * Retourne l'arbre lu dans le fichier donné, projeté en mémoire.
+     *
+     * @param filePath le chemin du fichier
+     * @param graph le graphe dont l'arbre contient les noeuds
+     *
+     * @return l'arbre lu dans le fichier donné
+     *
+     * @throws IOException en cas d'erreur d'entrée/sortie, p. ex. si le
+     * fichier n'existe pas
+     * @throws IllegalArgumentException si le nombre de noeuds de l'arbre
+     * n'est pas celui du graphe
+     */
+    public static NodeTree loadFrom(Path filePath, Graph graph) throws IOException {
+        IntBuffer entries = mappedBuffer(filePath).asIntBuffer();
+        Preconditions.checkArgument(entries.capacity() == ENTRY_INTS * graph.nodeCount());
+        return new NodeTree(entries);
+    }
+
+    /**
+     * Retourne l'arbre des noeuds du graphe donné.
+     *
+     * @param graph le graphe
+     *
+     * @return l'arbre des noeuds du graphe donné
+     */
+    public static NodeTree of(Graph graph) {
+        int nodeCount = graph.nodeCount();
+        int[] entries = new int[ENTRY_INTS * nodeCount];
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++) {
+            entries[ENTRY_INTS * nodeId + OFFSET_NODE_ID] = nodeId;
+            entries[ENTRY_INTS * nodeId + OFFSET_E] = toQ28_4(graph.nodeE(nodeId));
+            entries[ENTRY_INTS * nodeId + OFFSET_N] = toQ28_4(graph.nodeN(nodeId));
+        }
+        build(entries, 0, nodeCount, 0);
+        return new NodeTree(IntBuffer.wrap(entries));
+    }
+
+    // Les coordonnées des noeuds étant stockées en Q28.4, la conversion est exacte
+    private static int toQ28_4(double coordinate) {
+        return (int) Math.scalb(coordinate, 4);
+    }
+
+    /**
+     * Écrit l'arbre dans le fichier donné.
+     *
+     * @param filePath le chemin du fichier
+     *
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public void writeTo(Path filePath) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(entries.capacity() * Integer.BYTES);
+        buffer.asIntBuffer().put(entries.duplicate().clear());
+        write(filePath, buffer);
+    }
+
+    /**
+     * Retourne le nombre de noeuds de l'arbre.
+     *
+     * @return le nombre de noeuds de l'arbre
+     */
+    public int count() {
+        return entries.capacity() / ENTRY_INTS;
+    }
+
+    // Place récursivement la médiane de chaque plage à sa place, selon l'axe
+    // correspondant à la profondeur
+    private static void build(int[] entries, int from, int to, int depth) {
+        if (to - from <= 1)
+            return;
+        int middle = (from + to) >>> 1;
+        int axis = (depth & 1) == 0 ? OFFSET_E : OFFSET_N;
+        select(entries, from, to - 1, middle, axis);
+        build(entries, from, middle, depth + 1);
+        build(entries, middle + 1, to, depth + 1);
+    }
+
+    // Compare deux entrées selon l'axe donné, puis selon l'identité du noeud
+    private static int compare(int[] entries, int i, int j, int axis) {
+        int c = Integer.compare(entries[ENTRY_INTS * i + axis], entries[ENTRY_INTS * j + axis]);
+        return c != 0 ? c : Integer.compare(entries[ENTRY_INTS * i], entries[ENTRY_INTS * j]);
+    }
+
+    private static void swap(int[] entries, int i, int j) {
+        for (int k = 0; k < ENTRY_INTS; k++) {
+            int tmp = entries[ENTRY_INTS * i + k];
+            entries[ENTRY_INTS * i + k] = entries[ENTRY_INTS * j + k];
+            entries[ENTRY_INTS * j + k] = tmp;
+        }
+    }
+
+    // Réordonne la plage [left, right] de sorte que l'entrée d'index k soit à
+    // sa place selon l'axe donné (sélection rapide)
+    private static void select(int[] entries, int left, int right, int k, int axis) {
+        while (right > left) {
+            swap(entries, (left + right) >>> 1, right);
+            int store = left;
+            for (int i = left; i < right; i++) {
+                if (compare(entries, i, right, axis) < 0)
+                    swap(entries, i, store++);
+            }
+            swap(entries, store, right);
+            if (store == k)
+                return;
+            if (k < store)
+                right = store - 1;
+            else
+                left = store + 1;
+        }
+    }
+
+    private int nodeId(int index) {
+        return entries.get(ENTRY_INTS * index + OFFSET_NODE_ID);
+    }
+
+    private double coordinate(int index, int axis) {
+        return Q28_4.asDouble(entries.get(ENTRY_INTS * index + axis));
+    }
+
+    private double squaredDistance(int index, double e, double n) {
+        double dE = coordinate(index, OFFSET_E) - e;
+        double dN = coordinate(index, OFFSET_N) - n;
+        return dE * dE + dN * dN;
+    }
+
+    /**
+     * Retourne l'identité du noeud se trouvant le plus proche du point donné,
+     * à la distance maximale donnée (en mètres), ou -1 si aucun noeud ne
+     * correspond à ces critères ; le résultat est celui de
+     * Graph.nodeClosestTo, y compris à distance égale.
+     *
+     * @param point le point
+     * @param searchDistance la distance maximale de recherche, en mètres
+     *
+     * @return l'identité du noeud le plus proche, ou -1
+     */
+    public int nodeClosestTo(PointCh point, double searchDistance) {
+        int index = closest(0, count(), 0, point.e(), point.n(),
+                -1, searchDistance * searchDistance);
+        return index < 0 ? -1 : nodeId(index);
+    }
+
+    // Retourne l'index de l'entrée la plus proche du point (e, n) dans la
+    // plage donnée, ou best si aucune n'est meilleure que l'entrée best, dont
+    // le carré de la distance au point est bestDistance (la borne de
+    // recherche si best vaut -1)
+    private int closest(int from, int to, int depth, double e, double n,
+                        int best, double bestDistance) {
+        if (from >= to)
+            return best;
+        int middle = (from + to) >>> 1;
+        double distance = squaredDistance(middle, e, n);
+        if (distance < bestDistance
+                || (distance == bestDistance && best >= 0 && nodeId(middle) < nodeId(best))) {
+            best = middle;
+            bestDistance = distance;
+        }
+
+        int axis = (depth & 1) == 0 ? OFFSET_E : OFFSET_N;
+        double difference = (axis == OFFSET_E ? e : n) - coordinate(middle, axis);
+        int nearFrom = difference < 0 ? from : middle + 1;
+        int nearTo = difference < 0 ? middle : to;
+        int farFrom = difference < 0 ? middle + 1 : from;
+        int farTo = difference < 0 ? to : middle;
+
+        int nearBest = closest(nearFrom, nearTo, depth + 1, e, n, best, bestDistance);
+        if (nearBest != best) {
+            best = nearBest;
+            bestDistance = squaredDistance(best, e, n);
+        }
+        if (difference * difference <= bestDistance)
+            best = closest(farFrom, farTo, depth + 1, e, n, best, bestDistance);
+        return best;
+    }
+
+    /**
+     * Écrit dans le tableau donné l'identité des noeuds les plus proches du
+     * point donné, à la distance maximale donnée (en mètres), par distance
+     * croissante, au plus autant qu'il contient d'éléments, et retourne leur
+     * nombre. Les carrés de leurs distances au point sont écrits dans le
+     * second tableau, qui doit être au moins aussi grand que le premier.
+     *
+     * @param point le point
+     * @param searchDistance la distance maximale de recherche, en mètres
+     * @param nodeIds le tableau des identités des noeuds trouvés
+     * @param squaredDistances le tableau des carrés de leurs distances au point
+     *
+     * @return le nombre de noeuds trouvés
+     *
+     * @throws IllegalArgumentException si le tableau des distances est plus
+     * petit que celui des identités
+     */
+    public int nodesClosestTo(PointCh point, double searchDistance,
+                              int[] nodeIds, double[] squaredDistances) {
+        Preconditions.checkArgument(squaredDistances.length >= nodeIds.length);
+        if (nodeIds.length == 0)
+            return 0;
+        return closest(0, count(), 0, point.e(), point.n(),
+                searchDistance * searchDistance, nodeIds, squaredDistances, 0);
+    }
+
+    // Ajoute aux count meilleurs noeuds déjà trouvés ceux de la plage donnée
+    // qui les améliorent, et retourne leur nouveau nombre
+    private int closest(int from, int to, int depth, double e, double n, double maxDistance,
+                        int[] nodeIds, double[] squaredDistances, int count) {
+        if (from >= to)
+            return count;
+        int k = nodeIds.length;
+        int middle = (from + to) >>> 1;
+        double distance = squaredDistance(middle, e, n);
+        if (distance < maxDistance)
+            count = insert(nodeId(middle), distance, nodeIds, squaredDistances, count);
+
+        int axis = (depth & 1) == 0 ? OFFSET_E : OFFSET_N;
+        double difference = (axis == OFFSET_E ? e : n) - coordinate(middle, axis);
+        boolean nearIsLow = difference < 0;
+        count = nearIsLow
+                ? closest(from, middle, depth + 1, e, n, maxDistance, nodeIds, squaredDistances, count)
+                : closest(middle + 1, to, depth + 1, e, n, maxDistance, nodeIds, squaredDistances, count);
+        double bound = count < k ? maxDistance : squaredDistances[k - 1];
+        if (difference * difference <= bound) {
+            count = nearIsLow
+                    ? closest(middle + 1, to, depth + 1, e, n, maxDistance, nodeIds, squaredDistances, count)
+                    : closest(from, middle, depth + 1, e, n, maxDistance, nodeIds, squaredDistances, count);
+        }
+        return count;
+    }
+
+    // Insère le noeud donné à sa place parmi les count meilleurs, triés par
+    // distance puis par identité, s'il en fait partie, et retourne leur
+    // nouveau nombre
+    private static int insert(int nodeId, double distance,
+                              int[] nodeIds, double[] squaredDistances, int count) {
+        int k = nodeIds.length;
+        int i = count;
+        while (i > 0 && (squaredDistances[i - 1] > distance
+                || (squaredDistances[i - 1] == distance && nodeIds[i - 1] > nodeId))) {
+            if (i < k) {
+                nodeIds[i] = nodeIds[i - 1];
+                squaredDistances[i] = squaredDistances[i - 1];
+            }
+            i -= 1;
+        }
+        if (i < k) {
+            nodeIds[i] = nodeId;
+            squaredDistances[i] = distance;
+        }
+        return Math.min(count + 1, k);
+    }
+
+    /**
+     * Passe à l'action donnée l'identité de chaque noeud se trouvant à une
+     * distance du point donné inférieure ou égale au rayon donné (en mètres),
+     * dans un ordre quelconque, et retourne leur nombre.
+     *
+     * @param point le point
+     * @param radius le rayon, en mètres
+     * @param action l'action à appliquer à chaque noeud
+     *
+     * @return le nombre de noeuds se trouvant dans le rayon donné
+     */
+    public int nodesWithin(PointCh point, double radius, IntConsumer action) {
+        return within(0, count(), 0, point.e(), point.n(), radius * radius, action);
+    }
+
+    private int within(int from, int to, int depth, double e, double n,
+                       double squaredRadius, IntConsumer action) {
+        if (from >= to)
+            return 0;
+        int middle = (from + to) >>> 1;
+        int found = 0;
+        if (squaredDistance(middle, e, n) <= squaredRadius) {
+            action.accept(nodeId(middle));
+            found += 1;
+        }
+        int axis = (depth & 1) == 0 ? OFFSET_E : OFFSET_N;
+        double difference = (axis == OFFSET_E ? e : n) - coordinate(middle, axis);
+        if (difference <= 0 || difference * difference <= squaredRadius)
+            found += within(from, middle, depth + 1, e, n, squaredRadius, action);
+        if (difference >= 0 || difference * difference <= squaredRadius)
+            found += within(middle + 1, to, depth + 1, e, n, squaredRadius, action);
+        return found;
+    }
+}
@@ -0,0 +1,171 @@
+package ch.epfl.javelo.data;
+
+import ch.epfl.javelo.Preconditions;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.IntFunction;
+
+/**
+ * Représente un cache borné des profils décodés des arêtes, indexé par
+ * l'identité des arêtes, qui peut être partagé entre plusieurs fils
+ * d'exécution.
+ * <p>
+ * Le cache est divisé en segments indépendants, choisis d'après l'identité de
+ * l'arête, afin que les fils d'exécution se gênent peu ; chaque segment évince
+ * le profil le moins récemment utilisé (LRU) lorsqu'il est plein.
+ *
+ * @author Tanguy Dieudonné (326618)
+ * @author Nathanaël Girod (329987)
+ */
+public final class ProfileCache {
+    private static final int SEGMENT_COUNT = 16;
+
+    private final int capacity;
+    private final Segment[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Construit un cache vide pouvant contenir au plus le nombre de profils
+     * donné (arrondi au multiple supérieur du nombre de segments).
+     *
+     * @param capacity le nombre maximal de profils du cache
+     *
+     * @throws IllegalArgumentException si la capacité n'est pas strictement
+     * positive
+     */
+    public ProfileCache(int capacity) {
+        Preconditions.checkArgument(capacity > 0);
+        int segmentCapacity = (capacity + SEGMENT_COUNT - 1) / SEGMENT_COUNT;
+        this.capacity = segmentCapacity * SEGMENT_COUNT;
+        this.segments = new Segment[SEGMENT_COUNT];
+        for (int i = 0; i < SEGMENT_COUNT; i++)
+            segments[i] = new Segment(segmentCapacity);
+    }
+
+    /**
+     * Retourne le profil de l'arête d'identité donnée s'il se trouve dans le
+     * cache, ou sinon le calcule au moyen de la fonction donnée et l'ajoute au
+     * cache.
+     *
+     * @param edgeId l'identité de l'arête
+     * @param decoder la fonction calculant le profil d'une arête
+     *
+     * @return le profil de l'arête d'identité donnée
+     */
+    public DoubleUnaryOperator get(int edgeId, IntFunction<DoubleUnaryOperator> decoder) {
+        Segment segment = segments[segmentIndex(edgeId)];
+        DoubleUnaryOperator profile;
+        synchronized (segment) {
+            profile = segment.get(edgeId);
+        }
+        if (profile != null) {
+            hits.increment();
+            return profile;
+        }
+
+        misses.increment();
+        // Le décodage a lieu hors du verrou ; si deux fils décodent le même
+        // profil simultanément, le premier inséré est conservé.
+        profile = decoder.apply(edgeId);
+        synchronized (segment) {
+            DoubleUnaryOperator existing = segment.putIfAbsent(edgeId, profile);
+            return existing != null ? existing : profile;
+        }
+    }
+
+    // Répartit les identités consécutives entre les segments
+    private static int segmentIndex(int edgeId) {
+        return (edgeId * 0x9E3779B9) >>> (Integer.SIZE - Integer.numberOfTrailingZeros(SEGMENT_COUNT));
+    }
+
+    /**
+     * Retourne le nombre maximal de profils du cache.
+     *
+     * @return le nombre maximal de profils du cache
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Retourne le nombre de profils se trouvant actuellement dans le cache.
+     *
+     * @return le nombre de profils se trouvant dans le cache
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Retourne le nombre de profils trouvés dans le cache.
+     *
+     * @return le nombre de succès du cache
+     */
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Retourne le nombre de profils qui ont dû être décodés.
+     *
+     * @return le nombre d'échecs du cache
+     */
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Retourne le nombre de profils évincés du cache faute de place.
+     *
+     * @return le nombre de profils évincés
+     */
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Vide le cache et remet ses compteurs à zéro.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+    }
+
+    // Segment du cache, dont la table est ordonnée par accès et qui évince
+    // son entrée la plus ancienne lorsque sa capacité est dépassée.
+    private final class Segment extends LinkedHashMap<Integer, DoubleUnaryOperator> {
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(2 * capacity, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, DoubleUnaryOperator> eldest) {
+            if (size() <= capacity)
+                return false;
+            evictions.increment();
+            return true;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package ch.epfl.javelo.gui;
 
 import ch.epfl.javelo.data.Graph;
+import ch.epfl.javelo.data.NodeTree;
 import ch.epfl.javelo.routing.*;
 import javafx.application.Application;
 import javafx.beans.binding.Bindings;
@@ -17,6 +18,7 @@ import javafx.stage.Stage;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.function.Consumer;
 
@@ -29,6 +31,7 @@ import java.util.function.Consumer;
 public final class JaVelo extends Application {
     private static final int MIN_WIDTH = 800;
     private static final int MIN_HEIGHT = 600;
+    private static final int PROFILE_CACHE_CAPACITY = 1 << 16;
     private final BorderPane mainPane = new BorderPane();
     private final SplitPane mapAndProfilePane = new SplitPane();
 
@@ -46,7 +49,16 @@ public final class JaVelo extends Application {
     @Override
     public void start(Stage primaryStage) throws Exception {
 
-        Graph graph = Graph.loadFrom(Path.of("javelo-data"));
+        // Les profils des arêtes des itinéraires sont redécodés à chaque
+        // déplacement d'un point de passage, d'où le cache
+        Path graphPath = Path.of("javelo-data");
+        Graph graph = Graph.loadFrom(graphPath)
+                .withProfileCache(PROFILE_CACHE_CAPACITY);
+        // L'arbre des noeuds, s'il a été construit, accélère la recherche du
+        // noeud le plus proche de chaque point de passage
+        Path nodeTreePath = NodeTree.filePath(graphPath);
+        if (Files.exists(nodeTreePath))
+            graph = graph.withNodeTree(NodeTree.loadFrom(nodeTreePath, graph));
         String tileServerHost = "tile.openstreetmap.org";
         Path cacheBasePath = Path.of("osm-cache");
 
@@ -60,8 +72,16 @@ public final class JaVelo extends Application {
         Consumer<String> errorConsumer = errorManager::displayError;
 
         // Création du bean JavaFX de l'itinéraire
-        RouteBean routeBean =
-                new RouteBean(new RouteComputer(graph, new CityBikeCF(graph)));
+        // Les composantes connexes, si elles ont été calculées, permettent de
+        // constater immédiatement qu'aucun itinéraire ne relie deux points de
+        // passage
+        CostFunction costFunction = new CityBikeCF(graph);
+        Path componentsPath = ConnectedComponents.filePath(graphPath, costFunction);
+        ConnectedComponents components = Files.exists(componentsPath)
+                ? ConnectedComponents.loadFrom(componentsPath, graph)
+                : null;
+        RouteBean routeBean = new RouteBean(new RouteComputer(graph, costFunction,
+                RouteComputer.SearchMode.UNIDIRECTIONAL, null, components, null));
 
         // Création du gestionnaire de la carte annotée
         AnnotatedMapManager annotatedMapManager =
@@ -24,6 +24,8 @@ public final class RouteBean {
     private final ObjectProperty<ElevationProfile> elevationProfileP;
     private static final int MAX_ENTRIES = 50;
     private static final double MAX_STEP_LENGTH = 5d;
+    // Tableau de travail réutilisé pour le calcul des profils en long
+    private float[] profileBuffer = new float[0];
     // Le cache mémoire a une capacité de 50 routes
     private final Map<Pair<Integer, Integer>, Route> cacheMemory =
             new LinkedHashMap<>(MAX_ENTRIES, .75f, true);
@@ -146,8 +148,11 @@ public final class RouteBean {
                 return;
             }
             routeP.set(itinerary);
-            ElevationProfile profile =
-                    ElevationProfileComputer.elevationProfile(itinerary, MAX_STEP_LENGTH);
+            int sampleCount = ElevationProfileComputer.sampleCount(itinerary, MAX_STEP_LENGTH);
+            if (profileBuffer.length < sampleCount)
+                profileBuffer = new float[sampleCount];
+            ElevationProfile profile = ElevationProfileComputer.elevationProfile(
+                    itinerary, MAX_STEP_LENGTH, profileBuffer);
             elevationProfileP.set(profile);
         });
     }
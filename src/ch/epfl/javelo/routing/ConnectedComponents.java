@@ -0,0 +1,334 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.Preconditions;
+import ch.epfl.javelo.data.Graph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static ch.epfl.javelo.data.BinaryFiles.mappedBuffer;
+import static ch.epfl.javelo.data.BinaryFiles.write;
+
+/**
+ * Représente les composantes connexes du graphe pour une fonction de coût
+ * donnée, seules les arêtes de coût fini étant prises en compte.
+ * <p>
+ * Chaque noeud a deux composantes : sa composante fortement connexe, dont
+ * tous les noeuds sont atteignables les uns depuis les autres, et sa
+ * composante faiblement connexe, qui contient tous les noeuds reliés à lui
+ * lorsque le sens des arêtes est ignoré. Deux noeuds n'appartenant pas à la
+ * même composante faiblement connexe ne sont reliés par aucun itinéraire,
+ * dans un sens comme dans l'autre, ce qui permet à un planificateur
+ * d'itinéraire de le constater en temps constant plutôt qu'en explorant toute
+ * la composante du noeud de départ.
+ * <p>
+ * Le fichier des composantes contient, pour chaque noeud, l'identité de sa
+ * composante fortement connexe suivie de celle de sa composante faiblement
+ * connexe, les composantes étant numérotées dans l'ordre de leur premier noeud.
+ *
+ * @author Tanguy Dieudonné (326618)
+ * @author Nathanaël Girod (329987)
+ */
+public final class ConnectedComponents {
+    private static final int INTS_PER_NODE = 2;
+    private static final int OFFSET_STRONG = 0;
+    private static final int OFFSET_WEAK = 1;
+
+    private final IntBuffer components;
+
+    private ConnectedComponents(IntBuffer components) {
+        this.components = components;
+    }
+
+    /**
+     * Calcule les composantes de la fonction de coût CityBikeCF pour le graphe
+     * se trouvant dans le répertoire donné en argument, et les écrit dans ce
+     * même répertoire.
+     *
+     * @param args le chemin du répertoire du graphe
+     *
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public static void main(String[] args) throws IOException {
+        Path basePath = Path.of(args.length > 0 ? args[0] : "javelo-data");
+        Graph graph = Graph.loadFrom(basePath);
+        CostFunction costFunction = new CityBikeCF(graph);
+        long t0 = System.nanoTime();
+        ConnectedComponents components = of(graph, costFunction);
+        System.out.printf("%d composantes fortement connexes et %d faiblement connexes"
+                        + " calculées en %d ms%n",
+                components.strongCount(), components.weakCount(),
+                (System.nanoTime() - t0) / 1_000_000);
+        components.writeTo(filePath(basePath, costFunction));
+    }
+
+    /**
+     * Retourne le chemin du fichier des composantes de la fonction de coût
+     * donnée, dans le répertoire donné.
+     *
+     * @param basePath le chemin du répertoire du graphe
+     * @param costFunction la fonction de coût
+     *
+     * @return le chemin du fichier des composantes de la fonction de coût donnée
+     */
+    public static Path filePath(Path basePath, CostFunction costFunction) {
+        return basePath.resolve(
+                "components_" + costFunction.getClass().getSimpleName() + ".bin");
+    }
+
+    /**
+     * Retourne les composantes lues dans le fichier donné, projeté en mémoire.
+     *
+     * @param filePath le chemin du fichier
+     * @param graph le graphe pour lequel les composantes ont été calculées
+     *
+     * @return les composantes lues dans le fichier donné
+     *
+     * @throws IOException en cas d'erreur d'entrée/sortie, p. ex. si le
+     * fichier n'existe pas
+     * @throws IllegalArgumentException si le fichier ne contient pas les
+     * composantes d'autant de noeuds que le graphe en a
+     */
+    public static ConnectedComponents loadFrom(Path filePath, Graph graph) throws IOException {
+        IntBuffer components = mappedBuffer(filePath).asIntBuffer();
+        Preconditions.checkArgument(components.capacity() == INTS_PER_NODE * graph.nodeCount());
+        return new ConnectedComponents(components);
+    }
+
+    /**
+     * Retourne les composantes du graphe donné pour la fonction de coût donnée,
+     * les arêtes dont le facteur de coût n'est pas fini étant ignorées.
+     *
+     * @param graph le graphe
+     * @param costFunction la fonction de coût
+     *
+     * @return les composantes du graphe donné
+     */
+    public static ConnectedComponents of(Graph graph, CostFunction costFunction) {
+        int nodeCount = graph.nodeCount();
+        int[] strong = strongComponents(graph, costFunction);
+        int[] weak = weakComponents(graph, costFunction);
+        int[] components = new int[INTS_PER_NODE * nodeCount];
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++) {
+            components[INTS_PER_NODE * nodeId + OFFSET_STRONG] = strong[nodeId];
+            components[INTS_PER_NODE * nodeId + OFFSET_WEAK] = weak[nodeId];
+        }
+        return new ConnectedComponents(IntBuffer.wrap(components));
+    }
+
+    private static boolean isPassable(CostFunction costFunction, int nodeId, int edgeId) {
+        return costFunction.costFactor(nodeId, edgeId) < Double.POSITIVE_INFINITY;
+    }
+
+    // Calcule les composantes fortement connexes par l'algorithme de Tarjan,
+    // dont la récursion est remplacée par une pile explicite afin de supporter
+    // les très longs chemins du graphe complet
+    private static int[] strongComponents(Graph graph, CostFunction costFunction) {
+        int nodeCount = graph.nodeCount();
+        int[] index = new int[nodeCount];
+        int[] lowLink = new int[nodeCount];
+        int[] component = new int[nodeCount];
+        Arrays.fill(index, -1);
+        // Pile des noeuds de la composante en cours, et pile d'appels simulée
+        // contenant pour chaque noeud l'index de sa prochaine arête à examiner
+        int[] componentStack = new int[nodeCount];
+        boolean[] onComponentStack = new boolean[nodeCount];
+        int[] callStack = new int[nodeCount];
+        int[] nextEdgeIndex = new int[nodeCount];
+        int componentStackSize = 0, nextIndex = 0, componentCount = 0;
+
+        for (int root = 0; root < nodeCount; root++) {
+            if (index[root] != -1)
+                continue;
+            int callStackSize = 0;
+            callStack[callStackSize++] = root;
+            index[root] = lowLink[root] = nextIndex++;
+            componentStack[componentStackSize++] = root;
+            onComponentStack[root] = true;
+
+            while (callStackSize > 0) {
+                int nodeId = callStack[callStackSize - 1];
+                if (nextEdgeIndex[nodeId] < graph.nodeOutDegree(nodeId)) {
+                    int edgeId = graph.nodeOutEdgeId(nodeId, nextEdgeIndex[nodeId]++);
+                    if (!isPassable(costFunction, nodeId, edgeId))
+                        continue;
+                    int targetNodeId = graph.edgeTargetNodeId(edgeId);
+                    if (index[targetNodeId] == -1) {
+                        index[targetNodeId] = lowLink[targetNodeId] = nextIndex++;
+                        componentStack[componentStackSize++] = targetNodeId;
+                        onComponentStack[targetNodeId] = true;
+                        callStack[callStackSize++] = targetNodeId;
+                    } else if (onComponentStack[targetNodeId]) {
+                        lowLink[nodeId] = Math.min(lowLink[nodeId], index[targetNodeId]);
+                    }
+                    continue;
+                }
+
+                callStackSize -= 1;
+                if (lowLink[nodeId] == index[nodeId]) {
+                    int memberId;
+                    do {
+                        memberId = componentStack[--componentStackSize];
+                        onComponentStack[memberId] = false;
+                        component[memberId] = componentCount;
+                    } while (memberId != nodeId);
+                    componentCount += 1;
+                }
+                if (callStackSize > 0) {
+                    int parentId = callStack[callStackSize - 1];
+                    lowLink[parentId] = Math.min(lowLink[parentId], lowLink[nodeId]);
+                }
+            }
+        }
+        return renumbered(component, componentCount);
+    }
+
+    // Calcule les composantes faiblement connexes au moyen d'une structure
+    // union-find, avec compression des chemins par division
+    private static int[] weakComponents(Graph graph, CostFunction costFunction) {
+        int nodeCount = graph.nodeCount();
+        int[] parent = new int[nodeCount];
+        Arrays.setAll(parent, i -> i);
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++) {
+            for (int i = 0; i < graph.nodeOutDegree(nodeId); i++) {
+                int edgeId = graph.nodeOutEdgeId(nodeId, i);
+                if (!isPassable(costFunction, nodeId, edgeId))
+                    continue;
+                int root1 = root(parent, nodeId);
+                int root2 = root(parent, graph.edgeTargetNodeId(edgeId));
+                if (root1 != root2)
+                    parent[Math.max(root1, root2)] = Math.min(root1, root2);
+            }
+        }
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++)
+            parent[nodeId] = root(parent, nodeId);
+        return renumbered(parent, nodeCount);
+    }
+
+    private static int root(int[] parent, int nodeId) {
+        while (parent[nodeId] != nodeId) {
+            parent[nodeId] = parent[parent[nodeId]];
+            nodeId = parent[nodeId];
+        }
+        return nodeId;
+    }
+
+    // Renumérote les composantes données dans l'ordre de leur premier noeud
+    private static int[] renumbered(int[] component, int componentCount) {
+        int[] newIds = new int[componentCount];
+        Arrays.fill(newIds, -1);
+        int nextId = 0;
+        for (int nodeId = 0; nodeId < component.length; nodeId++) {
+            if (newIds[component[nodeId]] == -1)
+                newIds[component[nodeId]] = nextId++;
+            component[nodeId] = newIds[component[nodeId]];
+        }
+        return component;
+    }
+
+    /**
+     * Écrit les composantes dans le fichier donné.
+     *
+     * @param filePath le chemin du fichier
+     *
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public void writeTo(Path filePath) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(components.capacity() * Integer.BYTES);
+        buffer.asIntBuffer().put(components.duplicate().clear());
+        write(filePath, buffer);
+    }
+
+    /**
+     * Retourne le nombre de noeuds dont les composantes sont connues.
+     *
+     * @return le nombre de noeuds
+     */
+    public int nodeCount() {
+        return components.capacity() / INTS_PER_NODE;
+    }
+
+    /**
+     * Retourne l'identité de la composante fortement connexe du noeud
+     * d'identité donnée.
+     *
+     * @param nodeId l'identité du noeud
+     *
+     * @return l'identité de la composante fortement connexe du noeud
+     */
+    public int strongComponent(int nodeId) {
+        return components.get(INTS_PER_NODE * nodeId + OFFSET_STRONG);
+    }
+
+    /**
+     * Retourne l'identité de la composante faiblement connexe du noeud
+     * d'identité donnée.
+     *
+     * @param nodeId l'identité du noeud
+     *
+     * @return l'identité de la composante faiblement connexe du noeud
+     */
+    public int weakComponent(int nodeId) {
+        return components.get(INTS_PER_NODE * nodeId + OFFSET_WEAK);
+    }
+
+    /**
+     * Retourne le nombre de composantes fortement connexes.
+     *
+     * @return le nombre de composantes fortement connexes
+     */
+    public int strongCount() {
+        return componentCount(OFFSET_STRONG);
+    }
+
+    /**
+     * Retourne le nombre de composantes faiblement connexes.
+     *
+     * @return le nombre de composantes faiblement connexes
+     */
+    public int weakCount() {
+        return componentCount(OFFSET_WEAK);
+    }
+
+    // Les composantes étant numérotées dans l'ordre de leur premier noeud, leur
+    // nombre est le successeur de la plus grande identité
+    private int componentCount(int offset) {
+        int max = -1;
+        for (int i = offset; i < components.capacity(); i += INTS_PER_NODE)
+            max = Math.max(max, components.get(i));
+        return max + 1;
+    }
+
+    /**
+     * Retourne vrai ssi il existe un itinéraire de coût fini dans les deux sens
+     * entre les deux noeuds d'identités données.
+     *
+     * @param nodeId1 l'identité du premier noeud
+     * @param nodeId2 l'identité du second noeud
+     *
+     * @return vrai ssi les deux noeuds appartiennent à la même composante
+     * fortement connexe
+     */
+    public boolean areStronglyConnected(int nodeId1, int nodeId2) {
+        return strongComponent(nodeId1) == strongComponent(nodeId2);
+    }
+
+    /**
+     * Retourne faux si aucun itinéraire de coût fini ne relie les deux noeuds
+     * d'identités données, dans un sens comme dans l'autre ; un résultat vrai
+     * ne garantit l'existence d'un itinéraire que si les noeuds sont en outre
+     * fortement connectés.
+     *
+     * @param nodeId1 l'identité du premier noeud
+     * @param nodeId2 l'identité du second noeud
+     *
+     * @return vrai ssi les deux noeuds appartiennent à la même composante
+     * faiblement connexe
+     */
+    public boolean mayBeConnected(int nodeId1, int nodeId2) {
+        return weakComponent(nodeId1) == weakComponent(nodeId2);
+    }
+}
@@ -0,0 +1,294 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.Preconditions;
+import ch.epfl.javelo.data.Graph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import static ch.epfl.javelo.data.BinaryFiles.mappedBuffer;
+import static ch.epfl.javelo.data.BinaryFiles.write;
+
+/**
+ * Représente une hiérarchie de contraction (Contraction Hierarchy) du graphe
+ * JaVelo pour une fonction de coût donnée, et permet d'y rechercher des
+ * itinéraires de coût minimal beaucoup plus rapidement qu'avec RouteComputer.
+ * <p>
+ * La hiérarchie est construite hors ligne par ContractionHierarchyBuilder.
+ * Elle est composée d'arcs, qui sont soit des arêtes du graphe, soit des
+ * raccourcis remplaçant deux arcs consécutifs, et de listes d'adjacence ne
+ * contenant, pour chaque noeud, que les arcs menant à un noeud de rang
+ * supérieur (arcs montants) ou provenant d'un tel noeud (arcs descendants).
+ * Les itinéraires retournés sont composés d'arêtes du graphe, les raccourcis
+ * étant dépaquetés.
+ *
+ * @author Tanguy Dieudonné (326618)
+ * @author Nathanaël Girod (329987)
+ */
+public final class ContractionHierarchy {
+    /**
+     * Nom du fichier contenant le rang et les listes d'adjacence de chaque noeud.
+     */
+    public static final String NODES_FILE_NAME = "ch_nodes.bin";
+    /**
+     * Nom du fichier contenant les arcs (arêtes et raccourcis) de la hiérarchie.
+     */
+    public static final String ARCS_FILE_NAME = "ch_arcs.bin";
+    /**
+     * Nom du fichier contenant les listes d'adjacence de la hiérarchie.
+     */
+    public static final String ADJACENCY_FILE_NAME = "ch_adjacency.bin";
+
+    // Chaque noeud est représenté par trois int : son rang, l'index de son
+    // premier arc montant et celui de son premier arc descendant dans la liste
+    // d'adjacence. Un noeud supplémentaire termine les listes du dernier noeud.
+    static final int OFFSET_RANK = 0;
+    static final int OFFSET_FIRST_UPWARD_ARC = OFFSET_RANK + 1;
+    static final int OFFSET_FIRST_DOWNWARD_ARC = OFFSET_FIRST_UPWARD_ARC + 1;
+    static final int NODE_INTS = OFFSET_FIRST_DOWNWARD_ARC + 1;
+
+    // Chaque arc est représenté par son noeud de départ, son noeud d'arrivée,
+    // son coût, et soit le complément de l'identité de l'arête qu'il représente
+    // (négatif) suivi de -1, soit les index des deux arcs qu'il remplace.
+    static final int OFFSET_FROM_NODE_ID = 0;
+    static final int OFFSET_TO_NODE_ID = OFFSET_FROM_NODE_ID + Integer.BYTES;
+    static final int OFFSET_COST = OFFSET_TO_NODE_ID + Integer.BYTES;
+    static final int OFFSET_FIRST_CHILD = OFFSET_COST + Float.BYTES;
+    static final int OFFSET_SECOND_CHILD = OFFSET_FIRST_CHILD + Integer.BYTES;
+    static final int ARC_BYTES = OFFSET_SECOND_CHILD + Integer.BYTES;
+
+    private final Graph graph;
+    private final IntBuffer nodesBuffer;
+    private final ByteBuffer arcsBuffer;
+    private final IntBuffer adjacencyBuffer;
+    private final SearchContextPool searchContexts;
+
+    /**
+     * Construit la hiérarchie de contraction du graphe donné à partir des
+     * mémoires tampon données.
+     *
+     * @param graph le graphe
+     * @param nodesBuffer le rang et les listes d'adjacence de chaque noeud
+     * @param arcsBuffer les arcs de la hiérarchie
+     * @param adjacencyBuffer les listes d'adjacence de la hiérarchie
+     *
+     * @throws IllegalArgumentException si le nombre de noeuds de la hiérarchie
+     * ne correspond pas à celui du graphe
+     */
+    public ContractionHierarchy(Graph graph, IntBuffer nodesBuffer, ByteBuffer arcsBuffer,
+                                IntBuffer adjacencyBuffer) {
+        Preconditions.checkArgument(
+                nodesBuffer.capacity() == NODE_INTS * (graph.nodeCount() + 1));
+        this.graph = graph;
+        this.nodesBuffer = nodesBuffer;
+        this.arcsBuffer = arcsBuffer;
+        this.adjacencyBuffer = adjacencyBuffer;
+        this.searchContexts = new SearchContextPool(graph.nodeCount());
+    }
+
+    /**
+     * Retourne la hiérarchie de contraction du graphe donné obtenue à partir
+     * des fichiers se trouvant dans le répertoire donné, qui sont projetés en
+     * mémoire comme ceux du graphe.
+     *
+     * @param basePath le chemin du répertoire où se trouvent les fichiers
+     * @param graph le graphe
+     *
+     * @return la hiérarchie de contraction du graphe donné
+     *
+     * @throws IOException en cas d'erreur d'entrée/sortie, p. ex. si l'un des
+     * fichiers attendu n'existe pas
+     */
+    public static ContractionHierarchy loadFrom(Path basePath, Graph graph) throws IOException {
+        IntBuffer nodesBuffer = mappedBuffer(basePath.resolve(NODES_FILE_NAME)).asIntBuffer();
+        ByteBuffer arcsBuffer = mappedBuffer(basePath.resolve(ARCS_FILE_NAME));
+        IntBuffer adjacencyBuffer =
+                mappedBuffer(basePath.resolve(ADJACENCY_FILE_NAME)).asIntBuffer();
+        return new ContractionHierarchy(graph, nodesBuffer, arcsBuffer, adjacencyBuffer);
+    }
+
+    /**
+     * Écrit les fichiers de la hiérarchie dans le répertoire donné, à côté de
+     * ceux du graphe.
+     *
+     * @param basePath le chemin du répertoire
+     *
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public void writeTo(Path basePath) throws IOException {
+        write(basePath.resolve(NODES_FILE_NAME), asBytes(nodesBuffer));
+        write(basePath.resolve(ARCS_FILE_NAME), arcsBuffer.duplicate().clear());
+        write(basePath.resolve(ADJACENCY_FILE_NAME), asBytes(adjacencyBuffer));
+    }
+
+    private static ByteBuffer asBytes(IntBuffer buffer) {
+        ByteBuffer bytes = ByteBuffer.allocate(buffer.capacity() * Integer.BYTES);
+        bytes.asIntBuffer().put(buffer.duplicate().clear());
+        return bytes;
+    }
+
+    /**
+     * Retourne le nombre d'arcs (arêtes et raccourcis) de la hiérarchie.
+     *
+     * @return le nombre d'arcs de la hiérarchie
+     */
+    public int arcCount() {
+        return arcsBuffer.capacity() / ARC_BYTES;
+    }
+
+    /**
+     * Retourne le rang du noeud d'identité donnée, c.-à-d. sa position dans
+     * l'ordre de contraction.
+     *
+     * @param nodeId l'identité du noeud
+     *
+     * @return le rang du noeud d'identité donnée
+     */
+    public int rank(int nodeId) {
+        return nodesBuffer.get(NODE_INTS * nodeId + OFFSET_RANK);
+    }
+
+    /**
+     * Retourne l'itinéraire de coût total minimal allant du noeud d'identité
+     * startNodeId au noeud d'identité endNodeId, ou null si aucun itinéraire
+     * n'existe.
+     *
+     * @param startNodeId noeud de départ
+     * @param endNodeId noeud d'arrivée
+     *
+     * @return l'itinéraire de coût total minimal allant du noeud d'identité
+     * startNodeId au noeud d'identité endNodeId, ou null si aucun itinéraire
+     * n'existe
+     *
+     * @throws IllegalArgumentException si le noeud de départ et d'arrivée sont
+     * identiques
+     */
+    public Route bestRouteBetween(int startNodeId, int endNodeId) {
+        Preconditions.checkArgument(startNodeId != endNodeId);
+        SearchContext forward = searchContexts.acquire();
+        SearchContext backward = searchContexts.acquire();
+        try {
+            return bestRouteBetween(startNodeId, endNodeId, forward, backward);
+        } finally {
+            searchContexts.release(forward);
+            searchContexts.release(backward);
+        }
+    }
+
+    // Recherche de Dijkstra bidirectionnelle ne suivant que les arcs montants
+    // depuis le départ et les arcs descendants (à rebours) depuis l'arrivée.
+    // Chaque recherche s'arrête dès que sa priorité minimale atteint le coût
+    // du meilleur itinéraire trouvé.
+    private Route bestRouteBetween(int startNodeId, int endNodeId,
+                                   SearchContext forward, SearchContext backward) {
+        NodeHeap forwardNodes = forward.heap();
+        NodeHeap backwardNodes = backward.heap();
+        forward.setDistance(startNodeId, 0f);
+        forwardNodes.pushOrDecrease(startNodeId, 0f);
+        backward.setDistance(endNodeId, 0f);
+        backwardNodes.pushOrDecrease(endNodeId, 0f);
+
+        float bestDistance = Float.POSITIVE_INFINITY;
+        int meetingNodeId = -1;
+
+        while (true) {
+            boolean forwardDone = forwardNodes.isEmpty()
+                    || forwardNodes.peekKey() >= bestDistance;
+            boolean backwardDone = backwardNodes.isEmpty()
+                    || backwardNodes.peekKey() >= bestDistance;
+            if (forwardDone && backwardDone)
+                break;
+
+            boolean isForward = backwardDone
+                    || (!forwardDone && forwardNodes.peekKey() <= backwardNodes.peekKey());
+            SearchContext search = isForward ? forward : backward;
+            SearchContext other = isForward ? backward : forward;
+            int nodeId = search.heap().pop();
+            float nodeDistance = search.distance(nodeId);
+            int first = firstArcIndex(nodeId, isForward);
+            int last = lastArcIndex(nodeId, isForward);
+            for (int i = first; i < last; i++) {
+                int arcIndex = adjacencyBuffer.get(i);
+                int neighborNodeId = isForward ? arcToNodeId(arcIndex) : arcFromNodeId(arcIndex);
+                float neighborDistance = nodeDistance + arcCost(arcIndex);
+                if (neighborDistance < search.distance(neighborNodeId)) {
+                    search.setDistance(neighborNodeId, neighborDistance);
+                    search.setPredecessor(neighborNodeId, arcIndex);
+                    search.heap().pushOrDecrease(neighborNodeId, neighborDistance);
+
+                    float distance = neighborDistance + other.distance(neighborNodeId);
+                    if (distance < bestDistance) {
+                        bestDistance = distance;
+                        meetingNodeId = neighborNodeId;
+                    }
+                }
+            }
+        }
+
+        if (meetingNodeId == -1)
+            return null;
+
+        Deque<Integer> arcs = new ArrayDeque<>();
+        for (int nodeId = meetingNodeId; nodeId != startNodeId; ) {
+            int arcIndex = forward.predecessor(nodeId);
+            arcs.offerFirst(arcIndex);
+            nodeId = arcFromNodeId(arcIndex);
+        }
+        for (int nodeId = meetingNodeId; nodeId != endNodeId; ) {
+            int arcIndex = backward.predecessor(nodeId);
+            arcs.offerLast(arcIndex);
+            nodeId = arcToNodeId(arcIndex);
+        }
+
+        List<Edge> edges = new ArrayList<>();
+        for (int arcIndex : arcs)
+            unpack(arcIndex, edges);
+        return new SingleRoute(edges);
+    }
+
+    // Ajoute à la liste donnée les arêtes du graphe représentées par l'arc donné
+    private void unpack(int arcIndex, List<Edge> edges) {
+        Deque<Integer> toUnpack = new ArrayDeque<>();
+        toUnpack.push(arcIndex);
+        while (!toUnpack.isEmpty()) {
+            int index = toUnpack.pop();
+            int firstChild = arcsBuffer.getInt(ARC_BYTES * index + OFFSET_FIRST_CHILD);
+            if (firstChild < 0) {
+                edges.add(Edge.of(graph, ~firstChild,
+                        arcFromNodeId(index), arcToNodeId(index)));
+            } else {
+                toUnpack.push(arcsBuffer.getInt(ARC_BYTES * index + OFFSET_SECOND_CHILD));
+                toUnpack.push(firstChild);
+            }
+        }
+    }
+
+    private int firstArcIndex(int nodeId, boolean upward) {
+        return nodesBuffer.get(NODE_INTS * nodeId
+                + (upward ? OFFSET_FIRST_UPWARD_ARC : OFFSET_FIRST_DOWNWARD_ARC));
+    }
+
+    private int lastArcIndex(int nodeId, boolean upward) {
+        return upward
+                ? firstArcIndex(nodeId, false)
+                : firstArcIndex(nodeId + 1, true);
+    }
+
+    private int arcFromNodeId(int arcIndex) {
+        return arcsBuffer.getInt(ARC_BYTES * arcIndex + OFFSET_FROM_NODE_ID);
+    }
+
+    private int arcToNodeId(int arcIndex) {
+        return arcsBuffer.getInt(ARC_BYTES * arcIndex + OFFSET_TO_NODE_ID);
+    }
+
+    private float arcCost(int arcIndex) {
+        return arcsBuffer.getFloat(ARC_BYTES * arcIndex + OFFSET_COST);
+    }
+}
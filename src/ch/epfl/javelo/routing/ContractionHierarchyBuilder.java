@@ -0,0 +1,284 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.data.Graph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static ch.epfl.javelo.routing.ContractionHierarchy.*;
+
+/**
+ * Classe finale et non-instanciable qui construit, hors ligne, la hiérarchie
+ * de contraction d'un graphe pour une fonction de coût donnée.
+ * <p>
+ * Les noeuds sont contractés un à un, dans l'ordre donné par une priorité
+ * (nombre de raccourcis ajoutés moins nombre d'arcs supprimés, plus nombre de
+ * voisins déjà contractés) mise à jour paresseusement. Contracter un noeud
+ * consiste à ajouter un raccourci entre chaque paire de ses voisins non
+ * contractés, sauf si une recherche locale trouve un chemin témoin au moins
+ * aussi court qui ne passe pas par lui.
+ *
+ * @author Tanguy Dieudonné (326618)
+ * @author Nathanaël Girod (329987)
+ */
+public final class ContractionHierarchyBuilder {
+    private ContractionHierarchyBuilder() {}
+
+    // Nombre maximal de noeuds visités par une recherche de témoin ; au-delà,
+    // un raccourci éventuellement inutile est ajouté, ce qui reste correct.
+    private static final int MAX_WITNESS_SETTLED_NODES = 500;
+
+    /**
+     * Construit la hiérarchie de contraction du graphe JaVelo se trouvant dans
+     * le répertoire donné en argument, pour la fonction de coût CityBikeCF, et
+     * écrit ses fichiers dans ce même répertoire.
+     *
+     * @param args le chemin du répertoire du graphe
+     *
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public static void main(String[] args) throws IOException {
+        Path basePath = Path.of(args.length > 0 ? args[0] : "javelo-data");
+        Graph graph = Graph.loadFrom(basePath);
+        long t0 = System.nanoTime();
+        ContractionHierarchy hierarchy = build(graph, new CityBikeCF(graph));
+        System.out.printf("Hiérarchie de %d arcs construite en %d s%n",
+                hierarchy.arcCount(), (System.nanoTime() - t0) / 1_000_000_000);
+        hierarchy.writeTo(basePath);
+    }
+
+    /**
+     * Retourne la hiérarchie de contraction du graphe donné pour la fonction
+     * de coût donnée.
+     *
+     * @param graph le graphe
+     * @param costFunction la fonction de coût
+     *
+     * @return la hiérarchie de contraction du graphe donné
+     */
+    public static ContractionHierarchy build(Graph graph, CostFunction costFunction) {
+        Contraction contraction = new Contraction(graph, costFunction);
+        contraction.contractAll();
+        return contraction.toHierarchy(graph);
+    }
+
+    // État de la contraction : le graphe dynamique composé des arcs
+    // (arêtes et raccourcis) et des listes d'arcs sortants et entrants de
+    // chaque noeud non contracté.
+    private static final class Contraction {
+        private final int nodeCount;
+        private final IntList arcFrom = new IntList();
+        private final IntList arcTo = new IntList();
+        private final IntList arcFirstChild = new IntList();
+        private final IntList arcSecondChild = new IntList();
+        private float[] arcCosts = new float[16];
+        private final IntList[] outArcs;
+        private final IntList[] inArcs;
+        private final int[] ranks;
+        private final int[] contractedNeighbors;
+        private final SearchContext witnessSearch;
+
+        Contraction(Graph graph, CostFunction costFunction) {
+            this.nodeCount = graph.nodeCount();
+            this.outArcs = new IntList[nodeCount];
+            this.inArcs = new IntList[nodeCount];
+            for (int nodeId = 0; nodeId < nodeCount; nodeId++) {
+                outArcs[nodeId] = new IntList();
+                inArcs[nodeId] = new IntList();
+            }
+            this.ranks = new int[nodeCount];
+            Arrays.fill(ranks, -1);
+            this.contractedNeighbors = new int[nodeCount];
+            this.witnessSearch = new SearchContext(nodeCount);
+
+            for (int nodeId = 0; nodeId < nodeCount; nodeId++) {
+                for (int i = 0; i < graph.nodeOutDegree(nodeId); i++) {
+                    int edgeId = graph.nodeOutEdgeId(nodeId, i);
+                    int targetNodeId = graph.edgeTargetNodeId(edgeId);
+                    double cost = graph.edgeLength(edgeId)
+                            * costFunction.costFactor(nodeId, edgeId);
+                    // Les arêtes infranchissables et les boucles sont inutiles
+                    if (cost == Double.POSITIVE_INFINITY || targetNodeId == nodeId)
+                        continue;
+                    addArc(nodeId, targetNodeId, (float) cost, ~edgeId, -1);
+                }
+            }
+        }
+
+        void contractAll() {
+            NodeHeap queue = new NodeHeap(nodeCount);
+            for (int nodeId = 0; nodeId < nodeCount; nodeId++)
+                queue.pushOrDecrease(nodeId, priority(nodeId));
+
+            int rank = 0;
+            while (!queue.isEmpty()) {
+                int nodeId = queue.pop();
+                // Mise à jour paresseuse : la priorité du noeud a pu augmenter
+                // depuis son insertion, auquel cas il est réinséré.
+                float priority = priority(nodeId);
+                if (!queue.isEmpty() && priority > queue.peekKey()) {
+                    queue.pushOrDecrease(nodeId, priority);
+                    continue;
+                }
+                contract(nodeId, true);
+                ranks[nodeId] = rank++;
+            }
+        }
+
+        private float priority(int nodeId) {
+            int shortcuts = contract(nodeId, false);
+            int removedArcs = outArcs[nodeId].size() + inArcs[nodeId].size();
+            return shortcuts - removedArcs + contractedNeighbors[nodeId];
+        }
+
+        // Contracte le noeud donné, ou simule seulement sa contraction si
+        // apply est faux, et retourne le nombre de raccourcis nécessaires.
+        private int contract(int nodeId, boolean apply) {
+            IntList in = inArcs[nodeId];
+            IntList out = outArcs[nodeId];
+            int shortcuts = 0;
+            for (int i = 0; i < in.size(); i++) {
+                int inArc = in.get(i);
+                int fromNodeId = arcFrom.get(inArc);
+                if (isContracted(fromNodeId))
+                    continue;
+
+                float maxCost = -1;
+                for (int j = 0; j < out.size(); j++) {
+                    int toNodeId = arcTo.get(out.get(j));
+                    if (toNodeId != fromNodeId && !isContracted(toNodeId))
+                        maxCost = Math.max(maxCost, arcCosts[inArc] + arcCosts[out.get(j)]);
+                }
+                if (maxCost < 0)
+                    continue;
+                searchWitnesses(fromNodeId, nodeId, maxCost);
+
+                for (int j = 0; j < out.size(); j++) {
+                    int outArc = out.get(j);
+                    int toNodeId = arcTo.get(outArc);
+                    if (toNodeId == fromNodeId || isContracted(toNodeId))
+                        continue;
+                    float viaCost = arcCosts[inArc] + arcCosts[outArc];
+                    if (witnessSearch.distance(toNodeId) > viaCost) {
+                        shortcuts += 1;
+                        if (apply)
+                            addArc(fromNodeId, toNodeId, viaCost, inArc, outArc);
+                    }
+                }
+            }
+
+            if (apply) {
+                for (int i = 0; i < in.size(); i++)
+                    contractedNeighbors[arcFrom.get(in.get(i))] += 1;
+                for (int i = 0; i < out.size(); i++)
+                    contractedNeighbors[arcTo.get(out.get(i))] += 1;
+            }
+            return shortcuts;
+        }
+
+        // Recherche de Dijkstra locale depuis le noeud donné, évitant le noeud
+        // en cours de contraction et ceux déjà contractés.
+        private void searchWitnesses(int startNodeId, int avoidedNodeId, float maxCost) {
+            witnessSearch.reset();
+            NodeHeap heap = witnessSearch.heap();
+            witnessSearch.setDistance(startNodeId, 0f);
+            heap.pushOrDecrease(startNodeId, 0f);
+            int settledNodes = 0;
+            while (!heap.isEmpty() && heap.peekKey() <= maxCost
+                    && settledNodes < MAX_WITNESS_SETTLED_NODES) {
+                int nodeId = heap.pop();
+                settledNodes += 1;
+                float nodeDistance = witnessSearch.distance(nodeId);
+                IntList out = outArcs[nodeId];
+                for (int i = 0; i < out.size(); i++) {
+                    int arc = out.get(i);
+                    int toNodeId = arcTo.get(arc);
+                    if (toNodeId == avoidedNodeId || isContracted(toNodeId))
+                        continue;
+                    float distance = nodeDistance + arcCosts[arc];
+                    if (distance < witnessSearch.distance(toNodeId)) {
+                        witnessSearch.setDistance(toNodeId, distance);
+                        heap.pushOrDecrease(toNodeId, distance);
+                    }
+                }
+            }
+        }
+
+        private boolean isContracted(int nodeId) {
+            return ranks[nodeId] != -1;
+        }
+
+        private void addArc(int fromNodeId, int toNodeId, float cost,
+                            int firstChild, int secondChild) {
+            int arc = arcFrom.size();
+            arcFrom.add(fromNodeId);
+            arcTo.add(toNodeId);
+            arcFirstChild.add(firstChild);
+            arcSecondChild.add(secondChild);
+            if (arc == arcCosts.length)
+                arcCosts = Arrays.copyOf(arcCosts, 2 * arc);
+            arcCosts[arc] = cost;
+            outArcs[fromNodeId].add(arc);
+            inArcs[toNodeId].add(arc);
+        }
+
+        // Chaque arc est placé dans la liste montante de son noeud de départ
+        // si celui-ci est de rang inférieur, et dans la liste descendante de
+        // son noeud d'arrivée sinon.
+        ContractionHierarchy toHierarchy(Graph graph) {
+            int arcCount = arcFrom.size();
+            IntBuffer nodesBuffer = IntBuffer.allocate(NODE_INTS * (nodeCount + 1));
+            IntBuffer adjacencyBuffer = IntBuffer.allocate(arcCount);
+            for (int nodeId = 0; nodeId < nodeCount; nodeId++) {
+                nodesBuffer.put(ranks[nodeId]);
+                nodesBuffer.put(adjacencyBuffer.position());
+                IntList out = outArcs[nodeId];
+                for (int i = 0; i < out.size(); i++) {
+                    if (ranks[arcTo.get(out.get(i))] > ranks[nodeId])
+                        adjacencyBuffer.put(out.get(i));
+                }
+                nodesBuffer.put(adjacencyBuffer.position());
+                IntList in = inArcs[nodeId];
+                for (int i = 0; i < in.size(); i++) {
+                    if (ranks[arcFrom.get(in.get(i))] > ranks[nodeId])
+                        adjacencyBuffer.put(in.get(i));
+                }
+            }
+            nodesBuffer.put(nodeCount).put(arcCount).put(arcCount);
+
+            ByteBuffer arcsBuffer = ByteBuffer.allocate(ARC_BYTES * arcCount);
+            for (int arc = 0; arc < arcCount; arc++) {
+                arcsBuffer.putInt(arcFrom.get(arc))
+                        .putInt(arcTo.get(arc))
+                        .putFloat(arcCosts[arc])
+                        .putInt(arcFirstChild.get(arc))
+                        .putInt(arcSecondChild.get(arc));
+            }
+            return new ContractionHierarchy(graph, nodesBuffer.flip(), arcsBuffer.flip(),
+                    adjacencyBuffer.flip());
+        }
+    }
+
+    // Liste d'entiers de taille variable, stockés sans emballage
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length)
+                values = Arrays.copyOf(values, 2 * size);
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+    }
+}
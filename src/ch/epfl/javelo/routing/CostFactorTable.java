@@ -0,0 +1,103 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.Preconditions;
+import ch.epfl.javelo.data.Graph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.file.Path;
+
+import static ch.epfl.javelo.data.BinaryFiles.mappedBuffer;
+import static ch.epfl.javelo.data.BinaryFiles.write;
+
+/**
+ * Représente une fonction de coût dont les facteurs ont été calculés une fois
+ * pour toutes et stockés dans une table indexée par l'identité des arêtes.
+ * <p>
+ * Chaque arête ne partant que d'un seul noeud, le facteur de coût d'une arête
+ * ne dépend que de son identité, et la table donne exactement les mêmes
+ * facteurs que la fonction de coût à partir de laquelle elle a été calculée,
+ * arrondis au float le plus proche, sans le coût de leur calcul.
+ *
+ * @author Tanguy Dieudonné (326618)
+ * @author Nathanaël Girod (329987)
+ */
+public final class CostFactorTable implements CostFunction {
+    private final FloatBuffer costFactors;
+
+    private CostFactorTable(FloatBuffer costFactors) {
+        this.costFactors = costFactors;
+    }
+
+    /**
+     * Retourne la table des facteurs de coût de toutes les arêtes du graphe
+     * donné, selon la fonction de coût donnée.
+     *
+     * @param graph le graphe
+     * @param costFunction la fonction de coût
+     *
+     * @return la table des facteurs de coût de toutes les arêtes du graphe donné
+     */
+    public static CostFactorTable of(Graph graph, CostFunction costFunction) {
+        float[] costFactors = new float[graph.edgeCount()];
+        for (int nodeId = 0; nodeId < graph.nodeCount(); nodeId++) {
+            for (int i = 0; i < graph.nodeOutDegree(nodeId); i++) {
+                int edgeId = graph.nodeOutEdgeId(nodeId, i);
+                costFactors[edgeId] = (float) costFunction.costFactor(nodeId, edgeId);
+            }
+        }
+        return new CostFactorTable(FloatBuffer.wrap(costFactors));
+    }
+
+    /**
+     * Retourne le chemin du fichier de la table de la fonction de coût donnée,
+     * dans le répertoire donné.
+     *
+     * @param basePath le chemin du répertoire du graphe
+     * @param costFunction la fonction de coût
+     *
+     * @return le chemin du fichier de la table de la fonction de coût donnée
+     */
+    public static Path filePath(Path basePath, CostFunction costFunction) {
+        return basePath.resolve(
+                "cost_factors_" + costFunction.getClass().getSimpleName() + ".bin");
+    }
+
+    /**
+     * Retourne la table lue dans le fichier donné, projeté en mémoire.
+     *
+     * @param filePath le chemin du fichier
+     * @param graph le graphe pour lequel la table a été calculée
+     *
+     * @return la table lue dans le fichier donné
+     *
+     * @throws IOException en cas d'erreur d'entrée/sortie, p. ex. si le
+     * fichier n'existe pas
+     * @throws IllegalArgumentException si la table ne contient pas autant
+     * de facteurs que le graphe n'a d'arêtes
+     */
+    public static CostFactorTable loadFrom(Path filePath, Graph graph) throws IOException {
+        FloatBuffer costFactors = mappedBuffer(filePath).asFloatBuffer();
+        Preconditions.checkArgument(costFactors.capacity() == graph.edgeCount());
+        return new CostFactorTable(costFactors);
+    }
+
+    /**
+     * Écrit la table dans le fichier donné.
+     *
+     * @param filePath le chemin du fichier
+     *
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public void writeTo(Path filePath) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(costFactors.capacity() * Float.BYTES);
+        buffer.asFloatBuffer().put(costFactors.duplicate().clear());
+        write(filePath, buffer);
+    }
+
+    @Override
+    public double costFactor(int nodeId, int edgeId) {
+        return costFactors.get(edgeId);
+    }
+}
@@ -0,0 +1,158 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.Preconditions;
+import ch.epfl.javelo.data.Graph;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Représente un calculateur de matrices de coûts, qui donne le coût de
+ * l'itinéraire de coût minimal entre chaque noeud d'un ensemble de départs et
+ * chaque noeud d'un ensemble d'arrivées.
+ * <p>
+ * Une seule recherche de Dijkstra est effectuée par noeud de départ ; elle
+ * s'arrête dès que toutes les arrivées ont été visitées. Les recherches des
+ * différents départs sont réparties entre les fils d'exécution d'un
+ * ForkJoinPool et utilisent chacune un espace de travail tiré d'une réserve.
+ *
+ * @author Tanguy Dieudonné (326618)
+ * @author Nathanaël Girod (329987)
+ */
+public final class CostMatrixComputer {
+    /**
+     * Coût figurant dans la matrice lorsqu'aucun itinéraire n'existe.
+     */
+    public static final float NO_ROUTE = Float.POSITIVE_INFINITY;
+
+    private final Graph graph;
+    private final CostFunction costFunction;
+    private final ForkJoinPool pool;
+    private final SearchContextPool searchContexts;
+
+    /**
+     * Construit un calculateur de matrices de coûts pour le graphe et la
+     * fonction de coût donnés, utilisant le ForkJoinPool commun.
+     *
+     * @param graph le graphe
+     * @param costFunction la fonction de coût
+     */
+    public CostMatrixComputer(Graph graph, CostFunction costFunction) {
+        this(graph, costFunction, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Construit un calculateur de matrices de coûts pour le graphe et la
+     * fonction de coût donnés, utilisant le ForkJoinPool donné.
+     *
+     * @param graph le graphe
+     * @param costFunction la fonction de coût
+     * @param pool le ForkJoinPool dans lequel les recherches sont effectuées
+     */
+    public CostMatrixComputer(Graph graph, CostFunction costFunction, ForkJoinPool pool) {
+        this.graph = graph;
+        this.costFunction = costFunction;
+        this.pool = pool;
+        this.searchContexts = new SearchContextPool(graph.nodeCount());
+    }
+
+    /**
+     * Retourne la matrice des coûts minimaux entre les noeuds de départ et
+     * d'arrivée donnés : l'élément [i][j] est le coût de l'itinéraire de coût
+     * minimal allant du noeud sourceNodeIds[i] au noeud targetNodeIds[j], 0 si
+     * ces noeuds sont identiques, ou NO_ROUTE si aucun itinéraire n'existe.
+     *
+     * @param sourceNodeIds les identités des noeuds de départ
+     * @param targetNodeIds les identités des noeuds d'arrivée
+     *
+     * @return la matrice des coûts minimaux entre les noeuds donnés
+     *
+     * @throws IllegalArgumentException si l'une des identités n'est pas celle
+     * d'un noeud du graphe
+     */
+    public float[][] costMatrix(int[] sourceNodeIds, int[] targetNodeIds) {
+        checkNodeIds(sourceNodeIds);
+        checkNodeIds(targetNodeIds);
+        // Les arrivées distinctes, triées pour être reconnues par recherche
+        // dichotomique lors de leur visite
+        int[] targets = IntStream.of(targetNodeIds).sorted().distinct().toArray();
+
+        float[][] costs = new float[sourceNodeIds.length][];
+        pool.submit(() -> IntStream.range(0, sourceNodeIds.length).parallel().forEach(i -> {
+            SearchContext context = searchContexts.acquire();
+            try {
+                costs[i] = costsFrom(sourceNodeIds[i], targets, targetNodeIds, context);
+            } finally {
+                searchContexts.release(context);
+            }
+        })).join();
+        return costs;
+    }
+
+    /**
+     * Retourne la ligne de la matrice des coûts minimaux correspondant au
+     * noeud de départ donné, calculée dans le fil d'exécution courant.
+     *
+     * @param sourceNodeId l'identité du noeud de départ
+     * @param targetNodeIds les identités des noeuds d'arrivée
+     *
+     * @return les coûts minimaux du noeud de départ à chacun des noeuds d'arrivée
+     *
+     * @throws IllegalArgumentException si l'une des identités n'est pas celle
+     * d'un noeud du graphe
+     */
+    public float[] costsFrom(int sourceNodeId, int[] targetNodeIds) {
+        Preconditions.checkArgument(0 <= sourceNodeId && sourceNodeId < graph.nodeCount());
+        checkNodeIds(targetNodeIds);
+        int[] targets = IntStream.of(targetNodeIds).sorted().distinct().toArray();
+        SearchContext context = searchContexts.acquire();
+        try {
+            return costsFrom(sourceNodeId, targets, targetNodeIds, context);
+        } finally {
+            searchContexts.release(context);
+        }
+    }
+
+    private float[] costsFrom(int sourceNodeId, int[] sortedTargets, int[] targetNodeIds,
+                              SearchContext context) {
+        NodeHeap heap = context.heap();
+        context.setDistance(sourceNodeId, 0f);
+        heap.pushOrDecrease(sourceNodeId, 0f);
+        int remainingTargets = sortedTargets.length;
+
+        while (remainingTargets > 0 && !heap.isEmpty()) {
+            int nodeId = heap.pop();
+            context.markVisited(nodeId);
+            if (Arrays.binarySearch(sortedTargets, nodeId) >= 0)
+                remainingTargets -= 1;
+
+            float nodeDistance = context.distance(nodeId);
+            for (int i = 0; i < graph.nodeOutDegree(nodeId); i++) {
+                int edgeId = graph.nodeOutEdgeId(nodeId, i);
+                int targetNodeId = graph.edgeTargetNodeId(edgeId);
+                if (context.isVisited(targetNodeId))
+                    continue;
+
+                double distance = nodeDistance
+                        + graph.edgeLength(edgeId) * costFunction.costFactor(nodeId, edgeId);
+                if (distance < context.distance(targetNodeId)) {
+                    context.setDistance(targetNodeId, (float) distance);
+                    heap.pushOrDecrease(targetNodeId, (float) distance);
+                }
+            }
+        }
+
+        float[] costs = new float[targetNodeIds.length];
+        for (int j = 0; j < targetNodeIds.length; j++) {
+            int targetNodeId = targetNodeIds[j];
+            costs[j] = context.isVisited(targetNodeId) ? context.distance(targetNodeId) : NO_ROUTE;
+        }
+        return costs;
+    }
+
+    private void checkNodeIds(int[] nodeIds) {
+        for (int nodeId : nodeIds)
+            Preconditions.checkArgument(0 <= nodeId && nodeId < graph.nodeCount());
+    }
+}
@@ -0,0 +1,131 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.Math2;
+
+import java.util.List;
+
+/**
+ * Curseur calculant l'altitude d'un itinéraire à des positions successives,
+ * typiquement croissantes, en retournant exactement la même valeur que sa
+ * méthode elevationAt.
+ * <p>
+ * Les itinéraires simples et multiples sont parcourus en mémorisant l'arête,
+ * respectivement le segment, de la dernière position consultée, et en
+ * effectuant les mêmes calculs de position que leur méthode elevationAt ; une
+ * position correspondant exactement à un noeud ou à une jonction de segments
+ * est confiée à elevationAt, qui détermine l'arête à laquelle elle appartient.
+ * L'altitude des autres itinéraires est toujours obtenue par elevationAt.
+ * <p>
+ * Un curseur n'est pas destiné à être partagé entre plusieurs fils
+ * d'exécution.
+ *
+ * @author Tanguy Dieudonné (326618)
+ * @author Nathanaël Girod (329987)
+ */
+abstract class ElevationCursor {
+
+    /**
+     * Retourne un nouveau curseur parcourant l'itinéraire donné, placé à son
+     * début.
+     *
+     * @param route l'itinéraire
+     *
+     * @return un nouveau curseur parcourant l'itinéraire donné
+     */
+    static ElevationCursor of(Route route) {
+        if (route instanceof SingleRoute singleRoute)
+            return new SingleRouteCursor(singleRoute);
+        if (route instanceof MultiRoute multiRoute)
+            return new MultiRouteCursor(multiRoute);
+        return new RouteCursor(route);
+    }
+
+    /**
+     * Retourne l'altitude à la position donnée le long de l'itinéraire, en y
+     * déplaçant le curseur.
+     *
+     * @param position la position le long de l'itinéraire, en mètres
+     *
+     * @return l'altitude à la position donnée, identique à celle retournée par
+     * la méthode elevationAt de l'itinéraire
+     */
+    abstract double elevationAt(double position);
+
+    // Curseur d'un itinéraire quelconque
+    private static final class RouteCursor extends ElevationCursor {
+        private final Route route;
+
+        RouteCursor(Route route) {
+            this.route = route;
+        }
+
+        @Override
+        double elevationAt(double position) {
+            return route.elevationAt(position);
+        }
+    }
+
+    // Curseur d'un itinéraire simple, qui mémorise l'arête de la dernière
+    // position consultée
+    private static final class SingleRouteCursor extends ElevationCursor {
+        private final SingleRoute route;
+        private final List<Edge> edges;
+        private int edgeIndex;
+
+        SingleRouteCursor(SingleRoute route) {
+            this.route = route;
+            this.edges = route.edges();
+        }
+
+        @Override
+        double elevationAt(double position) {
+            double clampedPosition = Math2.clamp(0.0, position, route.length());
+            int lastEdgeIndex = edges.size() - 1;
+            while (edgeIndex < lastEdgeIndex
+                    && clampedPosition >= route.nodePosition(edgeIndex + 1))
+                edgeIndex += 1;
+            while (edgeIndex > 0 && clampedPosition < route.nodePosition(edgeIndex))
+                edgeIndex -= 1;
+            // La position est ici strictement comprise entre les extrémités de
+            // l'arête, ou correspond à l'un des noeuds de l'itinéraire
+            double edgeStart = route.nodePosition(edgeIndex);
+            if (clampedPosition == edgeStart
+                    || clampedPosition == route.nodePosition(edgeIndex + 1))
+                return route.elevationAt(position);
+            return edges.get(edgeIndex).elevationAt(clampedPosition - edgeStart);
+        }
+    }
+
+    // Curseur d'un itinéraire multiple, qui mémorise le segment de la
+    // dernière position consultée et le curseur de chacun de ses segments
+    private static final class MultiRouteCursor extends ElevationCursor {
+        private final MultiRoute route;
+        private final ElevationCursor[] segmentCursors;
+        private int segmentIndex;
+
+        MultiRouteCursor(MultiRoute route) {
+            List<Route> segments = route.segments();
+            this.route = route;
+            this.segmentCursors = new ElevationCursor[segments.size()];
+            for (int i = 0; i < segmentCursors.length; i++)
+                segmentCursors[i] = ElevationCursor.of(segments.get(i));
+        }
+
+        @Override
+        double elevationAt(double position) {
+            int lastSegmentIndex = segmentCursors.length - 1;
+            while (segmentIndex < lastSegmentIndex
+                    && position > route.segmentPosition(segmentIndex + 1))
+                segmentIndex += 1;
+            while (segmentIndex > 0 && position < route.segmentPosition(segmentIndex))
+                segmentIndex -= 1;
+            // La position est ici strictement comprise entre les extrémités du
+            // segment, ou correspond à l'une des jonctions de l'itinéraire
+            double segmentStart = route.segmentPosition(segmentIndex);
+            if ((segmentIndex > 0 && position == segmentStart)
+                    || position == route.segmentPosition(segmentIndex + 1))
+                return route.elevationAt(position);
+            return segmentCursors[segmentIndex].elevationAt(position - segmentStart);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package ch.epfl.javelo.routing;
 import ch.epfl.javelo.Functions;
 import ch.epfl.javelo.Preconditions;
 
+import java.util.Arrays;
 import java.util.DoubleSummaryStatistics;
 
 /**
@@ -27,9 +28,15 @@ public final class ElevationProfile {
      * ou si les échantillons ne sont pas au moins deux.
      */
     public ElevationProfile(double length, float[] elevationSamples) {
-        Preconditions.checkArgument(length > 0 && elevationSamples.length >= 2);
+        this(length, elevationSamples, elevationSamples.length);
+    }
+
+    // Construit le profil dont les échantillons sont les count premiers
+    // éléments de elevationSamples, qui sont copiés
+    ElevationProfile(double length, float[] elevationSamples, int count) {
+        Preconditions.checkArgument(length > 0 && count >= 2);
         this.length = length;
-        this.elevationSamples = elevationSamples.clone();
+        this.elevationSamples = Arrays.copyOf(elevationSamples, count);
     }
 
     /**
@@ -33,60 +33,88 @@ public final class ElevationProfileComputer {
      * positif
      */
     public static ElevationProfile elevationProfile(Route route, double maxStepLength) {
-        Preconditions.checkArgument(maxStepLength > 0);
+        return elevationProfile(route, maxStepLength, null);
+    }
+
+    /**
+     * Retourne le profil en long de l'itinéraire route, en garantissant que
+     * l'espacement entre les échantillons du profil est d'au maximum
+     * maxStepLength mètres, en utilisant si possible le tableau donné pour
+     * calculer les échantillons.
+     *
+     * Le tableau, qui peut être réutilisé d'un appel à l'autre, n'est utilisé
+     * que s'il contient au moins sampleCount(route, maxStepLength) éléments ;
+     * son contenu est alors écrasé, et le profil retourné n'en dépend pas.
+     *
+     * @param route la route
+     * @param maxStepLength l'espacement maximal entre les échantillons du profil
+     * @param buffer le tableau de travail, ou null
+     *
+     * @return le profil en long de l'itinéraire route
+     *
+     * @throws IllegalArgumentException si l'espacement n'est pas strictement
+     * positif
+     */
+    public static ElevationProfile elevationProfile(Route route, double maxStepLength,
+                                                    float[] buffer) {
+        int numberOfSamples = sampleCount(route, maxStepLength);
+        float[] samples = buffer != null && buffer.length >= numberOfSamples ?
+                buffer : new float[numberOfSamples];
         double itineraryLength = route.length();
-        int numberOfSamples = (int) Math.ceil( itineraryLength / maxStepLength) + 1;
-        double stepLength = itineraryLength /(double) (numberOfSamples - 1);
-        float[] samples = new float[numberOfSamples];
+        double stepLength = itineraryLength / (double) (numberOfSamples - 1);
+
+        // Les échantillons sont calculés en un seul parcours des arêtes de
+        // l'itinéraire, dans l'ordre, et chaque trou (suite d'échantillons
+        // valant NaN) est comblé dès que l'échantillon valide qui le suit est
+        // connu. Le curseur retourne exactement les mêmes altitudes que la
+        // méthode elevationAt de l'itinéraire
+        ElevationCursor cursor = ElevationCursor.of(route);
+        int lastValidSampleIndex = -1;
         double position = 0;
-        for (int i = 0; i < samples.length; ++i) {
-            samples[i] = (float) route.elevationAt(position);
+        for (int i = 0; i < numberOfSamples; ++i) {
+            float sample = (float) cursor.elevationAt(position);
             position += stepLength;
-        }
-
-        // Recherche du 1er échantillon valide du tableau
-        boolean isOnlyNan = true;
-        int firstValidSampleIndex = 0;
-        for (int i = 0; i < samples.length; ++i) {
-            if (!isNaN(samples[i])) {
-                firstValidSampleIndex = i;
-                Arrays.fill(samples, 0, firstValidSampleIndex, samples[i]);
-                isOnlyNan = false;
-                break;
+            samples[i] = sample;
+            if (isNaN(sample))
+                continue;
+            if (lastValidSampleIndex < 0) {
+                // Les premiers échantillons prennent la valeur du premier
+                // échantillon valide
+                Arrays.fill(samples, 0, i, sample);
+            } else if (lastValidSampleIndex < i - 1) {
+                // Les trous intermédiaires sont remplis par interpolation
+                double y0 = samples[lastValidSampleIndex];
+                int gapLength = i - lastValidSampleIndex;
+                for (int k = lastValidSampleIndex + 1; k < i; ++k) {
+                    double x = (double) (k - lastValidSampleIndex) / (double) gapLength;
+                    samples[k] = (float) Math2.interpolate(y0, sample, x);
+                }
             }
+            lastValidSampleIndex = i;
         }
 
-        // Si aucune des arêtes ne contient de profil, la méthode retourne un
-        // tableau vide
-        if (isOnlyNan) {
-            Arrays.fill(samples, 0, samples.length , 0f);
-            return new ElevationProfile(itineraryLength, samples);
-        }
-
-        // Recherche du dernier échantillon valide du tableau
-        for (int i = samples.length - 1; i >= 0;  --i) {
-            if (!isNaN(samples[i])) {
-                Arrays.fill(samples, i,  samples.length, samples[i]);
-                break;
-            }
-        }
+        // Les derniers échantillons prennent la valeur du dernier échantillon
+        // valide, ou 0 si aucune des arêtes ne possède de profil
+        float lastValue = lastValidSampleIndex < 0 ? 0f : samples[lastValidSampleIndex];
+        Arrays.fill(samples, lastValidSampleIndex + 1, numberOfSamples, lastValue);
+        return new ElevationProfile(itineraryLength, samples, numberOfSamples);
+    }
 
-        // Parcours du tableau pour trouver les trous intermédiaires et les
-        // remplir par interpolation
-        for (int i = firstValidSampleIndex; i < samples.length; ++i) {
-            if (isNaN(samples[i])) {
-                double y0 = samples[i - 1];
-                int j = i + 1;
-                while (isNaN(samples[j]))
-                    ++j;
-                double y1 = samples[j];
-                for (int k = i ; k < j; ++k) {
-                    double x = (double) (k - i + 1) / (double) (j - i + 1);
-                    samples[k] = (float) Math2.interpolate(y0, y1 , x);
-                }
-                i = j;
-            }
-        }
-        return new ElevationProfile(itineraryLength, samples);
+    /**
+     * Retourne le nombre d'échantillons du profil en long de l'itinéraire
+     * route calculé avec l'espacement maximal donné, c.-à-d. la taille
+     * minimale du tableau de travail pouvant être passé à elevationProfile.
+     *
+     * @param route la route
+     * @param maxStepLength l'espacement maximal entre les échantillons du profil
+     *
+     * @return le nombre d'échantillons du profil en long de l'itinéraire
+     *
+     * @throws IllegalArgumentException si l'espacement n'est pas strictement
+     * positif
+     */
+    public static int sampleCount(Route route, double maxStepLength) {
+        Preconditions.checkArgument(maxStepLength > 0);
+        return (int) Math.ceil(route.length() / maxStepLength) + 1;
     }
 }
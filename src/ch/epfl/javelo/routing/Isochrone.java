@@ -0,0 +1,145 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.Preconditions;
+import ch.epfl.javelo.projection.PointCh;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Représente l'ensemble des noeuds atteignables depuis un noeud de départ pour
+ * un ou plusieurs budgets de coût, ainsi que l'enveloppe convexe des noeuds
+ * atteignables dans chacune des bandes délimitées par ces budgets.
+ * <p>
+ * Les noeuds atteints sont représentés de manière compacte par un ensemble de
+ * bits indexé par l'identité des noeuds, et leur coût par un tableau ordonné
+ * par identité croissante.
+ *
+ * @author Tanguy Dieudonné (326618)
+ * @author Nathanaël Girod (329987)
+ */
+public final class Isochrone {
+    private final int startNodeId;
+    private final double[] budgets;
+    private final BitSet reachedNodes;
+    private final int[] nodeIds;
+    private final float[] costs;
+    private final List<List<PointCh>> hulls;
+
+    /**
+     * Construit l'isochrone de départ, budgets, noeuds atteints et enveloppes
+     * donnés.
+     *
+     * @param startNodeId l'identité du noeud de départ
+     * @param budgets les budgets, triés par ordre croissant
+     * @param nodeIds les identités des noeuds atteints, triées par ordre croissant
+     * @param costs les coûts des noeuds atteints, dans le même ordre
+     * @param hulls les enveloppes convexes des noeuds atteints pour chaque budget
+     *
+     * @throws IllegalArgumentException si les budgets ne sont pas triés, si le
+     * nombre de coûts diffère du nombre de noeuds ou si le nombre d'enveloppes
+     * diffère du nombre de budgets
+     */
+    public Isochrone(int startNodeId, double[] budgets, int[] nodeIds, float[] costs,
+                     List<List<PointCh>> hulls) {
+        Preconditions.checkArgument(budgets.length > 0
+                && nodeIds.length == costs.length
+                && hulls.size() == budgets.length);
+        for (int i = 1; i < budgets.length; i++)
+            Preconditions.checkArgument(budgets[i - 1] <= budgets[i]);
+        this.startNodeId = startNodeId;
+        this.budgets = budgets.clone();
+        this.nodeIds = nodeIds.clone();
+        this.costs = costs.clone();
+        this.hulls = hulls.stream().map(List::copyOf).toList();
+        this.reachedNodes = new BitSet();
+        for (int nodeId : nodeIds)
+            reachedNodes.set(nodeId);
+    }
+
+    /**
+     * Retourne l'identité du noeud de départ.
+     *
+     * @return l'identité du noeud de départ
+     */
+    public int startNodeId() {
+        return startNodeId;
+    }
+
+    /**
+     * Retourne le nombre de budgets, et donc de bandes.
+     *
+     * @return le nombre de budgets
+     */
+    public int bandCount() {
+        return budgets.length;
+    }
+
+    /**
+     * Retourne le budget de la bande d'index donné.
+     *
+     * @param bandIndex l'index de la bande
+     *
+     * @return le budget de la bande d'index donné
+     */
+    public double budget(int bandIndex) {
+        return budgets[bandIndex];
+    }
+
+    /**
+     * Retourne le nombre de noeuds atteints avec le plus grand budget.
+     *
+     * @return le nombre de noeuds atteints
+     */
+    public int reachedNodeCount() {
+        return nodeIds.length;
+    }
+
+    /**
+     * Retourne une copie de l'ensemble des identités des noeuds atteints avec
+     * le plus grand budget.
+     *
+     * @return l'ensemble des identités des noeuds atteints
+     */
+    public BitSet reachedNodes() {
+        return (BitSet) reachedNodes.clone();
+    }
+
+    /**
+     * Retourne vrai ssi le noeud d'identité donnée est atteint avec le plus
+     * grand budget.
+     *
+     * @param nodeId l'identité du noeud
+     *
+     * @return vrai ssi le noeud d'identité donnée est atteint
+     */
+    public boolean isReached(int nodeId) {
+        return reachedNodes.get(nodeId);
+    }
+
+    /**
+     * Retourne le coût minimal pour atteindre le noeud d'identité donnée, ou
+     * Float.POSITIVE_INFINITY s'il n'est pas atteint.
+     *
+     * @param nodeId l'identité du noeud
+     *
+     * @return le coût minimal pour atteindre le noeud d'identité donnée
+     */
+    public float cost(int nodeId) {
+        int index = Arrays.binarySearch(nodeIds, nodeId);
+        return index >= 0 ? costs[index] : Float.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Retourne l'enveloppe convexe, dans le sens trigonométrique, des noeuds
+     * atteints avec le budget de la bande d'index donné.
+     *
+     * @param bandIndex l'index de la bande
+     *
+     * @return l'enveloppe convexe des noeuds atteints dans la bande
+     */
+    public List<PointCh> hull(int bandIndex) {
+        return hulls.get(bandIndex);
+    }
+}
@@ -0,0 +1,174 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.Preconditions;
+import ch.epfl.javelo.data.Graph;
+import ch.epfl.javelo.projection.PointCh;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Représente un calculateur d'isochrones, qui détermine l'ensemble des noeuds
+ * atteignables depuis un point pour un ou plusieurs budgets de coût.
+ * <p>
+ * Une unique recherche de Dijkstra, bornée par le plus grand budget, est
+ * effectuée depuis le noeud le plus proche du point ; les bandes des budgets
+ * inférieurs sont ensuite extraites des coûts obtenus.
+ *
+ * @author Tanguy Dieudonné (326618)
+ * @author Nathanaël Girod (329987)
+ */
+public final class IsochroneComputer {
+    private final Graph graph;
+    private final CostFunction costFunction;
+    private final SearchContextPool searchContexts;
+
+    /**
+     * Construit un calculateur d'isochrones pour le graphe et la fonction de
+     * coût donnés.
+     *
+     * @param graph le graphe
+     * @param costFunction la fonction de coût
+     */
+    public IsochroneComputer(Graph graph, CostFunction costFunction) {
+        this.graph = graph;
+        this.costFunction = costFunction;
+        this.searchContexts = new SearchContextPool(graph.nodeCount());
+    }
+
+    /**
+     * Retourne l'isochrone partant du noeud le plus proche du point donné,
+     * pour les budgets donnés, ou null si aucun noeud ne se trouve à la
+     * distance de recherche donnée du point.
+     *
+     * @param point le point de départ
+     * @param searchDistance la distance maximale, en mètres, entre le point et
+     * le noeud de départ
+     * @param budgets les budgets de coût, dans un ordre quelconque
+     *
+     * @return l'isochrone partant du noeud le plus proche du point donné
+     *
+     * @throws IllegalArgumentException si aucun budget n'est donné ou si l'un
+     * d'eux est négatif
+     */
+    public Isochrone isochrone(PointCh point, double searchDistance, double... budgets) {
+        int startNodeId = graph.nodeClosestTo(point, searchDistance);
+        return startNodeId == -1 ? null : isochrone(startNodeId, budgets);
+    }
+
+    /**
+     * Retourne l'isochrone partant du noeud d'identité donnée, pour les
+     * budgets donnés.
+     *
+     * @param startNodeId l'identité du noeud de départ
+     * @param budgets les budgets de coût, dans un ordre quelconque
+     *
+     * @return l'isochrone partant du noeud d'identité donnée
+     *
+     * @throws IllegalArgumentException si aucun budget n'est donné ou si l'un
+     * d'eux est négatif
+     */
+    public Isochrone isochrone(int startNodeId, double... budgets) {
+        Preconditions.checkArgument(budgets.length > 0);
+        double[] sortedBudgets = budgets.clone();
+        Arrays.sort(sortedBudgets);
+        Preconditions.checkArgument(sortedBudgets[0] >= 0);
+        double maxBudget = sortedBudgets[sortedBudgets.length - 1];
+
+        SearchContext context = searchContexts.acquire();
+        try {
+            // Les noeuds sont visités par coût croissant : ils sont donc
+            // mémorisés dans cet ordre, ce qui permet de délimiter les bandes.
+            int[] visitedNodeIds = new int[16];
+            int visitedCount = 0;
+            NodeHeap heap = context.heap();
+            context.setDistance(startNodeId, 0f);
+            heap.pushOrDecrease(startNodeId, 0f);
+
+            while (!heap.isEmpty() && heap.peekKey() <= maxBudget) {
+                int nodeId = heap.pop();
+                context.markVisited(nodeId);
+                if (visitedCount == visitedNodeIds.length)
+                    visitedNodeIds = Arrays.copyOf(visitedNodeIds, 2 * visitedCount);
+                visitedNodeIds[visitedCount++] = nodeId;
+
+                float nodeDistance = context.distance(nodeId);
+                for (int i = 0; i < graph.nodeOutDegree(nodeId); i++) {
+                    int edgeId = graph.nodeOutEdgeId(nodeId, i);
+                    int targetNodeId = graph.edgeTargetNodeId(edgeId);
+                    if (context.isVisited(targetNodeId))
+                        continue;
+
+                    double distance = nodeDistance
+                            + graph.edgeLength(edgeId) * costFunction.costFactor(nodeId, edgeId);
+                    if (distance <= maxBudget && distance < context.distance(targetNodeId)) {
+                        context.setDistance(targetNodeId, (float) distance);
+                        heap.pushOrDecrease(targetNodeId, (float) distance);
+                    }
+                }
+            }
+
+            List<List<PointCh>> hulls = new ArrayList<>(sortedBudgets.length);
+            int bandEnd = 0;
+            for (double budget : sortedBudgets) {
+                while (bandEnd < visitedCount
+                        && context.distance(visitedNodeIds[bandEnd]) <= budget)
+                    bandEnd += 1;
+                hulls.add(convexHull(visitedNodeIds, bandEnd));
+            }
+
+            int[] nodeIds = Arrays.copyOf(visitedNodeIds, visitedCount);
+            Arrays.sort(nodeIds);
+            float[] costs = new float[visitedCount];
+            for (int k = 0; k < visitedCount; k++)
+                costs[k] = context.distance(nodeIds[k]);
+            return new Isochrone(startNodeId, sortedBudgets, nodeIds, costs, hulls);
+        } finally {
+            searchContexts.release(context);
+        }
+    }
+
+    // Retourne l'enveloppe convexe des count premiers noeuds donnés, calculée
+    // par l'algorithme de la chaîne monotone d'Andrew.
+    private List<PointCh> convexHull(int[] nodeIds, int count) {
+        int[] sorted = IntStream.of(nodeIds)
+                .limit(count)
+                .boxed()
+                .sorted(Comparator.<Integer>comparingDouble(graph::nodeE)
+                        .thenComparingDouble(graph::nodeN))
+                .mapToInt(Integer::intValue)
+                .toArray();
+
+        int[] hull = new int[2 * count];
+        int size = 0;
+        for (int k = 0; k < count; k++) {
+            while (size >= 2 && cross(hull[size - 2], hull[size - 1], sorted[k]) <= 0)
+                size -= 1;
+            hull[size++] = sorted[k];
+        }
+        for (int k = count - 2, lowerSize = size + 1; k >= 0; k--) {
+            while (size >= lowerSize && cross(hull[size - 2], hull[size - 1], sorted[k]) <= 0)
+                size -= 1;
+            hull[size++] = sorted[k];
+        }
+        // Le dernier point est identique au premier
+        if (count > 1)
+            size -= 1;
+
+        List<PointCh> points = new ArrayList<>(size);
+        for (int k = 0; k < size; k++)
+            points.add(graph.nodePoint(hull[k]));
+        return points;
+    }
+
+    // Produit vectoriel des vecteurs (a, b) et (a, c) ; positif ssi a, b et c
+    // tournent dans le sens trigonométrique.
+    private double cross(int a, int b, int c) {
+        double aE = graph.nodeE(a), aN = graph.nodeN(a);
+        return (graph.nodeE(b) - aE) * (graph.nodeN(c) - aN)
+                - (graph.nodeN(b) - aN) * (graph.nodeE(c) - aE);
+    }
+}
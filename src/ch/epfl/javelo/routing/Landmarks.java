@@ -0,0 +1,294 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.Preconditions;
+import ch.epfl.javelo.data.Graph;
+import ch.epfl.javelo.data.GraphInEdges;
+import ch.epfl.javelo.projection.PointCh;
+import ch.epfl.javelo.projection.SwissBounds;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import static ch.epfl.javelo.data.BinaryFiles.mappedBuffer;
+import static ch.epfl.javelo.data.BinaryFiles.write;
+
+/**
+ * Représente les tables de coûts entre un petit nombre de noeuds repères
+ * (landmarks) et tous les noeuds du graphe, pour une fonction de coût donnée.
+ * <p>
+ * Par l'inégalité triangulaire, ces tables donnent une borne inférieure du
+ * coût de n'importe quel itinéraire (heuristique ALT), bien plus précise que
+ * la distance à vol d'oiseau lorsque les facteurs de coût sont supérieurs à 1.
+ * Les repères sont choisis à la périphérie du graphe, un par secteur angulaire
+ * autour du centre du rectangle englobant ses noeuds (toute la Suisse pour le
+ * graphe complet).
+ * <p>
+ * Le fichier des tables contient le nombre de repères, le nombre de noeuds et
+ * l'identité des repères, suivis, pour chaque noeud, du coût depuis chaque
+ * repère puis du coût vers chaque repère, afin que les coûts d'un même noeud
+ * soient contigus en mémoire.
+ *
+ * @author Tanguy Dieudonné (326618)
+ * @author Nathanaël Girod (329987)
+ */
+public final class Landmarks {
+    private static final int DEFAULT_LANDMARK_COUNT = 8;
+    private static final int HEADER_INTS = 2;
+
+    private final int[] landmarkIds;
+    private final FloatBuffer costs;
+
+    private Landmarks(int[] landmarkIds, FloatBuffer costs) {
+        this.landmarkIds = landmarkIds;
+        this.costs = costs;
+    }
+
+    /**
+     * Construit les tables de coûts de la fonction de coût CityBikeCF pour le
+     * graphe se trouvant dans le répertoire donné en argument, et les écrit
+     * dans ce même répertoire.
+     *
+     * @param args le chemin du répertoire du graphe
+     *
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public static void main(String[] args) throws IOException {
+        Path basePath = Path.of(args.length > 0 ? args[0] : "javelo-data");
+        Graph graph = Graph.loadFrom(basePath);
+        CostFunction costFunction = new CityBikeCF(graph);
+        long t0 = System.nanoTime();
+        Landmarks landmarks = build(graph, costFunction, DEFAULT_LANDMARK_COUNT);
+        System.out.printf("Tables de %d repères calculées en %d ms%n",
+                landmarks.count(), (System.nanoTime() - t0) / 1_000_000);
+        landmarks.writeTo(filePath(basePath, costFunction));
+    }
+
+    /**
+     * Retourne le chemin du fichier des tables de la fonction de coût donnée,
+     * dans le répertoire donné.
+     *
+     * @param basePath le chemin du répertoire du graphe
+     * @param costFunction la fonction de coût
+     *
+     * @return le chemin du fichier des tables de la fonction de coût donnée
+     */
+    public static Path filePath(Path basePath, CostFunction costFunction) {
+        return basePath.resolve("landmarks_" + costFunction.getClass().getSimpleName() + ".bin");
+    }
+
+    /**
+     * Retourne les tables de coûts lues dans le fichier donné, projeté en mémoire.
+     *
+     * @param filePath le chemin du fichier
+     * @param graph le graphe pour lequel les tables ont été calculées
+     *
+     * @return les tables de coûts lues dans le fichier donné
+     *
+     * @throws IOException en cas d'erreur d'entrée/sortie, p. ex. si le
+     * fichier n'existe pas
+     * @throws IllegalArgumentException si le fichier ne contient pas les
+     * tables d'autant de noeuds que le graphe en a
+     */
+    public static Landmarks loadFrom(Path filePath, Graph graph) throws IOException {
+        ByteBuffer buffer = mappedBuffer(filePath);
+        IntBuffer header = buffer.asIntBuffer();
+        int landmarkCount = header.get(0);
+        int nodeCount = header.get(1);
+        Preconditions.checkArgument(landmarkCount > 0 && nodeCount == graph.nodeCount());
+        int headerBytes = (HEADER_INTS + landmarkCount) * Integer.BYTES;
+        Preconditions.checkArgument(buffer.capacity()
+                == headerBytes + (long) 2 * landmarkCount * nodeCount * Float.BYTES);
+        int[] landmarkIds = new int[landmarkCount];
+        header.position(HEADER_INTS).get(landmarkIds);
+        FloatBuffer costs = buffer
+                .slice(headerBytes, buffer.capacity() - headerBytes)
+                .asFloatBuffer();
+        return new Landmarks(landmarkIds, costs);
+    }
+
+    /**
+     * Retourne les tables de coûts du graphe donné pour la fonction de coût
+     * donnée, en utilisant au plus le nombre de repères donné.
+     *
+     * @param graph le graphe
+     * @param costFunction la fonction de coût
+     * @param landmarkCount le nombre maximal de repères
+     *
+     * @return les tables de coûts du graphe donné
+     *
+     * @throws IllegalArgumentException si le nombre de repères n'est pas
+     * strictement positif
+     */
+    public static Landmarks build(Graph graph, CostFunction costFunction, int landmarkCount) {
+        Preconditions.checkArgument(landmarkCount > 0);
+        int[] landmarkIds = selectLandmarks(graph, landmarkCount);
+        int count = landmarkIds.length;
+        int nodeCount = graph.nodeCount();
+        GraphInEdges inEdges = GraphInEdges.of(graph);
+        FloatBuffer costs = FloatBuffer.allocate(2 * count * nodeCount);
+
+        IntStream.range(0, 2 * count).parallel().forEach(i -> {
+            int landmark = i % count;
+            boolean fromLandmark = i < count;
+            SearchContext context = new SearchContext(nodeCount);
+            dijkstra(graph, inEdges, costFunction, landmarkIds[landmark], fromLandmark, context);
+            int offset = fromLandmark ? landmark : count + landmark;
+            for (int nodeId = 0; nodeId < nodeCount; nodeId++)
+                costs.put(2 * count * nodeId + offset, context.distance(nodeId));
+        });
+        return new Landmarks(landmarkIds, costs);
+    }
+
+    // Choisit, dans chaque secteur angulaire centré sur le graphe, le noeud
+    // relié au graphe le plus éloigné du centre.
+    private static int[] selectLandmarks(Graph graph, int landmarkCount) {
+        double minE = SwissBounds.MAX_E, maxE = SwissBounds.MIN_E;
+        double minN = SwissBounds.MAX_N, maxN = SwissBounds.MIN_N;
+        for (int nodeId = 0; nodeId < graph.nodeCount(); nodeId++) {
+            PointCh point = graph.nodePoint(nodeId);
+            minE = Math.min(minE, point.e());
+            maxE = Math.max(maxE, point.e());
+            minN = Math.min(minN, point.n());
+            maxN = Math.max(maxN, point.n());
+        }
+        double centerE = (minE + maxE) / 2;
+        double centerN = (minN + maxN) / 2;
+        int[] farthestNodeIds = new int[landmarkCount];
+        double[] farthestDistances = new double[landmarkCount];
+        Arrays.fill(farthestNodeIds, -1);
+
+        for (int nodeId = 0; nodeId < graph.nodeCount(); nodeId++) {
+            if (graph.nodeOutDegree(nodeId) == 0)
+                continue;
+            PointCh point = graph.nodePoint(nodeId);
+            double dE = point.e() - centerE;
+            double dN = point.n() - centerN;
+            double angle = Math.atan2(dN, dE) + Math.PI;
+            int sector = Math.min(landmarkCount - 1,
+                    (int) (angle / (2 * Math.PI) * landmarkCount));
+            double distance = dE * dE + dN * dN;
+            if (farthestNodeIds[sector] == -1 || distance > farthestDistances[sector]) {
+                farthestNodeIds[sector] = nodeId;
+                farthestDistances[sector] = distance;
+            }
+        }
+        return IntStream.of(farthestNodeIds).filter(id -> id != -1).toArray();
+    }
+
+    // Calcule le coût de tous les itinéraires partant du noeud donné, ou y
+    // arrivant si fromSource est faux.
+    private static void dijkstra(Graph graph, GraphInEdges inEdges, CostFunction costFunction,
+                                 int sourceNodeId, boolean fromSource, SearchContext context) {
+        NodeHeap heap = context.heap();
+        context.setDistance(sourceNodeId, 0f);
+        heap.pushOrDecrease(sourceNodeId, 0f);
+        while (!heap.isEmpty()) {
+            int nodeId = heap.pop();
+            context.markVisited(nodeId);
+            float nodeDistance = context.distance(nodeId);
+            int degree = fromSource ? graph.nodeOutDegree(nodeId) : inEdges.inDegree(nodeId);
+            for (int i = 0; i < degree; i++) {
+                int edgeId = fromSource
+                        ? graph.nodeOutEdgeId(nodeId, i)
+                        : inEdges.edgeId(nodeId, i);
+                int otherNodeId = fromSource
+                        ? graph.edgeTargetNodeId(edgeId)
+                        : inEdges.sourceNodeId(nodeId, i);
+                if (context.isVisited(otherNodeId))
+                    continue;
+                int edgeSourceNodeId = fromSource ? nodeId : otherNodeId;
+                double distance = nodeDistance
+                        + graph.edgeLength(edgeId) * costFunction.costFactor(edgeSourceNodeId, edgeId);
+                if (distance < context.distance(otherNodeId)) {
+                    context.setDistance(otherNodeId, (float) distance);
+                    heap.pushOrDecrease(otherNodeId, (float) distance);
+                }
+            }
+        }
+    }
+
+    /**
+     * Écrit les tables dans le fichier donné.
+     *
+     * @param filePath le chemin du fichier
+     *
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public void writeTo(Path filePath) throws IOException {
+        int headerBytes = (HEADER_INTS + landmarkIds.length) * Integer.BYTES;
+        ByteBuffer buffer = ByteBuffer.allocate(headerBytes + costs.capacity() * Float.BYTES);
+        buffer.asIntBuffer()
+                .put(landmarkIds.length)
+                .put(nodeCount())
+                .put(landmarkIds);
+        buffer.slice(headerBytes, buffer.capacity() - headerBytes)
+                .asFloatBuffer()
+                .put(costs.duplicate().clear());
+        write(filePath, buffer);
+    }
+
+    /**
+     * Retourne le nombre de repères.
+     *
+     * @return le nombre de repères
+     */
+    public int count() {
+        return landmarkIds.length;
+    }
+
+    /**
+     * Retourne le nombre de noeuds dont les coûts sont connus.
+     *
+     * @return le nombre de noeuds
+     */
+    public int nodeCount() {
+        return costs.capacity() / (2 * landmarkIds.length);
+    }
+
+    /**
+     * Retourne l'identité du repère d'index donné.
+     *
+     * @param index l'index du repère
+     *
+     * @return l'identité du repère d'index donné
+     */
+    public int landmarkId(int index) {
+        return landmarkIds[index];
+    }
+
+    /**
+     * Retourne une borne inférieure du coût de l'itinéraire de coût minimal
+     * allant du noeud d'identité fromNodeId au noeud d'identité toNodeId, ou
+     * 0 si les tables ne permettent pas d'en donner une.
+     *
+     * @param fromNodeId l'identité du noeud de départ
+     * @param toNodeId l'identité du noeud d'arrivée
+     *
+     * @return une borne inférieure du coût de l'itinéraire de coût minimal
+     * entre les deux noeuds
+     */
+    public float lowerBound(int fromNodeId, int toNodeId) {
+        int count = landmarkIds.length;
+        int fromOffset = 2 * count * fromNodeId;
+        int toOffset = 2 * count * toNodeId;
+        float bound = 0;
+        for (int i = 0; i < count; i++) {
+            // d(L, to) - d(L, from) <= d(from, to)
+            float viaSource = costs.get(toOffset + i) - costs.get(fromOffset + i);
+            // d(from, L) - d(to, L) <= d(from, to)
+            float viaTarget = costs.get(fromOffset + count + i) - costs.get(toOffset + count + i);
+            // Les différences impliquant un noeud inatteignable valent NaN ou
+            // l'infini, et ne sont pas utilisables.
+            if (viaSource > bound && viaSource != Float.POSITIVE_INFINITY)
+                bound = viaSource;
+            if (viaTarget > bound && viaTarget != Float.POSITIVE_INFINITY)
+                bound = viaTarget;
+        }
+        return bound;
+    }
+}
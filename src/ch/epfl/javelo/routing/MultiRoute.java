@@ -5,6 +5,8 @@ import ch.epfl.javelo.Preconditions;
 import ch.epfl.javelo.projection.PointCh;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static ch.epfl.javelo.routing.RoutePoint.NONE;
@@ -18,6 +20,13 @@ import static ch.epfl.javelo.routing.RoutePoint.NONE;
  */
 public final class MultiRoute implements Route {
     private final List<Route> segments;
+    // Position du début de chaque segment, suivie de la longueur totale
+    private final double[] segmentPositions;
+    // Index, parmi les segments élémentaires de l'itinéraire, du premier
+    // segment élémentaire de chaque segment
+    private final int[] firstSegmentIndex;
+    private final List<Edge> edges;
+    private final List<PointCh> points;
 
     /**
      * Construit un itinéraire multiple composé des segments donnés.
@@ -29,108 +38,104 @@ public final class MultiRoute implements Route {
     public MultiRoute(List<Route> segments) {
         Preconditions.checkArgument(!segments.isEmpty());
         this.segments = List.copyOf(segments);
+
+        int segmentCount = this.segments.size();
+        this.segmentPositions = new double[segmentCount + 1];
+        this.firstSegmentIndex = new int[segmentCount];
+        List<Edge> edges = new ArrayList<>();
+        List<PointCh> points = new ArrayList<>();
+        points.add(this.segments.get(0).points().get(0));
+        for (int i = 0; i < segmentCount; i++) {
+            Route r = this.segments.get(i);
+            segmentPositions[i + 1] = segmentPositions[i] + r.length();
+            if (i + 1 < segmentCount) {
+                // Un segment contient autant de segments élémentaires que
+                // l'index de celui contenant sa fin, plus un
+                firstSegmentIndex[i + 1] = firstSegmentIndex[i]
+                        + r.indexOfSegmentAt(r.length()) + 1;
+            }
+            edges.addAll(r.edges());
+            List<PointCh> rPoints = r.points();
+            points.addAll(rPoints.subList(1, rPoints.size()));
+        }
+        this.edges = Collections.unmodifiableList(edges);
+        this.points = Collections.unmodifiableList(points);
+    }
+
+    // Segments de l'itinéraire, dans l'ordre
+    List<Route> segments() {
+        return segments;
+    }
+
+    // Position du début du segment d'index donné, ou longueur de l'itinéraire
+    // si l'index est celui qui suit le dernier segment
+    double segmentPosition(int segmentIndex) {
+        return segmentPositions[segmentIndex];
     }
 
     @Override
     public int indexOfSegmentAt(double position) {
-        int tempPosition = 0;
-        int index = 0;
         double positionOnItinerary = Math2.clamp(0, position, length());
-        for (Route r : segments) {
-            tempPosition += r.length();
-            if (positionOnItinerary <= tempPosition)
-                return index + r.indexOfSegmentAt(positionOnItinerary);
-            index += 1 + r.indexOfSegmentAt(position - tempPosition);
-        }
-        return segments.size() - 1;
+        int routeIndex = findRouteIndex(positionOnItinerary);
+        return firstSegmentIndex[routeIndex] + segments.get(routeIndex)
+                .indexOfSegmentAt(positionOnItinerary - segmentPositions[routeIndex]);
     }
 
     @Override
     public double length() {
-        double totalLength = 0;
-        for (Route r : segments) {
-            totalLength += r.length();
-        }
-        return totalLength;
+        return segmentPositions[segmentPositions.length - 1];
     }
 
     @Override
     public List<Edge> edges() {
-        List<Edge> l = new ArrayList<>();
-        for (Route r : segments) {
-            l.addAll(r.edges());
-        }
-        return l;
+        return edges;
     }
 
     @Override
     public List<PointCh> points() {
-        List<PointCh> l = new ArrayList<>();
-        Route r0 = segments.get(0);
-        l.add(r0.points().get(0));
-        for (Route r : segments) {
-            List<PointCh> rPoints = r.points();
-            for (int i = 1; i < rPoints.size(); i++) {
-                l.add(rPoints.get(i));
-            }
-        }
-        return l;
+        return points;
     }
 
     @Override
     public PointCh pointAt(double position) {
         int routeIndex = findRouteIndex(position);
         Route r = segments.get(routeIndex);
-        return r.pointAt(positionOnRoute(position));
+        return r.pointAt(position - segmentPositions[routeIndex]);
     }
 
     @Override
     public double elevationAt(double position) {
         int routeIndex = findRouteIndex(position);
         Route r = segments.get(routeIndex);
-        return r.elevationAt(positionOnRoute(position));
+        return r.elevationAt(position - segmentPositions[routeIndex]);
     }
 
     @Override
     public int nodeClosestTo(double position) {
         int routeIndex = findRouteIndex(position);
         Route r = segments.get(routeIndex);
-        return r.nodeClosestTo(positionOnRoute(position));
+        return r.nodeClosestTo(position - segmentPositions[routeIndex]);
     }
 
     @Override
     public RoutePoint pointClosestTo(PointCh point) {
         RoutePoint closestPoint = NONE;
-        double tempPosition = 0;
-        for (Route r : segments) {
-            RoutePoint closestPointOnRoute = r.pointClosestTo(point);
+        for (int i = 0; i < segments.size(); i++) {
+            RoutePoint closestPointOnRoute = segments.get(i).pointClosestTo(point);
             PointCh p = closestPointOnRoute.point();
             closestPoint = closestPoint.min(p,
-                    closestPointOnRoute.position() + tempPosition,
+                    closestPointOnRoute.position() + segmentPositions[i],
                     p.distanceTo(point));
-            tempPosition += r.length();
         }
         return closestPoint;
     }
 
+    // Retourne l'index du premier segment dont la fin se trouve à la position
+    // donnée ou au-delà, par recherche dichotomique ; une position située à la
+    // jonction de deux segments appartient donc au premier d'entre eux
     private int findRouteIndex(double position) {
-        int tempPosition = 0;
-        int index = 0;
-        for (Route r : segments) {
-            tempPosition += r.length();
-            if (tempPosition >= position)
-                return index;
-            ++index;
-        }
-        return segments.size() - 1;
-    }
-
-    private double positionOnRoute(double position) {
-        int index = findRouteIndex(position);
-        double lengthOfPreviousRoutes = 0;
-        for (int i = 0; i < index; i++) {
-            lengthOfPreviousRoutes += segments.get(i).length();
-        }
-        return position - lengthOfPreviousRoutes;
+        int result = Arrays.binarySearch(segmentPositions, 1, segmentPositions.length, position);
+        int routeIndex = result >= 0 ? result - 1 : -result - 2;
+        return Math2.clamp(0, routeIndex, segments.size() - 1);
     }
 }
@@ -0,0 +1,188 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.Preconditions;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Représente une file de priorité (tas binaire minimum indexé) de noeuds du
+ * graphe, dont les priorités sont des float. Le tas est stocké dans des
+ * tableaux parallèles de types primitifs, et ne fait aucune allocation une fois
+ * construit, ce qui permet de le réutiliser d'une recherche à l'autre.
+ *
+ * @author Tanguy Dieudonné (326618)
+ * @author Nathanaël Girod (329987)
+ */
+public final class NodeHeap {
+    private static final int ABSENT = -1;
+
+    private final int[] heapNodes;
+    private final float[] heapKeys;
+    // Position de chaque noeud dans le tas, ou ABSENT s'il n'y est pas
+    private final int[] positions;
+    private int size;
+
+    /**
+     * Construit un tas vide pouvant contenir les noeuds d'identité comprise
+     * entre 0 (inclus) et la capacité donnée (exclue).
+     *
+     * @param capacity le nombre de noeuds du graphe
+     *
+     * @throws IllegalArgumentException si la capacité est négative
+     */
+    public NodeHeap(int capacity) {
+        Preconditions.checkArgument(capacity >= 0);
+        this.heapNodes = new int[capacity];
+        this.heapKeys = new float[capacity];
+        this.positions = new int[capacity];
+        Arrays.fill(positions, ABSENT);
+    }
+
+    /**
+     * Retourne le nombre de noeuds que le tas peut contenir.
+     *
+     * @return le nombre de noeuds que le tas peut contenir
+     */
+    public int capacity() {
+        return positions.length;
+    }
+
+    /**
+     * Retourne le nombre de noeuds actuellement dans le tas.
+     *
+     * @return le nombre de noeuds actuellement dans le tas
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Retourne vrai ssi le tas est vide.
+     *
+     * @return vrai ssi le tas est vide
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Retourne vrai ssi le noeud d'identité donnée se trouve dans le tas.
+     *
+     * @param nodeId l'identité du noeud
+     *
+     * @return vrai ssi le noeud d'identité donnée se trouve dans le tas
+     */
+    public boolean contains(int nodeId) {
+        return positions[nodeId] != ABSENT;
+    }
+
+    /**
+     * Ajoute le noeud d'identité donnée au tas avec la priorité donnée, ou
+     * diminue sa priorité s'il s'y trouve déjà avec une priorité plus grande.
+     * Ne fait rien si le noeud s'y trouve déjà avec une priorité inférieure
+     * ou égale.
+     *
+     * @param nodeId l'identité du noeud
+     * @param key la priorité du noeud
+     */
+    public void pushOrDecrease(int nodeId, float key) {
+        int position = positions[nodeId];
+        if (position == ABSENT) {
+            position = size++;
+        } else if (key >= heapKeys[position]) {
+            return;
+        }
+        siftUp(position, nodeId, key);
+    }
+
+    /**
+     * Retourne l'identité du noeud de priorité minimale, sans le retirer.
+     *
+     * @return l'identité du noeud de priorité minimale
+     *
+     * @throws NoSuchElementException si le tas est vide
+     */
+    public int peekNode() {
+        checkNotEmpty();
+        return heapNodes[0];
+    }
+
+    /**
+     * Retourne la priorité minimale du tas.
+     *
+     * @return la priorité minimale du tas
+     *
+     * @throws NoSuchElementException si le tas est vide
+     */
+    public float peekKey() {
+        checkNotEmpty();
+        return heapKeys[0];
+    }
+
+    /**
+     * Retire du tas le noeud de priorité minimale et retourne son identité.
+     *
+     * @return l'identité du noeud de priorité minimale
+     *
+     * @throws NoSuchElementException si le tas est vide
+     */
+    public int pop() {
+        checkNotEmpty();
+        int minNodeId = heapNodes[0];
+        positions[minNodeId] = ABSENT;
+        size -= 1;
+        if (size > 0)
+            siftDown(0, heapNodes[size], heapKeys[size]);
+        return minNodeId;
+    }
+
+    /**
+     * Vide le tas, en un temps proportionnel au nombre de noeuds qu'il contient.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[heapNodes[i]] = ABSENT;
+        }
+        size = 0;
+    }
+
+    // Remonte le noeud donné depuis la position donnée jusqu'à sa place
+    private void siftUp(int position, int nodeId, float key) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            float parentKey = heapKeys[parent];
+            if (parentKey <= key)
+                break;
+            place(position, heapNodes[parent], parentKey);
+            position = parent;
+        }
+        place(position, nodeId, key);
+    }
+
+    // Descend le noeud donné depuis la position donnée jusqu'à sa place
+    private void siftDown(int position, int nodeId, float key) {
+        int half = size >>> 1;
+        while (position < half) {
+            int child = 2 * position + 1;
+            int right = child + 1;
+            if (right < size && heapKeys[right] < heapKeys[child])
+                child = right;
+            if (key <= heapKeys[child])
+                break;
+            place(position, heapNodes[child], heapKeys[child]);
+            position = child;
+        }
+        place(position, nodeId, key);
+    }
+
+    private void place(int position, int nodeId, float key) {
+        heapNodes[position] = nodeId;
+        heapKeys[position] = key;
+        positions[nodeId] = position;
+    }
+
+    private void checkNotEmpty() {
+        if (size == 0) throw new NoSuchElementException();
+    }
+}
@@ -0,0 +1,244 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.Preconditions;
+import ch.epfl.javelo.data.Graph;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Représente un exécuteur de lots de requêtes d'itinéraires, qui calcule sans
+ * interface graphique les itinéraires entre des paires de noeuds lues dans un
+ * fichier CSV, et écrit le résultat de chacune au fur et à mesure.
+ * <p>
+ * Chaque requête est exécutée dans son propre fil d'exécution virtuel lorsque
+ * la machine virtuelle en offre (Java 21 et suivants), et dans un fil
+ * ordinaire sinon. Toutes les requêtes partagent le même planificateur, et
+ * donc le même graphe projeté en mémoire ; le nombre de recherches simultanées
+ * est limité au nombre de processeurs, chacune utilisant un espace de travail
+ * de la taille du graphe.
+ * <p>
+ * Chaque ligne du fichier d'entrée contient l'identité du noeud de départ et
+ * celle du noeud d'arrivée, séparées par une virgule ; les lignes vides, les
+ * commentaires (débutant par #) et une éventuelle ligne d'en-tête sont ignorés.
+ * <p>
+ * Le statut de chaque résultat est ROUTE ou NO_ROUTE selon qu'un itinéraire
+ * existe ou non, INVALID si les noeuds sont identiques ou n'existent pas dans
+ * le graphe, et ERROR si la recherche a échoué pour une autre raison.
+ *
+ * @author Tanguy Dieudonné (326618)
+ * @author Nathanaël Girod (329987)
+ */
+public final class RouteBatchRunner {
+    private static final String HEADER = "start,end,status,length,latency_us,settled_nodes";
+
+    private final RouteComputer routeComputer;
+    private final int parallelism;
+
+    /**
+     * Construit un exécuteur de lots utilisant le planificateur donné, avec
+     * au plus autant de recherches simultanées que de processeurs.
+     *
+     * @param routeComputer le planificateur d'itinéraire
+     */
+    public RouteBatchRunner(RouteComputer routeComputer) {
+        this(routeComputer, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Construit un exécuteur de lots utilisant le planificateur donné, avec
+     * au plus le nombre de recherches simultanées donné.
+     *
+     * @param routeComputer le planificateur d'itinéraire
+     * @param parallelism le nombre maximal de recherches simultanées
+     *
+     * @throws IllegalArgumentException si le nombre de recherches simultanées
+     * n'est pas strictement positif
+     */
+    public RouteBatchRunner(RouteComputer routeComputer, int parallelism) {
+        Preconditions.checkArgument(parallelism > 0);
+        this.routeComputer = routeComputer;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Exécute les requêtes du fichier CSV donné sur le graphe du répertoire
+     * donné, pour la fonction de coût CityBikeCF, et écrit leurs résultats
+     * dans le fichier CSV donné.
+     *
+     * @param args le répertoire du graphe, le fichier des requêtes, le fichier
+     * des résultats et, optionnellement, le mode de recherche
+     *
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     * @throws InterruptedException si le fil d'exécution est interrompu
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 3) {
+            System.err.println("Usage : RouteBatchRunner <graphe> <requêtes.csv> "
+                    + "<résultats.csv> [UNIDIRECTIONAL|BIDIRECTIONAL]");
+            System.exit(1);
+        }
+        Graph graph = Graph.loadFrom(Path.of(args[0]));
+        RouteComputer.SearchMode searchMode = args.length > 3
+                ? RouteComputer.SearchMode.valueOf(args[3])
+                : RouteComputer.SearchMode.UNIDIRECTIONAL;
+        RouteBatchRunner runner = new RouteBatchRunner(
+                new RouteComputer(graph, new CityBikeCF(graph), searchMode));
+
+        long t0 = System.nanoTime();
+        int count;
+        try (BufferedReader in = Files.newBufferedReader(Path.of(args[1]), StandardCharsets.UTF_8);
+             BufferedWriter out = Files.newBufferedWriter(Path.of(args[2]), StandardCharsets.UTF_8)) {
+            count = runner.run(in, out);
+        }
+        System.out.printf("%d requêtes exécutées en %d ms%n",
+                count, (System.nanoTime() - t0) / 1_000_000);
+    }
+
+    /**
+     * Exécute toutes les requêtes lues depuis le lecteur donné, et écrit le
+     * résultat de chacune, dès qu'il est connu, sur le rédacteur donné. Les
+     * résultats sont donc écrits dans l'ordre de fin des requêtes, précédés
+     * d'une ligne d'en-tête.
+     *
+     * @param in le lecteur des requêtes
+     * @param out le rédacteur des résultats
+     *
+     * @return le nombre de requêtes exécutées
+     *
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     * @throws InterruptedException si le fil d'exécution est interrompu
+     * @throws IllegalArgumentException si une ligne du fichier d'entrée ne
+     * contient pas exactement deux entiers séparés par une virgule ; les
+     * requêtes déjà soumises sont alors terminées
+     */
+    public int run(BufferedReader in, Writer out) throws IOException, InterruptedException {
+        ResultWriter results = new ResultWriter(out);
+        results.writeLine(HEADER);
+        // Les requêtes sont soumises au fur et à mesure de leur lecture, mais
+        // seulement lorsque l'une des recherches en cours est terminée.
+        Semaphore searches = new Semaphore(parallelism);
+        AtomicInteger count = new AtomicInteger();
+        ExecutorService executor = newExecutor();
+        try {
+            String line;
+            int lineNumber = 0;
+            while ((line = in.readLine()) != null) {
+                lineNumber += 1;
+                line = line.strip();
+                boolean header = lineNumber == 1 && !line.isEmpty()
+                        && !Character.isDigit(line.charAt(0));
+                if (line.isEmpty() || line.startsWith("#") || header)
+                    continue;
+
+                String[] fields = line.split(",", -1);
+                int startNodeId, endNodeId;
+                try {
+                    Preconditions.checkArgument(fields.length == 2);
+                    startNodeId = Integer.parseInt(fields[0].strip());
+                    endNodeId = Integer.parseInt(fields[1].strip());
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException(
+                            "ligne " + lineNumber + " mal formée : " + line, e);
+                }
+                searches.acquire();
+                executor.execute(() -> {
+                    try {
+                        results.writeLine(query(startNodeId, endNodeId));
+                        count.incrementAndGet();
+                    } finally {
+                        searches.release();
+                    }
+                });
+            }
+        } finally {
+            executor.shutdown();
+            // Attend la fin des requêtes en cours
+            searches.acquire(parallelism);
+        }
+        results.checkError();
+        return count.get();
+    }
+
+    // Exécute la requête donnée et retourne la ligne de résultat correspondante
+    private String query(int startNodeId, int endNodeId) {
+        int nodeCount = routeComputer.graph().nodeCount();
+        if (startNodeId == endNodeId
+                || startNodeId < 0 || startNodeId >= nodeCount
+                || endNodeId < 0 || endNodeId >= nodeCount)
+            return resultLine(startNodeId, endNodeId, "INVALID", Double.NaN, 0, 0);
+
+        int[] settledNodes = new int[1];
+        long t0 = System.nanoTime();
+        Route route;
+        try {
+            route = routeComputer.bestRouteBetween(startNodeId, endNodeId,
+                    metrics -> settledNodes[0] = metrics.settledNodes());
+        } catch (RuntimeException e) {
+            return resultLine(startNodeId, endNodeId, "ERROR", Double.NaN,
+                    System.nanoTime() - t0, settledNodes[0]);
+        }
+        long latency = System.nanoTime() - t0;
+        return route == null
+                ? resultLine(startNodeId, endNodeId, "NO_ROUTE", Double.NaN, latency, settledNodes[0])
+                : resultLine(startNodeId, endNodeId, "ROUTE", route.length(), latency, settledNodes[0]);
+    }
+
+    private static String resultLine(int startNodeId, int endNodeId, String status,
+                                     double length, long latencyNanos, int settledNodes) {
+        return String.format(Locale.ROOT, "%d,%d,%s,%.1f,%d,%d",
+                startNodeId, endNodeId, status, length, latencyNanos / 1_000, settledNodes);
+    }
+
+    // Retourne un exécuteur créant un fil virtuel par tâche si la machine
+    // virtuelle le permet, ou un fil ordinaire réutilisable sinon ; la
+    // réflexion permet de compiler le projet pour Java 17.
+    private static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(r -> {
+                Thread thread = new Thread(r);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    // Rédacteur des résultats, partagé par les fils d'exécution des requêtes,
+    // qui vide son tampon après chaque ligne et mémorise la première erreur.
+    private static final class ResultWriter {
+        private final Writer out;
+        private IOException error;
+
+        ResultWriter(Writer out) {
+            this.out = out;
+        }
+
+        synchronized void writeLine(String line) {
+            if (error != null)
+                return;
+            try {
+                out.write(line);
+                out.write('\n');
+                out.flush();
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+
+        synchronized void checkError() throws IOException {
+            if (error != null)
+                throw error;
+        }
+    }
+}
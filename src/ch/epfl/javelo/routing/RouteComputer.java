@@ -3,7 +3,7 @@ package ch.epfl.javelo.routing;
 import ch.epfl.javelo.Bits;
 import ch.epfl.javelo.Preconditions;
 import ch.epfl.javelo.data.Graph;
-import ch.epfl.javelo.projection.PointCh;
+import ch.epfl.javelo.data.GraphInEdges;
 
 import java.util.*;
 
@@ -18,28 +18,163 @@ import static ch.epfl.javelo.routing.Edge.of;
 public final class RouteComputer {
     private final Graph graph;
     private final CostFunction costFunction;
+    private final SearchMode searchMode;
+    private final SearchContextPool searchContexts;
+    // Index des arêtes entrantes, construit uniquement pour la recherche bidirectionnelle
+    private final GraphInEdges inEdges;
+    // Tables de coûts des repères, ou null si seule la distance à vol d'oiseau
+    // est utilisée comme heuristique
+    private final Landmarks landmarks;
+    // Composantes connexes du graphe, ou null si les itinéraires entre noeuds
+    // non reliés ne sont constatés inexistants qu'à la fin de la recherche
+    private final ConnectedComponents components;
+    // Observateur des recherches de bestRouteBetween(int, int), ou null
+    private final SearchListener listener;
     private static final int START_POSITION = 0;
     private static final int OFFSET_EDGE = 4 + START_POSITION;
     private static final int NODE_BIT_RANGE_LENGTH = 28;
     private static final float VISITED_NODE = Float.NEGATIVE_INFINITY;
-    private static final float UNVISITED_NODE = Float.POSITIVE_INFINITY;
+
+    /**
+     * Type énuméré représentant les différents modes de recherche du meilleur
+     * itinéraire, qui retournent tous un itinéraire de même coût.
+     */
+    public enum SearchMode {
+        /**
+         * Recherche A* depuis le noeud de départ uniquement.
+         */
+        UNIDIRECTIONAL,
+        /**
+         * Recherche A* menée simultanément depuis le noeud de départ et depuis
+         * le noeud d'arrivée, qui visite moins de noeuds sur les longs
+         * itinéraires mais nécessite l'index des arêtes entrantes.
+         */
+        BIDIRECTIONAL
+    }
+
+    /**
+     * Interface fonctionnelle représentant un observateur des recherches
+     * effectuées par un planificateur d'itinéraire.
+     */
+    @FunctionalInterface
+    public interface SearchListener {
+        /**
+         * Appelée à la fin de chaque recherche, dans le fil d'exécution qui
+         * l'a effectuée.
+         *
+         * @param metrics les mesures de la recherche
+         */
+        void searchCompleted(SearchMetrics metrics);
+    }
 
     /**
      * Construit un planificateur d'itinéraire pour le graphe et la fonction
-     * de coût donnés.
+     * de coût donnés, utilisant la recherche unidirectionnelle.
      *
      * @param graph le graphe
      * @param costFunction la fonction de coût
      */
     public RouteComputer(Graph graph, CostFunction costFunction) {
+        this(graph, costFunction, SearchMode.UNIDIRECTIONAL);
+    }
+
+    /**
+     * Construit un planificateur d'itinéraire pour le graphe, la fonction
+     * de coût et le mode de recherche donnés.
+     *
+     * @param graph le graphe
+     * @param costFunction la fonction de coût
+     * @param searchMode le mode de recherche
+     */
+    public RouteComputer(Graph graph, CostFunction costFunction, SearchMode searchMode) {
+        this(graph, costFunction, searchMode, null);
+    }
+
+    /**
+     * Construit un planificateur d'itinéraire pour le graphe, la fonction
+     * de coût et le mode de recherche donnés, dont l'heuristique utilise les
+     * tables de coûts des repères données en plus de la distance à vol d'oiseau.
+     *
+     * @param graph le graphe
+     * @param costFunction la fonction de coût
+     * @param searchMode le mode de recherche
+     * @param landmarks les tables de coûts des repères, calculées pour le même
+     * graphe et la même fonction de coût, ou null
+     *
+     * @throws IllegalArgumentException si les tables des repères ne sont pas
+     * celles d'autant de noeuds que le graphe en a
+     */
+    public RouteComputer(Graph graph, CostFunction costFunction, SearchMode searchMode,
+                         Landmarks landmarks) {
+        this(graph, costFunction, searchMode, landmarks, null);
+    }
+
+    /**
+     * Construit un planificateur d'itinéraire pour le graphe, la fonction
+     * de coût, le mode de recherche et les tables de coûts des repères donnés,
+     * qui informe l'observateur donné de la fin de chacune de ses recherches.
+     *
+     * @param graph le graphe
+     * @param costFunction la fonction de coût
+     * @param searchMode le mode de recherche
+     * @param landmarks les tables de coûts des repères, calculées pour le même
+     * graphe et la même fonction de coût, ou null
+     * @param listener l'observateur des recherches, ou null
+     *
+     * @throws IllegalArgumentException si les tables des repères ne sont pas
+     * celles d'autant de noeuds que le graphe en a
+     */
+    public RouteComputer(Graph graph, CostFunction costFunction, SearchMode searchMode,
+                         Landmarks landmarks, SearchListener listener) {
+        this(graph, costFunction, searchMode, landmarks, null, listener);
+    }
+
+    /**
+     * Construit un planificateur d'itinéraire pour le graphe, la fonction
+     * de coût, le mode de recherche et les tables de coûts des repères donnés,
+     * qui constate en temps constant, grâce aux composantes connexes données,
+     * l'inexistence des itinéraires entre noeuds non reliés, et informe
+     * l'observateur donné de la fin de chacune de ses recherches.
+     *
+     * @param graph le graphe
+     * @param costFunction la fonction de coût
+     * @param searchMode le mode de recherche
+     * @param landmarks les tables de coûts des repères, calculées pour le même
+     * graphe et la même fonction de coût, ou null
+     * @param components les composantes connexes, calculées pour le même
+     * graphe et la même fonction de coût, ou null
+     * @param listener l'observateur des recherches, ou null
+     *
+     * @throws IllegalArgumentException si les tables des repères ou les
+     * composantes ne sont pas celles d'autant de noeuds que le graphe en a
+     */
+    public RouteComputer(Graph graph, CostFunction costFunction, SearchMode searchMode,
+                         Landmarks landmarks, ConnectedComponents components,
+                         SearchListener listener) {
+        Preconditions.checkArgument(
+                landmarks == null || landmarks.nodeCount() == graph.nodeCount());
+        Preconditions.checkArgument(
+                components == null || components.nodeCount() == graph.nodeCount());
         this.graph = graph;
         this.costFunction = costFunction;
+        this.searchMode = searchMode;
+        this.searchContexts = new SearchContextPool(graph.nodeCount());
+        this.inEdges = searchMode == SearchMode.BIDIRECTIONAL ? GraphInEdges.of(graph) : null;
+        this.landmarks = landmarks;
+        this.components = components;
+        this.listener = listener;
+    }
+
+    // Graphe dans lequel les itinéraires sont recherchés
+    Graph graph() {
+        return graph;
     }
 
     /**
      * Retourne l'itinéraire de coût total minimal allant du noeud d'identité
      * startNodeId au noeud d'identité endNodeId dans le graphe passé au
-     * constructeur, ou null si aucun itinéraire n'existe.
+     * constructeur, ou null si aucun itinéraire n'existe. L'éventuel
+     * observateur passé au constructeur est informé de la fin de la recherche.
      *
      * @param startNodeId noeud de départ
      * @param endNodeId noeud d'arrivée
@@ -52,68 +187,287 @@ public final class RouteComputer {
      * identiques
      */
     public Route bestRouteBetween(int startNodeId, int endNodeId) {
+        return bestRouteBetween(startNodeId, endNodeId, listener);
+    }
+
+    /**
+     * Retourne l'itinéraire de coût total minimal allant du noeud d'identité
+     * startNodeId au noeud d'identité endNodeId, ou null si aucun itinéraire
+     * n'existe, et informe l'observateur donné, à la place de celui passé au
+     * constructeur, de la fin de la recherche.
+     *
+     * @param startNodeId noeud de départ
+     * @param endNodeId noeud d'arrivée
+     * @param listener l'observateur de la recherche, ou null
+     *
+     * @return l'itinéraire de coût total minimal allant du noeud d'identité
+     * startNodeId au noeud d'identité endNodeId, ou null si aucun itinéraire
+     * n'existe
+     *
+     * @throws IllegalArgumentException si le noeud de départ et d'arrivée sont
+     * identiques
+     */
+    public Route bestRouteBetween(int startNodeId, int endNodeId, SearchListener listener) {
         Preconditions.checkArgument(startNodeId != endNodeId);
 
-        record WeightedNode(int nodeId, float distance) implements Comparable<WeightedNode> {
-            @Override
-            public int compareTo(WeightedNode that) {
-                return Float.compare(this.distance, that.distance);
-            }
+        if (components != null && !components.mayBeConnected(startNodeId, endNodeId)) {
+            if (listener != null)
+                listener.searchCompleted(new SearchMetrics(startNodeId, endNodeId, false,
+                        0, 0, 0, 0, 0, 0));
+            return null;
         }
-        
-        float[] distance = new float[graph.nodeCount()];
-        int[] predecessorsEdgeAndNode = new int[distance.length];
-        Arrays.fill(distance, UNVISITED_NODE);
-        PointCh endPoint = graph.nodePoint(endNodeId);
-        distance[startNodeId] =  (float) endPoint.distanceTo(graph.nodePoint(startNodeId));
+        if (searchMode == SearchMode.BIDIRECTIONAL)
+            return bidirectionalBestRouteBetween(startNodeId, endNodeId, listener);
 
-        Queue<WeightedNode> discoveredNodes = new PriorityQueue<>();
-        discoveredNodes.add(new WeightedNode(startNodeId, distance[startNodeId]));
+        SearchContext context = searchContexts.acquire();
+        try {
+            return bestRouteBetween(startNodeId, endNodeId, context, listener);
+        } finally {
+            searchContexts.release(context);
+        }
+    }
+
+    private Route bestRouteBetween(int startNodeId, int endNodeId, SearchContext context,
+                                   SearchListener listener) {
+        boolean instrumented = listener != null;
+        long startTime = instrumented ? System.nanoTime() : 0;
+        context.setDistance(startNodeId, (float) lowerBound(startNodeId, endNodeId));
+
+        NodeHeap discoveredNodes = context.heap();
+        discoveredNodes.pushOrDecrease(startNodeId, context.distance(startNodeId));
+        // Les compteurs sont de simples variables locales, qui ne sont mises à
+        // jour et lues qu'en présence d'un observateur.
+        int settledNodes = 0, relaxedEdges = 0, heapPushes = 1, visitedTargets = 0;
+        int maxQueueSize = 1;
+        Route route = null;
 
         while (!discoveredNodes.isEmpty()) {
-            WeightedNode node = discoveredNodes.remove();
-            int nodeId = node.nodeId();
-            if (distance[nodeId] == VISITED_NODE)
-                continue;
+            int nodeId = discoveredNodes.pop();
+            if (instrumented)
+                settledNodes += 1;
 
-            if (nodeId == endNodeId)
-                return shortestItinerary(startNodeId, endNodeId,
-                        predecessorsEdgeAndNode);
+            if (nodeId == endNodeId) {
+                route = shortestItinerary(startNodeId, endNodeId, context);
+                break;
+            }
 
+            float nodeDistance = context.distance(nodeId);
             for (int i = 0; i < graph.nodeOutDegree(nodeId); i++) {
                 int edgeId = graph.nodeOutEdgeId(nodeId, i);
                 int edgeTargetNodeId = graph.edgeTargetNodeId(edgeId);
+                if (instrumented)
+                    relaxedEdges += 1;
+                float targetDistance = context.distance(edgeTargetNodeId);
+                if (targetDistance == VISITED_NODE) {
+                    if (instrumented)
+                        visitedTargets += 1;
+                    continue;
+                }
 
                 double costFactor = costFunction.costFactor(nodeId, edgeId);
-                double distanceToEndPoint = endPoint.distanceTo(
-                        graph.nodePoint(edgeTargetNodeId));
-                double distanceToTargetNodeId = distance[nodeId]
+                double distanceToEndPoint = lowerBound(edgeTargetNodeId, endNodeId);
+                double distanceToTargetNodeId = nodeDistance
                         + graph.edgeLength(edgeId) * costFactor;
 
-                if (distanceToTargetNodeId < distance[edgeTargetNodeId]) {
+                if (distanceToTargetNodeId < targetDistance) {
                     // On empaquette dans un élément du tableau l'indice de l'arête
                     // sur les 4 bits de poids le plus faible, et l'identité du
                     // noeud sur les 28 autres bits.
-                    predecessorsEdgeAndNode[edgeTargetNodeId] =
-                            (nodeId << OFFSET_EDGE) | i;
-                    distance[edgeTargetNodeId] = (float) distanceToTargetNodeId;
-                    discoveredNodes.add(new WeightedNode(edgeTargetNodeId,
-                            (float) (distanceToTargetNodeId
-                                    + distanceToEndPoint)));
+                    context.setPredecessor(edgeTargetNodeId, (nodeId << OFFSET_EDGE) | i);
+                    context.setDistance(edgeTargetNodeId, (float) distanceToTargetNodeId);
+                    discoveredNodes.pushOrDecrease(edgeTargetNodeId,
+                            (float) (distanceToTargetNodeId + distanceToEndPoint));
+                    if (instrumented) {
+                        heapPushes += 1;
+                        maxQueueSize = Math.max(maxQueueSize, discoveredNodes.size());
+                    }
                 }
             }
-            distance[nodeId] = VISITED_NODE;
+            context.setDistance(nodeId, VISITED_NODE);
 
         }
-        return null;
+        if (instrumented)
+            listener.searchCompleted(new SearchMetrics(startNodeId, endNodeId, route != null,
+                    settledNodes, relaxedEdges, heapPushes, visitedTargets, maxQueueSize,
+                    System.nanoTime() - startTime));
+        return route;
+    }
+
+    private Route bidirectionalBestRouteBetween(int startNodeId, int endNodeId,
+                                                SearchListener listener) {
+        SearchContext forward = searchContexts.acquire();
+        SearchContext backward = searchContexts.acquire();
+        try {
+            return bidirectionalBestRouteBetween(startNodeId, endNodeId, forward, backward,
+                    listener);
+        } finally {
+            searchContexts.release(forward);
+            searchContexts.release(backward);
+        }
+    }
+
+    // Recherche A* bidirectionnelle utilisant le potentiel moyen
+    // p(n) = (d(n, arrivée) - d(départ, n)) / 2 pour la recherche avant, et son
+    // opposé pour la recherche arrière. Ces deux potentiels étant cohérents et
+    // de somme nulle, la recherche peut s'arrêter dès que la somme des
+    // priorités minimales des deux files atteint le coût du meilleur
+    // itinéraire trouvé.
+    private Route bidirectionalBestRouteBetween(int startNodeId, int endNodeId,
+                                                SearchContext forward,
+                                                SearchContext backward,
+                                                SearchListener listener) {
+        boolean instrumented = listener != null;
+        long startTime = instrumented ? System.nanoTime() : 0;
+        NodeHeap forwardNodes = forward.heap();
+        NodeHeap backwardNodes = backward.heap();
+
+        forward.setDistance(startNodeId, 0f);
+        forwardNodes.pushOrDecrease(startNodeId,
+                potential(startNodeId, startNodeId, endNodeId));
+        backward.setDistance(endNodeId, 0f);
+        backwardNodes.pushOrDecrease(endNodeId,
+                -potential(endNodeId, startNodeId, endNodeId));
+
+        double bestDistance = Double.POSITIVE_INFINITY;
+        int meetingNodeId = -1;
+        int settledNodes = 0, relaxedEdges = 0, heapPushes = 2, visitedTargets = 0;
+        int maxQueueSize = 1;
+
+        while (!forwardNodes.isEmpty() && !backwardNodes.isEmpty()) {
+            float forwardKey = forwardNodes.peekKey();
+            float backwardKey = backwardNodes.peekKey();
+            if (forwardKey + backwardKey >= bestDistance)
+                break;
+
+            if (forwardKey <= backwardKey) {
+                int nodeId = forwardNodes.pop();
+                if (instrumented)
+                    settledNodes += 1;
+                forward.markVisited(nodeId);
+                float nodeDistance = forward.distance(nodeId);
+                for (int i = 0; i < graph.nodeOutDegree(nodeId); i++) {
+                    int edgeId = graph.nodeOutEdgeId(nodeId, i);
+                    int targetNodeId = graph.edgeTargetNodeId(edgeId);
+                    if (instrumented)
+                        relaxedEdges += 1;
+                    if (forward.isVisited(targetNodeId)) {
+                        if (instrumented)
+                            visitedTargets += 1;
+                        continue;
+                    }
+
+                    double targetDistance = nodeDistance
+                            + graph.edgeLength(edgeId) * costFunction.costFactor(nodeId, edgeId);
+                    if (targetDistance < forward.distance(targetNodeId)) {
+                        forward.setPredecessor(targetNodeId, (nodeId << OFFSET_EDGE) | i);
+                        forward.setDistance(targetNodeId, (float) targetDistance);
+                        forwardNodes.pushOrDecrease(targetNodeId, (float) (targetDistance
+                                + potential(targetNodeId, startNodeId, endNodeId)));
+                        if (instrumented) {
+                            heapPushes += 1;
+                            maxQueueSize = Math.max(maxQueueSize, forwardNodes.size());
+                        }
+
+                        double distance = targetDistance + backward.distance(targetNodeId);
+                        if (distance < bestDistance) {
+                            bestDistance = distance;
+                            meetingNodeId = targetNodeId;
+                        }
+                    }
+                }
+            } else {
+                int nodeId = backwardNodes.pop();
+                if (instrumented)
+                    settledNodes += 1;
+                backward.markVisited(nodeId);
+                float nodeDistance = backward.distance(nodeId);
+                for (int i = 0; i < inEdges.inDegree(nodeId); i++) {
+                    int edgeId = inEdges.edgeId(nodeId, i);
+                    int sourceNodeId = inEdges.sourceNodeId(nodeId, i);
+                    if (instrumented)
+                        relaxedEdges += 1;
+                    if (backward.isVisited(sourceNodeId)) {
+                        if (instrumented)
+                            visitedTargets += 1;
+                        continue;
+                    }
+
+                    double sourceDistance = nodeDistance
+                            + graph.edgeLength(edgeId) * costFunction.costFactor(sourceNodeId, edgeId);
+                    if (sourceDistance < backward.distance(sourceNodeId)) {
+                        // Le successeur est empaqueté comme le prédécesseur de
+                        // la recherche avant, avec l'indice de l'arête parmi
+                        // les arêtes sortantes de sourceNodeId.
+                        int outEdgeIndex = edgeId - graph.nodeOutEdgeId(sourceNodeId, 0);
+                        backward.setPredecessor(sourceNodeId, (nodeId << OFFSET_EDGE) | outEdgeIndex);
+                        backward.setDistance(sourceNodeId, (float) sourceDistance);
+                        backwardNodes.pushOrDecrease(sourceNodeId, (float) (sourceDistance
+                                - potential(sourceNodeId, startNodeId, endNodeId)));
+                        if (instrumented) {
+                            heapPushes += 1;
+                            maxQueueSize = Math.max(maxQueueSize, backwardNodes.size());
+                        }
+
+                        double distance = sourceDistance + forward.distance(sourceNodeId);
+                        if (distance < bestDistance) {
+                            bestDistance = distance;
+                            meetingNodeId = sourceNodeId;
+                        }
+                    }
+                }
+            }
+        }
+
+        if (instrumented)
+            listener.searchCompleted(new SearchMetrics(startNodeId, endNodeId,
+                    meetingNodeId != -1, settledNodes, relaxedEdges, heapPushes,
+                    visitedTargets, maxQueueSize, System.nanoTime() - startTime));
+        if (meetingNodeId == -1)
+            return null;
+
+        Deque<Edge> itinerary = new ArrayDeque<>();
+        if (meetingNodeId != startNodeId)
+            itinerary.addAll(shortestItinerary(startNodeId, meetingNodeId, forward).edges());
+        int fromNodeId = meetingNodeId;
+        while (fromNodeId != endNodeId) {
+            int nodeIdAndEdgeIndex = backward.predecessor(fromNodeId);
+            int toNodeId = Bits.extractUnsigned(nodeIdAndEdgeIndex, OFFSET_EDGE,
+                    NODE_BIT_RANGE_LENGTH);
+            int edgeId = graph.nodeOutEdgeId(
+                    fromNodeId,
+                    Bits.extractUnsigned(nodeIdAndEdgeIndex, START_POSITION, OFFSET_EDGE));
+            itinerary.offerLast(of(graph, edgeId, fromNodeId, toNodeId));
+            fromNodeId = toNodeId;
+        }
+        return new SingleRoute(List.copyOf(itinerary));
+    }
+
+    // Retourne le potentiel de la recherche avant au noeud d'identité donnée
+    private float potential(int nodeId, int startNodeId, int endNodeId) {
+        double toEnd = graph.nodeDistance(nodeId, endNodeId);
+        double fromStart = graph.nodeDistance(nodeId, startNodeId);
+        if (landmarks != null) {
+            toEnd = Math.max(toEnd, landmarks.lowerBound(nodeId, endNodeId));
+            fromStart = Math.max(fromStart, landmarks.lowerBound(startNodeId, nodeId));
+        }
+        return (float) ((toEnd - fromStart) / 2);
+    }
+
+    // Retourne une borne inférieure du coût d'un itinéraire allant du noeud
+    // d'identité nodeId au noeud d'arrivée
+    private double lowerBound(int nodeId, int endNodeId) {
+        double distance = graph.nodeDistance(nodeId, endNodeId);
+        return landmarks == null
+                ? distance
+                : Math.max(distance, landmarks.lowerBound(nodeId, endNodeId));
     }
 
     // Reconstitue l'itinéraire à partir du tableau de prédecesseurs
-    private Route shortestItinerary(int startNodeId, int endNodeId, int[] predecessors) {
+    private Route shortestItinerary(int startNodeId, int endNodeId, SearchContext context) {
         Deque<Edge> itinerary =  new ArrayDeque<>();
         int toNodeId = endNodeId;
         while (toNodeId != startNodeId) {
-            int edgeIdAndNodeId = predecessors[toNodeId];
+            int edgeIdAndNodeId = context.predecessor(toNodeId);
             int fromNodeId = Bits.extractUnsigned(edgeIdAndNodeId, OFFSET_EDGE,
                     NODE_BIT_RANGE_LENGTH);
             int edgeId = graph.nodeOutEdgeId(
@@ -0,0 +1,167 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.Preconditions;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Représente un observateur des recherches qui cumule leurs mesures, et les
+ * expose à travers JMX une fois enregistré auprès du serveur de MBeans de la
+ * plateforme.
+ * <p>
+ * Un même observateur peut être partagé par plusieurs planificateurs et être
+ * informé simultanément depuis plusieurs fils d'exécution.
+ *
+ * @author Tanguy Dieudonné (326618)
+ * @author Nathanaël Girod (329987)
+ */
+public final class RouteComputerMetrics implements RouteComputer.SearchListener,
+        RouteComputerMetricsMXBean {
+    private static final int HISTOGRAM_BUCKETS = Long.SIZE;
+
+    private final LongAdder queryCount = new LongAdder();
+    private final LongAdder routeCount = new LongAdder();
+    private final LongAdder settledNodeCount = new LongAdder();
+    private final LongAdder relaxedEdgeCount = new LongAdder();
+    private final LongAdder heapPushCount = new LongAdder();
+    private final LongAdder visitedTargetCount = new LongAdder();
+    private final LongAdder totalWallTimeNanos = new LongAdder();
+    private final AtomicInteger maxQueueSize = new AtomicInteger();
+    private final AtomicLongArray wallTimeHistogram = new AtomicLongArray(HISTOGRAM_BUCKETS);
+    private final AtomicLongArray settledNodeHistogram = new AtomicLongArray(HISTOGRAM_BUCKETS);
+
+    /**
+     * Enregistre cet observateur auprès du serveur de MBeans de la plateforme,
+     * sous le nom ch.epfl.javelo:type=RouteComputer,name=name.
+     *
+     * @param name le nom de l'observateur, qui le distingue des autres
+     *
+     * @return le nom JMX de l'observateur
+     *
+     * @throws JMException si l'enregistrement échoue, p. ex. si un observateur
+     * de même nom est déjà enregistré
+     */
+    public ObjectName register(String name) throws JMException {
+        ObjectName objectName = new ObjectName("ch.epfl.javelo:type=RouteComputer,name="
+                + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        return objectName;
+    }
+
+    @Override
+    public void searchCompleted(SearchMetrics metrics) {
+        queryCount.increment();
+        if (metrics.routeFound())
+            routeCount.increment();
+        settledNodeCount.add(metrics.settledNodes());
+        relaxedEdgeCount.add(metrics.relaxedEdges());
+        heapPushCount.add(metrics.heapPushes());
+        visitedTargetCount.add(metrics.visitedTargets());
+        totalWallTimeNanos.add(metrics.wallTimeNanos());
+        maxQueueSize.accumulateAndGet(metrics.maxQueueSize(), Math::max);
+        wallTimeHistogram.incrementAndGet(bucket(metrics.wallTimeNanos() / 1_000));
+        settledNodeHistogram.incrementAndGet(bucket(metrics.settledNodes()));
+    }
+
+    // Retourne l'index de la classe de l'histogramme contenant la valeur donnée
+    private static int bucket(long value) {
+        return value <= 0 ? 0 : Long.SIZE - Long.numberOfLeadingZeros(value);
+    }
+
+    @Override
+    public long getQueryCount() {
+        return queryCount.sum();
+    }
+
+    @Override
+    public long getRouteCount() {
+        return routeCount.sum();
+    }
+
+    @Override
+    public long getSettledNodeCount() {
+        return settledNodeCount.sum();
+    }
+
+    @Override
+    public long getRelaxedEdgeCount() {
+        return relaxedEdgeCount.sum();
+    }
+
+    @Override
+    public long getHeapPushCount() {
+        return heapPushCount.sum();
+    }
+
+    @Override
+    public long getVisitedTargetCount() {
+        return visitedTargetCount.sum();
+    }
+
+    @Override
+    public int getMaxQueueSize() {
+        return maxQueueSize.get();
+    }
+
+    @Override
+    public long getTotalWallTimeMillis() {
+        return totalWallTimeNanos.sum() / 1_000_000;
+    }
+
+    @Override
+    public long[] getWallTimeHistogramMicros() {
+        return toArray(wallTimeHistogram);
+    }
+
+    @Override
+    public long[] getSettledNodeHistogram() {
+        return toArray(settledNodeHistogram);
+    }
+
+    @Override
+    public long wallTimePercentileMicros(double percentile) {
+        Preconditions.checkArgument(0 <= percentile && percentile <= 100);
+        long[] histogram = toArray(wallTimeHistogram);
+        long total = 0;
+        for (long count : histogram)
+            total += count;
+        if (total == 0)
+            return 0;
+        long rank = (long) Math.ceil(percentile / 100 * total);
+        long seen = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            seen += histogram[i];
+            if (seen >= rank && histogram[i] > 0)
+                return i == HISTOGRAM_BUCKETS - 1 ? Long.MAX_VALUE : 1L << i;
+        }
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public void reset() {
+        queryCount.reset();
+        routeCount.reset();
+        settledNodeCount.reset();
+        relaxedEdgeCount.reset();
+        heapPushCount.reset();
+        visitedTargetCount.reset();
+        totalWallTimeNanos.reset();
+        maxQueueSize.set(0);
+        for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+            wallTimeHistogram.set(i, 0);
+            settledNodeHistogram.set(i, 0);
+        }
+    }
+
+    private static long[] toArray(AtomicLongArray histogram) {
+        long[] values = new long[histogram.length()];
+        for (int i = 0; i < values.length; i++)
+            values[i] = histogram.get(i);
+        return values;
+    }
+}
@@ -0,0 +1,102 @@
+package ch.epfl.javelo.routing;
+
+/**
+ * Interface de gestion JMX des mesures cumulées des recherches d'un ou
+ * plusieurs planificateurs d'itinéraire.
+ * <p>
+ * Les histogrammes ont des classes de largeur exponentielle : la classe
+ * d'index i compte les recherches dont la mesure est comprise entre 2^(i-1)
+ * (inclus) et 2^i (exclu), la classe d'index 0 celles dont la mesure est
+ * inférieure à 1.
+ *
+ * @author Tanguy Dieudonné (326618)
+ * @author Nathanaël Girod (329987)
+ */
+public interface RouteComputerMetricsMXBean {
+    /**
+     * Retourne le nombre de recherches effectuées.
+     *
+     * @return le nombre de recherches effectuées
+     */
+    long getQueryCount();
+
+    /**
+     * Retourne le nombre de recherches ayant trouvé un itinéraire.
+     *
+     * @return le nombre de recherches ayant trouvé un itinéraire
+     */
+    long getRouteCount();
+
+    /**
+     * Retourne le nombre total de noeuds visités.
+     *
+     * @return le nombre total de noeuds visités
+     */
+    long getSettledNodeCount();
+
+    /**
+     * Retourne le nombre total d'arêtes examinées.
+     *
+     * @return le nombre total d'arêtes examinées
+     */
+    long getRelaxedEdgeCount();
+
+    /**
+     * Retourne le nombre total d'insertions dans les files de priorité.
+     *
+     * @return le nombre total d'insertions dans les files de priorité
+     */
+    long getHeapPushCount();
+
+    /**
+     * Retourne le nombre total d'arêtes ignorées car menant à un noeud déjà
+     * visité.
+     *
+     * @return le nombre total d'arêtes menant à un noeud déjà visité
+     */
+    long getVisitedTargetCount();
+
+    /**
+     * Retourne la plus grande taille atteinte par une file de priorité.
+     *
+     * @return la plus grande taille atteinte par une file de priorité
+     */
+    int getMaxQueueSize();
+
+    /**
+     * Retourne la durée totale des recherches, en millisecondes.
+     *
+     * @return la durée totale des recherches, en millisecondes
+     */
+    long getTotalWallTimeMillis();
+
+    /**
+     * Retourne l'histogramme de la durée des recherches, en microsecondes.
+     *
+     * @return l'histogramme de la durée des recherches
+     */
+    long[] getWallTimeHistogramMicros();
+
+    /**
+     * Retourne l'histogramme du nombre de noeuds visités par recherche.
+     *
+     * @return l'histogramme du nombre de noeuds visités par recherche
+     */
+    long[] getSettledNodeHistogram();
+
+    /**
+     * Retourne une borne supérieure, en microsecondes, du percentile donné de
+     * la durée des recherches, déduite de l'histogramme.
+     *
+     * @param percentile le percentile, compris entre 0 et 100
+     *
+     * @return une borne supérieure du percentile donné de la durée des
+     * recherches, ou 0 si aucune recherche n'a été effectuée
+     */
+    long wallTimePercentileMicros(double percentile);
+
+    /**
+     * Remet à zéro toutes les mesures.
+     */
+    void reset();
+}
@@ -0,0 +1,221 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.Math2;
+import ch.epfl.javelo.projection.PointCh;
+
+import java.util.List;
+
+/**
+ * Hiérarchie de rectangles englobants sur les arêtes d'un itinéraire simple,
+ * permettant de déterminer le point de l'itinéraire le plus proche d'un point
+ * de référence en n'examinant qu'un nombre logarithmique d'arêtes en pratique.
+ *
+ * Le résultat est identique à celui d'un examen de toutes les arêtes dans
+ * l'ordre : en cas d'égalité des distances, l'arête la plus proche du début de
+ * l'itinéraire l'emporte. Les candidats sont évalués sans allocation.
+ *
+ * @author Tanguy Dieudonné (326618)
+ * @author Nathanaël Girod (329987)
+ */
+final class RouteSegmentIndex {
+    // Nombre maximal d'arêtes d'une feuille de la hiérarchie
+    private static final int LEAF_SIZE = 4;
+
+    private final double[] fromE, fromN, toE, toN, lengths;
+    private final double[] edgePositions;
+    // Index des arêtes, ordonnés de sorte que celles de chaque noeud de la
+    // hiérarchie soient contiguës
+    private final int[] edgeOrder;
+    // Pour chaque noeud de la hiérarchie : son rectangle englobant et la plage
+    // [start, end[ de ses arêtes dans edgeOrder ; les enfants du noeud i, s'il
+    // n'est pas une feuille, sont les noeuds 2i + 1 et 2i + 2
+    private final double[] minE, minN, maxE, maxN;
+    private final int[] start, end;
+
+    /**
+     * Construit l'index des arêtes données, dont les positions de départ le
+     * long de l'itinéraire sont données.
+     *
+     * @param edges les arêtes de l'itinéraire
+     * @param edgePositions la position du début de chaque arête
+     */
+    RouteSegmentIndex(List<Edge> edges, double[] edgePositions) {
+        int edgeCount = edges.size();
+        this.fromE = new double[edgeCount];
+        this.fromN = new double[edgeCount];
+        this.toE = new double[edgeCount];
+        this.toN = new double[edgeCount];
+        this.lengths = new double[edgeCount];
+        this.edgePositions = edgePositions;
+        this.edgeOrder = new int[edgeCount];
+        for (int i = 0; i < edgeCount; i++) {
+            Edge e = edges.get(i);
+            fromE[i] = e.fromPoint().e();
+            fromN[i] = e.fromPoint().n();
+            toE[i] = e.toPoint().e();
+            toN[i] = e.toPoint().n();
+            lengths[i] = e.length();
+            edgeOrder[i] = i;
+        }
+
+        // La hiérarchie est un arbre binaire complet stocké dans des tableaux
+        int leafCount = Math.max(1, Math2.ceilDiv(edgeCount, LEAF_SIZE));
+        int nodeCount = 2 * Integer.highestOneBit(2 * leafCount - 1) - 1;
+        this.minE = new double[nodeCount];
+        this.minN = new double[nodeCount];
+        this.maxE = new double[nodeCount];
+        this.maxN = new double[nodeCount];
+        this.start = new int[nodeCount];
+        this.end = new int[nodeCount];
+        build(0, 0, edgeCount);
+    }
+
+    // Construit le noeud d'index donné sur les arêtes de la plage donnée de
+    // edgeOrder, en la partageant selon la médiane des milieux des arêtes sur
+    // l'axe le plus étendu
+    private void build(int node, int from, int to) {
+        start[node] = from;
+        end[node] = to;
+        double nMinE = Double.POSITIVE_INFINITY, nMinN = Double.POSITIVE_INFINITY;
+        double nMaxE = Double.NEGATIVE_INFINITY, nMaxN = Double.NEGATIVE_INFINITY;
+        for (int i = from; i < to; i++) {
+            int edge = edgeOrder[i];
+            nMinE = Math.min(nMinE, Math.min(fromE[edge], toE[edge]));
+            nMinN = Math.min(nMinN, Math.min(fromN[edge], toN[edge]));
+            nMaxE = Math.max(nMaxE, Math.max(fromE[edge], toE[edge]));
+            nMaxN = Math.max(nMaxN, Math.max(fromN[edge], toN[edge]));
+        }
+        minE[node] = nMinE;
+        minN[node] = nMinN;
+        maxE[node] = nMaxE;
+        maxN[node] = nMaxN;
+
+        if (to - from <= LEAF_SIZE || 2 * node + 2 >= start.length)
+            return;
+        boolean splitOnE = nMaxE - nMinE >= nMaxN - nMinN;
+        int middle = (from + to) >>> 1;
+        select(from, to - 1, middle, splitOnE);
+        build(2 * node + 1, from, middle);
+        build(2 * node + 2, middle, to);
+    }
+
+    private boolean isLeaf(int node) {
+        return 2 * node + 2 >= start.length || end[node] - start[node] <= LEAF_SIZE;
+    }
+
+    // Deux fois la coordonnée du milieu de l'arête donnée sur l'axe donné
+    private double midpoint2(int edge, boolean onE) {
+        return onE ? fromE[edge] + toE[edge] : fromN[edge] + toN[edge];
+    }
+
+    // Réordonne la plage [left, right] de edgeOrder de sorte que l'élément
+    // d'index k soit à sa place dans l'ordre des milieux (sélection rapide)
+    private void select(int left, int right, int k, boolean onE) {
+        while (left < right) {
+            double pivot = midpoint2(edgeOrder[(left + right) >>> 1], onE);
+            int i = left, j = right;
+            while (i <= j) {
+                while (midpoint2(edgeOrder[i], onE) < pivot) i++;
+                while (midpoint2(edgeOrder[j], onE) > pivot) j--;
+                if (i <= j) {
+                    int tmp = edgeOrder[i];
+                    edgeOrder[i++] = edgeOrder[j];
+                    edgeOrder[j--] = tmp;
+                }
+            }
+            if (k <= j)
+                right = j;
+            else if (k >= i)
+                left = i;
+            else
+                return;
+        }
+    }
+
+    /**
+     * Retourne le point de l'itinéraire se trouvant le plus proche du point de
+     * référence donné.
+     *
+     * @param point le point de référence
+     *
+     * @return le point de l'itinéraire se trouvant le plus proche du point de
+     * référence donné
+     */
+    RoutePoint pointClosestTo(PointCh point) {
+        Closest closest = new Closest(point.e(), point.n());
+        visit(0, closest);
+        if (closest.edge < 0)
+            return RoutePoint.NONE;
+        return new RoutePoint(new PointCh(closest.e, closest.n),
+                edgePositions[closest.edge] + closest.positionOnEdge, closest.distance);
+    }
+
+    // Meilleur candidat trouvé jusqu'ici pour une requête
+    private static final class Closest {
+        final double queryE, queryN;
+        int edge = -1;
+        double distance = Double.POSITIVE_INFINITY;
+        double positionOnEdge, e, n;
+
+        Closest(double queryE, double queryN) {
+            this.queryE = queryE;
+            this.queryN = queryN;
+        }
+    }
+
+    // Parcourt en profondeur le noeud donné, en visitant d'abord l'enfant le
+    // plus proche et en ignorant les noeuds ne pouvant contenir de meilleur
+    // candidat
+    private void visit(int node, Closest closest) {
+        if (isLeaf(node)) {
+            for (int i = start[node]; i < end[node]; i++)
+                evaluate(edgeOrder[i], closest);
+            return;
+        }
+        int left = 2 * node + 1, right = 2 * node + 2;
+        double leftDistance = boxDistance(left, closest);
+        double rightDistance = boxDistance(right, closest);
+        int first = leftDistance <= rightDistance ? left : right;
+        int second = first == left ? right : left;
+        if (Math.min(leftDistance, rightDistance) <= closest.distance)
+            visit(first, closest);
+        if (Math.max(leftDistance, rightDistance) <= closest.distance)
+            visit(second, closest);
+    }
+
+    // Retourne une borne inférieure de la distance entre le point de la
+    // requête et le rectangle englobant du noeud donné, légèrement diminuée
+    // pour rester une borne malgré les erreurs d'arrondi
+    private double boxDistance(int node, Closest closest) {
+        double dE = Math.max(0, Math.max(minE[node] - closest.queryE, closest.queryE - maxE[node]));
+        double dN = Math.max(0, Math.max(minN[node] - closest.queryN, closest.queryN - maxN[node]));
+        double distance = Math.sqrt(dE * dE + dN * dN);
+        return distance - Math.ulp(distance) * 4;
+    }
+
+    // Évalue l'arête donnée exactement comme Edge.positionClosestTo,
+    // Edge.pointAt et PointCh.distanceTo le feraient
+    private void evaluate(int edge, Closest closest) {
+        double length = lengths[edge];
+        double position = Math2.clamp(0.0, Math2.projectionLength(fromE[edge], fromN[edge],
+                toE[edge], toN[edge], closest.queryE, closest.queryN), length);
+        double e, n;
+        if (length == 0.0) {
+            e = fromE[edge];
+            n = fromN[edge];
+        } else {
+            e = Math2.interpolate(fromE[edge], toE[edge], position / length);
+            n = Math2.interpolate(fromN[edge], toN[edge], position / length);
+        }
+        double distance = Math.sqrt((closest.queryE - e) * (closest.queryE - e)
+                + (closest.queryN - n) * (closest.queryN - n));
+        if (distance < closest.distance
+                || (distance == closest.distance && edge < closest.edge)) {
+            closest.edge = edge;
+            closest.distance = distance;
+            closest.positionOnEdge = position;
+            closest.e = e;
+            closest.n = n;
+        }
+    }
+}
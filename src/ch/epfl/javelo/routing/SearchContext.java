@@ -0,0 +1,156 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.Preconditions;
+
+import java.util.Arrays;
+
+/**
+ * Représente l'espace de travail d'une recherche dans le graphe : les
+ * distances et prédécesseurs de chaque noeud, ainsi que la file de priorité
+ * des noeuds découverts.
+ * <p>
+ * Chaque entrée des tableaux est estampillée par la génération de la recherche
+ * qui l'a écrite, ce qui permet de réinitialiser l'espace de travail en temps
+ * constant entre deux recherches, au lieu de remplir à nouveau les tableaux.
+ * L'estampille d'un noeud définitivement traité (visité) est négative.
+ * Un espace de travail ne doit être utilisé que par une recherche à la fois.
+ *
+ * @author Tanguy Dieudonné (326618)
+ * @author Nathanaël Girod (329987)
+ */
+public final class SearchContext {
+    /**
+     * Distance d'un noeud qui n'a pas encore été atteint par la recherche courante.
+     */
+    public static final float UNREACHED = Float.POSITIVE_INFINITY;
+
+    private final float[] distances;
+    private final int[] predecessors;
+    private final int[] stamps;
+    private final NodeHeap heap;
+    private int generation;
+
+    /**
+     * Construit un espace de travail pour un graphe ayant le nombre de noeuds
+     * donné.
+     *
+     * @param nodeCount le nombre de noeuds du graphe
+     *
+     * @throws IllegalArgumentException si le nombre de noeuds est négatif
+     */
+    public SearchContext(int nodeCount) {
+        Preconditions.checkArgument(nodeCount >= 0);
+        this.distances = new float[nodeCount];
+        this.predecessors = new int[nodeCount];
+        this.stamps = new int[nodeCount];
+        this.heap = new NodeHeap(nodeCount);
+        this.generation = 1;
+    }
+
+    /**
+     * Retourne le nombre de noeuds du graphe pour lequel l'espace de travail
+     * a été construit.
+     *
+     * @return le nombre de noeuds du graphe
+     */
+    public int nodeCount() {
+        return stamps.length;
+    }
+
+    /**
+     * Prépare l'espace de travail pour une nouvelle recherche : toutes les
+     * distances valent à nouveau UNREACHED et la file de priorité est vide.
+     */
+    public void reset() {
+        heap.clear();
+        generation += 1;
+        // Lors du (très rare) dépassement de capacité, les estampilles doivent
+        // réellement être effacées pour ne pas être confondues avec les futures.
+        if (generation == Integer.MAX_VALUE) {
+            Arrays.fill(stamps, 0);
+            generation = 1;
+        }
+    }
+
+    /**
+     * Retourne la distance du noeud d'identité donnée dans la recherche
+     * courante, ou UNREACHED s'il n'a pas encore été atteint.
+     *
+     * @param nodeId l'identité du noeud
+     *
+     * @return la distance du noeud d'identité donnée
+     */
+    public float distance(int nodeId) {
+        int stamp = stamps[nodeId];
+        return stamp == generation || stamp == -generation ? distances[nodeId] : UNREACHED;
+    }
+
+    /**
+     * Modifie la distance du noeud d'identité donnée dans la recherche courante,
+     * et le considère comme non visité.
+     *
+     * @param nodeId l'identité du noeud
+     * @param distance la nouvelle distance du noeud
+     */
+    public void setDistance(int nodeId, float distance) {
+        distances[nodeId] = distance;
+        stamps[nodeId] = generation;
+    }
+
+    /**
+     * Marque comme visité le noeud d'identité donnée, en conservant sa distance.
+     *
+     * @param nodeId l'identité du noeud
+     *
+     * @throws IllegalArgumentException si le noeud n'a pas été atteint par la
+     * recherche courante
+     */
+    public void markVisited(int nodeId) {
+        Preconditions.checkArgument(stamps[nodeId] == generation || stamps[nodeId] == -generation);
+        stamps[nodeId] = -generation;
+    }
+
+    /**
+     * Retourne vrai ssi le noeud d'identité donnée a été marqué comme visité
+     * par la recherche courante.
+     *
+     * @param nodeId l'identité du noeud
+     *
+     * @return vrai ssi le noeud d'identité donnée a été visité
+     */
+    public boolean isVisited(int nodeId) {
+        return stamps[nodeId] == -generation;
+    }
+
+    /**
+     * Retourne le prédécesseur du noeud d'identité donnée, dont la valeur n'a
+     * de sens que si la distance du noeud a été modifiée par la recherche courante.
+     *
+     * @param nodeId l'identité du noeud
+     *
+     * @return le prédécesseur du noeud d'identité donnée
+     */
+    public int predecessor(int nodeId) {
+        return predecessors[nodeId];
+    }
+
+    /**
+     * Modifie le prédécesseur du noeud d'identité donnée.
+     *
+     * @param nodeId l'identité du noeud
+     * @param predecessor le prédécesseur du noeud, dont l'encodage est laissé
+     * au choix de la recherche
+     */
+    public void setPredecessor(int nodeId, int predecessor) {
+        predecessors[nodeId] = predecessor;
+    }
+
+    /**
+     * Retourne la file de priorité des noeuds découverts par la recherche.
+     *
+     * @return la file de priorité des noeuds découverts par la recherche
+     */
+    public NodeHeap heap() {
+        return heap;
+    }
+}
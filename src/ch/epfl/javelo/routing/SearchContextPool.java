@@ -0,0 +1,64 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.Preconditions;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Représente une réserve d'espaces de travail de recherche pour un graphe
+ * donné, qui peut être partagée entre plusieurs fils d'exécution.
+ * <p>
+ * Un espace de travail n'est créé que lorsque tous ceux de la réserve sont en
+ * cours d'utilisation, de sorte que la réserve contient au plus autant
+ * d'espaces de travail que de recherches simultanées.
+ *
+ * @author Tanguy Dieudonné (326618)
+ * @author Nathanaël Girod (329987)
+ */
+public final class SearchContextPool {
+    private final int nodeCount;
+    private final Queue<SearchContext> freeContexts = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Construit une réserve vide d'espaces de travail pour un graphe ayant le
+     * nombre de noeuds donné.
+     *
+     * @param nodeCount le nombre de noeuds du graphe
+     *
+     * @throws IllegalArgumentException si le nombre de noeuds est négatif
+     */
+    public SearchContextPool(int nodeCount) {
+        Preconditions.checkArgument(nodeCount >= 0);
+        this.nodeCount = nodeCount;
+    }
+
+    /**
+     * Retourne un espace de travail réinitialisé, prêt pour une nouvelle
+     * recherche, qui doit être rendu au moyen de release une fois la recherche
+     * terminée.
+     *
+     * @return un espace de travail réinitialisé
+     */
+    public SearchContext acquire() {
+        SearchContext context = freeContexts.poll();
+        if (context == null)
+            return new SearchContext(nodeCount);
+        context.reset();
+        return context;
+    }
+
+    /**
+     * Rend à la réserve l'espace de travail donné, qui ne doit plus être
+     * utilisé par l'appelant.
+     *
+     * @param context l'espace de travail
+     *
+     * @throws IllegalArgumentException si l'espace de travail n'a pas été
+     * construit pour le même nombre de noeuds que la réserve
+     */
+    public void release(SearchContext context) {
+        Preconditions.checkArgument(context.nodeCount() == nodeCount);
+        freeContexts.add(context);
+    }
+}
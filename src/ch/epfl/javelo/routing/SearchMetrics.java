@@ -0,0 +1,27 @@
+package ch.epfl.javelo.routing;
+
+/**
+ * Représente les mesures d'une recherche d'itinéraire effectuée par un
+ * planificateur d'itinéraire.
+ *
+ * @author Tanguy Dieudonné (326618)
+ * @author Nathanaël Girod (329987)
+ *
+ * @param startNodeId l'identité du noeud de départ
+ * @param endNodeId l'identité du noeud d'arrivée
+ * @param routeFound vrai ssi un itinéraire a été trouvé
+ * @param settledNodes le nombre de noeuds visités, c.-à-d. retirés de la file
+ * de priorité
+ * @param relaxedEdges le nombre d'arêtes examinées depuis les noeuds visités
+ * @param heapPushes le nombre d'insertions dans la file de priorité, ou de
+ * diminutions de la priorité d'un noeud s'y trouvant déjà
+ * @param visitedTargets le nombre d'arêtes examinées dont l'extrémité avait
+ * déjà été visitée, et qui ont donc été ignorées
+ * @param maxQueueSize la taille maximale atteinte par la file de priorité
+ * (par chacune des deux files pour la recherche bidirectionnelle)
+ * @param wallTimeNanos la durée de la recherche, en nanosecondes
+ */
+public record SearchMetrics(int startNodeId, int endNodeId, boolean routeFound,
+                            int settledNodes, int relaxedEdges, int heapPushes,
+                            int visitedTargets, int maxQueueSize, long wallTimeNanos) {
+}
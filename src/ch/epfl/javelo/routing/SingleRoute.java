@@ -9,8 +9,6 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
-import static ch.epfl.javelo.routing.RoutePoint.NONE;
-
 /**
  * Représente un itinéraire simple, càd reliant un point de départ à un point
  * d'arrivée, sans point de passage intermédiaire.
@@ -21,6 +19,11 @@ import static ch.epfl.javelo.routing.RoutePoint.NONE;
 public final class SingleRoute implements Route {
     private final List<Edge> edges;
     private final double[] nodePositions;
+    private final List<PointCh> points;
+    // Index des arêtes, construit lors de la première recherche du point le
+    // plus proche ; plusieurs fils d'exécution peuvent le construire en même
+    // temps sans autre conséquence qu'un travail inutile
+    private volatile RouteSegmentIndex segmentIndex;
 
     /**
      * Construit l'itinéraire simple composé des arêtes données.
@@ -33,6 +36,17 @@ public final class SingleRoute implements Route {
         Preconditions.checkArgument(!edges.isEmpty());
         this.edges = List.copyOf(edges);
         this.nodePositions = nodePositions();
+        this.points = points(this.edges);
+    }
+
+    // Retourne la liste immuable des points situés aux extrémités des arêtes
+    private static List<PointCh> points(List<Edge> edges) {
+        List<PointCh> l = new ArrayList<>(edges.size() + 1);
+        for (Edge e : edges) {
+            l.add(e.fromPoint());
+        }
+        l.add(edges.get(edges.size() - 1).toPoint());
+        return Collections.unmodifiableList(l);
     }
 
     private double[] nodePositions() {
@@ -45,6 +59,12 @@ public final class SingleRoute implements Route {
         return nodePositions;
     }
 
+    // Position du noeud d'index donné le long de l'itinéraire, le noeud
+    // d'index i étant le noeud de départ de l'arête d'index i
+    double nodePosition(int nodeIndex) {
+        return nodePositions[nodeIndex];
+    }
+
     /**
      * Retourne l'index du segment de l'itinéraire contenant la position donnée,
      * qui vaut toujours 0 dans le cas d'un itinéraire simple.
@@ -74,7 +94,7 @@ public final class SingleRoute implements Route {
      */
     @Override
     public List<Edge> edges() {
-        return List.copyOf(edges);
+        return edges;
     }
 
     /**
@@ -84,12 +104,7 @@ public final class SingleRoute implements Route {
      */
     @Override
     public List<PointCh> points() {
-        List<PointCh> l = new ArrayList<>();
-        for (Edge e : edges) {
-            l.add(e.fromPoint());
-        }
-        l.add(edges.get(edges.size() - 1).toPoint());
-        return l;
+        return points;
     }
 
     /**
@@ -103,10 +118,8 @@ public final class SingleRoute implements Route {
     public PointCh pointAt(double position) {
         double clampedPosition = Math2.clamp(0.0, position, length());
         int binarySearchResult = Arrays.binarySearch(nodePositions, clampedPosition);
-        if (binarySearchResult == 0)
-            return points().get(binarySearchResult);
-        if (binarySearchResult > 0)
-            return points().get(binarySearchResult);
+        if (binarySearchResult >= 0)
+            return points.get(binarySearchResult);
         int actualIndex = - binarySearchResult - 2;
         return edges
                 .get(actualIndex)
@@ -176,21 +189,11 @@ public final class SingleRoute implements Route {
      */
     @Override
     public RoutePoint pointClosestTo(PointCh point) {
-        RoutePoint closestPoint = NONE;
-        double currentPosition = 0;
-        for (Edge e : edges) {
-            double closestPosition = e.positionClosestTo(point);
-            // On clamp pour s'assurer que l'on est bien sur l'arête, et pas sur
-            // sa projection à l'infini.
-            double closestPositionOnEdge = Math2.clamp(0.0, closestPosition, e.length());
-            PointCh closestPointOnEdge = e.pointAt(closestPositionOnEdge);
-            closestPoint = closestPoint.min(
-                    closestPointOnEdge,
-                    currentPosition + closestPositionOnEdge,
-                    point.distanceTo(closestPointOnEdge)
-                                            );
-            currentPosition += e.length();
+        RouteSegmentIndex index = segmentIndex;
+        if (index == null) {
+            index = new RouteSegmentIndex(edges, nodePositions);
+            segmentIndex = index;
         }
-        return closestPoint;
+        return index.pointClosestTo(point);
     }
 }
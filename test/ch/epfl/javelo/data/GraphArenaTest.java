@@ -0,0 +1,204 @@
+package ch.epfl.javelo.data;
+
+import ch.epfl.test.TestGraphs;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.DoubleUnaryOperator;
+import java.util.stream.Stream;
+
+import static ch.epfl.test.TestRandomizer.RANDOM_ITERATIONS;
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GraphArenaTest {
+
+    private static Path writeBytes(byte[] bytes) throws IOException {
+        Path file = Files.createTempFile("javelo-segment", ".bin");
+        Files.write(file, bytes);
+        return file;
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList())
+                Files.delete(path);
+        }
+    }
+
+    private static void assertSameGraph(Graph expected, Graph actual) {
+        assertEquals(expected.nodeCount(), actual.nodeCount());
+        assertEquals(expected.edgeCount(), actual.edgeCount());
+        for (int nodeId = 0; nodeId < expected.nodeCount(); nodeId++) {
+            assertEquals(expected.nodePoint(nodeId), actual.nodePoint(nodeId));
+            assertEquals(expected.nodeOutDegree(nodeId), actual.nodeOutDegree(nodeId));
+            for (int i = 0; i < expected.nodeOutDegree(nodeId); i++)
+                assertEquals(expected.nodeOutEdgeId(nodeId, i), actual.nodeOutEdgeId(nodeId, i));
+        }
+        for (int edgeId = 0; edgeId < expected.edgeCount(); edgeId++) {
+            assertEquals(expected.edgeTargetNodeId(edgeId), actual.edgeTargetNodeId(edgeId));
+            assertEquals(expected.edgeIsInverted(edgeId), actual.edgeIsInverted(edgeId));
+            assertEquals(expected.edgeLength(edgeId), actual.edgeLength(edgeId));
+            assertEquals(expected.edgeElevationGain(edgeId), actual.edgeElevationGain(edgeId));
+            assertEquals(expected.edgeAttributes(edgeId), actual.edgeAttributes(edgeId));
+            DoubleUnaryOperator expectedProfile = expected.edgeProfile(edgeId);
+            DoubleUnaryOperator actualProfile = actual.edgeProfile(edgeId);
+            for (double x = 0; x <= expected.edgeLength(edgeId); x += 0.5)
+                assertEquals(expectedProfile.applyAsDouble(x), actualProfile.applyAsDouble(x));
+        }
+    }
+
+    @Test
+    void segmentReadsTheSameValuesAsByteBufferAcrossChunks() throws IOException {
+        var rng = newRandom();
+        byte[] bytes = new byte[1000];
+        rng.nextBytes(bytes);
+        ByteBuffer expected = ByteBuffer.wrap(bytes);
+        Path file = writeBytes(bytes);
+        try (GraphArena arena = new GraphArena()) {
+            MappedSegment single = arena.map(file);
+            MappedSegment chunked = arena.map(file, 6);
+            for (MappedSegment segment : new MappedSegment[]{single, chunked}) {
+                assertEquals(bytes.length, segment.byteSize());
+                for (int i = 0; i < RANDOM_ITERATIONS; i++) {
+                    int offset = rng.nextInt(bytes.length - Long.BYTES + 1);
+                    assertEquals(expected.get(offset), segment.getByte(offset));
+                    assertEquals(expected.getShort(offset), segment.getShort(offset));
+                    assertEquals(expected.getInt(offset), segment.getInt(offset));
+                    assertEquals(expected.getLong(offset), segment.getLong(offset));
+                }
+                // Valeurs à cheval sur deux blocs
+                for (int offset = 64 - Long.BYTES + 1; offset < 64; offset++)
+                    assertEquals(expected.getLong(offset), segment.getLong(offset));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void segmentThrowsOnOutOfBoundsOffsets() throws IOException {
+        Path file = writeBytes(new byte[16]);
+        try (GraphArena arena = new GraphArena()) {
+            MappedSegment segment = arena.map(file, 3);
+            assertThrows(IndexOutOfBoundsException.class, () -> segment.getByte(-1));
+            assertThrows(IndexOutOfBoundsException.class, () -> segment.getByte(16));
+            assertThrows(IndexOutOfBoundsException.class, () -> segment.getInt(13));
+            assertThrows(IndexOutOfBoundsException.class, () -> segment.getLong(9));
+            assertEquals(0, segment.getLong(8));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void closedArenaRejectsAllAccesses() throws IOException {
+        Path file = writeBytes(new byte[16]);
+        try {
+            GraphArena arena = new GraphArena();
+            MappedSegment segment = arena.map(file);
+            assertTrue(arena.isAlive());
+            arena.close();
+            assertFalse(arena.isAlive());
+            assertThrows(IllegalStateException.class, () -> segment.getInt(0));
+            assertThrows(IllegalStateException.class, () -> arena.map(file));
+            assertThrows(IllegalStateException.class, arena::close);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void graphLoadedThroughArenaIsTheSameAsMappedGraph() throws IOException {
+        var rng = newRandom();
+        Path directory = Files.createTempDirectory("javelo-arena");
+        try {
+            TestGraphs.writeGrid(30, 20, rng, directory);
+            Graph expected = Graph.loadFrom(directory);
+            try (GraphArena arena = new GraphArena()) {
+                Graph actual = Graph.loadFrom(directory, arena);
+                assertSameGraph(expected, actual);
+                assertSameGraph(expected, actual.withEdgeArrays());
+                assertSameGraph(expected, actual.withDecodedNodeCoordinates());
+                for (int i = 0; i < RANDOM_ITERATIONS; i++) {
+                    int nodeId = rng.nextInt(expected.nodeCount());
+                    assertEquals(expected.nodeClosestTo(expected.nodePoint(nodeId), 100),
+                            actual.nodeClosestTo(expected.nodePoint(nodeId), 100));
+                }
+                // Enregistrements et profils à cheval sur deux blocs
+                assertSameGraph(expected,
+                        Graph.loadSegmentsFrom(directory, filePath -> arena.map(filePath, 6)));
+            }
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+
+    @Test
+    void graphLoadedThroughClosedArenaRejectsReads() throws IOException {
+        var rng = newRandom();
+        Path directory = Files.createTempDirectory("javelo-arena");
+        try {
+            TestGraphs.writeGrid(4, 3, rng, directory);
+            GraphArena arena = new GraphArena();
+            Graph graph = Graph.loadFrom(directory, arena);
+            assertEquals(graph.nodeCount(), Graph.loadFrom(directory).nodeCount());
+            arena.close();
+            assertThrows(IllegalStateException.class, () -> graph.nodeE(0));
+            assertThrows(IllegalStateException.class, () -> graph.nodeOutDegree(0));
+            assertThrows(IllegalStateException.class, () -> graph.edgeLength(0));
+            assertThrows(IllegalStateException.class, () -> graph.edgeProfile(0));
+            assertThrows(IllegalStateException.class, () -> Graph.loadFrom(directory, arena));
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+
+    @Test
+    void closeWaitsForConcurrentReads() throws Exception {
+        var rng = newRandom();
+        byte[] bytes = new byte[1 << 16];
+        rng.nextBytes(bytes);
+        ByteBuffer expected = ByteBuffer.wrap(bytes);
+        Path file = writeBytes(bytes);
+        try {
+            for (int round = 0; round < 20; round++) {
+                GraphArena arena = new GraphArena();
+                MappedSegment segment = arena.map(file, 12);
+                int threadCount = 4;
+                CountDownLatch started = new CountDownLatch(threadCount);
+                AtomicReference<Throwable> failure = new AtomicReference<>();
+                Thread[] threads = new Thread[threadCount];
+                for (int t = 0; t < threadCount; t++) {
+                    threads[t] = new Thread(() -> {
+                        started.countDown();
+                        try {
+                            for (int offset = 0; ; offset = (offset + 8) % bytes.length) {
+                                if (segment.getLong(offset) != expected.getLong(offset))
+                                    failure.set(new AssertionError("offset " + offset));
+                            }
+                        } catch (IllegalStateException e) {
+                            // L'arène a été fermée
+                        } catch (Throwable e) {
+                            failure.set(e);
+                        }
+                    });
+                    threads[t].start();
+                }
+                started.await();
+                arena.close();
+                for (Thread thread : threads)
+                    thread.join();
+                assertNull(failure.get());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package ch.epfl.javelo.data;
+
+import ch.epfl.test.TestGraphs;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GraphContainerTest {
+    private static final List<String> FILE_NAMES = List.of("nodes.bin", "sectors.bin",
+            "edges.bin", "profile_ids.bin", "elevations.bin", "attributes.bin",
+            "nodes_osmid.bin");
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList())
+                Files.delete(path);
+        }
+    }
+
+    private static long align(long offset) {
+        return (offset + 4095) / 4096 * 4096;
+    }
+
+    // Position de la section du fichier donné, les sections étant écrites
+    // dans l'ordre de FILE_NAMES
+    private static long sectionOffset(Path directory, String fileName) throws IOException {
+        long offset = 4096;
+        for (String name : FILE_NAMES) {
+            if (name.equals(fileName))
+                return offset;
+            offset = align(offset + Files.size(directory.resolve(name)));
+        }
+        throw new IllegalArgumentException(fileName);
+    }
+
+    private static void flipByte(Path file, long position) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, READ, WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            channel.read(b, position);
+            b.put(0, (byte) ~b.get(0));
+            channel.write(b.rewind(), position);
+        }
+    }
+
+    @Test
+    void packedGraphIsTheSameAsDirectoryGraph() throws IOException {
+        var rng = newRandom();
+        Path directory = Files.createTempDirectory("javelo-container");
+        try {
+            Path graphPath = Files.createDirectory(directory.resolve("graph"));
+            Path containerPath = directory.resolve("graph.javelo");
+            TestGraphs.writeGrid(30, 20, rng, graphPath);
+            GraphContainer.pack(graphPath, containerPath);
+            assertFalse(Files.exists(directory.resolve("graph.javelo.tmp")));
+            assertEquals(List.of(), GraphContainer.corruptedSections(containerPath));
+
+            Graph expected = Graph.loadFrom(graphPath);
+            Graph actual = Graph.loadFrom(containerPath);
+            assertEquals(expected.nodeCount(), actual.nodeCount());
+            assertEquals(expected.edgeCount(), actual.edgeCount());
+            for (int nodeId = 0; nodeId < expected.nodeCount(); nodeId++)
+                assertEquals(expected.nodePoint(nodeId), actual.nodePoint(nodeId));
+            for (int edgeId = 0; edgeId < expected.edgeCount(); edgeId++) {
+                assertEquals(expected.edgeTargetNodeId(edgeId), actual.edgeTargetNodeId(edgeId));
+                assertEquals(expected.edgeLength(edgeId), actual.edgeLength(edgeId));
+                assertEquals(expected.edgeAttributes(edgeId), actual.edgeAttributes(edgeId));
+                assertEquals(expected.edgeProfile(edgeId).applyAsDouble(1),
+                        actual.edgeProfile(edgeId).applyAsDouble(1));
+            }
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+
+    @Test
+    void unpackRestoresTheOriginalFiles() throws IOException {
+        var rng = newRandom();
+        Path directory = Files.createTempDirectory("javelo-container");
+        try {
+            Path graphPath = Files.createDirectory(directory.resolve("graph"));
+            Path containerPath = directory.resolve("graph.javelo");
+            Path unpackedPath = directory.resolve("unpacked");
+            TestGraphs.writeGrid(12, 9, rng, graphPath);
+            GraphContainer.pack(graphPath, containerPath);
+            GraphContainer.unpack(containerPath, unpackedPath);
+            for (String name : FILE_NAMES)
+                assertEquals(-1, Files.mismatch(graphPath.resolve(name), unpackedPath.resolve(name)));
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+
+    @Test
+    void corruptedSectionsAreDetected() throws IOException {
+        var rng = newRandom();
+        Path directory = Files.createTempDirectory("javelo-container");
+        try {
+            Path graphPath = Files.createDirectory(directory.resolve("graph"));
+            Path containerPath = directory.resolve("graph.javelo");
+            TestGraphs.writeGrid(12, 9, rng, graphPath);
+            GraphContainer.pack(graphPath, containerPath);
+
+            flipByte(containerPath, sectionOffset(graphPath, "edges.bin") + 7);
+            flipByte(containerPath, sectionOffset(graphPath, "nodes_osmid.bin"));
+            assertEquals(List.of("edges.bin", "nodes_osmid.bin"),
+                    GraphContainer.corruptedSections(containerPath));
+            assertThrows(IOException.class,
+                    () -> GraphContainer.unpack(containerPath, directory.resolve("unpacked")));
+
+            // Une table des sections corrompue est refusée au chargement
+            flipByte(containerPath, 20);
+            assertThrows(IOException.class, () -> Graph.loadFrom(containerPath));
+            assertThrows(IOException.class, () -> GraphContainer.corruptedSections(containerPath));
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+
+    @Test
+    void invalidContainersAreRejected() throws IOException {
+        Path file = Files.createTempFile("javelo-container", ".javelo");
+        try {
+            Files.write(file, new byte[]{'J', 'V', 'L', 'O', 0, 0, 0, 1});
+            assertThrows(IOException.class, () -> Graph.loadFrom(file));
+            Files.write(file, new byte[]{'J', 'V', 'L', 'O', 0, 0, 0, 2, 0, 0, 0, 0, 0, 0, 0, 0});
+            assertThrows(IOException.class, () -> GraphContainer.corruptedSections(file));
+            Files.write(file, new byte[16]);
+            assertThrows(IOException.class, () -> Graph.loadFrom(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void containerWithoutOsmIdsCanBeLoaded() throws IOException {
+        var rng = newRandom();
+        Path directory = Files.createTempDirectory("javelo-container");
+        try {
+            Path graphPath = Files.createDirectory(directory.resolve("graph"));
+            Path containerPath = directory.resolve("graph.javelo");
+            TestGraphs.writeGrid(5, 4, rng, graphPath);
+            Files.delete(graphPath.resolve("nodes_osmid.bin"));
+            GraphContainer.pack(graphPath, containerPath);
+            assertEquals(20, Graph.loadFrom(containerPath).nodeCount());
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package ch.epfl.javelo.data;
 
+import ch.epfl.javelo.Math2;
 import ch.epfl.javelo.data.GraphEdges;
+import ch.epfl.test.TestGraphs;
 import org.junit.jupiter.api.Test;
 
 import java.nio.ByteBuffer;
@@ -8,6 +10,7 @@ import java.nio.IntBuffer;
 import java.nio.ShortBuffer;
 import java.util.Arrays;
 
+import static ch.epfl.test.TestRandomizer.newRandom;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class GraphEdgesTest {
@@ -450,4 +453,89 @@ public class GraphEdgesTest {
         assertArrayEquals(expectedSamples, result);
     }
 
+
+    @Test
+    void profileSamplesIntoBufferWorksOnAllProfileTypes() {
+        var rng = newRandom();
+        GraphEdges edges = TestGraphs.gridEdges(20, 20, newRandom());
+        float[] buffer = new float[4096];
+        for (int edgeId = 0; edgeId < edges.count(); edgeId++) {
+            float[] expected = edges.profileSamples(edgeId);
+            int offset = rng.nextInt(100);
+            int count = edges.profileSamples(edgeId, buffer, offset);
+            assertEquals(expected.length, count);
+            assertEquals(expected.length, edges.profileSampleCount(edgeId));
+            assertArrayEquals(expected, Arrays.copyOfRange(buffer, offset, offset + count));
+        }
+    }
+
+    @Test
+    void profileSamplesDoesNotReadPastLastUncompressedProfile() {
+        // Deux arêtes de 4 m, dont le profil non compressé de 3 échantillons
+        // occupe exactement la fin du tableau des altitudes
+        ByteBuffer edgesBuffer = ByteBuffer.allocate(20);
+        edgesBuffer.putInt(0, 1);
+        edgesBuffer.putShort(4, (short) (4 << 4));
+        edgesBuffer.putInt(10, ~0);
+        edgesBuffer.putShort(14, (short) (4 << 4));
+        IntBuffer profileIds = IntBuffer.wrap(new int[]{1 << 30, 1 << 30 | 1});
+        ShortBuffer elevations = ShortBuffer.wrap(new short[]{
+                (short) 0x100, (short) 0x200, (short) 0x300, (short) 0x400
+        });
+        GraphEdges edges = new GraphEdges(edgesBuffer, profileIds, elevations);
+
+        assertArrayEquals(new float[]{16, 32, 48}, edges.profileSamples(0));
+        assertArrayEquals(new float[]{64, 48, 32}, edges.profileSamples(1));
+        float[] buffer = new float[4];
+        assertEquals(3, edges.profileSamples(1, buffer, 1));
+        assertArrayEquals(new float[]{0, 64, 48, 32}, buffer);
+    }
+
+    @Test
+    void profileSamplesIsBitExactWithReferenceDecoderOnGrid() {
+        GraphEdges edges = TestGraphs.gridEdges(30, 30, newRandom());
+        for (int edgeId = 0; edgeId < edges.count(); edgeId++)
+            assertBitExact(ReferenceProfileDecoder.profileSamples(edges, edgeId),
+                    edges.profileSamples(edgeId));
+    }
+
+    @Test
+    void profileSamplesIsBitExactWithReferenceDecoderOnRandomProfiles() {
+        var rng = newRandom();
+        int edgeCount = 2_000;
+        ByteBuffer edgesBuffer = ByteBuffer.allocate(10 * edgeCount);
+        int[] profileIds = new int[edgeCount];
+        ShortBuffer elevations = ShortBuffer.allocate(edgeCount * 2050);
+        for (int edgeId = 0; edgeId < edgeCount; edgeId++) {
+            // Longueurs, altitudes et différences quelconques, y compris extrêmes
+            int length = rng.nextInt(0x10000);
+            int targetNodeId = rng.nextInt(1 << 20);
+            edgesBuffer.putInt(10 * edgeId, rng.nextBoolean() ? targetNodeId : ~targetNodeId);
+            edgesBuffer.putShort(10 * edgeId + 4, (short) length);
+            int profileType = 1 + rng.nextInt(3);
+            int sampleCount = 1 + Math2.ceilDiv(length, 32);
+            int samplesPerShort = 1 << (profileType - 1);
+            int shortCount = 1 + Math2.ceilDiv(sampleCount - 1, samplesPerShort);
+            profileIds[edgeId] = profileType << 30 | elevations.position();
+            for (int i = 0; i < shortCount; i++)
+                elevations.put((short) rng.nextInt(0x10000));
+        }
+        GraphEdges edges = new GraphEdges(edgesBuffer, IntBuffer.wrap(profileIds),
+                elevations.flip());
+
+        float[] buffer = new float[4096];
+        for (int edgeId = 0; edgeId < edgeCount; edgeId++) {
+            float[] expected = ReferenceProfileDecoder.profileSamples(edges, edgeId);
+            assertBitExact(expected, edges.profileSamples(edgeId));
+            int offset = rng.nextInt(buffer.length - expected.length + 1);
+            edges.profileSamples(edgeId, buffer, offset);
+            assertBitExact(expected, Arrays.copyOfRange(buffer, offset, offset + expected.length));
+        }
+    }
+
+    private static void assertBitExact(float[] expected, float[] actual) {
+        assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++)
+            assertEquals(Float.floatToRawIntBits(expected[i]), Float.floatToRawIntBits(actual[i]));
+    }
 }
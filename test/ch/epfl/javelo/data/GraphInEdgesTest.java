@@ -0,0 +1,47 @@
+package ch.epfl.javelo.data;
+
+import ch.epfl.test.TestGraphs;
+import org.junit.jupiter.api.Test;
+
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GraphInEdgesTest {
+
+    @Test
+    void graphInEdgesContainsEveryEdgeExactlyOnce() {
+        Graph g = TestGraphs.grid(20, 15, newRandom());
+        GraphInEdges inEdges = GraphInEdges.of(g);
+        int[] seen = new int[2 * 4 * g.nodeCount()];
+        int inEdgeCount = 0;
+        for (int nodeId = 0; nodeId < g.nodeCount(); nodeId++) {
+            for (int i = 0; i < inEdges.inDegree(nodeId); i++) {
+                int edgeId = inEdges.edgeId(nodeId, i);
+                assertEquals(nodeId, g.edgeTargetNodeId(edgeId));
+                seen[edgeId] += 1;
+                inEdgeCount += 1;
+            }
+        }
+        int outEdgeCount = 0;
+        for (int nodeId = 0; nodeId < g.nodeCount(); nodeId++)
+            outEdgeCount += g.nodeOutDegree(nodeId);
+        assertEquals(outEdgeCount, inEdgeCount);
+        for (int edgeId = 0; edgeId < outEdgeCount; edgeId++)
+            assertEquals(1, seen[edgeId]);
+    }
+
+    @Test
+    void graphInEdgesSourceNodesAreCorrect() {
+        Graph g = TestGraphs.grid(10, 10, newRandom());
+        GraphInEdges inEdges = GraphInEdges.of(g);
+        for (int nodeId = 0; nodeId < g.nodeCount(); nodeId++) {
+            for (int i = 0; i < inEdges.inDegree(nodeId); i++) {
+                int sourceNodeId = inEdges.sourceNodeId(nodeId, i);
+                int edgeId = inEdges.edgeId(nodeId, i);
+                int firstOutEdgeId = g.nodeOutEdgeId(sourceNodeId, 0);
+                assertTrue(firstOutEdgeId <= edgeId
+                        && edgeId < firstOutEdgeId + g.nodeOutDegree(sourceNodeId));
+            }
+        }
+    }
+}
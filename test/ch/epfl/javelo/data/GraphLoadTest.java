@@ -0,0 +1,103 @@
+package ch.epfl.javelo.data;
+
+import ch.epfl.javelo.projection.PointCh;
+import ch.epfl.test.TestGraphs;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GraphLoadTest {
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList())
+                Files.delete(path);
+        }
+    }
+
+    private static void assertSameGraph(Graph expected, Graph actual) {
+        assertEquals(expected.nodeCount(), actual.nodeCount());
+        assertEquals(expected.edgeCount(), actual.edgeCount());
+        for (int nodeId = 0; nodeId < expected.nodeCount(); nodeId++) {
+            assertEquals(expected.nodePoint(nodeId), actual.nodePoint(nodeId));
+            assertEquals(expected.nodeOutDegree(nodeId), actual.nodeOutDegree(nodeId));
+        }
+        for (int edgeId = 0; edgeId < expected.edgeCount(); edgeId++) {
+            assertEquals(expected.edgeTargetNodeId(edgeId), actual.edgeTargetNodeId(edgeId));
+            assertEquals(expected.edgeLength(edgeId), actual.edgeLength(edgeId));
+            assertEquals(expected.edgeAttributes(edgeId), actual.edgeAttributes(edgeId));
+            // Chaque ensemble n'est décodé qu'une fois
+            assertSame(actual.edgeAttributes(edgeId), actual.edgeAttributes(edgeId));
+        }
+    }
+
+    @Test
+    void loadedGraphIsTheSameAsMappedGraph() throws IOException {
+        var rng = newRandom();
+        Path directory = Files.createTempDirectory("javelo-load");
+        try {
+            TestGraphs.writeGrid(30, 20, rng, directory);
+            Graph expected = Graph.loadFrom(directory);
+            assertSameGraph(expected, GraphLoad.of(directory).graph());
+
+            int nodeId = rng.nextInt(expected.nodeCount());
+            GraphLoad load = GraphLoad.of(directory, expected.nodePoint(nodeId), 500);
+            assertSameGraph(expected, load.graph());
+            assertEquals(6, load.files().size());
+            for (GraphLoad.FileLoad file : load.files()) {
+                assertEquals(Files.size(directory.resolve(file.fileName())), file.byteSize());
+                assertTrue(file.mapNanos() >= 0);
+                assertTrue(file.touchNanos() >= 0);
+                assertTrue(file.residentBytes() >= -1);
+            }
+            assertTrue(load.buildNanos() <= load.totalNanos());
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+
+    @Test
+    void loadThrowsOnMissingFile() throws IOException {
+        var rng = newRandom();
+        Path directory = Files.createTempDirectory("javelo-load");
+        try {
+            TestGraphs.writeGrid(4, 3, rng, directory);
+            Files.delete(directory.resolve("edges.bin"));
+            assertThrows(NoSuchFileException.class, () -> GraphLoad.of(directory));
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+
+    @Test
+    void loadThrowsOnInvalidAttributeSet() throws IOException {
+        var rng = newRandom();
+        Path directory = Files.createTempDirectory("javelo-load");
+        try {
+            TestGraphs.writeGrid(4, 3, rng, directory);
+            Path attributesPath = directory.resolve("attributes.bin");
+            byte[] attributes = Files.readAllBytes(attributesPath);
+            // Bit de poids fort du dernier ensemble, qui ne correspond à aucun attribut
+            attributes[attributes.length - 8] |= (byte) 0x80;
+            Files.write(attributesPath, attributes);
+            assertThrows(IllegalArgumentException.class, () -> Graph.loadFrom(directory));
+            assertThrows(IllegalArgumentException.class, () -> GraphLoad.of(directory));
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+
+    @Test
+    void loadThrowsOnNegativeStartDistance() {
+        assertThrows(IllegalArgumentException.class,
+                () -> GraphLoad.of(Path.of("javelo-data"), new PointCh(2_600_000, 1_200_000), -1));
+    }
+}
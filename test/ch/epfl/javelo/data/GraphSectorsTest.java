@@ -3,6 +3,7 @@ package ch.epfl.javelo.data;
 import ch.epfl.javelo.data.GraphNodes;
 import ch.epfl.javelo.data.GraphSectors;
 import ch.epfl.javelo.projection.PointCh;
+import ch.epfl.javelo.projection.SwissBounds;
 import org.junit.jupiter.api.Test;
 
 import java.nio.ByteBuffer;
@@ -12,8 +13,11 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
+import static ch.epfl.test.TestRandomizer.RANDOM_ITERATIONS;
+import static ch.epfl.test.TestRandomizer.newRandom;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class GraphSectorsTest {
 
@@ -87,4 +91,63 @@ public class GraphSectorsTest {
         assertArrayEquals(temoin.toArray(), test.toArray());
     }
 
+    @Test
+    void nodeRangesInAreaCoverSameNodesAsSectors() {
+        var rng = newRandom();
+        // Secteurs triés, dont une partie est vide, et dont certains ne sont
+        // pas contigus à leur prédécesseur
+        ByteBuffer buffer = ByteBuffer.allocate(6 * 16_384);
+        int nextNodeId = 0;
+        for (int i = 0; i < 16_384; i++) {
+            if (rng.nextInt(10) == 0)
+                nextNodeId += rng.nextInt(1, 5);
+            int count = rng.nextInt(3) == 0 ? 0 : rng.nextInt(1, 20);
+            buffer.putInt(6 * i, nextNodeId).putShort(6 * i + 4, (short) count);
+            nextNodeId += count;
+        }
+        GraphSectors sectors = new GraphSectors(buffer);
+
+        for (int i = 0; i < RANDOM_ITERATIONS; i++) {
+            PointCh center = new PointCh(
+                    rng.nextDouble(SwissBounds.MIN_E, SwissBounds.MAX_E),
+                    rng.nextDouble(SwissBounds.MIN_N, SwissBounds.MAX_N));
+            double distance = rng.nextDouble(0, 20_000);
+            List<Integer> expected = new ArrayList<>();
+            for (GraphSectors.Sector s : sectors.sectorsInArea(center, distance)) {
+                for (int nodeId = s.startNodeId(); nodeId < s.endNodeId(); nodeId++)
+                    expected.add(nodeId);
+            }
+            expected.sort(null);
+
+            List<Integer> actual = new ArrayList<>();
+            int[] previousEnd = {Integer.MIN_VALUE};
+            int rangeCount = sectors.forEachNodeRangeInArea(center, distance, (start, end) -> {
+                assertTrue(start < end);
+                // Les plages sont disjointes et croissantes
+                assertTrue(start >= previousEnd[0]);
+                previousEnd[0] = end;
+                for (int nodeId = start; nodeId < end; nodeId++)
+                    actual.add(nodeId);
+            });
+            assertEquals(expected, actual);
+            assertTrue(rangeCount <= sectors.sectorsInArea(center, distance).size());
+        }
+    }
+
+    @Test
+    void nodeRangesInAreaMergeContiguousSectorsOfARow() {
+        // Chaque secteur contient un noeud, tous sont donc contigus
+        ByteBuffer buffer = ByteBuffer.allocate(6 * 16_384);
+        for (int i = 0; i < 16_384; i++)
+            buffer.putInt(6 * i, i).putShort(6 * i + 4, (short) 1);
+        GraphSectors sectors = new GraphSectors(buffer);
+        List<int[]> ranges = new ArrayList<>();
+        int rangeCount = sectors.forEachNodeRangeInArea(
+                new PointCh(2_485_000 + 1.5 * 349_000.0/128.0, 1_075_000 + 1.5 * 221_000.0/128.0),
+                2000, (start, end) -> ranges.add(new int[]{start, end}));
+        assertEquals(3, rangeCount);
+        assertArrayEquals(new int[]{0, 3}, ranges.get(0));
+        assertArrayEquals(new int[]{128, 131}, ranges.get(1));
+        assertArrayEquals(new int[]{256, 259}, ranges.get(2));
+    }
 }
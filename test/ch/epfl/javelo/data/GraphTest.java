@@ -4,6 +4,7 @@ import ch.epfl.javelo.projection.Ch1903;
 import ch.epfl.javelo.projection.PointCh;
 import ch.epfl.javelo.projection.PointWebMercator;
 import ch.epfl.javelo.projection.WebMercator;
+import ch.epfl.test.TestGraphs;
 import org.junit.jupiter.api.Test;
 
 import java.io.FileInputStream;
@@ -260,6 +261,88 @@ public class GraphTest {
 
 
 
+    @Test
+    void nodeCoordinatesAccessorsAgreeWithNodePoint() {
+        var rng = newRandom();
+        Graph g = TestGraphs.grid(30, 30, rng);
+        Graph decoded = g.withDecodedNodeCoordinates();
+        for (int i = 0; i < RANDOM_ITERATIONS; i++) {
+            int nodeId = rng.nextInt(g.nodeCount());
+            int otherNodeId = rng.nextInt(g.nodeCount());
+            PointCh p = g.nodePoint(nodeId);
+            PointCh q = g.nodePoint(otherNodeId);
+            assertEquals(p.e(), g.nodeE(nodeId));
+            assertEquals(p.n(), g.nodeN(nodeId));
+            assertEquals(p.e(), decoded.nodeE(nodeId));
+            assertEquals(p.n(), decoded.nodeN(nodeId));
+            assertEquals(p.squaredDistanceTo(q), g.nodeSquaredDistanceTo(nodeId, q.e(), q.n()));
+            assertEquals(p.distanceTo(q), decoded.nodeDistance(nodeId, otherNodeId));
+        }
+    }
+
+    @Test
+    void nodeClosestToWorksWithDecodedNodeCoordinates() {
+        var rng = newRandom();
+        Graph g = TestGraphs.grid(30, 30, rng);
+        Graph decoded = g.withDecodedNodeCoordinates();
+        assertSame(decoded, decoded.withDecodedNodeCoordinates());
+        for (int i = 0; i < RANDOM_ITERATIONS; i++) {
+            PointCh p = new PointCh(
+                    2_532_000 + rng.nextDouble(30 * 150),
+                    1_152_000 + rng.nextDouble(30 * 150));
+            double searchDistance = rng.nextDouble(500);
+            int expected = -1;
+            for (int nodeId = 0; nodeId < g.nodeCount(); nodeId++) {
+                double d = p.squaredDistanceTo(g.nodePoint(nodeId));
+                if (d < searchDistance * searchDistance
+                        && (expected == -1 || d < p.squaredDistanceTo(g.nodePoint(expected))))
+                    expected = nodeId;
+            }
+            assertEquals(expected, g.nodeClosestTo(p, searchDistance));
+            assertEquals(expected, decoded.nodeClosestTo(p, searchDistance));
+        }
+    }
+
+    @Test
+    void edgeProfileIsTheSameWithProfileCache() {
+        var rng = newRandom();
+        Graph g = TestGraphs.grid(20, 20, rng);
+        Graph cached = g.withProfileCache(64);
+        assertNull(g.profileCache());
+        for (int i = 0; i < RANDOM_ITERATIONS; i++) {
+            int edgeId = rng.nextInt(g.edgeCount());
+            var expected = g.edgeProfile(edgeId);
+            var actual = cached.edgeProfile(edgeId);
+            for (double x = -1; x <= g.edgeLength(edgeId) + 1; x += 0.5)
+                assertEquals(expected.applyAsDouble(x), actual.applyAsDouble(x));
+        }
+        ProfileCache cache = cached.profileCache();
+        assertEquals(RANDOM_ITERATIONS, cache.hitCount() + cache.missCount());
+        assertTrue(cache.hitCount() > 0);
+        assertTrue(cache.size() <= cache.capacity());
+    }
+
+    @Test
+    void edgeAccessorsAreTheSameWithEdgeArrays() {
+        var rng = newRandom();
+        Graph g = TestGraphs.grid(30, 30, rng);
+        Graph arrays = g.withEdgeArrays();
+        assertSame(arrays, arrays.withEdgeArrays());
+        // Les tableaux sont conservés par les autres variantes du graphe
+        arrays = arrays.withProfileCache(16).withDecodedNodeCoordinates();
+        for (int edgeId = 0; edgeId < g.edgeCount(); edgeId++) {
+            assertEquals(g.edgeTargetNodeId(edgeId), arrays.edgeTargetNodeId(edgeId));
+            assertEquals(g.edgeIsInverted(edgeId), arrays.edgeIsInverted(edgeId));
+            assertEquals(g.edgeLength(edgeId), arrays.edgeLength(edgeId));
+            assertEquals(g.edgeAttributes(edgeId), arrays.edgeAttributes(edgeId));
+            assertEquals(g.edgeElevationGain(edgeId), arrays.edgeElevationGain(edgeId));
+            var expected = g.edgeProfile(edgeId);
+            var actual = arrays.edgeProfile(edgeId);
+            for (double x = -1; x <= g.edgeLength(edgeId) + 1; x += 2.5)
+                assertEquals(expected.applyAsDouble(x), actual.applyAsDouble(x));
+        }
+    }
+
     /*public static void main(String[] args) throws IOException {
         Path filePath = Path.of("lausanne/nodes_osmid.bin");
         LongBuffer osmIdBuffer;
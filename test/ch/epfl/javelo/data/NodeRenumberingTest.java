@@ -0,0 +1,136 @@
+package ch.epfl.javelo.data;
+
+import ch.epfl.javelo.projection.PointCh;
+import ch.epfl.javelo.routing.CityBikeCF;
+import ch.epfl.javelo.routing.Route;
+import ch.epfl.javelo.routing.RouteComputer;
+import ch.epfl.test.TestGraphs;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.LongBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static ch.epfl.javelo.data.BinaryFiles.mappedBuffer;
+import static ch.epfl.test.TestRandomizer.RANDOM_ITERATIONS;
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NodeRenumberingTest {
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList())
+                Files.delete(path);
+        }
+    }
+
+    @Test
+    void hilbertIndexVisitsEachCellOnceThroughAdjacentCells() {
+        for (int order = 1; order <= 5; order++) {
+            int side = 1 << order;
+            int[] xs = new int[side * side];
+            int[] ys = new int[side * side];
+            boolean[] seen = new boolean[side * side];
+            for (int x = 0; x < side; x++) {
+                for (int y = 0; y < side; y++) {
+                    int index = (int) NodeRenumbering.hilbertIndex(order, x, y);
+                    assertFalse(seen[index]);
+                    seen[index] = true;
+                    xs[index] = x;
+                    ys[index] = y;
+                }
+            }
+            for (int i = 1; i < side * side; i++)
+                assertEquals(1, Math.abs(xs[i] - xs[i - 1]) + Math.abs(ys[i] - ys[i - 1]));
+        }
+    }
+
+    @Test
+    void renumberedGraphIsIsomorphicToOriginal() throws IOException {
+        var rng = newRandom();
+        Path sourcePath = Files.createTempDirectory("javelo-source");
+        Path targetPath = Files.createTempDirectory("javelo-hilbert");
+        try {
+            TestGraphs.writeGrid(40, 30, rng, sourcePath);
+            int[] newIds = NodeRenumbering.renumber(sourcePath, targetPath);
+            Graph original = Graph.loadFrom(sourcePath);
+            Graph renumbered = Graph.loadFrom(targetPath);
+            assertEquals(original.nodeCount(), renumbered.nodeCount());
+            assertEquals(original.edgeCount(), renumbered.edgeCount());
+
+            boolean[] used = new boolean[newIds.length];
+            for (int nodeId = 0; nodeId < original.nodeCount(); nodeId++) {
+                int newId = newIds[nodeId];
+                assertFalse(used[newId]);
+                used[newId] = true;
+                assertEquals(original.nodePoint(nodeId), renumbered.nodePoint(newId));
+                assertEquals(original.nodeOutDegree(nodeId), renumbered.nodeOutDegree(newId));
+                for (int i = 0; i < original.nodeOutDegree(nodeId); i++) {
+                    int edgeId = original.nodeOutEdgeId(nodeId, i);
+                    int newEdgeId = renumbered.nodeOutEdgeId(newId, i);
+                    assertEquals(newIds[original.edgeTargetNodeId(edgeId)],
+                            renumbered.edgeTargetNodeId(newEdgeId));
+                    assertEquals(original.edgeIsInverted(edgeId),
+                            renumbered.edgeIsInverted(newEdgeId));
+                    assertEquals(original.edgeLength(edgeId), renumbered.edgeLength(newEdgeId));
+                    assertEquals(original.edgeElevationGain(edgeId),
+                            renumbered.edgeElevationGain(newEdgeId));
+                    assertEquals(original.edgeAttributes(edgeId),
+                            renumbered.edgeAttributes(newEdgeId));
+                    for (double x = 0; x <= original.edgeLength(edgeId); x += 1.5)
+                        assertEquals(original.edgeProfile(edgeId).applyAsDouble(x),
+                                renumbered.edgeProfile(newEdgeId).applyAsDouble(x));
+                }
+            }
+
+            LongBuffer osmIds = mappedBuffer(targetPath.resolve("nodes_osmid.bin")).asLongBuffer();
+            for (int nodeId = 0; nodeId < original.nodeCount(); nodeId++)
+                assertEquals(1000L * nodeId, osmIds.get(newIds[nodeId]));
+
+            for (int i = 0; i < RANDOM_ITERATIONS; i++) {
+                int nodeId = rng.nextInt(original.nodeCount());
+                PointCh point = new PointCh(original.nodeE(nodeId) + rng.nextDouble(-500, 500),
+                        original.nodeN(nodeId) + rng.nextDouble(-500, 500));
+                double searchDistance = rng.nextDouble(0, 400);
+                int expected = original.nodeClosestTo(point, searchDistance);
+                assertEquals(expected == -1 ? -1 : newIds[expected],
+                        renumbered.nodeClosestTo(point, searchDistance));
+            }
+
+            RouteComputer originalComputer = new RouteComputer(original, new CityBikeCF(original));
+            RouteComputer renumberedComputer =
+                    new RouteComputer(renumbered, new CityBikeCF(renumbered));
+            for (int i = 0; i < 50; i++) {
+                int startNodeId = rng.nextInt(original.nodeCount());
+                int endNodeId = rng.nextInt(original.nodeCount());
+                if (startNodeId == endNodeId)
+                    continue;
+                Route expected = originalComputer.bestRouteBetween(startNodeId, endNodeId);
+                Route actual = renumberedComputer.bestRouteBetween(
+                        newIds[startNodeId], newIds[endNodeId]);
+                if (expected == null)
+                    assertNull(actual);
+                else
+                    assertEquals(expected.length(), actual.length(), 1e-6);
+            }
+        } finally {
+            deleteRecursively(sourcePath);
+            deleteRecursively(targetPath);
+        }
+    }
+
+    @Test
+    void renumberRejectsIdenticalDirectories() throws IOException {
+        Path directory = Files.createTempDirectory("javelo-source");
+        try {
+            assertThrows(IllegalArgumentException.class,
+                    () -> NodeRenumbering.renumber(directory, directory));
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package ch.epfl.javelo.data;
+
+import ch.epfl.javelo.projection.PointCh;
+import ch.epfl.test.TestGraphs;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.random.RandomGenerator;
+import java.util.stream.Stream;
+
+import static ch.epfl.test.TestRandomizer.RANDOM_ITERATIONS;
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NodeTreeTest {
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList())
+                Files.delete(path);
+        }
+    }
+
+    private static PointCh randomPointNear(Graph graph, RandomGenerator rng) {
+        int nodeId = rng.nextInt(graph.nodeCount());
+        return new PointCh(graph.nodeE(nodeId) + rng.nextDouble(-1_000, 1_000),
+                graph.nodeN(nodeId) + rng.nextDouble(-1_000, 1_000));
+    }
+
+    @Test
+    void nodeClosestToMatchesSectors() {
+        var rng = newRandom();
+        Graph graph = TestGraphs.grid(40, 30, rng);
+        NodeTree tree = NodeTree.of(graph);
+        Graph treeGraph = graph.withNodeTree(tree);
+        assertEquals(graph.nodeCount(), tree.count());
+        for (int i = 0; i < RANDOM_ITERATIONS; i++) {
+            PointCh point = randomPointNear(graph, rng);
+            double searchDistance = rng.nextDouble(0, 600);
+            int expected = graph.nodeClosestTo(point, searchDistance);
+            assertEquals(expected, tree.nodeClosestTo(point, searchDistance));
+            assertEquals(expected, treeGraph.nodeClosestTo(point, searchDistance));
+        }
+        for (int nodeId = 0; nodeId < graph.nodeCount(); nodeId++)
+            assertEquals(nodeId, tree.nodeClosestTo(graph.nodePoint(nodeId), 1));
+    }
+
+    @Test
+    void nodeClosestToMatchesSectorsOnRenumberedGraph() throws IOException {
+        var rng = newRandom();
+        Path sourcePath = Files.createTempDirectory("javelo-source");
+        Path targetPath = Files.createTempDirectory("javelo-hilbert");
+        try {
+            TestGraphs.writeGrid(40, 30, rng, sourcePath);
+            NodeRenumbering.renumber(sourcePath, targetPath);
+            Graph graph = Graph.loadFrom(targetPath);
+            NodeTree tree = NodeTree.of(graph);
+            for (int i = 0; i < RANDOM_ITERATIONS; i++) {
+                // Le milieu de deux noeuds voisins en est exactement
+                // équidistant, les coordonnées étant des multiples de 1/16 ;
+                // ces noeuds sont parfois dans des secteurs différents
+                int nodeId1 = rng.nextInt(graph.nodeCount());
+                if (graph.nodeOutDegree(nodeId1) == 0)
+                    continue;
+                int edgeId = graph.nodeOutEdgeId(nodeId1, rng.nextInt(graph.nodeOutDegree(nodeId1)));
+                int nodeId2 = graph.edgeTargetNodeId(edgeId);
+                PointCh point = new PointCh((graph.nodeE(nodeId1) + graph.nodeE(nodeId2)) / 2,
+                        (graph.nodeN(nodeId1) + graph.nodeN(nodeId2)) / 2);
+                double searchDistance = rng.nextDouble(0, 600);
+                int expected = -1;
+                double expectedDistance = searchDistance * searchDistance;
+                for (int nodeId = 0; nodeId < graph.nodeCount(); nodeId++) {
+                    double distance = graph.nodeSquaredDistanceTo(nodeId, point.e(), point.n());
+                    if (distance < expectedDistance) {
+                        expected = nodeId;
+                        expectedDistance = distance;
+                    }
+                }
+                assertEquals(expected, graph.nodeClosestTo(point, searchDistance));
+                assertEquals(expected, tree.nodeClosestTo(point, searchDistance));
+            }
+        } finally {
+            deleteRecursively(sourcePath);
+            deleteRecursively(targetPath);
+        }
+    }
+
+    @Test
+    void nodesClosestToReturnsSortedNearestNodes() {
+        var rng = newRandom();
+        Graph graph = TestGraphs.grid(25, 25, rng);
+        NodeTree tree = NodeTree.of(graph);
+        int[] nodeIds = new int[7];
+        double[] squaredDistances = new double[7];
+        for (int i = 0; i < RANDOM_ITERATIONS; i++) {
+            PointCh point = randomPointNear(graph, rng);
+            double searchDistance = rng.nextDouble(0, 800);
+            List<Integer> expected = new ArrayList<>();
+            for (int nodeId = 0; nodeId < graph.nodeCount(); nodeId++) {
+                if (graph.nodeSquaredDistanceTo(nodeId, point.e(), point.n())
+                        < searchDistance * searchDistance)
+                    expected.add(nodeId);
+            }
+            expected.sort(Comparator.<Integer>comparingDouble(
+                    id -> graph.nodeSquaredDistanceTo(id, point.e(), point.n()))
+                    .thenComparing(Comparator.naturalOrder()));
+
+            int count = tree.nodesClosestTo(point, searchDistance, nodeIds, squaredDistances);
+            assertEquals(Math.min(7, expected.size()), count);
+            for (int j = 0; j < count; j++) {
+                assertEquals((int) expected.get(j), nodeIds[j]);
+                assertEquals(graph.nodeSquaredDistanceTo(nodeIds[j], point.e(), point.n()),
+                        squaredDistances[j]);
+            }
+        }
+        assertEquals(0, tree.nodesClosestTo(graph.nodePoint(0), 100, new int[0], new double[0]));
+        assertThrows(IllegalArgumentException.class,
+                () -> tree.nodesClosestTo(graph.nodePoint(0), 100, new int[2], new double[1]));
+    }
+
+    @Test
+    void nodesWithinVisitsExactlyNodesInRadius() {
+        var rng = newRandom();
+        Graph graph = TestGraphs.grid(25, 25, rng);
+        NodeTree tree = NodeTree.of(graph);
+        for (int i = 0; i < RANDOM_ITERATIONS; i++) {
+            PointCh point = randomPointNear(graph, rng);
+            double radius = rng.nextDouble(0, 800);
+            boolean[] expected = new boolean[graph.nodeCount()];
+            int expectedCount = 0;
+            for (int nodeId = 0; nodeId < graph.nodeCount(); nodeId++) {
+                if (graph.nodeSquaredDistanceTo(nodeId, point.e(), point.n()) <= radius * radius) {
+                    expected[nodeId] = true;
+                    expectedCount += 1;
+                }
+            }
+            boolean[] visited = new boolean[graph.nodeCount()];
+            int count = tree.nodesWithin(point, radius, nodeId -> {
+                assertTrue(expected[nodeId]);
+                assertFalse(visited[nodeId]);
+                visited[nodeId] = true;
+            });
+            assertEquals(expectedCount, count);
+        }
+    }
+
+    @Test
+    void nodeTreeIsWrittenAndLoaded() throws IOException {
+        var rng = newRandom();
+        Graph graph = TestGraphs.grid(20, 20, rng);
+        NodeTree tree = NodeTree.of(graph);
+        Path directory = Files.createTempDirectory("javelo");
+        Path filePath = NodeTree.filePath(directory);
+        try {
+            tree.writeTo(filePath);
+            NodeTree loaded = NodeTree.loadFrom(filePath, graph);
+            assertEquals(tree.count(), loaded.count());
+            for (int i = 0; i < RANDOM_ITERATIONS; i++) {
+                PointCh point = randomPointNear(graph, rng);
+                assertEquals(tree.nodeClosestTo(point, 500), loaded.nodeClosestTo(point, 500));
+            }
+            Graph otherGraph = TestGraphs.grid(10, 10, rng);
+            assertThrows(IllegalArgumentException.class,
+                    () -> NodeTree.loadFrom(filePath, otherGraph));
+            assertThrows(IllegalArgumentException.class, () -> otherGraph.withNodeTree(loaded));
+        } finally {
+            Files.deleteIfExists(filePath);
+            Files.delete(directory);
+        }
+    }
+}
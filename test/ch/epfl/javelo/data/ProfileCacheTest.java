@@ -0,0 +1,95 @@
+package ch.epfl.javelo.data;
+
+import ch.epfl.javelo.Functions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.DoubleUnaryOperator;
+import java.util.stream.IntStream;
+
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProfileCacheTest {
+
+    @Test
+    void profileCacheCountsHitsAndMisses() {
+        ProfileCache cache = new ProfileCache(64);
+        AtomicInteger decoded = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            for (int edgeId = 0; edgeId < 10; edgeId++) {
+                int id = edgeId;
+                DoubleUnaryOperator profile = cache.get(edgeId, e -> {
+                    decoded.incrementAndGet();
+                    return Functions.constant(id);
+                });
+                assertEquals(edgeId, profile.applyAsDouble(0));
+            }
+        }
+        assertEquals(10, decoded.get());
+        assertEquals(10, cache.missCount());
+        assertEquals(20, cache.hitCount());
+        assertEquals(0, cache.evictionCount());
+        assertEquals(10, cache.size());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.hitCount());
+        assertEquals(0, cache.missCount());
+    }
+
+    @Test
+    void profileCacheIsBounded() {
+        ProfileCache cache = new ProfileCache(100);
+        assertTrue(cache.capacity() >= 100);
+        var rng = newRandom();
+        for (int i = 0; i < 10_000; i++) {
+            int edgeId = rng.nextInt(100_000);
+            assertEquals(edgeId, cache.get(edgeId, Functions::constant).applyAsDouble(0));
+        }
+        assertTrue(cache.size() <= cache.capacity());
+        assertEquals(cache.missCount() - cache.size(), cache.evictionCount());
+    }
+
+    @Test
+    void profileCacheEvictsLeastRecentlyUsedProfile() {
+        // Un seul profil par segment : deux identités du même segment
+        // s'évincent mutuellement
+        ProfileCache cache = new ProfileCache(1);
+        int first = 0;
+        cache.get(first, Functions::constant);
+        cache.get(first, Functions::constant);
+        assertEquals(1, cache.hitCount());
+        int sameSegment = IntStream.range(1, 1000)
+                .filter(id -> {
+                    ProfileCache probe = new ProfileCache(1);
+                    probe.get(first, Functions::constant);
+                    probe.get(id, Functions::constant);
+                    return probe.evictionCount() == 1;
+                })
+                .findFirst()
+                .orElseThrow();
+        cache.get(sameSegment, Functions::constant);
+        assertEquals(1, cache.evictionCount());
+        cache.get(first, Functions::constant);
+        assertEquals(3, cache.missCount());
+    }
+
+    @Test
+    void profileCacheWorksConcurrently() {
+        ProfileCache cache = new ProfileCache(256);
+        IntStream.range(0, 100_000).parallel().forEach(i -> {
+            int edgeId = i % 1000;
+            assertEquals(edgeId, cache.get(edgeId, Functions::constant).applyAsDouble(0));
+        });
+        assertEquals(100_000, cache.hitCount() + cache.missCount());
+        assertTrue(cache.size() <= cache.capacity());
+    }
+
+    @Test
+    void constructorThrowsOnInvalidCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            new ProfileCache(0);
+        });
+    }
+}
@@ -0,0 +1,71 @@
+package ch.epfl.javelo.data;
+
+import ch.epfl.javelo.Bits;
+import ch.epfl.javelo.Math2;
+import ch.epfl.javelo.Q28_4;
+
+/**
+ * Décodeur de profils de référence, qui extrait les différences bit à bit
+ * au moyen de Bits.extractSigned et cumule les altitudes en float, comme le
+ * faisait GraphEdges avant l'introduction du décodage par short entier.
+ * Sert de point de comparaison aux tests d'équivalence et aux mesures de
+ * performance.
+ *
+ * @author Tanguy Dieudonné (326618)
+ * @author Nathanaël Girod (329987)
+ */
+public final class ReferenceProfileDecoder {
+    private ReferenceProfileDecoder() {}
+
+    /**
+     * Retourne le tableau des échantillons du profil de l'arête d'identité
+     * donnée, qui est vide si l'arête ne possède pas de profil.
+     *
+     * @param edges les arêtes du graphe
+     * @param edgeId l'identité de l'arête
+     *
+     * @return le tableau des échantillons du profil de l'arête
+     */
+    public static float[] profileSamples(GraphEdges edges, int edgeId) {
+        int profileId = edges.profileIds().get(edgeId);
+        int profileType = Bits.extractUnsigned(profileId, 30, 2);
+        if (profileType == 0)
+            return new float[0];
+
+        int firstProfileId = Bits.extractUnsigned(profileId, 0, 29);
+        int length = Short.toUnsignedInt(edges.edgesBuffer().getShort(10 * edgeId + 4));
+        int count = 1 + Math2.ceilDiv(length, Q28_4.ofInt(2));
+        float[] samples = new float[count];
+        samples[0] = Q28_4.asFloat(Short.toUnsignedInt(edges.elevations().get(firstProfileId)));
+
+        if (profileType == 1) {
+            for (int i = 1; i < count; i++)
+                samples[i] = Q28_4.asFloat(
+                        Short.toUnsignedInt(edges.elevations().get(firstProfileId + i)));
+        } else {
+            int sampleRangeLength = profileType == 2 ? Short.SIZE / 2 : Short.SIZE / 4;
+            int samplesPerShort = Short.SIZE / sampleRangeLength;
+            int samplesIndex = 1;
+            int elevationsIndex = firstProfileId + 1;
+            while (samplesIndex < count) {
+                int start = Short.SIZE - sampleRangeLength;
+                int s = Short.toUnsignedInt(edges.elevations().get(elevationsIndex++));
+                for (int j = 0; j < samplesPerShort && samplesIndex < count; ++j) {
+                    int sample = Bits.extractSigned(s, start, sampleRangeLength);
+                    samples[samplesIndex] = Q28_4.asFloat(sample) + samples[samplesIndex - 1];
+                    start -= sampleRangeLength;
+                    samplesIndex++;
+                }
+            }
+        }
+
+        if (edges.isInverted(edgeId)) {
+            for (int i = 0; i < count / 2; i++) {
+                float temp = samples[i];
+                samples[i] = samples[count - i - 1];
+                samples[count - i - 1] = temp;
+            }
+        }
+        return samples;
+    }
+}
@@ -0,0 +1,138 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.data.Graph;
+import ch.epfl.test.TestGraphs;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConnectedComponentsTest {
+
+    // Retourne, pour le noeud de départ donné, les noeuds atteignables par des
+    // arêtes de coût fini, en ignorant leur sens si undirected est vrai
+    private static boolean[] reachableFrom(Graph g, CostFunction cf, int startNodeId,
+                                           boolean undirected) {
+        List<List<Integer>> neighbors = new ArrayList<>();
+        for (int nodeId = 0; nodeId < g.nodeCount(); nodeId++)
+            neighbors.add(new ArrayList<>());
+        for (int nodeId = 0; nodeId < g.nodeCount(); nodeId++) {
+            for (int i = 0; i < g.nodeOutDegree(nodeId); i++) {
+                int edgeId = g.nodeOutEdgeId(nodeId, i);
+                if (cf.costFactor(nodeId, edgeId) == Double.POSITIVE_INFINITY)
+                    continue;
+                int targetNodeId = g.edgeTargetNodeId(edgeId);
+                neighbors.get(nodeId).add(targetNodeId);
+                if (undirected)
+                    neighbors.get(targetNodeId).add(nodeId);
+            }
+        }
+        boolean[] reached = new boolean[g.nodeCount()];
+        Deque<Integer> toVisit = new ArrayDeque<>(List.of(startNodeId));
+        reached[startNodeId] = true;
+        while (!toVisit.isEmpty()) {
+            for (int neighbor : neighbors.get(toVisit.poll())) {
+                if (!reached[neighbor]) {
+                    reached[neighbor] = true;
+                    toVisit.add(neighbor);
+                }
+            }
+        }
+        return reached;
+    }
+
+    @Test
+    void componentsMatchReachability() {
+        Graph g = TestGraphs.grid(15, 15, newRandom());
+        CostFunction cf = new CityBikeCF(g);
+        ConnectedComponents components = ConnectedComponents.of(g, cf);
+        assertEquals(g.nodeCount(), components.nodeCount());
+        // L'île du coin sud-ouest forme une composante distincte
+        assertTrue(components.weakCount() >= 2);
+        assertTrue(components.strongCount() >= components.weakCount());
+
+        boolean[][] reachable = new boolean[g.nodeCount()][];
+        for (int nodeId = 0; nodeId < g.nodeCount(); nodeId++)
+            reachable[nodeId] = reachableFrom(g, cf, nodeId, false);
+        for (int nodeId1 = 0; nodeId1 < g.nodeCount(); nodeId1++) {
+            boolean[] connected = reachableFrom(g, cf, nodeId1, true);
+            for (int nodeId2 = 0; nodeId2 < g.nodeCount(); nodeId2++) {
+                assertEquals(reachable[nodeId1][nodeId2] && reachable[nodeId2][nodeId1],
+                        components.areStronglyConnected(nodeId1, nodeId2));
+                assertEquals(connected[nodeId2], components.mayBeConnected(nodeId1, nodeId2));
+                if (!components.mayBeConnected(nodeId1, nodeId2))
+                    assertFalse(reachable[nodeId1][nodeId2]);
+            }
+        }
+    }
+
+    @Test
+    void routeComputerWithComponentsFindsSameRoutes() {
+        var rng = newRandom();
+        Graph g = TestGraphs.grid(25, 25, rng);
+        CostFunction cf = new CityBikeCF(g);
+        ConnectedComponents components = ConnectedComponents.of(g, cf);
+        RouteComputer expectedComputer = new RouteComputer(g, cf);
+        for (RouteComputer.SearchMode mode : RouteComputer.SearchMode.values()) {
+            List<SearchMetrics> received = new ArrayList<>();
+            RouteComputer rc = new RouteComputer(g, cf, mode, null, components, received::add);
+            for (int i = 0; i < 100; i++) {
+                int startNodeId = rng.nextInt(g.nodeCount());
+                int endNodeId = rng.nextInt(g.nodeCount());
+                if (startNodeId == endNodeId)
+                    continue;
+                Route expected = expectedComputer.bestRouteBetween(startNodeId, endNodeId);
+                Route actual = rc.bestRouteBetween(startNodeId, endNodeId);
+                SearchMetrics metrics = received.get(received.size() - 1);
+                if (expected == null) {
+                    assertNull(actual);
+                    assertFalse(metrics.routeFound());
+                    if (!components.mayBeConnected(startNodeId, endNodeId))
+                        assertEquals(0, metrics.settledNodes());
+                } else {
+                    assertTrue(components.mayBeConnected(startNodeId, endNodeId));
+                    assertEquals(RouteComputerTest.routeCost(g, cf, expected),
+                            RouteComputerTest.routeCost(g, cf, actual), 1e-2);
+                }
+            }
+        }
+        Graph otherGraph = TestGraphs.grid(10, 10, rng);
+        assertThrows(IllegalArgumentException.class, () -> new RouteComputer(otherGraph,
+                new CityBikeCF(otherGraph), RouteComputer.SearchMode.UNIDIRECTIONAL,
+                null, components, null));
+    }
+
+    @Test
+    void componentsCanBeWrittenAndLoaded() throws IOException {
+        var rng = newRandom();
+        Graph g = TestGraphs.grid(20, 20, rng);
+        CostFunction cf = new CityBikeCF(g);
+        ConnectedComponents components = ConnectedComponents.of(g, cf);
+        Path directory = Files.createTempDirectory("javelo-components");
+        Path filePath = ConnectedComponents.filePath(directory, cf);
+        try {
+            components.writeTo(filePath);
+            ConnectedComponents loaded = ConnectedComponents.loadFrom(filePath, g);
+            assertEquals(components.strongCount(), loaded.strongCount());
+            assertEquals(components.weakCount(), loaded.weakCount());
+            for (int nodeId = 0; nodeId < g.nodeCount(); nodeId++) {
+                assertEquals(components.strongComponent(nodeId), loaded.strongComponent(nodeId));
+                assertEquals(components.weakComponent(nodeId), loaded.weakComponent(nodeId));
+            }
+            Graph otherGraph = TestGraphs.grid(10, 10, rng);
+            assertThrows(IllegalArgumentException.class,
+                    () -> ConnectedComponents.loadFrom(filePath, otherGraph));
+        } finally {
+            Files.deleteIfExists(filePath);
+            Files.delete(directory);
+        }
+    }
+}
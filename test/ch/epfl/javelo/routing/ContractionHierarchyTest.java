@@ -0,0 +1,79 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.data.Graph;
+import ch.epfl.test.TestGraphs;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ContractionHierarchyTest {
+
+    @Test
+    void contractionHierarchyFindsRoutesOfSameCostAsRouteComputer() {
+        Graph g = TestGraphs.grid(30, 30, newRandom());
+        CostFunction cf = new CityBikeCF(g);
+        ContractionHierarchy hierarchy = ContractionHierarchyBuilder.build(g, cf);
+        assertSameCosts(g, cf, hierarchy);
+    }
+
+    @Test
+    void contractionHierarchyRanksArePermutation() {
+        Graph g = TestGraphs.grid(15, 15, newRandom());
+        ContractionHierarchy hierarchy = ContractionHierarchyBuilder.build(g, new CityBikeCF(g));
+        boolean[] seen = new boolean[g.nodeCount()];
+        for (int nodeId = 0; nodeId < g.nodeCount(); nodeId++) {
+            int rank = hierarchy.rank(nodeId);
+            assertFalse(seen[rank]);
+            seen[rank] = true;
+        }
+    }
+
+    @Test
+    void contractionHierarchyCanBeWrittenAndLoaded() throws IOException {
+        Graph g = TestGraphs.grid(20, 20, newRandom());
+        CostFunction cf = new CityBikeCF(g);
+        Path directory = Files.createTempDirectory("javelo-ch");
+        ContractionHierarchyBuilder.build(g, cf).writeTo(directory);
+        ContractionHierarchy loaded = ContractionHierarchy.loadFrom(directory, g);
+        assertSameCosts(g, cf, loaded);
+    }
+
+    @Test
+    void contractionHierarchyThrowsOnIdenticalNodes() {
+        Graph g = TestGraphs.grid(5, 5, newRandom());
+        ContractionHierarchy hierarchy = ContractionHierarchyBuilder.build(g, new CityBikeCF(g));
+        assertThrows(IllegalArgumentException.class, () -> {
+            hierarchy.bestRouteBetween(7, 7);
+        });
+    }
+
+    private static void assertSameCosts(Graph g, CostFunction cf, ContractionHierarchy hierarchy) {
+        RouteComputer rc = new RouteComputer(g, cf);
+        var rng = newRandom();
+        for (int i = 0; i < 100; i++) {
+            int startNodeId = rng.nextInt(g.nodeCount());
+            int endNodeId = rng.nextInt(g.nodeCount());
+            if (startNodeId == endNodeId)
+                continue;
+            Route expected = rc.bestRouteBetween(startNodeId, endNodeId);
+            Route actual = hierarchy.bestRouteBetween(startNodeId, endNodeId);
+            if (expected == null) {
+                assertNull(actual);
+                continue;
+            }
+            assertEquals(RouteComputerTest.routeCost(g, cf, expected),
+                    RouteComputerTest.routeCost(g, cf, actual), 1e-2);
+            int nodeId = startNodeId;
+            for (Edge e : actual.edges()) {
+                assertEquals(nodeId, e.fromNodeId());
+                nodeId = e.toNodeId();
+            }
+            assertEquals(endNodeId, nodeId);
+        }
+    }
+}
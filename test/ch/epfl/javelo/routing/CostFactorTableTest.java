@@ -0,0 +1,77 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.data.Graph;
+import ch.epfl.test.TestGraphs;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CostFactorTableTest {
+
+    @Test
+    void costFactorTableGivesSameFactorsAsCostFunction() {
+        Graph g = TestGraphs.grid(20, 20, newRandom());
+        CostFunction cf = new CityBikeCF(g);
+        CostFactorTable table = CostFactorTable.of(g, cf);
+        for (int nodeId = 0; nodeId < g.nodeCount(); nodeId++) {
+            for (int i = 0; i < g.nodeOutDegree(nodeId); i++) {
+                int edgeId = g.nodeOutEdgeId(nodeId, i);
+                assertEquals((float) cf.costFactor(nodeId, edgeId),
+                        (float) table.costFactor(nodeId, edgeId));
+            }
+        }
+    }
+
+    @Test
+    void costFactorTableCanBeWrittenAndLoaded() throws IOException {
+        Graph g = TestGraphs.grid(10, 10, newRandom());
+        CostFunction cf = new CityBikeCF(g);
+        CostFactorTable table = CostFactorTable.of(g, cf);
+        Path filePath = CostFactorTable.filePath(
+                Files.createTempDirectory("javelo-cost-factors"), cf);
+        table.writeTo(filePath);
+        CostFactorTable loaded = CostFactorTable.loadFrom(filePath, g);
+        for (int edgeId = 0; edgeId < g.edgeCount(); edgeId++)
+            assertEquals(table.costFactor(0, edgeId), loaded.costFactor(0, edgeId));
+    }
+
+    @Test
+    void costFactorTableThrowsOnOtherGraph() throws IOException {
+        Graph g = TestGraphs.grid(10, 10, newRandom());
+        CostFunction cf = new CityBikeCF(g);
+        Path filePath = CostFactorTable.filePath(
+                Files.createTempDirectory("javelo-cost-factors"), cf);
+        CostFactorTable.of(g, cf).writeTo(filePath);
+        Graph other = TestGraphs.grid(5, 5, newRandom());
+        assertThrows(IllegalArgumentException.class, () -> {
+            CostFactorTable.loadFrom(filePath, other);
+        });
+    }
+
+    @Test
+    void routeComputerWorksWithCostFactorTable() {
+        Graph g = TestGraphs.grid(20, 20, newRandom());
+        CostFunction cf = new CityBikeCF(g);
+        RouteComputer expectedComputer = new RouteComputer(g, cf);
+        RouteComputer actualComputer = new RouteComputer(g, CostFactorTable.of(g, cf));
+        var rng = newRandom();
+        for (int i = 0; i < 50; i++) {
+            int startNodeId = rng.nextInt(g.nodeCount());
+            int endNodeId = rng.nextInt(g.nodeCount());
+            if (startNodeId == endNodeId)
+                continue;
+            Route expected = expectedComputer.bestRouteBetween(startNodeId, endNodeId);
+            Route actual = actualComputer.bestRouteBetween(startNodeId, endNodeId);
+            if (expected == null)
+                assertNull(actual);
+            else
+                assertEquals(RouteComputerTest.routeCost(g, cf, expected),
+                        RouteComputerTest.routeCost(g, cf, actual), 1e-2);
+        }
+    }
+}
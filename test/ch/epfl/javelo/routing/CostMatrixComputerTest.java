@@ -0,0 +1,80 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.data.Graph;
+import ch.epfl.test.TestGraphs;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CostMatrixComputerTest {
+
+    @Test
+    void costMatrixGivesSameCostsAsRouteComputer() {
+        var rng = newRandom();
+        Graph g = TestGraphs.grid(25, 25, rng);
+        CostFunction cf = new CityBikeCF(g);
+        RouteComputer rc = new RouteComputer(g, cf);
+        int[] sources = rng.ints(8, 0, g.nodeCount()).toArray();
+        int[] targets = rng.ints(12, 0, g.nodeCount()).toArray();
+        targets[1] = targets[0];
+        targets[2] = sources[0];
+
+        ForkJoinPool pool = new ForkJoinPool(3);
+        float[][] costs;
+        try {
+            costs = new CostMatrixComputer(g, cf, pool).costMatrix(sources, targets);
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(sources.length, costs.length);
+        for (int i = 0; i < sources.length; i++) {
+            assertEquals(targets.length, costs[i].length);
+            for (int j = 0; j < targets.length; j++) {
+                if (sources[i] == targets[j]) {
+                    assertEquals(0f, costs[i][j]);
+                    continue;
+                }
+                Route route = rc.bestRouteBetween(sources[i], targets[j]);
+                if (route == null)
+                    assertEquals(CostMatrixComputer.NO_ROUTE, costs[i][j]);
+                else
+                    assertEquals(RouteComputerTest.routeCost(g, cf, route), costs[i][j], 1e-2);
+            }
+        }
+    }
+
+    @Test
+    void costsFromGivesMatrixRow() {
+        var rng = newRandom();
+        Graph g = TestGraphs.grid(20, 20, rng);
+        CostMatrixComputer computer = new CostMatrixComputer(g, new CityBikeCF(g));
+        int[] sources = rng.ints(5, 0, g.nodeCount()).toArray();
+        int[] targets = rng.ints(5, 0, g.nodeCount()).toArray();
+        float[][] costs = computer.costMatrix(sources, targets);
+        for (int i = 0; i < sources.length; i++)
+            assertArrayEquals(costs[i], computer.costsFrom(sources[i], targets));
+    }
+
+    @Test
+    void costMatrixThrowsOnInvalidNodeId() {
+        Graph g = TestGraphs.grid(10, 10, newRandom());
+        CostMatrixComputer computer = new CostMatrixComputer(g, new CityBikeCF(g));
+        assertThrows(IllegalArgumentException.class, () -> {
+            computer.costMatrix(new int[]{0}, new int[]{g.nodeCount()});
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            computer.costMatrix(new int[]{-1}, new int[]{0});
+        });
+    }
+
+    @Test
+    void costMatrixWorksWithEmptyArrays() {
+        Graph g = TestGraphs.grid(10, 10, newRandom());
+        CostMatrixComputer computer = new CostMatrixComputer(g, new CityBikeCF(g));
+        assertEquals(0, computer.costMatrix(new int[0], new int[]{1}).length);
+        assertEquals(0, computer.costMatrix(new int[]{1}, new int[0])[0].length);
+    }
+}
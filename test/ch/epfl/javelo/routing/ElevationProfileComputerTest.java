@@ -4,6 +4,7 @@ import ch.epfl.javelo.Functions;
 import ch.epfl.javelo.Math2;
 import ch.epfl.javelo.projection.PointCh;
 import ch.epfl.javelo.projection.SwissBounds;
+import ch.epfl.test.TestGraphs;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
@@ -11,7 +12,9 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 import java.util.function.DoubleUnaryOperator;
+import java.util.random.RandomGenerator;
 
+import static ch.epfl.test.TestRandomizer.RANDOM_ITERATIONS;
 import static ch.epfl.test.TestRandomizer.newRandom;
 import static java.lang.Float.NaN;
 import static java.lang.Float.isNaN;
@@ -257,6 +260,143 @@ public class ElevationProfileComputerTest {
         //assertArrayEquals(expected, actual);
     }
 
+    @Test
+    void elevationProfileMatchesPerSampleComputationOnRandomRoutes() {
+        var rng = newRandom();
+        for (int i = 0; i < 20; i++) {
+            List<Edge> edges = TestGraphs.randomEdges(rng, 1 + rng.nextInt(40));
+            // Un itinéraire multiple doit avoir le même profil que l'itinéraire
+            // simple composé des mêmes arêtes
+            SingleRoute singleRoute = new SingleRoute(edges);
+            Route route = rng.nextBoolean() || edges.size() < 2
+                    ? singleRoute
+                    : new MultiRoute(List.of(new SingleRoute(edges.subList(0, 1)),
+                    new SingleRoute(edges.subList(1, edges.size()))));
+            double maxStepLength = rng.nextDouble(0.5, 20);
+            ElevationProfile expected = new ElevationProfile(singleRoute.length(),
+                    referenceSamples(singleRoute, maxStepLength));
+            ElevationProfile actual = ElevationProfileComputer.elevationProfile(route, maxStepLength);
+
+            assertEquals(expected.minElevation(), actual.minElevation(), 1e-4);
+            assertEquals(expected.maxElevation(), actual.maxElevation(), 1e-4);
+            assertEquals(expected.totalAscent(), actual.totalAscent(), 1e-2);
+            assertEquals(expected.totalDescent(), actual.totalDescent(), 1e-2);
+            for (int j = 0; j < 100; j++) {
+                double position = rng.nextDouble(0, route.length());
+                assertEquals(expected.elevationAt(position), actual.elevationAt(position), 1e-4);
+            }
+        }
+    }
+
+    @Test
+    void elevationProfileUsesBufferOnlyWhenLargeEnough() {
+        var rng = newRandom();
+        Route route = new SingleRoute(TestGraphs.randomEdges(rng, 20));
+        int sampleCount = ElevationProfileComputer.sampleCount(route, 5);
+        ElevationProfile expected = ElevationProfileComputer.elevationProfile(route, 5);
+
+        float[] buffer = new float[sampleCount + 10];
+        Arrays.fill(buffer, NaN);
+        ElevationProfile actual = ElevationProfileComputer.elevationProfile(route, 5, buffer);
+        assertFalse(isNaN(buffer[0]));
+        // Le profil ne dépend plus du tableau une fois calculé
+        Arrays.fill(buffer, -1f);
+        float[] smallBuffer = new float[sampleCount - 1];
+        ElevationProfile actualSmall = ElevationProfileComputer.elevationProfile(
+                route, 5, smallBuffer);
+        assertArrayEquals(new float[sampleCount - 1], smallBuffer);
+
+        for (ElevationProfile p : List.of(actual, actualSmall)) {
+            assertEquals(expected.length(), p.length());
+            assertEquals(expected.minElevation(), p.minElevation());
+            assertEquals(expected.maxElevation(), p.maxElevation());
+            assertEquals(expected.totalAscent(), p.totalAscent());
+            for (double position = 0; position < route.length(); position += 1.7)
+                assertEquals(expected.elevationAt(position), p.elevationAt(position));
+        }
+    }
+
+    // Retourne des arêtes de longueur 8 m, dont les profils diffèrent aux
+    // jonctions, afin que des échantillons tombent exactement sur les noeuds
+    private static List<Edge> junctionEdges(RandomGenerator rng, int edgeCount) {
+        List<Edge> edges = new ArrayList<>();
+        for (int i = 0; i < edgeCount; i++) {
+            PointCh from = new PointCh(SwissBounds.MIN_E + 8 * i, SwissBounds.MIN_N);
+            PointCh to = new PointCh(SwissBounds.MIN_E + 8 * (i + 1), SwissBounds.MIN_N);
+            DoubleUnaryOperator profile = switch (rng.nextInt(3)) {
+                case 0 -> Functions.constant(Double.NaN);
+                case 1 -> Functions.sampled(new float[]{
+                        rng.nextFloat() * 1000, rng.nextFloat() * 1000}, 8);
+                default -> Functions.constant(rng.nextInt(1000));
+            };
+            edges.add(new Edge(i, i + 1, from, to, 8, profile));
+        }
+        return edges;
+    }
+
+    // Retourne un itinéraire formé des arêtes données, découpé aléatoirement
+    // en segments éventuellement imbriqués
+    private static Route randomlySplitRoute(RandomGenerator rng, List<Edge> edges, int depth) {
+        if (edges.size() < 2 || depth == 0 || rng.nextInt(4) == 0)
+            return new SingleRoute(edges);
+        List<Route> segments = new ArrayList<>();
+        int start = 0;
+        while (start < edges.size()) {
+            int end = Math.min(edges.size(), start + 1 + rng.nextInt(edges.size()));
+            segments.add(randomlySplitRoute(rng, edges.subList(start, end), depth - 1));
+            start = end;
+        }
+        return new MultiRoute(segments);
+    }
+
+    @Test
+    void elevationProfileMatchesElevationAtOnNodesAndJunctions() {
+        var rng = newRandom();
+        for (int i = 0; i < RANDOM_ITERATIONS / 10; i++) {
+            Route route = randomlySplitRoute(rng, junctionEdges(rng, 1 + rng.nextInt(30)), 3);
+            // Un pas de 2, 4 ou 8 m place des échantillons sur chaque noeud
+            double maxStepLength = 1 << (1 + rng.nextInt(3));
+            float[] expected = referenceSamples(route, maxStepLength);
+            ElevationProfile actual = ElevationProfileComputer.elevationProfile(
+                    route, maxStepLength);
+            for (int j = 0; j < expected.length; j++)
+                assertEquals(expected[j], actual.elevationAt(j * maxStepLength));
+        }
+    }
+
+    // Calcule les échantillons du profil en long en interrogeant l'itinéraire
+    // indépendamment pour chaque échantillon, puis en comblant les trous
+    private static float[] referenceSamples(Route route, double maxStepLength) {
+        int count = (int) Math.ceil(route.length() / maxStepLength) + 1;
+        double stepLength = route.length() / (count - 1);
+        float[] samples = new float[count];
+        for (int i = 0; i < count; i++)
+            samples[i] = (float) route.elevationAt(i * stepLength);
+
+        int first = 0;
+        while (first < count && isNaN(samples[first]))
+            first++;
+        if (first == count)
+            return new float[count];
+        Arrays.fill(samples, 0, first, samples[first]);
+        int last = count - 1;
+        while (isNaN(samples[last]))
+            last--;
+        Arrays.fill(samples, last + 1, count, samples[last]);
+        for (int i = first + 1; i < last; i++) {
+            if (!isNaN(samples[i]))
+                continue;
+            int j = i;
+            while (isNaN(samples[j]))
+                j++;
+            for (int k = i; k < j; k++)
+                samples[k] = (float) Math2.interpolate(samples[i - 1], samples[j],
+                        (double) (k - i + 1) / (j - i + 1));
+            i = j;
+        }
+        return samples;
+    }
+
     
     private PointCh randomPointCh() {
         var rnd = new Random();
@@ -0,0 +1,106 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.data.Graph;
+import ch.epfl.javelo.projection.PointCh;
+import ch.epfl.test.TestGraphs;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IsochroneComputerTest {
+
+    @Test
+    void isochroneReachesExactlyNodesWithinBudget() {
+        var rng = newRandom();
+        Graph g = TestGraphs.grid(25, 25, rng);
+        CostFunction cf = new CityBikeCF(g);
+        IsochroneComputer computer = new IsochroneComputer(g, cf);
+        CostMatrixComputer matrixComputer = new CostMatrixComputer(g, cf);
+        int[] allNodeIds = IntStream.range(0, g.nodeCount()).toArray();
+
+        for (int i = 0; i < 10; i++) {
+            int startNodeId = rng.nextInt(g.nodeCount());
+            Isochrone isochrone = computer.isochrone(startNodeId, 2000, 500, 1000);
+            float[] costs = matrixComputer.costsFrom(startNodeId, allNodeIds);
+
+            assertEquals(startNodeId, isochrone.startNodeId());
+            assertEquals(3, isochrone.bandCount());
+            assertEquals(500, isochrone.budget(0));
+            assertEquals(2000, isochrone.budget(2));
+            int reached = 0;
+            for (int nodeId = 0; nodeId < g.nodeCount(); nodeId++) {
+                // Les coûts proches du budget peuvent différer par l'arrondi
+                if (Math.abs(costs[nodeId] - 2000) < 1e-2)
+                    continue;
+                boolean expected = costs[nodeId] <= 2000;
+                assertEquals(expected, isochrone.isReached(nodeId));
+                assertEquals(expected, isochrone.reachedNodes().get(nodeId));
+                if (expected) {
+                    reached += 1;
+                    assertEquals(costs[nodeId], isochrone.cost(nodeId), 1e-2);
+                } else {
+                    assertEquals(Float.POSITIVE_INFINITY, isochrone.cost(nodeId));
+                }
+            }
+            assertTrue(reached <= isochrone.reachedNodeCount());
+        }
+    }
+
+    @Test
+    void isochroneHullsContainAllReachedNodesOfTheirBand() {
+        var rng = newRandom();
+        Graph g = TestGraphs.grid(25, 25, rng);
+        IsochroneComputer computer = new IsochroneComputer(g, new CityBikeCF(g));
+        for (int i = 0; i < 10; i++) {
+            Isochrone isochrone = computer.isochrone(rng.nextInt(g.nodeCount()), 300, 800, 1500);
+            for (int band = 0; band < isochrone.bandCount(); band++) {
+                List<PointCh> hull = isochrone.hull(band);
+                assertFalse(hull.isEmpty());
+                for (int nodeId = 0; nodeId < g.nodeCount(); nodeId++) {
+                    if (isochrone.cost(nodeId) <= isochrone.budget(band) && hull.size() >= 3)
+                        assertTrue(isInsideOrOn(hull, g.nodePoint(nodeId)));
+                }
+            }
+        }
+    }
+
+    @Test
+    void isochroneFromPointStartsAtClosestNode() {
+        var rng = newRandom();
+        Graph g = TestGraphs.grid(10, 10, rng);
+        IsochroneComputer computer = new IsochroneComputer(g, new CityBikeCF(g));
+        PointCh p = g.nodePoint(42);
+        Isochrone isochrone = computer.isochrone(p, 10, 100);
+        assertEquals(42, isochrone.startNodeId());
+        assertTrue(isochrone.isReached(42));
+        assertEquals(0f, isochrone.cost(42));
+        assertNull(computer.isochrone(new PointCh(2_600_000, 1_200_000), 10, 100));
+    }
+
+    @Test
+    void isochroneThrowsOnInvalidBudgets() {
+        Graph g = TestGraphs.grid(10, 10, newRandom());
+        IsochroneComputer computer = new IsochroneComputer(g, new CityBikeCF(g));
+        assertThrows(IllegalArgumentException.class, () -> {
+            computer.isochrone(0);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            computer.isochrone(0, 100, -1);
+        });
+    }
+
+    private static boolean isInsideOrOn(List<PointCh> hull, PointCh p) {
+        for (int k = 0; k < hull.size(); k++) {
+            PointCh a = hull.get(k);
+            PointCh b = hull.get((k + 1) % hull.size());
+            double cross = (b.e() - a.e()) * (p.n() - a.n()) - (b.n() - a.n()) * (p.e() - a.e());
+            if (cross < -1e-6)
+                return false;
+        }
+        return true;
+    }
+}
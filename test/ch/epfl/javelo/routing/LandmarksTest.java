@@ -0,0 +1,104 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.data.Graph;
+import ch.epfl.test.TestGraphs;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LandmarksTest {
+
+    @Test
+    void landmarksLowerBoundNeverExceedsBestRouteCost() {
+        Graph g = TestGraphs.grid(30, 20, newRandom());
+        CostFunction cf = new CityBikeCF(g);
+        Landmarks landmarks = Landmarks.build(g, cf, 8);
+        RouteComputer rc = new RouteComputer(g, cf);
+        var rng = newRandom();
+        for (int i = 0; i < 100; i++) {
+            int startNodeId = rng.nextInt(g.nodeCount());
+            int endNodeId = rng.nextInt(g.nodeCount());
+            if (startNodeId == endNodeId)
+                continue;
+            Route route = rc.bestRouteBetween(startNodeId, endNodeId);
+            float bound = landmarks.lowerBound(startNodeId, endNodeId);
+            assertTrue(bound >= 0);
+            if (route != null)
+                assertTrue(bound <= RouteComputerTest.routeCost(g, cf, route) + 1e-2);
+        }
+    }
+
+    @Test
+    void landmarksCanBeWrittenAndLoaded() throws IOException {
+        Graph g = TestGraphs.grid(20, 20, newRandom());
+        CostFunction cf = new CityBikeCF(g);
+        Landmarks landmarks = Landmarks.build(g, cf, 4);
+        Path directory = Files.createTempDirectory("javelo-landmarks");
+        Path filePath = Landmarks.filePath(directory, cf);
+        landmarks.writeTo(filePath);
+        Landmarks loaded = Landmarks.loadFrom(filePath, g);
+
+        assertEquals(landmarks.count(), loaded.count());
+        for (int i = 0; i < landmarks.count(); i++)
+            assertEquals(landmarks.landmarkId(i), loaded.landmarkId(i));
+        var rng = newRandom();
+        for (int i = 0; i < 100; i++) {
+            int fromNodeId = rng.nextInt(g.nodeCount());
+            int toNodeId = rng.nextInt(g.nodeCount());
+            assertEquals(landmarks.lowerBound(fromNodeId, toNodeId),
+                    loaded.lowerBound(fromNodeId, toNodeId));
+        }
+    }
+
+    @Test
+    void landmarksOfAnotherGraphAreRejected() throws IOException {
+        Graph g = TestGraphs.grid(20, 20, newRandom());
+        Graph otherGraph = TestGraphs.grid(20, 21, newRandom());
+        CostFunction cf = new CityBikeCF(g);
+        Landmarks landmarks = Landmarks.build(g, cf, 4);
+        assertEquals(g.nodeCount(), landmarks.nodeCount());
+        Path directory = Files.createTempDirectory("javelo-landmarks");
+        Path filePath = Landmarks.filePath(directory, cf);
+        try {
+            landmarks.writeTo(filePath);
+            assertThrows(IllegalArgumentException.class,
+                    () -> Landmarks.loadFrom(filePath, otherGraph));
+            assertThrows(IllegalArgumentException.class, () -> new RouteComputer(otherGraph,
+                    new CityBikeCF(otherGraph), RouteComputer.SearchMode.UNIDIRECTIONAL, landmarks));
+        } finally {
+            Files.deleteIfExists(filePath);
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    void routeComputerWithLandmarksFindsRoutesOfSameCost() {
+        Graph g = TestGraphs.grid(30, 30, newRandom());
+        CostFunction cf = new CityBikeCF(g);
+        Landmarks landmarks = Landmarks.build(g, cf, 8);
+        RouteComputer expectedComputer = new RouteComputer(g, cf);
+        var rng = newRandom();
+        for (RouteComputer.SearchMode mode : RouteComputer.SearchMode.values()) {
+            RouteComputer rc = new RouteComputer(g, cf, mode, landmarks);
+            for (int i = 0; i < 50; i++) {
+                int startNodeId = rng.nextInt(g.nodeCount());
+                int endNodeId = rng.nextInt(g.nodeCount());
+                if (startNodeId == endNodeId)
+                    continue;
+                Route expected = expectedComputer.bestRouteBetween(startNodeId, endNodeId);
+                Route actual = rc.bestRouteBetween(startNodeId, endNodeId);
+                if (expected == null) {
+                    assertNull(actual);
+                } else {
+                    assertEquals(RouteComputerTest.routeCost(g, cf, expected),
+                            RouteComputerTest.routeCost(g, cf, actual), 1e-2);
+                }
+            }
+        }
+    }
+}
@@ -3,6 +3,7 @@ package ch.epfl.javelo.routing;
 import ch.epfl.javelo.Functions;
 import ch.epfl.javelo.projection.PointCh;
 import ch.epfl.javelo.projection.SwissBounds;
+import ch.epfl.test.TestGraphs;
 import org.junit.jupiter.api.Test;
 
 
@@ -304,9 +305,12 @@ public class MultiRouteTest {
         double actual1 = m1.elevationAt(150);
         assertTrue(isNaN(actual1));
 
-        double expected2 = e4.elevationAt(0);
-        double actual2 = m1.elevationAt(401 + e2.length());
-        assertEquals(expected2, actual2);
+        // Position située dans s2, juste après sa jonction avec s1 (la jonction
+        // elle-même appartient à s1)
+        double expected2 = e4.elevationAt(1);
+        double actual2 = m1.elevationAt(s0.length() + s1.length() + 1);
+        assertEquals(expected2, actual2, 1e-6);
+        assertEquals(e3.elevationAt(e3.length()), m1.elevationAt(s0.length() + s1.length()), 1e-6);
 
         double expected3 = e0.elevationAt(50);
         double actual3 = m1.elevationAt(50);
@@ -422,4 +426,37 @@ public class MultiRouteTest {
     void pointClosesToWorks() {
 
     }
-}
\ No newline at end of file
+
+    @Test
+    void multiRouteMatchesSingleRouteWithFractionalLengths() {
+        var rng = newRandom();
+        List<Edge> edges = TestGraphs.randomEdges(rng, 40);
+        SingleRoute single = new SingleRoute(edges);
+        // Segments imbriqués de longueurs non entières
+        MultiRoute multi = new MultiRoute(List.of(
+                new SingleRoute(edges.subList(0, 7)),
+                new MultiRoute(List.of(
+                        new SingleRoute(edges.subList(7, 8)),
+                        new SingleRoute(edges.subList(8, 20)))),
+                new SingleRoute(edges.subList(20, 40))));
+        assertEquals(single.length(), multi.length(), 1e-9);
+        assertEquals(edges, multi.edges());
+        assertEquals(single.points(), multi.points());
+        assertSame(multi.edges(), multi.edges());
+        assertSame(multi.points(), multi.points());
+        assertThrows(UnsupportedOperationException.class, () -> multi.edges().clear());
+        assertThrows(UnsupportedOperationException.class, () -> multi.points().clear());
+
+        double end0 = new SingleRoute(edges.subList(0, 7)).length();
+        double end1 = end0 + new SingleRoute(edges.subList(7, 8)).length();
+        double end2 = end1 + new SingleRoute(edges.subList(8, 20)).length();
+        for (int i = 0; i < RANDOM_ITERATIONS; i++) {
+            double position = rng.nextDouble(0, single.length());
+            int expectedIndex = position <= end0 ? 0 : position <= end1 ? 1 : position <= end2 ? 2 : 3;
+            assertEquals(expectedIndex, multi.indexOfSegmentAt(position));
+            assertEquals(single.elevationAt(position), multi.elevationAt(position), 1e-6);
+            assertEquals(single.pointAt(position).e(), multi.pointAt(position).e(), 1e-6);
+            assertEquals(single.pointAt(position).n(), multi.pointAt(position).n(), 1e-6);
+        }
+    }
+}
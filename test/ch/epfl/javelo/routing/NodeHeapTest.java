@@ -0,0 +1,87 @@
+package ch.epfl.javelo.routing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+import static ch.epfl.test.TestRandomizer.RANDOM_ITERATIONS;
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NodeHeapTest {
+
+    @Test
+    void nodeHeapPopsNodesInKeyOrder() {
+        NodeHeap heap = new NodeHeap(5);
+        heap.pushOrDecrease(3, 7f);
+        heap.pushOrDecrease(1, 2f);
+        heap.pushOrDecrease(4, 5f);
+        heap.pushOrDecrease(0, 9f);
+        assertEquals(4, heap.size());
+        assertEquals(1, heap.pop());
+        assertEquals(4, heap.pop());
+        assertEquals(3, heap.pop());
+        assertEquals(0, heap.pop());
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    void nodeHeapDecreasesKeyButNeverIncreasesIt() {
+        NodeHeap heap = new NodeHeap(3);
+        heap.pushOrDecrease(0, 5f);
+        heap.pushOrDecrease(1, 3f);
+        heap.pushOrDecrease(0, 1f);
+        assertEquals(2, heap.size());
+        assertEquals(0, heap.peekNode());
+        assertEquals(1f, heap.peekKey());
+        heap.pushOrDecrease(0, 10f);
+        assertEquals(1f, heap.peekKey());
+    }
+
+    @Test
+    void nodeHeapCanBeReusedAfterClear() {
+        NodeHeap heap = new NodeHeap(4);
+        heap.pushOrDecrease(2, 1f);
+        heap.pushOrDecrease(3, 2f);
+        heap.clear();
+        assertTrue(heap.isEmpty());
+        assertFalse(heap.contains(2));
+        assertFalse(heap.contains(3));
+        heap.pushOrDecrease(3, 4f);
+        assertEquals(3, heap.pop());
+    }
+
+    @Test
+    void nodeHeapThrowsWhenEmpty() {
+        NodeHeap heap = new NodeHeap(1);
+        assertThrows(NoSuchElementException.class, heap::pop);
+        assertThrows(NoSuchElementException.class, heap::peekKey);
+    }
+
+    @Test
+    void nodeHeapWorksLikePriorityQueueOnRandomKeys() {
+        var rng = newRandom();
+        int capacity = 1_000;
+        NodeHeap heap = new NodeHeap(capacity);
+        float[] keys = new float[capacity];
+        for (int i = 0; i < RANDOM_ITERATIONS; i++) {
+            int nodeId = rng.nextInt(capacity);
+            float key = rng.nextFloat(1_000f);
+            if (!heap.contains(nodeId) || key < keys[nodeId])
+                keys[nodeId] = key;
+            heap.pushOrDecrease(nodeId, key);
+        }
+        PriorityQueue<Float> expected = new PriorityQueue<>();
+        for (int nodeId = 0; nodeId < capacity; nodeId++) {
+            if (heap.contains(nodeId))
+                expected.add(keys[nodeId]);
+        }
+        while (!heap.isEmpty()) {
+            float key = heap.peekKey();
+            assertEquals((float) expected.remove(), key);
+            assertEquals(key, keys[heap.pop()]);
+        }
+        assertTrue(expected.isEmpty());
+    }
+}
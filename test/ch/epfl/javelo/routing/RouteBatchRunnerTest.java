@@ -0,0 +1,93 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.data.Graph;
+import ch.epfl.test.TestGraphs;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
+
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RouteBatchRunnerTest {
+
+    @Test
+    void runWritesOneResultPerQuery() throws Exception {
+        var rng = newRandom();
+        Graph g = TestGraphs.grid(20, 20, rng);
+        RouteComputer rc = new RouteComputer(g, new CityBikeCF(g));
+        StringBuilder queries = new StringBuilder("start,end\n# commentaire\n\n");
+        Map<String, Route> expected = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            int start = rng.nextInt(g.nodeCount());
+            int end = rng.nextInt(g.nodeCount());
+            queries.append(start).append(", ").append(end).append('\n');
+            if (start != end)
+                expected.put(start + "," + end, rc.bestRouteBetween(start, end));
+        }
+        queries.append(g.nodeCount()).append(",0\n");
+        queries.append("-1,0\n");
+
+        StringWriter out = new StringWriter();
+        int count = new RouteBatchRunner(rc, 4).run(
+                new BufferedReader(new StringReader(queries.toString())), out);
+        assertEquals(102, count);
+
+        String[] lines = out.toString().split("\n");
+        assertEquals(103, lines.length);
+        assertEquals("start,end,status,length,latency_us,settled_nodes", lines[0]);
+        for (int i = 1; i < lines.length; i++) {
+            String[] fields = lines[i].split(",");
+            String key = fields[0] + "," + fields[1];
+            int start = Integer.parseInt(fields[0]);
+            if (fields[0].equals(fields[1]) || start == g.nodeCount() || start == -1) {
+                assertEquals("INVALID", fields[2]);
+                continue;
+            }
+            Route route = expected.get(key);
+            assertEquals(route == null ? "NO_ROUTE" : "ROUTE", fields[2]);
+            if (route != null) {
+                assertEquals(route.length(), Double.parseDouble(fields[3]), 0.1);
+                assertTrue(Integer.parseInt(fields[5]) > 0);
+            }
+        }
+    }
+
+    @Test
+    void runThrowsOnMalformedLines() {
+        Graph g = TestGraphs.grid(5, 5, newRandom());
+        RouteBatchRunner runner = new RouteBatchRunner(new RouteComputer(g, new CityBikeCF(g)), 2);
+        for (String queries : new String[]{"1,2\n3\n", "1,2\n3,4,5\n", "1,2\n3,x\n"}) {
+            assertThrows(IllegalArgumentException.class, () -> runner.run(
+                    new BufferedReader(new StringReader(queries)), new StringWriter()));
+        }
+    }
+
+    @Test
+    void runReportsFailedQueries() throws Exception {
+        Graph g = TestGraphs.grid(5, 5, newRandom());
+        CostFunction failing = (nodeId, edgeId) -> {
+            throw new IllegalStateException();
+        };
+        StringWriter out = new StringWriter();
+        int count = new RouteBatchRunner(new RouteComputer(g, failing), 2).run(
+                new BufferedReader(new StringReader("0,24\n")), out);
+        assertEquals(1, count);
+        String[] lines = out.toString().split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[1].startsWith("0,24,ERROR,"));
+    }
+
+    @Test
+    void constructorThrowsOnInvalidParallelism() {
+        Graph g = TestGraphs.grid(5, 5, newRandom());
+        RouteComputer rc = new RouteComputer(g, new CityBikeCF(g));
+        assertThrows(IllegalArgumentException.class, () -> {
+            new RouteBatchRunner(rc, 0);
+        });
+    }
+}
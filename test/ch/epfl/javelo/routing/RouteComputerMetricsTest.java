@@ -0,0 +1,91 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.data.Graph;
+import ch.epfl.test.TestGraphs;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RouteComputerMetricsTest {
+
+    @Test
+    void searchListenerReceivesConsistentMetrics() {
+        var rng = newRandom();
+        Graph g = TestGraphs.grid(20, 20, rng);
+        for (RouteComputer.SearchMode mode : RouteComputer.SearchMode.values()) {
+            List<SearchMetrics> received = new ArrayList<>();
+            RouteComputer rc = new RouteComputer(g, new CityBikeCF(g), mode, null, received::add);
+            for (int i = 0; i < 50; i++) {
+                int start = rng.nextInt(g.nodeCount());
+                int end = rng.nextInt(g.nodeCount());
+                if (start == end)
+                    continue;
+                Route route = rc.bestRouteBetween(start, end);
+                SearchMetrics m = received.get(received.size() - 1);
+                assertEquals(start, m.startNodeId());
+                assertEquals(end, m.endNodeId());
+                assertEquals(route != null, m.routeFound());
+                assertTrue(m.settledNodes() > 0);
+                assertTrue(m.settledNodes() <= m.heapPushes());
+                assertTrue(m.heapPushes() <= m.relaxedEdges() + 2);
+                assertTrue(m.visitedTargets() <= m.relaxedEdges());
+                assertTrue(m.maxQueueSize() >= 1 && m.maxQueueSize() <= m.heapPushes());
+                assertTrue(m.wallTimeNanos() >= 0);
+            }
+        }
+    }
+
+    @Test
+    void listenerGivenToBestRouteBetweenReplacesConstructorListener() {
+        Graph g = TestGraphs.grid(10, 10, newRandom());
+        List<SearchMetrics> constructorMetrics = new ArrayList<>();
+        List<SearchMetrics> queryMetrics = new ArrayList<>();
+        RouteComputer rc = new RouteComputer(g, new CityBikeCF(g),
+                RouteComputer.SearchMode.UNIDIRECTIONAL, null, constructorMetrics::add);
+        rc.bestRouteBetween(50, 60, queryMetrics::add);
+        assertEquals(0, constructorMetrics.size());
+        assertEquals(1, queryMetrics.size());
+        rc.bestRouteBetween(50, 60);
+        assertEquals(1, constructorMetrics.size());
+    }
+
+    @Test
+    void routeComputerMetricsAccumulatesAndIsExposedThroughJmx() throws Exception {
+        var rng = newRandom();
+        Graph g = TestGraphs.grid(20, 20, rng);
+        RouteComputerMetrics metrics = new RouteComputerMetrics();
+        List<SearchMetrics> received = new ArrayList<>();
+        RouteComputer rc = new RouteComputer(g, new CityBikeCF(g),
+                RouteComputer.SearchMode.UNIDIRECTIONAL, null, m -> {
+            received.add(m);
+            metrics.searchCompleted(m);
+        });
+        for (int i = 0; i < 30; i++)
+            rc.bestRouteBetween(i, 399 - i);
+
+        long settled = received.stream().mapToLong(SearchMetrics::settledNodes).sum();
+        assertEquals(30, metrics.getQueryCount());
+        assertEquals(received.stream().filter(SearchMetrics::routeFound).count(),
+                metrics.getRouteCount());
+        assertEquals(settled, metrics.getSettledNodeCount());
+        assertEquals(30, java.util.stream.LongStream.of(metrics.getSettledNodeHistogram()).sum());
+        assertEquals(30, java.util.stream.LongStream.of(metrics.getWallTimeHistogramMicros()).sum());
+        assertTrue(metrics.wallTimePercentileMicros(50) <= metrics.wallTimePercentileMicros(99));
+
+        ObjectName name = metrics.register("test-" + System.nanoTime());
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        assertEquals(30L, server.getAttribute(name, "QueryCount"));
+        assertEquals(settled, server.getAttribute(name, "SettledNodeCount"));
+        server.invoke(name, "reset", new Object[0], new String[0]);
+        assertEquals(0L, server.getAttribute(name, "QueryCount"));
+        assertEquals(0, metrics.wallTimePercentileMicros(99));
+        server.unregisterMBean(name);
+    }
+}
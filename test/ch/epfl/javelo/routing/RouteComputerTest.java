@@ -1,6 +1,7 @@
 package ch.epfl.javelo.routing;
 
 import ch.epfl.javelo.data.Graph;
+import ch.epfl.test.TestGraphs;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 
@@ -58,4 +59,46 @@ public class RouteComputerTest {
         Route bestRoute = rc.bestRouteBetween(3714918, 3714919);
         assertNull(bestRoute);
     }
+
+    @Test
+    void bidirectionalSearchFindsRoutesOfSameCost() {
+        Graph g = TestGraphs.grid(40, 30, newRandom());
+        CostFunction cf = new CityBikeCF(g);
+        RouteComputer unidirectional = new RouteComputer(g, cf);
+        RouteComputer bidirectional = new RouteComputer(g, cf,
+                RouteComputer.SearchMode.BIDIRECTIONAL);
+        var rng = newRandom();
+        for (int i = 0; i < 100; i++) {
+            int startNodeId = rng.nextInt(g.nodeCount());
+            int endNodeId = rng.nextInt(g.nodeCount());
+            if (startNodeId == endNodeId)
+                continue;
+            Route expected = unidirectional.bestRouteBetween(startNodeId, endNodeId);
+            Route actual = bidirectional.bestRouteBetween(startNodeId, endNodeId);
+            if (expected == null) {
+                assertNull(actual);
+            } else {
+                assertEquals(routeCost(g, cf, expected), routeCost(g, cf, actual), 1e-2);
+                assertEquals(startNodeId, actual.edges().get(0).fromNodeId());
+                assertEquals(endNodeId, actual.edges().get(actual.edges().size() - 1).toNodeId());
+            }
+        }
+    }
+
+    // Retourne le coût de l'itinéraire, en choisissant l'arête la moins chère
+    // lorsque plusieurs arêtes relient deux mêmes noeuds
+    static double routeCost(Graph g, CostFunction cf, Route route) {
+        double cost = 0;
+        for (Edge e : route.edges()) {
+            double edgeCost = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < g.nodeOutDegree(e.fromNodeId()); i++) {
+                int edgeId = g.nodeOutEdgeId(e.fromNodeId(), i);
+                if (g.edgeTargetNodeId(edgeId) == e.toNodeId())
+                    edgeCost = Math.min(edgeCost,
+                            g.edgeLength(edgeId) * cf.costFactor(e.fromNodeId(), edgeId));
+            }
+            cost += edgeCost;
+        }
+        return cost;
+    }
 }
@@ -0,0 +1,55 @@
+package ch.epfl.javelo.routing;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SearchContextTest {
+
+    @Test
+    void searchContextStartsWithUnreachedNodes() {
+        SearchContext context = new SearchContext(10);
+        assertEquals(10, context.nodeCount());
+        for (int nodeId = 0; nodeId < 10; nodeId++)
+            assertEquals(SearchContext.UNREACHED, context.distance(nodeId));
+        assertTrue(context.heap().isEmpty());
+    }
+
+    @Test
+    void searchContextResetForgetsPreviousSearch() {
+        SearchContext context = new SearchContext(3);
+        context.setDistance(1, 4f);
+        context.setPredecessor(1, 2);
+        context.heap().pushOrDecrease(2, 1f);
+        assertEquals(4f, context.distance(1));
+        assertEquals(2, context.predecessor(1));
+
+        context.reset();
+        assertEquals(SearchContext.UNREACHED, context.distance(1));
+        assertTrue(context.heap().isEmpty());
+        context.setDistance(1, 7f);
+        assertEquals(7f, context.distance(1));
+    }
+
+    @Test
+    void searchContextPoolReusesReleasedContexts() {
+        SearchContextPool pool = new SearchContextPool(5);
+        SearchContext c1 = pool.acquire();
+        SearchContext c2 = pool.acquire();
+        assertNotSame(c1, c2);
+        c1.setDistance(3, 1f);
+        pool.release(c1);
+
+        SearchContext c3 = pool.acquire();
+        assertSame(c1, c3);
+        assertEquals(SearchContext.UNREACHED, c3.distance(3));
+    }
+
+    @Test
+    void searchContextPoolRejectsForeignContexts() {
+        SearchContextPool pool = new SearchContextPool(5);
+        assertThrows(IllegalArgumentException.class, () -> {
+            pool.release(new SearchContext(6));
+        });
+    }
+}
@@ -1,13 +1,16 @@
 package ch.epfl.javelo.routing;
 
 import ch.epfl.javelo.Functions;
+import ch.epfl.javelo.Math2;
 import ch.epfl.javelo.projection.PointCh;
 import ch.epfl.javelo.projection.SwissBounds;
+import ch.epfl.test.TestGraphs;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
 import java.util.List;
 
+import static ch.epfl.test.TestRandomizer.newRandom;
 import static java.lang.Double.isNaN;
 import static java.lang.Math.sqrt;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -314,4 +317,43 @@ public class SingleRouteTest {
 
 
     }
+
+    @Test
+    void pointClosestToMatchesExhaustiveSearch() {
+        var rng = newRandom();
+        for (int r = 0; r < 20; r++) {
+            List<Edge> edges = new ArrayList<>(TestGraphs.randomEdges(rng, 1 + rng.nextInt(300)));
+            // Retour sur ses pas, qui produit des égalités de distance
+            int size = edges.size();
+            for (int i = size - 1; i >= Math.max(0, size - 5); i--) {
+                Edge e = edges.get(i);
+                edges.add(new Edge(e.toNodeId(), e.fromNodeId(), e.toPoint(), e.fromPoint(),
+                        e.length(), e.profile()));
+            }
+            SingleRoute route = new SingleRoute(edges);
+            PointCh first = edges.get(0).fromPoint();
+            for (int i = 0; i < 200; i++) {
+                PointCh point = i % 10 == 0
+                        ? edges.get(rng.nextInt(edges.size())).fromPoint()
+                        : new PointCh(first.e() + rng.nextDouble(-5_000, 5_000),
+                        first.n() + rng.nextDouble(-5_000, 5_000));
+                RoutePoint expected = exhaustivePointClosestTo(edges, point);
+                RoutePoint actual = route.pointClosestTo(point);
+                assertEquals(expected, actual);
+            }
+        }
+    }
+
+    // Examine toutes les arêtes dans l'ordre, comme le faisait SingleRoute
+    private static RoutePoint exhaustivePointClosestTo(List<Edge> edges, PointCh point) {
+        RoutePoint closestPoint = RoutePoint.NONE;
+        double currentPosition = 0;
+        for (Edge e : edges) {
+            double position = Math2.clamp(0.0, e.positionClosestTo(point), e.length());
+            PointCh p = e.pointAt(position);
+            closestPoint = closestPoint.min(p, currentPosition + position, point.distanceTo(p));
+            currentPosition += e.length();
+        }
+        return closestPoint;
+    }
 }
@@ -0,0 +1,225 @@
+package ch.epfl.test;
+
+import ch.epfl.javelo.Functions;
+import ch.epfl.javelo.data.*;
+import ch.epfl.javelo.projection.PointCh;
+import ch.epfl.javelo.projection.SwissBounds;
+import ch.epfl.javelo.routing.Edge;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.DoubleUnaryOperator;
+import java.util.random.RandomGenerator;
+
+import static ch.epfl.javelo.data.Attribute.*;
+
+/**
+ * Construit de petits graphes synthétiques mais valides (noeuds triés par
+ * secteur, arêtes dans les deux sens, profils compressés), utilisables sans
+ * les fichiers de données.
+ */
+public final class TestGraphs {
+    private TestGraphs() {}
+
+    private static final double ORIGIN_E = 2_532_000;
+    private static final double ORIGIN_N = 1_152_000;
+    private static final double SPACING = 150;
+
+    // Ensembles d'attributs utilisés par les arêtes : le premier rend l'arête
+    // infranchissable pour CityBikeCF, le deuxième est à sens unique.
+    private static final List<AttributeSet> ATTRIBUTE_SETS = List.of(
+            AttributeSet.of(HIGHWAY_MOTORWAY),
+            AttributeSet.of(HIGHWAY_RESIDENTIAL, ONEWAY_YES),
+            AttributeSet.of(HIGHWAY_CYCLEWAY),
+            AttributeSet.of(HIGHWAY_TRACK, TRACKTYPE_GRADE2),
+            AttributeSet.of(HIGHWAY_PRIMARY, ICN_YES),
+            AttributeSet.of(HIGHWAY_SECONDARY),
+            AttributeSet.of(HIGHWAY_STEPS));
+
+    /**
+     * Retourne un graphe en grille de la taille donnée, dont une partie des
+     * arêtes est choisie aléatoirement. Les noeuds du coin sud-ouest (les
+     * trois premières lignes et colonnes) forment une île non reliée au reste.
+     */
+    public static Graph grid(int width, int height, RandomGenerator rng) {
+        GridParts parts = gridParts(width, height, rng);
+        return new Graph(parts.nodes(), parts.sectors(), parts.edges(), ATTRIBUTE_SETS);
+    }
+
+    /**
+     * Retourne le nombre donné d'arêtes aléatoires formant un chemin, dont les
+     * profils sont échantillonnés, indéfinis (NaN) ou affines.
+     */
+    public static List<Edge> randomEdges(RandomGenerator rng, int edgeCount) {
+        List<Edge> edges = new ArrayList<>();
+        PointCh from = new PointCh(SwissBounds.MIN_E + 10_000, SwissBounds.MIN_N + 10_000);
+        for (int i = 0; i < edgeCount; i++) {
+            PointCh to = new PointCh(from.e() + rng.nextDouble(-300, 300),
+                    from.n() + rng.nextDouble(-300, 300));
+            double length = from.distanceTo(to);
+            DoubleUnaryOperator profile = switch (rng.nextInt(3)) {
+                case 0 -> {
+                    float[] samples = new float[2 + rng.nextInt(100)];
+                    for (int j = 0; j < samples.length; j++)
+                        samples[j] = 400 + rng.nextFloat() * 200;
+                    yield Functions.sampled(samples, length);
+                }
+                case 1 -> Functions.constant(Double.NaN);
+                default -> x -> 500 + x / 10;
+            };
+            edges.add(new Edge(i, i + 1, from, to, length, profile));
+            from = to;
+        }
+        return edges;
+    }
+
+    /**
+     * Retourne les arêtes du graphe que grid retourne pour les mêmes arguments.
+     */
+    public static GraphEdges gridEdges(int width, int height, RandomGenerator rng) {
+        return gridParts(width, height, rng).edges();
+    }
+
+    /**
+     * Écrit dans le répertoire donné les fichiers du graphe que grid retourne
+     * pour les mêmes arguments, ainsi qu'un fichier nodes_osmid.bin dont
+     * l'identité OSM de chaque noeud vaut 1000 fois son identité.
+     */
+    public static void writeGrid(int width, int height, RandomGenerator rng, Path directory)
+            throws IOException {
+        GridParts parts = gridParts(width, height, rng);
+        IntBuffer nodes = parts.nodes().buffer();
+        ByteBuffer nodesBytes = ByteBuffer.allocate(nodes.capacity() * Integer.BYTES);
+        nodesBytes.asIntBuffer().put(nodes.duplicate().clear());
+        BinaryFiles.write(directory.resolve("nodes.bin"), nodesBytes);
+        BinaryFiles.write(directory.resolve("sectors.bin"), parts.sectors().buffer());
+        GraphEdges edges = parts.edges();
+        BinaryFiles.write(directory.resolve("edges.bin"), edges.edgesBuffer());
+        ByteBuffer profileIds = ByteBuffer.allocate(edges.profileIds().capacity() * Integer.BYTES);
+        profileIds.asIntBuffer().put(edges.profileIds().duplicate().clear());
+        BinaryFiles.write(directory.resolve("profile_ids.bin"), profileIds);
+        ByteBuffer elevations = ByteBuffer.allocate(edges.elevations().capacity() * Short.BYTES);
+        elevations.asShortBuffer().put(edges.elevations().duplicate().clear());
+        BinaryFiles.write(directory.resolve("elevations.bin"), elevations);
+        ByteBuffer attributes = ByteBuffer.allocate(ATTRIBUTE_SETS.size() * Long.BYTES);
+        for (AttributeSet set : ATTRIBUTE_SETS)
+            attributes.putLong(set.bits());
+        BinaryFiles.write(directory.resolve("attributes.bin"), attributes.flip());
+        ByteBuffer osmIds = ByteBuffer.allocate(parts.nodes().count() * Long.BYTES);
+        for (int nodeId = 0; nodeId < parts.nodes().count(); nodeId++)
+            osmIds.putLong(1000L * nodeId);
+        BinaryFiles.write(directory.resolve("nodes_osmid.bin"), osmIds.flip());
+    }
+
+    private record GridParts(GraphNodes nodes, GraphSectors sectors, GraphEdges edges) {}
+
+    private static GridParts gridParts(int width, int height, RandomGenerator rng) {
+        int nodeCount = width * height;
+        double[] es = new double[nodeCount];
+        double[] ns = new double[nodeCount];
+        int[] sectorIndexes = new int[nodeCount];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int i = y * width + x;
+                es[i] = ORIGIN_E + x * SPACING + rng.nextDouble(SPACING / 3);
+                ns[i] = ORIGIN_N + y * SPACING + rng.nextDouble(SPACING / 3);
+                int sectorX = (int) ((es[i] - SwissBounds.MIN_E) / (SwissBounds.WIDTH / 128));
+                int sectorY = (int) ((ns[i] - SwissBounds.MIN_N) / (SwissBounds.HEIGHT / 128));
+                sectorIndexes[i] = sectorX + 128 * sectorY;
+            }
+        }
+        Integer[] order = new Integer[nodeCount];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, Comparator.comparingInt(i -> sectorIndexes[i]));
+        int[] newIds = new int[nodeCount];
+        for (int i = 0; i < nodeCount; i++)
+            newIds[order[i]] = i;
+
+        List<List<int[]>> outEdges = new ArrayList<>();
+        for (int i = 0; i < nodeCount; i++)
+            outEdges.add(new ArrayList<>());
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int i = y * width + x;
+                if (x + 1 < width && rng.nextDouble() < 0.9 && isIsland(x, y) == isIsland(x + 1, y))
+                    addEdgePair(outEdges, i, i + 1, rng);
+                if (y + 1 < height && rng.nextDouble() < 0.9 && isIsland(x, y) == isIsland(x, y + 1))
+                    addEdgePair(outEdges, i, i + width, rng);
+            }
+        }
+
+        int edgeCount = outEdges.stream().mapToInt(List::size).sum();
+        IntBuffer nodesBuffer = IntBuffer.allocate(3 * nodeCount);
+        ByteBuffer edgesBuffer = ByteBuffer.allocate(10 * edgeCount);
+        IntBuffer profileIds = IntBuffer.allocate(edgeCount);
+        ShortBuffer elevations = ShortBuffer.allocate(200 * edgeCount);
+        int edgeId = 0;
+        for (int k = 0; k < nodeCount; k++) {
+            int i = order[k];
+            nodesBuffer.put((int) Math.round(es[i] * 16));
+            nodesBuffer.put((int) Math.round(ns[i] * 16));
+            nodesBuffer.put(outEdges.get(i).size() << 28 | edgeId);
+            for (int[] e : outEdges.get(i)) {
+                int j = e[0];
+                boolean inverted = e[1] == 1;
+                double length = Math.hypot(es[i] - es[j], ns[i] - ns[j]) * (1 + rng.nextDouble(0.3));
+                int lengthQ28_4 = (int) Math.round(length * 16);
+                edgesBuffer.putInt(inverted ? ~newIds[j] : newIds[j]);
+                edgesBuffer.putShort((short) lengthQ28_4);
+                edgesBuffer.putShort((short) (rng.nextInt(20) << 4));
+                edgesBuffer.putShort((short) e[2]);
+                profileIds.put(putProfile(elevations, lengthQ28_4, rng));
+                edgeId += 1;
+            }
+        }
+
+        ByteBuffer sectorsBuffer = ByteBuffer.allocate(128 * 128 * 6);
+        int k = 0;
+        for (int sector = 0; sector < 128 * 128; sector++) {
+            int start = k;
+            while (k < nodeCount && sectorIndexes[order[k]] == sector)
+                k += 1;
+            sectorsBuffer.putInt(start).putShort((short) (k - start));
+        }
+
+        return new GridParts(new GraphNodes(nodesBuffer.flip()),
+                new GraphSectors(sectorsBuffer.flip()),
+                new GraphEdges(edgesBuffer.flip(), profileIds.flip(), elevations.flip()));
+    }
+
+    private static boolean isIsland(int x, int y) {
+        return x < 3 && y < 3;
+    }
+
+    private static void addEdgePair(List<List<int[]>> outEdges, int i, int j, RandomGenerator rng) {
+        int attributesIndex = rng.nextDouble() < 0.05 ? 0 : 1 + rng.nextInt(ATTRIBUTE_SETS.size() - 1);
+        boolean inverted = rng.nextBoolean();
+        outEdges.get(i).add(new int[]{j, inverted ? 1 : 0, attributesIndex});
+        outEdges.get(j).add(new int[]{i, inverted ? 0 : 1, attributesIndex});
+    }
+
+    // Écrit un profil de type aléatoire et retourne la valeur de profile_ids correspondante
+    private static int putProfile(ShortBuffer elevations, int lengthQ28_4, RandomGenerator rng) {
+        int profileType = rng.nextInt(4);
+        if (profileType == 0)
+            return 0;
+        int firstSampleId = elevations.position();
+        int sampleCount = 1 + (lengthQ28_4 + 31) / 32;
+        elevations.put((short) ((400 + rng.nextInt(200)) << 4));
+        int samplesPerShort = 1 << (profileType - 1);
+        for (int s = 1; s < sampleCount; s += samplesPerShort) {
+            int value = 0;
+            for (int j = 0; j < samplesPerShort; j++)
+                value = value << (Short.SIZE / samplesPerShort) | rng.nextInt(1 << (Short.SIZE / samplesPerShort));
+            elevations.put((short) value);
+        }
+        return profileType << 30 | firstSampleId;
+    }
+}